@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.benchmark.jmh;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventSerializer;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaTimeoutEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckFailedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckSucceedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensatedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.fsm.channel.serializer.CompatibleActorEventSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The round trip of the events published to the Kafka, Redis and Rabbit channels, one event of
+ * every type per operation, with every format of the channel serializer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChannelSerializerBenchmark {
+
+  @Param({"kryo", "json"})
+  private String format;
+
+  private ActorEventSerializer serializer;
+  private List<BaseEvent> events;
+
+  @Setup
+  public void setUp() {
+    serializer = new CompatibleActorEventSerializer(format);
+    String globalTxId = UUID.randomUUID().toString();
+    String localTxId = UUID.randomUUID().toString();
+    byte[] payloads = "payloads".getBytes();
+    events = Arrays.asList(
+        SagaStartedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).timeout(30).build(),
+        SagaEndedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).build(),
+        SagaAbortedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).payloads(payloads).build(),
+        SagaTimeoutEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).build(),
+        TxStartedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId)
+            .compensationMethod("cancel").payloads(payloads).retryMethod("retry")
+            .forwardRetries(1).forwardTimeout(2).reverseRetries(3).reverseTimeout(4)
+            .retryDelayInMilliseconds(5).build(),
+        TxEndedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId).build(),
+        TxAbortedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId)
+            .payloads(payloads).build(),
+        TxCompensatedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId).build(),
+        TxCompensateAckSucceedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId).build(),
+        TxCompensateAckFailedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId)
+            .payloads(payloads).build());
+  }
+
+  @Benchmark
+  public void roundTrip(Blackhole blackhole) {
+    for (BaseEvent event : events) {
+      blackhole.consume(serializer.deserialize(serializer.serialize(event)));
+    }
+  }
+}
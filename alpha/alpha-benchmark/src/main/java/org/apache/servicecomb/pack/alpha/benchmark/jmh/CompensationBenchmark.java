@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.benchmark.jmh;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.fsm.model.TxEntities;
+import org.apache.servicecomb.pack.alpha.fsm.model.TxEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compensates a saga the way the actor does: each ack checks the states and walks the entities in
+ * reverse order for the next compensation. The time per saga divided by the sub transactions is
+ * the cost of an ack.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompensationBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int subTransactions;
+
+  @Benchmark
+  public TxEntities compensate(Blackhole blackhole) {
+    TxEntities txEntities = new TxEntities();
+    for (int i = 0; i < subTransactions; i++) {
+      txEntities.put(String.valueOf(i), TxEntity.builder().state(TxState.COMMITTED).build());
+    }
+    txEntities.forEachReverse((k, v) -> v.setState(TxState.COMPENSATION_SENT));
+    for (int i = subTransactions - 1; i >= 0; i--) {
+      txEntities.get(String.valueOf(i)).setState(TxState.COMPENSATED_SUCCEED);
+      if (txEntities.hasCommittedTx()) {
+        txEntities.forEachReverse((k, v) -> blackhole.consume(v));
+      }
+      blackhole.consume(txEntities.hasCompensationSentTx());
+      blackhole.consume(txEntities.hasCompensationFailedTx());
+    }
+    return txEntities;
+  }
+}
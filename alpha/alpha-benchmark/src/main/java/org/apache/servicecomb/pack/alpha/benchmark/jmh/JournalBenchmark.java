@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.benchmark.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.servicecomb.pack.alpha.core.fsm.SuspendedType;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.CompensateAckTimeoutEvent;
+import org.apache.servicecomb.pack.alpha.fsm.SagaActorState;
+import org.apache.servicecomb.pack.alpha.fsm.domain.AddTxEventDomain;
+import org.apache.servicecomb.pack.alpha.fsm.domain.DomainEvent;
+import org.apache.servicecomb.pack.alpha.fsm.domain.DomainEventSerializer;
+import org.apache.servicecomb.pack.alpha.fsm.domain.SagaEndedDomain;
+import org.apache.servicecomb.pack.alpha.fsm.domain.SagaStartedDomain;
+import org.apache.servicecomb.pack.alpha.fsm.domain.UpdateTxEventDomain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Persisting and recovering the journal of a saga with 3 sub transactions, with the
+ * {@link DomainEventSerializer} compared with java serialization.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+
+  @Param({"domain-event", "java"})
+  private String serializer;
+
+  private final DomainEventSerializer domainEventSerializer = new DomainEventSerializer();
+  private final List<DomainEvent> journal = journal(UUID.randomUUID().toString(), 3);
+  private final List<byte[]> entries = new ArrayList<>();
+
+  @Setup
+  public void setUp() throws IOException {
+    for (DomainEvent domainEvent : journal) {
+      entries.add(toBinary(domainEvent));
+    }
+  }
+
+  @Benchmark
+  public void persist(Blackhole blackhole) throws IOException {
+    for (DomainEvent domainEvent : journal) {
+      blackhole.consume(toBinary(domainEvent));
+    }
+  }
+
+  @Benchmark
+  public void recover(Blackhole blackhole) throws Exception {
+    for (int i = 0; i < journal.size(); i++) {
+      blackhole.consume(fromBinary(entries.get(i), journal.get(i)));
+    }
+  }
+
+  private byte[] toBinary(DomainEvent domainEvent) throws IOException {
+    if ("domain-event".equals(serializer)) {
+      return domainEventSerializer.toBinary(domainEvent);
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream stream = new ObjectOutputStream(bytes)) {
+      stream.writeObject(domainEvent);
+    }
+    return bytes.toByteArray();
+  }
+
+  private Object fromBinary(byte[] entry, DomainEvent domainEvent) throws Exception {
+    if ("domain-event".equals(serializer)) {
+      return domainEventSerializer.fromBinary(entry, domainEventSerializer.manifest(domainEvent));
+    }
+    try (ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(entry))) {
+      return stream.readObject();
+    }
+  }
+
+  // the journal of a saga with a failed sub transaction and a compensation ack timeout
+  private static List<DomainEvent> journal(String globalTxId, int subTransactions) {
+    List<DomainEvent> journal = new ArrayList<>();
+    journal.add(new SagaStartedDomain(SagaStartedEvent.builder().serviceName("service-a")
+        .instanceId("instance-a").globalTxId(globalTxId).timeout(30).build()));
+    for (int i = 0; i < subTransactions; i++) {
+      String localTxId = globalTxId + "-" + i;
+      journal.add(new AddTxEventDomain(TxStartedEvent.builder().serviceName("service-b")
+          .instanceId("instance-b").globalTxId(globalTxId).parentTxId(globalTxId)
+          .localTxId(localTxId).compensationMethod("cancel").payloads("payloads".getBytes())
+          .retryMethod("retry").forwardRetries(1).forwardTimeout(2).reverseRetries(3)
+          .reverseTimeout(4).retryDelayInMilliseconds(5).build()));
+      if (i < subTransactions - 1) {
+        journal.add(new UpdateTxEventDomain(TxEndedEvent.builder().serviceName("service-b")
+            .instanceId("instance-b").globalTxId(globalTxId).parentTxId(globalTxId)
+            .localTxId(localTxId).build()));
+      } else {
+        journal.add(new UpdateTxEventDomain(TxAbortedEvent.builder().serviceName("service-b")
+            .instanceId("instance-b").globalTxId(globalTxId).parentTxId(globalTxId)
+            .localTxId(localTxId).payloads("java.lang.NullPointerException".getBytes())
+            .build()));
+      }
+    }
+    journal.add(new UpdateTxEventDomain(CompensateAckTimeoutEvent.builder()
+        .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(globalTxId + "-0")
+        .payloads("compensate ack timeout".getBytes()).build()));
+    journal.add(new SagaEndedDomain(SagaEndedEvent.builder().serviceName("service-a")
+        .instanceId("instance-a").globalTxId(globalTxId).build(), SagaActorState.FAILED));
+    journal.add(new SagaEndedDomain(null, SagaActorState.SUSPENDED, SuspendedType.TIMEOUT));
+    return journal;
+  }
+}
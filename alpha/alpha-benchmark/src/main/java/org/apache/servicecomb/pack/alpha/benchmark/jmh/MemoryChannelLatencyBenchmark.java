@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.benchmark.jmh;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.fsm.channel.memory.MemoryActorEventChannel;
+import org.apache.servicecomb.pack.alpha.fsm.channel.memory.MemorySagaEventConsumer;
+import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The latency from enqueuing an event to the memory channel until the shard region actor receives
+ * it, for every wait strategy of the channel. The channel is idle before each event, so the wake
+ * up of the consumer is part of the latency, the sampled percentiles are in the result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoryChannelLatencyBenchmark {
+
+  @Param({"blocking", "parking", "yielding", "busy-spin"})
+  private String waitStrategy;
+
+  private final AtomicLong received = new AtomicLong();
+  private ActorSystem system;
+  private MemoryActorEventChannel channel;
+  private long sent;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    system = ActorSystem.create("MemoryChannelLatencyBenchmark");
+    ActorRef region = system.actorOf(Props.create(ReceivedActor.class,
+        () -> new ReceivedActor(received)), "region");
+    channel = new MemoryActorEventChannel(new MetricsService(), 1024, waitStrategy);
+    new MemorySagaEventConsumer(system, region, new MetricsService(), channel);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    channel.shutdown();
+    system.terminate();
+  }
+
+  @Benchmark
+  public void enqueueToActor() {
+    channel.send(SagaStartedEvent.builder().globalTxId(String.valueOf(sent)).build());
+    sent++;
+    while (received.get() < sent) {
+      // spins until the actor has received the event
+    }
+  }
+
+  static class ReceivedActor extends AbstractActor {
+
+    private final AtomicLong received;
+
+    ReceivedActor(AtomicLong received) {
+      this.received = received;
+    }
+
+    @Override
+    public Receive createReceive() {
+      return receiveBuilder()
+          .match(BaseEvent.class, event -> received.incrementAndGet())
+          .build();
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.benchmark.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.servicecomb.pack.omega.transaction.wrapper.TimeoutProb;
+import org.apache.servicecomb.pack.omega.transaction.wrapper.TimeoutProbManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost of adding and removing the timeout probe of a transaction while other probes are
+ * outstanding, the probe thread keeps ticking over the outstanding probes meanwhile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeoutProbManagerBenchmark {
+
+  @Param({"1", "100"})
+  private long tickDuration;
+
+  @Param({"10000"})
+  private int outstanding;
+
+  private TimeoutProbManager manager;
+  private final List<TimeoutProb> timeoutProbs = new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    manager = new TimeoutProbManager(tickDuration, TimeUnit.MILLISECONDS,
+        TimeoutProbManager.DEFAULT_TICKS_PER_WHEEL);
+    for (int i = 0; i < outstanding; i++) {
+      // none of them expires during the trial
+      timeoutProbs.add(manager.addTimeoutProb(3600 + i % 60));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    timeoutProbs.forEach(manager::removeTimeoutProb);
+    timeoutProbs.clear();
+    manager.stop();
+  }
+
+  @Benchmark
+  public void addAndRemove() {
+    manager.removeTimeoutProb(manager.addTimeoutProb(60));
+  }
+}
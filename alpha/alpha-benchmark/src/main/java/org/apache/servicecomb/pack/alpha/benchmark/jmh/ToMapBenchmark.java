@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.benchmark.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the direct map construction of <code>BaseEvent.toMap</code> with the former JSON round
+ * trip through a new <code>ObjectMapper</code>, run with <code>-prof gc</code> to see the
+ * allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToMapBenchmark {
+
+  private final String globalTxId = UUID.randomUUID().toString();
+
+  private final TxStartedEvent event = TxStartedEvent.builder()
+      .serviceName("service-a").instanceId("instance-a")
+      .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(UUID.randomUUID().toString())
+      .compensationMethod("cancel").payloads("payloads".getBytes()).retryMethod("retry")
+      .forwardRetries(1).forwardTimeout(2).reverseRetries(3).reverseTimeout(4)
+      .retryDelayInMilliseconds(5).build();
+
+  @Benchmark
+  public Map<String, Object> toMap() {
+    return event.toMap();
+  }
+
+  @Benchmark
+  public Map<?, ?> jsonRoundTrip() throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+    return mapper.readValue(mapper.writeValueAsString(event), Map.class);
+  }
+}
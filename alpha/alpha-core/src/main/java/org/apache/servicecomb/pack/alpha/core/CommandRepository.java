@@ -27,5 +27,5 @@ public interface CommandRepository {
 
   List<Command> findUncompletedCommands(String globalTxId);
 
-  List<Command> findFirstCommandToCompensate();
+  List<Command> findCommandsToCompensate(int size);
 }
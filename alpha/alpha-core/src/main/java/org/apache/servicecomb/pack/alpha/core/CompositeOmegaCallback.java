@@ -23,6 +23,10 @@ import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.servicecomb.pack.alpha.core.exception.CompensateAckFailedException;
 import org.apache.servicecomb.pack.alpha.core.exception.CompensateConnectException;
@@ -40,7 +44,46 @@ public class CompositeOmegaCallback implements OmegaCallback {
   @Override
   public void compensate(TxEvent event) {
     Map<String, OmegaCallback> serviceCallbacks = callbacks.getOrDefault(event.serviceName(), emptyMap());
+    OmegaCallback omegaCallback = pickCallback(event, serviceCallbacks);
 
+    try {
+      omegaCallback.compensate(event);
+    } catch (CompensateConnectException e) {
+      serviceCallbacks.values().remove(omegaCallback);
+      throw e;
+    } catch (CompensateAckFailedException e) {
+      throw e;
+    } catch (Exception e) {
+      serviceCallbacks.values().remove(omegaCallback);
+      throw e;
+    }
+  }
+
+  @Override
+  public CompletionStage<Void> compensateAsync(TxEvent event) {
+    Map<String, OmegaCallback> serviceCallbacks = callbacks.getOrDefault(event.serviceName(), emptyMap());
+    OmegaCallback omegaCallback;
+    try {
+      omegaCallback = pickCallback(event, serviceCallbacks);
+    } catch (AlphaException e) {
+      CompletableFuture<Void> future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+      return future;
+    }
+
+    // return the stage of the callback itself, so the caller could still complete it on timeout
+    CompletionStage<Void> stage = omegaCallback.compensateAsync(event);
+    stage.whenComplete((ignored, throwable) -> {
+      Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+      if (cause != null && !(cause instanceof CompensateAckFailedException)
+          && !(cause instanceof TimeoutException)) {
+        serviceCallbacks.values().remove(omegaCallback);
+      }
+    });
+    return stage;
+  }
+
+  private OmegaCallback pickCallback(TxEvent event, Map<String, OmegaCallback> serviceCallbacks) {
     OmegaCallback omegaCallback = serviceCallbacks.get(event.instanceId());
     if (omegaCallback == null) {
       LOG.info("Cannot find the service with the instanceId {}, call the other instance.", event.instanceId());
@@ -53,17 +96,6 @@ public class CompositeOmegaCallback implements OmegaCallback {
     if(omegaCallback==null){
       throw new AlphaException("No such omega callback found for service " + event.serviceName());
     }
-
-    try {
-      omegaCallback.compensate(event);
-    } catch (CompensateConnectException e) {
-      serviceCallbacks.values().remove(omegaCallback);
-      throw e;
-    } catch (CompensateAckFailedException e) {
-      throw e;
-    } catch (Exception e) {
-      serviceCallbacks.values().remove(omegaCallback);
-      throw e;
-    }
+    return omegaCallback;
   }
 }
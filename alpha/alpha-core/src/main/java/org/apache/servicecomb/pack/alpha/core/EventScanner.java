@@ -24,7 +24,11 @@ import static org.apache.servicecomb.pack.common.EventType.TxEndedEvent;
 import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
 
 import org.slf4j.Logger;
@@ -39,6 +43,8 @@ public class EventScanner implements Runnable {
 
   private final TxEventRepository eventRepository;
 
+  private final GlobalTxStateRepository stateRepository;
+
   private final CommandRepository commandRepository;
 
   private final TxTimeoutRepository timeoutRepository;
@@ -47,24 +53,35 @@ public class EventScanner implements Runnable {
 
   private final int eventPollingInterval;
 
-  private long nextEndedEventId;
+  private final int batchSize;
 
   private long nextCompensatedEventId;
 
+  private String nextTimeoutGlobalTxId = "";
+
+  private String nextUncompensatedGlobalTxId = "";
+
+  private String nextAbortedGlobalTxId = "";
+
   private NodeStatus nodeStatus;
 
   public EventScanner(ScheduledExecutorService scheduler,
       TxEventRepository eventRepository,
+      GlobalTxStateRepository stateRepository,
       CommandRepository commandRepository,
       TxTimeoutRepository timeoutRepository,
       OmegaCallback omegaCallback,
-      int eventPollingInterval,NodeStatus nodeStatus) {
+      int eventPollingInterval,
+      int batchSize,
+      NodeStatus nodeStatus) {
     this.scheduler = scheduler;
     this.eventRepository = eventRepository;
+    this.stateRepository = stateRepository;
     this.commandRepository = commandRepository;
     this.timeoutRepository = timeoutRepository;
     this.omegaCallback = omegaCallback;
     this.eventPollingInterval = eventPollingInterval;
+    this.batchSize = batchSize;
     this.nodeStatus = nodeStatus;
   }
 
@@ -89,7 +106,6 @@ public class EventScanner implements Runnable {
             saveUncompensatedEventsToCommands();
             compensate();
             updateCompensatedCommands();
-            deleteDuplicateSagaEndedEvents();
             updateTransactionStatus();
           }
         },
@@ -99,11 +115,38 @@ public class EventScanner implements Runnable {
   }
 
   private void findTimeoutEvents() {
-    eventRepository.findTimeoutEvents()
-        .forEach(event -> {
-          LOG.info("Found timeout event {}", event);
-          timeoutRepository.save(txTimeoutOf(event));
-        });
+    List<String> globalTxIds = stateRepository.findTimeoutGlobalTxIds(nextTimeoutGlobalTxId, batchSize);
+    nextTimeoutGlobalTxId = nextGlobalTxIdOf(globalTxIds);
+
+    List<TxTimeout> timeouts = new ArrayList<>();
+    globalTxIds.forEach(globalTxId -> {
+      eventRepository.findTimeoutEvents(globalTxId)
+          .forEach(event -> {
+            LOG.info("Found timeout event {}", event);
+            timeouts.add(txTimeoutOf(event));
+          });
+      advanceExpiryTime(globalTxId);
+    });
+    if (!timeouts.isEmpty()) {
+      timeoutRepository.saveAll(timeouts);
+    }
+  }
+
+  // the earliest expiry time has passed, move on to the next one so the global transaction isn't picked up
+  // on every scan until it ends
+  private void advanceExpiryTime(String globalTxId) {
+    stateRepository.advanceExpiryTime(globalTxId, nextExpiryTimeOf(globalTxId));
+    // a sub transaction could start while advancing, look again to keep its expiry time
+    stateRepository.updateExpiryTimeIfEarlier(globalTxId, nextExpiryTimeOf(globalTxId));
+  }
+
+  private Date nextExpiryTimeOf(String globalTxId) {
+    return eventRepository.findNextExpiryTime(globalTxId).orElse(new Date(TxEvent.MAX_TIMESTAMP));
+  }
+
+  // start over from the beginning once the last batch was not full
+  private String nextGlobalTxIdOf(List<String> globalTxIds) {
+    return globalTxIds.size() < batchSize ? "" : globalTxIds.get(globalTxIds.size() - 1);
   }
 
   private void updateTimeoutStatus() {
@@ -111,45 +154,52 @@ public class EventScanner implements Runnable {
   }
 
   private void saveUncompensatedEventsToCommands() {
-    eventRepository.findFirstUncompensatedEventByIdGreaterThan(nextEndedEventId, TxEndedEvent.name())
-        .forEach(event -> {
-          LOG.info("Found uncompensated event {}", event);
-          nextEndedEventId = event.id();
-          commandRepository.saveCompensationCommands(event.globalTxId());
-        });
+    List<String> globalTxIds = stateRepository.findAbortedGlobalTxIds(nextUncompensatedGlobalTxId, batchSize);
+    nextUncompensatedGlobalTxId = nextGlobalTxIdOf(globalTxIds);
+
+    globalTxIds.forEach(globalTxId -> {
+      List<TxEvent> events = eventRepository.findUncompensatedEvents(globalTxId, TxEndedEvent.name());
+      if (!events.isEmpty()) {
+        LOG.info("Found uncompensated events {}", events);
+        commandRepository.saveCompensationCommands(globalTxId);
+      }
+    });
   }
 
   private void updateCompensatedCommands() {
-    eventRepository.findFirstCompensatedEventByIdGreaterThan(nextCompensatedEventId)
-        .ifPresent(event -> {
-          LOG.info("Found compensated event {}", event);
-          nextCompensatedEventId = event.id();
-          updateCompensationStatus(event);
-        });
+    List<TxEvent> events = eventRepository.findCompensatedEventsByIdGreaterThan(nextCompensatedEventId, batchSize);
+    if (events.isEmpty()) {
+      return;
+    }
+    nextCompensatedEventId = events.get(events.size() - 1).id();
+
+    Map<String, TxEvent> lastEventOfGlobalTx = new LinkedHashMap<>();
+    events.forEach(event -> {
+      LOG.info("Found compensated event {}", event);
+      commandRepository.markCommandAsDone(event.globalTxId(), event.localTxId());
+      LOG.info("Transaction with globalTxId {} and localTxId {} was compensated",
+          event.globalTxId(),
+          event.localTxId());
+      lastEventOfGlobalTx.put(event.globalTxId(), event);
+    });
+    // check the end of each saga once per batch instead of once per compensated event
+    lastEventOfGlobalTx.values().forEach(this::markSagaEnded);
   }
 
-  private void deleteDuplicateSagaEndedEvents() {
+  private void deleteDuplicateSagaEndedEvents(String globalTxId) {
     try {
-      eventRepository.deleteDuplicateEvents(SagaEndedEvent.name());
+      eventRepository.deleteDuplicateEvents(globalTxId, SagaEndedEvent.name());
     } catch (Exception e) {
       LOG.warn("Failed to delete duplicate event", e);
     }
   }
 
-  private void updateCompensationStatus(TxEvent event) {
-    commandRepository.markCommandAsDone(event.globalTxId(), event.localTxId());
-    LOG.info("Transaction with globalTxId {} and localTxId {} was compensated",
-        event.globalTxId(),
-        event.localTxId());
-
-    markSagaEnded(event);
-  }
-
   private void abortTimeoutEvents() {
-    timeoutRepository.findFirstTimeout().forEach(timeout -> {
+    timeoutRepository.findTimeouts(batchSize).forEach(timeout -> {
       LOG.info("Found timeout event {} to abort", timeout);
 
       eventRepository.save(toTxAbortedEvent(timeout));
+      stateRepository.markAborted(timeout.globalTxId());
 
       if (timeout.type().equals(TxStartedEvent.name())) {
         eventRepository.findTxStartedEvent(timeout.globalTxId(), timeout.localTxId())
@@ -159,7 +209,11 @@ public class EventScanner implements Runnable {
   }
 
   private void updateTransactionStatus() {
-    eventRepository.findFirstAbortedGlobalTransaction().ifPresent(this::markGlobalTxEndWithEvents);
+    List<String> globalTxIds = stateRepository.findAbortedGlobalTxIds(nextAbortedGlobalTxId, batchSize);
+    nextAbortedGlobalTxId = nextGlobalTxIdOf(globalTxIds);
+
+    globalTxIds.forEach(
+        globalTxId -> markGlobalTxEndWithEvents(eventRepository.findAbortedGlobalTransaction(globalTxId)));
   }
 
   private void markSagaEnded(TxEvent event) {
@@ -170,7 +224,14 @@ public class EventScanner implements Runnable {
 
   private void markGlobalTxEndWithEvent(TxEvent event) {
     eventRepository.save(toSagaEndedEvent(event));
+    stateRepository.markEnded(event.globalTxId());
+    // a sub transaction could end while the saga is being ended, keep the saga running to compensate it
+    if (!eventRepository.findUncompensatedEvents(event.globalTxId(), TxEndedEvent.name()).isEmpty()) {
+      stateRepository.reopenAborted(event.globalTxId());
+    }
     LOG.info("Marked end of transaction with globalTxId {}", event.globalTxId());
+    // the saga could be ended again by a compensation which arrives after it was ended, keep the last one only
+    deleteDuplicateSagaEndedEvents(event.globalTxId());
   }
 
   private void markGlobalTxEndWithEvents(List<TxEvent> events) {
@@ -202,7 +263,7 @@ public class EventScanner implements Runnable {
   }
   
   private void compensate() {
-    commandRepository.findFirstCommandToCompensate()
+    commandRepository.findCommandsToCompensate(batchSize)
         .forEach(command -> {
           LOG.info("Compensating transaction with globalTxId {} and localTxId {}",
               command.globalTxId(),
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.core;
+
+import java.util.Date;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+/**
+ * Per saga index row which is maintained incrementally while the events arrive, so the
+ * {@link EventScanner} only needs to look at the sagas which may require an action
+ * instead of scanning the whole {@link TxEvent} history.
+ */
+@Entity
+@Table(name = "GlobalTxState")
+public class GlobalTxState {
+  @Id
+  private String globalTxId;
+
+  private String status;
+  private boolean aborted;
+  private Date expiryTime;
+  private Date lastModified;
+
+  // a null version makes a new state to be inserted instead of merged over a concurrently created one
+  @Version
+  private Long version;
+
+  GlobalTxState() {
+  }
+
+  public GlobalTxState(String globalTxId, String status, boolean aborted, Date expiryTime) {
+    this.globalTxId = globalTxId;
+    this.status = status;
+    this.aborted = aborted;
+    this.expiryTime = expiryTime;
+    this.lastModified = new Date();
+  }
+
+  public String globalTxId() {
+    return globalTxId;
+  }
+
+  public String status() {
+    return status;
+  }
+
+  public boolean aborted() {
+    return aborted;
+  }
+
+  public Date expiryTime() {
+    return expiryTime;
+  }
+
+  public Date lastModified() {
+    return lastModified;
+  }
+
+  @Override
+  public String toString() {
+    return "GlobalTxState{" +
+        "globalTxId='" + globalTxId + '\'' +
+        ", status='" + status + '\'' +
+        ", aborted=" + aborted +
+        ", expiryTime=" + expiryTime +
+        ", lastModified=" + lastModified +
+        '}';
+  }
+}
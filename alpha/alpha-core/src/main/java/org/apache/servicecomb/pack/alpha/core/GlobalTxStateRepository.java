@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.core;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for {@link GlobalTxState}
+ */
+public interface GlobalTxStateRepository {
+
+  /**
+   * Save a {@link GlobalTxState} if there is no state of the same {@link GlobalTxState#globalTxId} yet.
+   *
+   * @param state
+   */
+  void save(GlobalTxState state);
+
+  /**
+   * Find the {@link GlobalTxState} of the param <code>globalTxId</code>.
+   *
+   * @param globalTxId
+   * @return
+   */
+  Optional<GlobalTxState> findByGlobalTxId(String globalTxId);
+
+  /**
+   * Set {@link GlobalTxState#expiryTime} to param <code>expiryTime</code> if it is earlier than the current one.
+   *
+   * @param globalTxId
+   * @param expiryTime
+   */
+  void updateExpiryTimeIfEarlier(String globalTxId, Date expiryTime);
+
+  /**
+   * Set {@link GlobalTxState#expiryTime} to param <code>expiryTime</code> if the current one has passed,
+   * so the global transaction is not picked up as timeout again until its next sub transaction expires.
+   *
+   * @param globalTxId
+   * @param expiryTime
+   */
+  void advanceExpiryTime(String globalTxId, Date expiryTime);
+
+  /**
+   * Mark the global transaction as aborted and move it back to {@link GlobalTxStatus#RUNNING} if it was ended,
+   * so it will be picked up by the compensation stages of the scanner.
+   *
+   * @param globalTxId
+   */
+  void markAborted(String globalTxId);
+
+  /**
+   * Move an aborted global transaction which was already ended back to {@link GlobalTxStatus#RUNNING},
+   * which happens when a sub transaction ends after its global transaction was aborted.
+   *
+   * @param globalTxId
+   */
+  void reopenAborted(String globalTxId);
+
+  /**
+   * Move the global transaction from {@link GlobalTxStatus#RUNNING} to {@link GlobalTxStatus#ENDED}.
+   *
+   * @param globalTxId
+   */
+  void markEnded(String globalTxId);
+
+  /**
+   * Find the {@link GlobalTxState#globalTxId}s which satisfy below requirements:
+   * <ol>
+   *   <li>{@link GlobalTxState#status} is {@link GlobalTxStatus#RUNNING}</li>
+   *   <li>{@link GlobalTxState#expiryTime} is earlier than current time</li>
+   *   <li>{@link GlobalTxState#globalTxId} is greater than param <code>globalTxId</code></li>
+   * </ol>
+   * The result is ordered by {@link GlobalTxState#globalTxId} and limited to param <code>size</code>,
+   * so the caller can walk through all of them in batches.
+   *
+   * @param globalTxId
+   * @param size
+   * @return
+   */
+  List<String> findTimeoutGlobalTxIds(String globalTxId, int size);
+
+  /**
+   * Find the {@link GlobalTxState#globalTxId}s which satisfy below requirements:
+   * <ol>
+   *   <li>{@link GlobalTxState#status} is {@link GlobalTxStatus#RUNNING}</li>
+   *   <li>{@link GlobalTxState#aborted} is true</li>
+   *   <li>{@link GlobalTxState#globalTxId} is greater than param <code>globalTxId</code></li>
+   * </ol>
+   * The result is ordered by {@link GlobalTxState#globalTxId} and limited to param <code>size</code>,
+   * so the caller can walk through all of them in batches.
+   *
+   * @param globalTxId
+   * @param size
+   * @return
+   */
+  List<String> findAbortedGlobalTxIds(String globalTxId, int size);
+}
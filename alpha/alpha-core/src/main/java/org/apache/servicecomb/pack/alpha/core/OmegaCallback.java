@@ -17,17 +17,42 @@
 
 package org.apache.servicecomb.pack.alpha.core;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import org.apache.servicecomb.pack.alpha.core.fsm.CompensateAckType;
 
 public interface OmegaCallback {
   void compensate(TxEvent event);
 
+  /**
+   * Send the compensation command without waiting for the ack of omega.
+   * The returned stage is completed when the ack of the param <code>event</code> arrives,
+   * implementations which cannot pipeline the commands fall back to {@link #compensate(TxEvent)}.
+   *
+   * @param event
+   * @return
+   */
+  default CompletionStage<Void> compensateAsync(TxEvent event) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    try {
+      compensate(event);
+      future.complete(null);
+    } catch (Exception e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
   default void disconnect() {
   }
 
   default void getAck(CompensateAckType type) {
   }
 
+  default void getAck(String globalTxId, String localTxId, CompensateAckType type) {
+    getAck(type);
+  }
+
   default boolean isWaiting() {
     return false;
   }
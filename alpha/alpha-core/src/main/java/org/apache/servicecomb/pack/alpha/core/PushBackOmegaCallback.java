@@ -21,6 +21,7 @@ import static org.apache.servicecomb.pack.common.EventType.TxCompensateEvent;
 
 import java.lang.invoke.MethodHandles;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +52,15 @@ public class PushBackOmegaCallback implements OmegaCallback {
     }
   }
 
+  @Override
+  public CompletionStage<Void> compensateAsync(TxEvent event) {
+    if (event.type().equals(TxCompensateEvent.name())) {
+      // actor call compensate, the failure is handled by the actor
+      return underlying.compensateAsync(event);
+    }
+    return OmegaCallback.super.compensateAsync(event);
+  }
+
   private void logError(TxEvent event, Exception e) {
     LOG.error(
         "Failed to {} service [{}] instance [{}] with method [{}], global tx id [{}] and local tx id [{}]",
@@ -18,12 +18,15 @@
 package org.apache.servicecomb.pack.alpha.core;
 
 import static org.apache.servicecomb.pack.common.EventType.SagaEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.SagaStartedEvent;
 import static org.apache.servicecomb.pack.common.EventType.TxAbortedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxEndedEvent;
 import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
 
 import java.lang.invoke.MethodHandles;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,10 +37,13 @@ public class TxConsistentService {
 
   private final TxEventRepository eventRepository;
 
+  private final GlobalTxStateRepository stateRepository;
+
   private final List<String> types = Arrays.asList(TxStartedEvent.name(), SagaEndedEvent.name());
 
-  public TxConsistentService(TxEventRepository eventRepository) {
+  public TxConsistentService(TxEventRepository eventRepository, GlobalTxStateRepository stateRepository) {
     this.eventRepository = eventRepository;
+    this.stateRepository = stateRepository;
   }
   public boolean handle(TxEvent event) {
     if (types.contains(event.type()) && isGlobalTxAborted(event)) {
@@ -47,11 +53,37 @@ public class TxConsistentService {
     }
 
     eventRepository.save(event);
+    // the state is updated after the event is stored, so the scanner never acts on a state without its event
+    updateGlobalTxState(event);
 
     return true;
   }
 
   private boolean isGlobalTxAborted(TxEvent event) {
+    Optional<GlobalTxState> state = stateRepository.findByGlobalTxId(event.globalTxId());
+    if (state.isPresent() && !state.get().aborted()) {
+      return false;
+    }
+    // the retries of the aborted sub transaction decide whether the global transaction is aborted
     return !eventRepository.findTransactions(event.globalTxId(), TxAbortedEvent.name()).isEmpty();
   }
+
+  private void updateGlobalTxState(TxEvent event) {
+    String type = event.type();
+    if (SagaStartedEvent.name().equals(type) || TxStartedEvent.name().equals(type)) {
+      stateRepository.save(
+          new GlobalTxState(event.globalTxId(), GlobalTxStatus.RUNNING.name(), false, event.expiryTime()));
+      if (event.expiryTime().getTime() != TxEvent.MAX_TIMESTAMP) {
+        stateRepository.updateExpiryTimeIfEarlier(event.globalTxId(), event.expiryTime());
+      }
+    } else if (TxAbortedEvent.name().equals(type)) {
+      stateRepository.save(
+          new GlobalTxState(event.globalTxId(), GlobalTxStatus.RUNNING.name(), true, event.expiryTime()));
+      stateRepository.markAborted(event.globalTxId());
+    } else if (TxEndedEvent.name().equals(type)) {
+      stateRepository.reopenAborted(event.globalTxId());
+    } else if (SagaEndedEvent.name().equals(type)) {
+      stateRepository.markEnded(event.globalTxId());
+    }
+  }
 }
@@ -17,6 +17,7 @@
 
 package org.apache.servicecomb.pack.alpha.core;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import org.apache.servicecomb.pack.common.EventType;
@@ -34,28 +35,42 @@ public interface TxEventRepository {
   void save(TxEvent event);
 
   /**
-   * Find a {@link TxEvent} which satisfies below requirements:
+   * Find {@link TxEvent}s which satisfy below requirements:
    *
    * <ol>
+   *   <li>{@link TxEvent#globalTxId} equals to param <code>globalTxId</code></li>
    *   <li>{@link TxEvent#type} is {@link EventType#TxAbortedEvent}</li>
    *   <li>There are no {@link TxEvent} which has the same {@link TxEvent#globalTxId} and {@link TxEvent#type} is {@link EventType#TxEndedEvent} or {@link EventType#SagaEndedEvent}</li>
    * </ol>
+   *
+   * @param globalTxId globalTxId to search for
    * @return
    */
-  Optional<List<TxEvent>> findFirstAbortedGlobalTransaction();
+  List<TxEvent> findAbortedGlobalTransaction(String globalTxId);
 
   /**
    * Find timeout {@link TxEvent}s. A timeout TxEvent satisfies below requirements:
    *
    * <ol>
+   *  <li>{@link TxEvent#globalTxId} equals to param <code>globalTxId</code></li>
    *  <li>{@link TxEvent#type} is {@link EventType#TxStartedEvent} or {@link EventType#SagaStartedEvent}</li>
    *  <li>Current time greater than {@link TxEvent#expiryTime}</li>
    *  <li>There are no corresponding {@link TxEvent} which type is <code>TxEndedEvent</code> or <code>SagaEndedEvent</code></li>
    * </ol>
    *
+   * @param globalTxId globalTxId to search for
    * @return
    */
-  List<TxEvent> findTimeoutEvents();
+  List<TxEvent> findTimeoutEvents(String globalTxId);
+
+  /**
+   * Find the earliest {@link TxEvent#expiryTime} which is not passed yet among the {@link TxEvent}s which
+   * satisfy the requirements of {@link #findTimeoutEvents(String)} otherwise.
+   *
+   * @param globalTxId globalTxId to search for
+   * @return
+   */
+  Optional<Date> findNextExpiryTime(String globalTxId);
 
   /**
    * Find a {@link TxEvent} which satisfies below requirements:
@@ -85,37 +100,41 @@ public interface TxEventRepository {
   List<TxEvent> findTransactions(String globalTxId, String type);
 
   /**
-   * Find a {@link TxEvent} which satisfies below requirements:
+   * Find {@link TxEvent}s which satisfy below requirements:
    * <ol>
-   *   <li>{@link TxEvent#type} equals to {@link EventType#TxEndedEvent}</li>
-   *   <li>{@link TxEvent#surrogateId} greater than param <code>id</code></li>
+   *   <li>{@link TxEvent#globalTxId} equals to param <code>globalTxId</code></li>
    *   <li>{@link TxEvent#type} equals to param <code>type</code></li>
    *   <li>There is a corresponding <code>TxAbortedEvent</code></li>
    *   <li>There is no coresponding <code>TxCompensatedEvent</code></li>
+   *   <li>There is no corresponding {@link Command} yet</li>
    * </ol>
    *
-   * @param id
+   * @param globalTxId globalTxId to search for
+   * @param type       event type to search for
    * @return
    */
-  List<TxEvent> findFirstUncompensatedEventByIdGreaterThan(long id, String type);
+  List<TxEvent> findUncompensatedEvents(String globalTxId, String type);
 
   /**
-   * Find a {@link TxEvent} which satisfies below requirements:
+   * Find {@link TxEvent}s which satisfy below requirements:
    *
    * <ol>
    *   <li>{@link TxEvent#type} equals to {@link EventType#TxCompensatedEvent}</li>
    *   <li>{@link TxEvent#surrogateId} greater than param <code>id</code></li>
    * </ol>
+   * The result is ordered by {@link TxEvent#surrogateId} and limited to param <code>size</code>.
    *
    * @param id
+   * @param size
    * @return
    */
-  Optional<TxEvent> findFirstCompensatedEventByIdGreaterThan(long id);
+  List<TxEvent> findCompensatedEventsByIdGreaterThan(long id, int size);
 
   /**
-   * Delete duplicated {@link TxEvent}s which {@link TxEvent#type} equals param <code>type</code>.
+   * Delete duplicated {@link TxEvent}s of the param <code>globalTxId</code> which {@link TxEvent#type} equals param <code>type</code>.
    *
-   * @param type event type
+   * @param globalTxId globalTxId of the events
+   * @param type       event type
    */
-  void deleteDuplicateEvents(String type);
+  void deleteDuplicateEvents(String globalTxId, String type);
 }
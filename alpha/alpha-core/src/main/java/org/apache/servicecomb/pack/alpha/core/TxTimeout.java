@@ -94,6 +94,10 @@ public class TxTimeout {
     return status;
   }
 
+  public long id() {
+    return surrogateId;
+  }
+
   @Override
   public String toString() {
     return "TxTimeout{" +
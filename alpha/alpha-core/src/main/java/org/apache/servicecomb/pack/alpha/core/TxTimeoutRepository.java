@@ -22,7 +22,9 @@ import java.util.List;
 public interface TxTimeoutRepository {
   void save(TxTimeout timeout);
 
+  void saveAll(List<TxTimeout> timeouts);
+
   void markTimeoutAsDone();
 
-  List<TxTimeout> findFirstTimeout();
+  List<TxTimeout> findTimeouts(int size);
 }
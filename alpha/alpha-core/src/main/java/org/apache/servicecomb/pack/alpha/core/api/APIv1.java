@@ -17,6 +17,7 @@
 
 package org.apache.servicecomb.pack.alpha.core.api;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
@@ -33,7 +34,14 @@ public interface APIv1 {
   PagingGlobalTransactions getTransactions(String state, int page, int size)
       throws Exception;
 
+  PagingGlobalTransactions getTransactions(String state, String cursor, int size,
+      boolean snapshot) throws Exception;
+
   Map<String, Long> getTransactionStatistics();
 
+  Map<String, Long> getTransactionStatistics(Date startTime, Date endTime);
+
   List<GlobalTransaction> getSlowTransactions(int size);
+
+  List<GlobalTransaction> getSlowTransactions(int size, Date startTime, Date endTime);
 }
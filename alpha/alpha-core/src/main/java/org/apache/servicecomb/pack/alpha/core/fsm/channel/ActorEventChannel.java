@@ -17,8 +17,19 @@
 
 package org.apache.servicecomb.pack.alpha.core.fsm.channel;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 
 public interface ActorEventChannel {
   void send(BaseEvent event);
+
+  /**
+   * Completes when the event is accepted by the channel, the caller thread is not blocked by the
+   * channels which support asynchronous sending.
+   */
+  default CompletionStage<Void> sendAsync(BaseEvent event) {
+    send(event);
+    return CompletableFuture.completedFuture(null);
+  }
 }
@@ -15,24 +15,16 @@
  * limitations under the License.
  */
 
-package org.apache.servicecomb.pack.alpha.server.fsm;
+package org.apache.servicecomb.pack.alpha.core.fsm.channel;
 
-import java.util.concurrent.CountDownLatch;
-import org.apache.servicecomb.pack.alpha.core.fsm.CompensateAckType;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 
-public class CompensateAckCountDownLatch extends CountDownLatch {
-  private CompensateAckType type;
-
-  public CompensateAckCountDownLatch(int count) {
-    super(count);
-  }
+/**
+ * Encodes the events published to an {@link ActorEventChannel} which is backed by a message broker.
+ */
+public interface ActorEventSerializer {
 
-  public CompensateAckType getType() {
-    return type;
-  }
+  byte[] serialize(BaseEvent event);
 
-  public void countDown(CompensateAckType type) {
-    this.type = type;
-    super.countDown();
-  }
-}
\ No newline at end of file
+  BaseEvent deserialize(byte[] bytes);
+}
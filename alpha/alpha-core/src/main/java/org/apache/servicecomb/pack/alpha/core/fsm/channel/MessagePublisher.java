@@ -16,8 +16,16 @@
  */
 package org.apache.servicecomb.pack.alpha.core.fsm.channel;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 public interface MessagePublisher<T> {
 
     void publish(T data);
 
+    default CompletionStage<Void> publishAsync(T data) {
+        publish(data);
+        return CompletableFuture.completedFuture(null);
+    }
+
 }
@@ -18,6 +18,7 @@
 package org.apache.servicecomb.pack.alpha.core.fsm.event;
 
 import java.util.Date;
+import java.util.Map;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.SagaEvent;
 
 public class SagaStartedEvent extends SagaEvent {
@@ -31,6 +32,13 @@ public class SagaStartedEvent extends SagaEvent {
     this.timeout = timeout;
   }
 
+  @Override
+  public Map<String,Object> toMap() {
+    Map<String,Object> map = super.toMap();
+    map.put("timeout", timeout);
+    return map;
+  }
+
   public static Builder builder() {
     return new Builder();
   }
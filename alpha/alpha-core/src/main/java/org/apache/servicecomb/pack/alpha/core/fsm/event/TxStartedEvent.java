@@ -18,9 +18,11 @@
 package org.apache.servicecomb.pack.alpha.core.fsm.event;
 
 import java.util.Date;
+import java.util.Map;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.PayloadsEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.TxEvent;
 
-public class TxStartedEvent extends TxEvent {
+public class TxStartedEvent extends TxEvent implements PayloadsEvent {
   private String compensationMethod;
   private byte[] payloads;
   private String retryMethod;
@@ -94,6 +96,20 @@ public class TxStartedEvent extends TxEvent {
     this.retryDelayInMilliseconds = retryDelayInMilliseconds;
   }
 
+  @Override
+  public Map<String,Object> toMap() {
+    Map<String,Object> map = super.toMap();
+    map.put("compensationMethod", compensationMethod);
+    map.put("payloads", encodeBytes(payloads));
+    map.put("retryMethod", retryMethod);
+    map.put("forwardRetries", forwardRetries);
+    map.put("forwardTimeout", forwardTimeout);
+    map.put("reverseRetries", reverseRetries);
+    map.put("reverseTimeout", reverseTimeout);
+    map.put("retryDelayInMilliseconds", retryDelayInMilliseconds);
+    return map;
+  }
+
   public static Builder builder() {
     return new Builder();
   }
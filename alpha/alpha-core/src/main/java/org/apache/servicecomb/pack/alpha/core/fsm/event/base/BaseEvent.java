@@ -21,15 +21,18 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.Serializable;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaAbortedEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaEndedEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaTimeoutEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckFailedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckSucceedEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensatedEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.TxEndedEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
@@ -44,12 +47,13 @@ import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
     @JsonSubTypes.Type(value = TxStartedEvent.class, name = "TxStartedEvent"),
     @JsonSubTypes.Type(value = TxEndedEvent.class, name = "TxEndedEvent"),
     @JsonSubTypes.Type(value = TxAbortedEvent.class, name = "TxAbortedEvent"),
-    @JsonSubTypes.Type(value = TxCompensatedEvent.class, name = "TxCompensatedEvent")
+    @JsonSubTypes.Type(value = TxCompensatedEvent.class, name = "TxCompensatedEvent"),
+    @JsonSubTypes.Type(value = TxCompensateAckSucceedEvent.class, name = "TxCompensateAckSucceedEvent"),
+    @JsonSubTypes.Type(value = TxCompensateAckFailedEvent.class, name = "TxCompensateAckFailedEvent")
 })
 public abstract class BaseEvent implements Serializable {
 
   private static final long serialVersionUID = 7587021626678201246L;
-  private final ObjectMapper mapper = new ObjectMapper();
   private String serviceName;
   private String instanceId;
   private String globalTxId;
@@ -116,13 +120,30 @@ public abstract class BaseEvent implements Serializable {
   @Override
   public String toString() {
     try {
-      return mapper.writeValueAsString(this);
+      return EventCodec.writeValueAsString(this);
     } catch (JsonProcessingException e) {
       throw new RuntimeException(e);
     }
   }
 
-  public Map<String,Object> toMap() throws Exception {
-    return mapper.readValue(mapper.writeValueAsString(this), Map.class);
+  /**
+   * Builds the same map a JSON round trip of this event would produce, without rendering and
+   * re-parsing the JSON. Subclasses with additional properties add them on top of this map.
+   */
+  public Map<String,Object> toMap() {
+    Map<String,Object> map = new LinkedHashMap<>();
+    map.put("@type", getType());
+    map.put("serviceName", serviceName);
+    map.put("instanceId", instanceId);
+    map.put("globalTxId", globalTxId);
+    map.put("parentTxId", parentTxId);
+    map.put("localTxId", localTxId);
+    map.put("createTime", createTime == null ? null : createTime.getTime());
+    map.put("type", getType());
+    return map;
+  }
+
+  protected static String encodeBytes(byte[] bytes) {
+    return bytes == null ? null : Base64.getEncoder().encodeToString(bytes);
   }
 }
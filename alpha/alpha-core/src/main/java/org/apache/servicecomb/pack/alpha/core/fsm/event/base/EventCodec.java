@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.core.fsm.event.base;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.IOException;
+
+/**
+ * Shared JSON codec for {@link BaseEvent}. {@link ObjectMapper} is thread safe once configured
+ * and expensive to build, so every event and every channel reuses the same instance and the
+ * pre-resolved {@link ObjectReader} instead of creating their own.
+ */
+public final class EventCodec {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final ObjectReader EVENT_READER = MAPPER.readerFor(BaseEvent.class);
+
+  private EventCodec() {
+  }
+
+  /**
+   * Returns a copy of the shared mapper for the other JSON documents, e.g. the stored
+   * transactions, so configuring it never changes how the events are encoded. Callers keep the
+   * copy instead of asking for it per document.
+   */
+  public static ObjectMapper mapper() {
+    return MAPPER.copy();
+  }
+
+  public static String writeValueAsString(BaseEvent event) throws JsonProcessingException {
+    return MAPPER.writeValueAsString(event);
+  }
+
+  public static byte[] writeValueAsBytes(BaseEvent event) throws JsonProcessingException {
+    return MAPPER.writeValueAsBytes(event);
+  }
+
+  public static BaseEvent readEvent(String json) throws IOException {
+    return EVENT_READER.readValue(json);
+  }
+
+  public static BaseEvent readEvent(byte[] json) throws IOException {
+    return EVENT_READER.readValue(json);
+  }
+}
@@ -18,9 +18,11 @@
 package org.apache.servicecomb.pack.alpha.core.fsm.event.internal;
 
 import java.util.Date;
+import java.util.Map;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.PayloadsEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.TxEvent;
 
-public class CompensateAckTimeoutEvent extends TxEvent {
+public class CompensateAckTimeoutEvent extends TxEvent implements PayloadsEvent {
 
   private byte[] payloads;
 
@@ -32,6 +34,13 @@ public class CompensateAckTimeoutEvent extends TxEvent {
     this.payloads = payloads;
   }
 
+  @Override
+  public Map<String,Object> toMap() {
+    Map<String,Object> map = super.toMap();
+    map.put("payloads", encodeBytes(payloads));
+    return map;
+  }
+
   public static Builder builder() {
     return new Builder();
   }
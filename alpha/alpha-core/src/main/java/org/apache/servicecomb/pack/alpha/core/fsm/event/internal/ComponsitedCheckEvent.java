@@ -17,6 +17,7 @@
 
 package org.apache.servicecomb.pack.alpha.core.fsm.event.internal;
 
+import java.util.Map;
 import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.TxEvent;
 
@@ -28,6 +29,13 @@ public class ComponsitedCheckEvent extends TxEvent {
     return preComponsitedState;
   }
 
+  @Override
+  public Map<String,Object> toMap() {
+    Map<String,Object> map = super.toMap();
+    map.put("preComponsitedState", preComponsitedState == null ? null : preComponsitedState.name());
+    return map;
+  }
+
   public static Builder builder() {
     return new Builder();
   }
@@ -24,6 +24,7 @@ public class PagingGlobalTransactions {
   private int page;
   private int size;
   private long elapsed;
+  private String cursor;
 
   public long getTotal() {
     return total;
@@ -41,6 +42,13 @@ public class PagingGlobalTransactions {
     return elapsed;
   }
 
+  /**
+   * Returns the cursor of the next page, or null when there are no more transactions
+   */
+  public String getCursor() {
+    return cursor;
+  }
+
   public List<GlobalTransaction> getGlobalTransactions() {
     return globalTransactions;
   }
@@ -57,6 +65,7 @@ public class PagingGlobalTransactions {
     private int page;
     private int size;
     private long elapsed;
+    private String cursor;
     private List<GlobalTransaction> globalTransactions;
 
     private Builder() {
@@ -82,6 +91,11 @@ public class PagingGlobalTransactions {
       return this;
     }
 
+    public Builder cursor(String cursor) {
+      this.cursor = cursor;
+      return this;
+    }
+
     public Builder globalTransactions(List<GlobalTransaction> globalTransactions) {
       this.globalTransactions = globalTransactions;
       return this;
@@ -94,6 +108,7 @@ public class PagingGlobalTransactions {
       pagingGlobalTransactions.page = this.page;
       pagingGlobalTransactions.size = this.size;
       pagingGlobalTransactions.elapsed = this.elapsed;
+      pagingGlobalTransactions.cursor = this.cursor;
       return pagingGlobalTransactions;
     }
   }
@@ -26,10 +26,16 @@ public class MetricsBean {
   private AtomicLong eventAccepted = new AtomicLong();
   private AtomicLong eventRejected = new AtomicLong();
   private AtomicDouble eventAvgTime = new AtomicDouble();//milliseconds moving average
+  private AtomicLong eventInFlight = new AtomicLong();
   private AtomicLong actorReceived = new AtomicLong();
   private AtomicLong actorAccepted = new AtomicLong();
   private AtomicLong actorRejected = new AtomicLong();
   private AtomicDouble actorAvgTime = new AtomicDouble();//milliseconds moving average
+  private AtomicLong actorRecovered = new AtomicLong();
+  private AtomicLong actorRecoveryReplayed = new AtomicLong();
+  private AtomicDouble actorRecoveryAvgTime = new AtomicDouble();//milliseconds moving average
+  private AtomicLong actorRecoveryMaxTime = new AtomicLong();//milliseconds
+  private AtomicLong actorSnapshots = new AtomicLong();
   private AtomicLong sagaBeginCounter = new AtomicLong();
   private AtomicLong sagaEndCounter = new AtomicLong();
   private AtomicDouble sagaAvgTime = new AtomicDouble();//milliseconds moving average
@@ -40,6 +46,14 @@ public class MetricsBean {
   private AtomicLong repositoryAccepted = new AtomicLong();
   private AtomicLong repositoryRejected = new AtomicLong();
   private AtomicDouble repositoryAvgTime = new AtomicDouble();//milliseconds moving average
+  private AtomicLong repositoryBacklog = new AtomicLong();
+  private AtomicDouble repositoryFlushAvgTime = new AtomicDouble();//milliseconds moving average
+  private AtomicLong repositoryChannelBacklog = new AtomicLong();
+  private AtomicLong repositoryChannelDropped = new AtomicLong();
+  private AtomicLong repositoryChannelSpilled = new AtomicLong();
+  private AtomicLong repositoryChannelSpillSize = new AtomicLong();//bytes
+  private AtomicLong repositoryChannelReplayed = new AtomicLong();
+  private AtomicDouble repositoryChannelLatency = new AtomicDouble();//milliseconds moving average
 
   public void doEventReceived() {
     eventReceived.incrementAndGet();
@@ -61,6 +75,14 @@ public class MetricsBean {
     }
   }
 
+  public void doEventSendStarted() {
+    eventInFlight.incrementAndGet();
+  }
+
+  public void doEventSendCompleted() {
+    eventInFlight.decrementAndGet();
+  }
+
   public void doActorReceived() {
     actorReceived.incrementAndGet();
   }
@@ -81,6 +103,22 @@ public class MetricsBean {
     }
   }
 
+  // an actor recovered a saga from its snapshot and the events persisted after the snapshot
+  public void doActorRecovered(long time, int replayed) {
+    actorRecovered.incrementAndGet();
+    actorRecoveryReplayed.addAndGet(replayed);
+    if (actorRecoveryAvgTime.get() == 0) {
+      actorRecoveryAvgTime.set(time);
+    } else {
+      actorRecoveryAvgTime.set((actorRecoveryAvgTime.get() + time) / 2);
+    }
+    actorRecoveryMaxTime.accumulateAndGet(time, Math::max);
+  }
+
+  public void doActorSnapshot() {
+    actorSnapshots.incrementAndGet();
+  }
+
   public void doSagaBeginCounter() {
     sagaBeginCounter.incrementAndGet();
   }
@@ -125,6 +163,26 @@ public class MetricsBean {
     repositoryRejected.incrementAndGet();
   }
 
+  public void doRepositoryRejected(int size) {
+    repositoryRejected.getAndAdd(size);
+  }
+
+  public void doRepositoryQueued() {
+    repositoryBacklog.incrementAndGet();
+  }
+
+  public void doRepositoryDequeued() {
+    repositoryBacklog.decrementAndGet();
+  }
+
+  public void doRepositoryFlushAvgTime(long time) {
+    if (repositoryFlushAvgTime.get() == 0) {
+      repositoryFlushAvgTime.set(time);
+    } else {
+      repositoryFlushAvgTime.set((repositoryFlushAvgTime.get() + time) / 2);
+    }
+  }
+
   public void doRepositoryAvgTime(long time) {
     if (repositoryAvgTime.get() == 0) {
       repositoryAvgTime.set(time);
@@ -133,6 +191,39 @@ public class MetricsBean {
     }
   }
 
+  public void doRepositoryChannelQueued() {
+    repositoryChannelBacklog.incrementAndGet();
+  }
+
+  public void doRepositoryChannelDequeued(int size) {
+    repositoryChannelBacklog.getAndAdd(-size);
+  }
+
+  public void doRepositoryChannelDropped() {
+    repositoryChannelDropped.incrementAndGet();
+  }
+
+  public void doRepositoryChannelSpilled() {
+    repositoryChannelSpilled.incrementAndGet();
+  }
+
+  public void doRepositoryChannelSpillSize(long size) {
+    repositoryChannelSpillSize.set(size);
+  }
+
+  public void doRepositoryChannelReplayed(int size) {
+    repositoryChannelReplayed.addAndGet(size);
+  }
+
+  // from the enqueue in the repository channel until the repository accepted the transaction
+  public void doRepositoryChannelLatency(long time) {
+    if (repositoryChannelLatency.get() == 0) {
+      repositoryChannelLatency.set(time);
+    } else {
+      repositoryChannelLatency.set((repositoryChannelLatency.get() + time) / 2);
+    }
+  }
+
   public long getEventReceived() {
     return eventReceived.get();
   }
@@ -149,6 +240,10 @@ public class MetricsBean {
     return (double) Math.round(eventAvgTime.get() * 100) / 100;
   }
 
+  public long getEventInFlight() {
+    return eventInFlight.get();
+  }
+
   public long getActorReceived() {
     return actorReceived.get();
   }
@@ -165,6 +260,26 @@ public class MetricsBean {
     return (double) Math.round(actorAvgTime.get() * 100) / 100;
   }
 
+  public long getActorRecovered() {
+    return actorRecovered.get();
+  }
+
+  public long getActorRecoveryReplayed() {
+    return actorRecoveryReplayed.get();
+  }
+
+  public double getActorRecoveryAvgTime() {
+    return (double) Math.round(actorRecoveryAvgTime.get() * 100) / 100;
+  }
+
+  public long getActorRecoveryMaxTime() {
+    return actorRecoveryMaxTime.get();
+  }
+
+  public long getActorSnapshots() {
+    return actorSnapshots.get();
+  }
+
   public long getSagaBeginCounter() {
     return sagaBeginCounter.get();
   }
@@ -193,6 +308,38 @@ public class MetricsBean {
     return (double) Math.round(repositoryAvgTime.get() * 100) / 100;
   }
 
+  public long getRepositoryBacklog() {
+    return repositoryBacklog.get();
+  }
+
+  public double getRepositoryFlushAvgTime() {
+    return (double) Math.round(repositoryFlushAvgTime.get() * 100) / 100;
+  }
+
+  public long getRepositoryChannelBacklog() {
+    return repositoryChannelBacklog.get();
+  }
+
+  public long getRepositoryChannelDropped() {
+    return repositoryChannelDropped.get();
+  }
+
+  public long getRepositoryChannelSpilled() {
+    return repositoryChannelSpilled.get();
+  }
+
+  public long getRepositoryChannelSpillSize() {
+    return repositoryChannelSpillSize.get();
+  }
+
+  public long getRepositoryChannelReplayed() {
+    return repositoryChannelReplayed.get();
+  }
+
+  public double getRepositoryChannelLatency() {
+    return (double) Math.round(repositoryChannelLatency.get() * 100) / 100;
+  }
+
   public long getCommitted() {
     return committed.get();
   }
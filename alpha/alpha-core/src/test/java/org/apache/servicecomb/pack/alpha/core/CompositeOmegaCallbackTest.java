@@ -27,11 +27,16 @@ import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.servicecomb.pack.alpha.core.exception.CompensateAckFailedException;
+import org.apache.servicecomb.pack.alpha.core.exception.CompensateConnectException;
 import org.apache.servicecomb.pack.common.EventType;
 import org.hamcrest.Matchers;
 import org.junit.Before;
@@ -156,6 +161,51 @@ public class CompositeOmegaCallbackTest {
     assertThat(callbacks.get(serviceName2).values(), Matchers.containsInAnyOrder(callback2One, callback2Two));
   }
 
+  @Test
+  public void removeCallbackOnAsyncConnectFailure() throws Exception {
+    when(callback1Two.compensateAsync(any(TxEvent.class)))
+        .thenReturn(failedFuture(new CompensateConnectException("Omega connect exception")));
+    TxEvent event = eventOf(serviceName1, instanceId1Two, TxStartedEvent);
+
+    CompletableFuture<Void> future = compositeOmegaCallback.compensateAsync(event).toCompletableFuture();
+
+    assertThat(future.isCompletedExceptionally(), is(true));
+    assertThat(callbacks.get(serviceName1).values(), containsInAnyOrder(callback1One));
+  }
+
+  @Test
+  public void keepCallbackOnAsyncAckFailure() throws Exception {
+    when(callback1Two.compensateAsync(any(TxEvent.class)))
+        .thenReturn(failedFuture(new CompensateAckFailedException("An exception is thrown inside the compensation method")));
+    TxEvent event = eventOf(serviceName1, instanceId1Two, TxStartedEvent);
+
+    CompletableFuture<Void> future = compositeOmegaCallback.compensateAsync(event).toCompletableFuture();
+
+    assertThat(future.isCompletedExceptionally(), is(true));
+    assertThat(callbacks.get(serviceName1).values(), containsInAnyOrder(callback1One, callback1Two));
+  }
+
+  @Test
+  public void asyncCompensationFailsIfNoSuchServiceFound() throws Exception {
+    callbacks.remove(serviceName2);
+    TxEvent event = eventOf(serviceName2, instanceId2One, TxStartedEvent);
+
+    CompletableFuture<Void> future = compositeOmegaCallback.compensateAsync(event).toCompletableFuture();
+
+    try {
+      future.join();
+      expectFailing(AlphaException.class);
+    } catch (CompletionException e) {
+      assertThat(e.getCause().getMessage(), is("No such omega callback found for service " + serviceName2));
+    }
+  }
+
+  private CompletableFuture<Void> failedFuture(Throwable throwable) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    future.completeExceptionally(throwable);
+    return future;
+  }
+
   private TxEvent eventOf(String serviceName, String instanceId, EventType eventType) {
     return new TxEvent(
         serviceName,
@@ -18,13 +18,16 @@
 package org.apache.servicecomb.pack.alpha.core;
 
 import static org.apache.servicecomb.pack.alpha.core.TxEventMaker.someEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxCompensateEvent;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
 
 import org.junit.Before;
@@ -62,4 +65,27 @@ public class PushBackOmegaCallbackTest {
 
     verify(underlying, times(3)).compensate(event);
   }
+
+  @Test
+  public void passActorCompensationToUnderlyingWithoutBlocking() throws Exception {
+    TxEvent event = compensateEventOf(someEvent());
+    CompletableFuture<Void> ack = new CompletableFuture<>();
+    Mockito.when(underlying.compensateAsync(event)).thenReturn(ack);
+
+    assertThat(pushBack.compensateAsync(event), is(ack));
+    verify(underlying, never()).compensate(event);
+    assertThat(runnables.size(), is(1));
+  }
+
+  private TxEvent compensateEventOf(TxEvent event) {
+    return new TxEvent(
+        event.serviceName(),
+        event.instanceId(),
+        event.globalTxId(),
+        event.localTxId(),
+        event.parentTxId(),
+        TxCompensateEvent.name(),
+        event.compensationMethod(),
+        event.payloads());
+  }
 }
@@ -29,10 +29,13 @@ import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 
+import java.util.Date;
 import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.stream.Collectors;
 
@@ -49,15 +52,20 @@ public class TxConsistentServiceTest {
     }
 
     @Override
-    public Optional<List<TxEvent>> findFirstAbortedGlobalTransaction() {
-      return Optional.empty();
+    public List<TxEvent> findAbortedGlobalTransaction(String globalTxId) {
+      return emptyList();
     }
 
     @Override
-    public List<TxEvent> findTimeoutEvents() {
+    public List<TxEvent> findTimeoutEvents(String globalTxId) {
       return emptyList();
     }
 
+    @Override
+    public Optional<Date> findNextExpiryTime(String globalTxId) {
+      return Optional.empty();
+    }
+
     @Override
     public Optional<TxEvent> findTxStartedEvent(String globalTxId, String localTxId) {
       return events.stream()
@@ -73,17 +81,70 @@ public class TxConsistentServiceTest {
     }
 
     @Override
-    public List<TxEvent> findFirstUncompensatedEventByIdGreaterThan(long id, String type) {
+    public List<TxEvent> findUncompensatedEvents(String globalTxId, String type) {
       return emptyList();
     }
 
     @Override
-    public Optional<TxEvent> findFirstCompensatedEventByIdGreaterThan(long id) {
-      return Optional.empty();
+    public List<TxEvent> findCompensatedEventsByIdGreaterThan(long id, int size) {
+      return emptyList();
     }
 
     @Override
-    public void deleteDuplicateEvents(String type) {
+    public void deleteDuplicateEvents(String globalTxId, String type) {
+    }
+  };
+
+  private final Map<String, GlobalTxState> states = new ConcurrentHashMap<>();
+  private final GlobalTxStateRepository stateRepository = new GlobalTxStateRepository() {
+    @Override
+    public void save(GlobalTxState state) {
+      states.putIfAbsent(state.globalTxId(), state);
+    }
+
+    @Override
+    public Optional<GlobalTxState> findByGlobalTxId(String globalTxId) {
+      return Optional.ofNullable(states.get(globalTxId));
+    }
+
+    @Override
+    public void updateExpiryTimeIfEarlier(String globalTxId, Date expiryTime) {
+      states.computeIfPresent(globalTxId, (id, state) -> state.expiryTime().after(expiryTime)
+          ? new GlobalTxState(id, state.status(), state.aborted(), expiryTime) : state);
+    }
+
+    @Override
+    public void advanceExpiryTime(String globalTxId, Date expiryTime) {
+      states.computeIfPresent(globalTxId, (id, state) -> state.expiryTime().before(new Date())
+          ? new GlobalTxState(id, state.status(), state.aborted(), expiryTime) : state);
+    }
+
+    @Override
+    public void markAborted(String globalTxId) {
+      states.computeIfPresent(globalTxId,
+          (id, state) -> new GlobalTxState(id, GlobalTxStatus.RUNNING.name(), true, state.expiryTime()));
+    }
+
+    @Override
+    public void reopenAborted(String globalTxId) {
+      states.computeIfPresent(globalTxId, (id, state) -> state.aborted()
+          ? new GlobalTxState(id, GlobalTxStatus.RUNNING.name(), true, state.expiryTime()) : state);
+    }
+
+    @Override
+    public void markEnded(String globalTxId) {
+      states.computeIfPresent(globalTxId,
+          (id, state) -> new GlobalTxState(id, GlobalTxStatus.ENDED.name(), state.aborted(), state.expiryTime()));
+    }
+
+    @Override
+    public List<String> findTimeoutGlobalTxIds(String globalTxId, int size) {
+      return emptyList();
+    }
+
+    @Override
+    public List<String> findAbortedGlobalTxIds(String globalTxId, int size) {
+      return emptyList();
     }
   };
 
@@ -95,12 +156,13 @@ public class TxConsistentServiceTest {
 
   private final String compensationMethod = getClass().getCanonicalName();
 
-  private final TxConsistentService consistentService = new TxConsistentService(eventRepository);
+  private final TxConsistentService consistentService = new TxConsistentService(eventRepository, stateRepository);
   private final byte[] payloads = "yeah".getBytes();
 
   @Before
   public void setUp() throws Exception {
     events.clear();
+    states.clear();
   }
 
   @Test
@@ -145,6 +207,39 @@ public class TxConsistentServiceTest {
     assertThat(events.size(), is(2));
   }
 
+  @Test
+  public void maintainGlobalTxStateOnArrival() {
+    consistentService.handle(newEvent(SagaStartedEvent));
+    assertThat(states.get(globalTxId).status(), is(GlobalTxStatus.RUNNING.name()));
+    assertThat(states.get(globalTxId).aborted(), is(false));
+
+    consistentService.handle(newEvent(SagaEndedEvent));
+    assertThat(states.get(globalTxId).status(), is(GlobalTxStatus.ENDED.name()));
+  }
+
+  @Test
+  public void reopenAbortedGlobalTxState_IfSubTxEndedAfterwards() {
+    consistentService.handle(newEvent(SagaStartedEvent));
+    consistentService.handle(newEvent(TxAbortedEvent));
+    assertThat(states.get(globalTxId).aborted(), is(true));
+
+    // the scanner ends the aborted global transaction
+    stateRepository.markEnded(globalTxId);
+
+    consistentService.handle(newEvent(TxEndedEvent));
+    assertThat(states.get(globalTxId).status(), is(GlobalTxStatus.RUNNING.name()));
+  }
+
+  @Test
+  public void skipTxStartedEvent_IfGlobalTxStateAborted() {
+    consistentService.handle(newEvent(SagaStartedEvent));
+    consistentService.handle(newEvent(TxStartedEvent));
+    consistentService.handle(newEvent(TxAbortedEvent));
+
+    assertThat(consistentService.handle(eventOf(TxStartedEvent, UUID.randomUUID().toString())), is(false));
+    assertThat(events.size(), is(3));
+  }
+
   private TxEvent newEvent(EventType eventType) {
     return new TxEvent(serviceName, instanceId, globalTxId, localTxId, parentTxId, eventType.name(), compensationMethod,
         payloads);
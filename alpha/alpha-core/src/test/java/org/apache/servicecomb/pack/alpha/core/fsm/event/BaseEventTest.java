@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.core.fsm.event;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.reflect.ClassPath;
+import com.google.common.reflect.ClassPath.ClassInfo;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.EventCodec;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.CompensateAckTimeoutEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.ComponsitedCheckEvent;
+import org.junit.Test;
+
+public class BaseEventTest {
+
+  private final String globalTxId = UUID.randomUUID().toString();
+  private final String localTxId = UUID.randomUUID().toString();
+  private final byte[] payloads = "payloads".getBytes();
+
+  @Test
+  public void toMapMatchesJsonRoundTrip() throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    for (BaseEvent event : events()) {
+      Map<?, ?> expected = mapper.readValue(mapper.writeValueAsString(event), Map.class);
+      assertThat(event.getType(), event.toMap(), is(expected));
+    }
+  }
+
+  @Test
+  public void toMapMatchesJsonRoundTripOfEveryEventType() throws Exception {
+    // every property of every event is set, so a property missing in toMap fails the test
+    ObjectMapper mapper = new ObjectMapper();
+    ClassPath classPath = ClassPath.from(BaseEvent.class.getClassLoader());
+    int eventTypes = 0;
+    for (ClassInfo classInfo : classPath
+        .getTopLevelClassesRecursive(BaseEventTest.class.getPackage().getName())) {
+      Class<?> type = classInfo.load();
+      if (!BaseEvent.class.isAssignableFrom(type) || Modifier.isAbstract(type.getModifiers())) {
+        continue;
+      }
+      BaseEvent event = eventOf(type.asSubclass(BaseEvent.class));
+      Map<?, ?> expected = mapper.readValue(mapper.writeValueAsString(event), Map.class);
+      assertThat(event.getType(), event.toMap(), is(expected));
+      eventTypes++;
+    }
+    assertThat(eventTypes > 10, is(true));
+  }
+
+  @Test
+  public void mapperIsCopyOfSharedMapper() {
+    assertThat(EventCodec.mapper() == EventCodec.mapper(), is(false));
+  }
+
+  @Test
+  public void readEventWithSharedCodec() throws Exception {
+    for (BaseEvent event : events()) {
+      if (event instanceof CompensateAckTimeoutEvent || event instanceof ComponsitedCheckEvent) {
+        // internal events are never published to a channel and are not registered subtypes
+        continue;
+      }
+      BaseEvent decoded = EventCodec.readEvent(EventCodec.writeValueAsBytes(event));
+      assertThat(decoded.getClass().getName(), is(event.getClass().getName()));
+      assertThat(decoded.toMap(), is(event.toMap()));
+    }
+  }
+
+  private static BaseEvent eventOf(Class<? extends BaseEvent> type) throws Exception {
+    Constructor<? extends BaseEvent> constructor = type.getDeclaredConstructor();
+    constructor.setAccessible(true);
+    BaseEvent event = constructor.newInstance();
+    int value = 1;
+    for (Class<?> clazz = type; clazz != Object.class; clazz = clazz.getSuperclass()) {
+      for (Field field : clazz.getDeclaredFields()) {
+        if (Modifier.isStatic(field.getModifiers())) {
+          continue;
+        }
+        field.setAccessible(true);
+        field.set(event, valueOf(field, value++));
+      }
+    }
+    return event;
+  }
+
+  private static Object valueOf(Field field, int value) {
+    Class<?> type = field.getType();
+    if (type == String.class) {
+      return field.getName() + "-" + value;
+    } else if (type == int.class || type == Integer.class) {
+      return value;
+    } else if (type == long.class || type == Long.class) {
+      return (long) value;
+    } else if (type == byte[].class) {
+      return (field.getName() + "-" + value).getBytes();
+    } else if (type == Date.class) {
+      return new Date(1580000000000L + value);
+    } else if (type.isEnum()) {
+      Object[] constants = type.getEnumConstants();
+      return constants[constants.length - 1];
+    }
+    throw new AssertionError("Add a value of " + type + " for " + field);
+  }
+
+  private List<BaseEvent> events() {
+    return Arrays.asList(
+        SagaStartedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).timeout(30).build(),
+        SagaEndedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).build(),
+        SagaAbortedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).payloads(payloads).build(),
+        SagaTimeoutEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).build(),
+        TxStartedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId)
+            .compensationMethod("cancel").payloads(payloads).retryMethod("retry")
+            .forwardRetries(1).forwardTimeout(2).reverseRetries(3).reverseTimeout(4)
+            .retryDelayInMilliseconds(5).build(),
+        TxStartedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId).build(),
+        TxEndedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId).build(),
+        TxAbortedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId)
+            .payloads(payloads).build(),
+        TxCompensatedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId).build(),
+        TxCompensateAckSucceedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId).build(),
+        TxCompensateAckFailedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId)
+            .payloads(payloads).build(),
+        CompensateAckTimeoutEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId)
+            .payloads(payloads).build(),
+        ComponsitedCheckEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId)
+            .preState(TxState.COMMITTED).build());
+  }
+}
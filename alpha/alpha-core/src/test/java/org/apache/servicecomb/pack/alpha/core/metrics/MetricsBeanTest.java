@@ -39,6 +39,16 @@ public class MetricsBeanTest {
     assertEquals(metric.getEventRejected(),1l);
   }
 
+  @Test
+  public void testEventInFlight(){
+    MetricsBean metric = new MetricsBean();
+    metric.doEventSendStarted();
+    metric.doEventSendStarted();
+    assertEquals(metric.getEventInFlight(),2l);
+    metric.doEventSendCompleted();
+    assertEquals(metric.getEventInFlight(),1l);
+  }
+
   @Test
   public void testActorReceive(){
     MetricsBean metric = new MetricsBean();
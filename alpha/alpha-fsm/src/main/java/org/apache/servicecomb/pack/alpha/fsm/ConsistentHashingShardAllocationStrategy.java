@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm;
+
+import akka.actor.ActorRef;
+import akka.actor.Address;
+import akka.cluster.sharding.ShardCoordinator;
+import akka.dispatch.Futures;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import scala.collection.immutable.IndexedSeq;
+import scala.concurrent.Future;
+
+/**
+ * Allocates the shards on a consistent hash ring of the shard regions with bounded loads.
+ * A shard is placed on the first region clockwise from its hash which holds less than
+ * <code>LOAD_FACTOR</code> times the average number of shards, so the shards are spread evenly
+ * and only the shards of the joining or leaving region are moved, at most
+ * <code>maxSimultaneousRebalance</code> shards at the same time.
+ *
+ * <p>When the events are consumed from the <code>numberOfPartitions</code> partitions of a Kafka
+ * topic, the partitions are placed on the ring instead and every shard follows its partition, so
+ * the node which consumes a partition also hosts the sagas of its events.
+ */
+public class ConsistentHashingShardAllocationStrategy extends
+    ShardCoordinator.AbstractShardAllocationStrategy {
+
+  static final int VIRTUAL_NODES_PER_REGION = 160;
+  static final double LOAD_FACTOR = 1.1;
+
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_32();
+
+  private final Address selfAddress;
+  private final int maxSimultaneousRebalance;
+  private final int numberOfPartitions;
+
+  public ConsistentHashingShardAllocationStrategy(Address selfAddress,
+      int maxSimultaneousRebalance) {
+    this(selfAddress, maxSimultaneousRebalance, 0);
+  }
+
+  public ConsistentHashingShardAllocationStrategy(Address selfAddress,
+      int maxSimultaneousRebalance, int numberOfPartitions) {
+    this.selfAddress = selfAddress;
+    this.maxSimultaneousRebalance = maxSimultaneousRebalance;
+    this.numberOfPartitions = numberOfPartitions;
+  }
+
+  @Override
+  public Future<ActorRef> allocateShard(ActorRef requester, String shardId,
+      Map<ActorRef, IndexedSeq<String>> currentShardAllocations) {
+    Set<String> shards = allocatedShardsOf(currentShardAllocations);
+    shards.add(shardId);
+    ActorRef owner = assignmentOf(shards, currentShardAllocations.keySet()).get(shardId);
+    return Futures.successful(owner != null ? owner : requester);
+  }
+
+  @Override
+  public Future<Set<String>> rebalance(Map<ActorRef, IndexedSeq<String>> currentShardAllocations,
+      Set<String> rebalanceInProgress) {
+    Set<String> shards = new HashSet<>();
+    if (rebalanceInProgress.size() < maxSimultaneousRebalance) {
+      Map<String, ActorRef> assignment = assignmentOf(
+          allocatedShardsOf(currentShardAllocations), currentShardAllocations.keySet());
+      for (Map.Entry<ActorRef, IndexedSeq<String>> allocation : currentShardAllocations.entrySet()) {
+        IndexedSeq<String> allocatedShards = allocation.getValue();
+        for (int i = 0; i < allocatedShards.size(); i++) {
+          String shardId = allocatedShards.apply(i);
+          if (!rebalanceInProgress.contains(shardId)
+              && !allocation.getKey().equals(assignment.get(shardId))) {
+            shards.add(shardId);
+            if (rebalanceInProgress.size() + shards.size() >= maxSimultaneousRebalance) {
+              return Futures.successful(shards);
+            }
+          }
+        }
+      }
+    }
+    return Futures.successful(shards);
+  }
+
+  /**
+   * The assignment only depends on the shard ids and the regions, so every coordinator
+   * computes the same one.
+   */
+  Map<String, ActorRef> assignmentOf(Set<String> shards, Set<ActorRef> regions) {
+    Map<String, ActorRef> regionsByKey = new HashMap<>();
+    for (ActorRef region : regions) {
+      // the address of a local region is not qualified by host and port
+      regionsByKey.put(region.path().toStringWithAddress(selfAddress), region);
+    }
+    if (numberOfPartitions <= 0) {
+      return assignmentOf(shards, regionsByKey);
+    }
+    Map<String, ActorRef> partitions = assignmentOf(partitionIdsOf(numberOfPartitions),
+        regionsByKey);
+    Map<String, ActorRef> assignment = new HashMap<>();
+    for (String shardId : shards) {
+      ActorRef region = partitions.get(
+          String.valueOf(SagaShardRegionActor.partitionOfShard(shardId, numberOfPartitions)));
+      if (region != null) {
+        assignment.put(shardId, region);
+      }
+    }
+    return assignment;
+  }
+
+  /**
+   * Returns the partitions which are assigned to the region <code>regionKey</code>, the region
+   * keys are the full addresses of the shard regions in the cluster.
+   */
+  public static Set<Integer> partitionsOf(String regionKey, Collection<String> regionKeys,
+      int numberOfPartitions) {
+    Set<Integer> partitions = new TreeSet<>();
+    partitionOwnersOf(regionKeys, numberOfPartitions).forEach((partition, key) -> {
+      if (key.equals(regionKey)) {
+        partitions.add(partition);
+      }
+    });
+    return partitions;
+  }
+
+  /**
+   * Returns the key of the region every partition is assigned to.
+   */
+  public static Map<Integer, String> partitionOwnersOf(Collection<String> regionKeys,
+      int numberOfPartitions) {
+    Map<String, String> regionsByKey = new HashMap<>();
+    regionKeys.forEach(key -> regionsByKey.put(key, key));
+    Map<Integer, String> owners = new HashMap<>();
+    assignmentOf(partitionIdsOf(numberOfPartitions), regionsByKey)
+        .forEach((partition, key) -> owners.put(Integer.valueOf(partition), key));
+    return owners;
+  }
+
+  static <R> Map<String, R> assignmentOf(Set<String> ids, Map<String, R> regionsByKey) {
+    Map<String, R> assignment = new HashMap<>();
+    if (regionsByKey.isEmpty()) {
+      return assignment;
+    }
+    NavigableMap<Integer, R> ring = ringOf(regionsByKey);
+    int capacity = (int) Math.ceil(ids.size() * LOAD_FACTOR / regionsByKey.size());
+    Map<R, Integer> loads = new HashMap<>();
+    for (String id : new TreeSet<>(ids)) {
+      Integer position = ring.ceilingKey(hash(id));
+      for (int i = 0; i < ring.size(); i++) {
+        if (position == null) {
+          position = ring.firstKey();
+        }
+        R region = ring.get(position);
+        if (loads.getOrDefault(region, 0) < capacity) {
+          loads.merge(region, 1, Integer::sum);
+          assignment.put(id, region);
+          break;
+        }
+        position = ring.higherKey(position);
+      }
+    }
+    return assignment;
+  }
+
+  static <R> NavigableMap<Integer, R> ringOf(Map<String, R> regionsByKey) {
+    NavigableMap<Integer, R> ring = new TreeMap<>();
+    regionsByKey.forEach((regionKey, region) -> {
+      for (int i = 0; i < VIRTUAL_NODES_PER_REGION; i++) {
+        ring.put(hash(regionKey + "#" + i), region);
+      }
+    });
+    return ring;
+  }
+
+  private static Set<String> partitionIdsOf(int numberOfPartitions) {
+    Set<String> partitions = new HashSet<>();
+    for (int partition = 0; partition < numberOfPartitions; partition++) {
+      partitions.add(String.valueOf(partition));
+    }
+    return partitions;
+  }
+
+  private Set<String> allocatedShardsOf(Map<ActorRef, IndexedSeq<String>> currentShardAllocations) {
+    Set<String> shards = new HashSet<>();
+    for (IndexedSeq<String> allocatedShards : currentShardAllocations.values()) {
+      for (int i = 0; i < allocatedShards.size(); i++) {
+        shards.add(allocatedShards.apply(i));
+      }
+    }
+    return shards;
+  }
+
+  static int hash(String key) {
+    return HASH_FUNCTION.hashString(key, StandardCharsets.UTF_8).asInt();
+  }
+}
@@ -25,16 +25,28 @@ import akka.actor.ActorSystem;
 import akka.actor.Props;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Map;
 import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventSerializer;
+import org.apache.servicecomb.pack.alpha.fsm.SagaShardRegionActor.ShardHashing;
 import org.apache.servicecomb.pack.alpha.fsm.channel.kafka.KafkaChannelAutoConfiguration;
 import org.apache.servicecomb.pack.alpha.fsm.channel.memory.MemoryChannelAutoConfiguration;
 import org.apache.servicecomb.pack.alpha.fsm.channel.rabbit.RabbitChannelAutoConfiguration;
 import org.apache.servicecomb.pack.alpha.fsm.channel.redis.RedisChannelAutoConfiguration;
+import org.apache.servicecomb.pack.alpha.fsm.channel.serializer.CompatibleActorEventSerializer;
 import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
+import org.apache.servicecomb.pack.alpha.fsm.model.SagaEvents.PayloadPolicy;
 import org.apache.servicecomb.pack.alpha.fsm.repository.NoneTransactionRepository;
+import org.apache.servicecomb.pack.alpha.fsm.repository.channel.AsyncTransactionRepositoryChannel;
+import org.apache.servicecomb.pack.alpha.fsm.repository.channel.AsyncTransactionRepositoryChannel.OverflowPolicy;
 import org.apache.servicecomb.pack.alpha.fsm.repository.channel.DefaultTransactionRepositoryChannel;
+import org.apache.servicecomb.pack.alpha.fsm.repository.channel.SpillLog;
 import org.apache.servicecomb.pack.alpha.fsm.repository.elasticsearch.ElasticsearchTransactionRepository;
+import org.apache.servicecomb.pack.alpha.fsm.repository.elasticsearch.IndexRolling;
+import org.apache.servicecomb.pack.alpha.fsm.repository.jdbc.JdbcTransactionRepository;
 import org.apache.servicecomb.pack.alpha.fsm.repository.TransactionRepository;
 import org.apache.servicecomb.pack.alpha.fsm.repository.TransactionRepositoryChannel;
 import org.apache.servicecomb.pack.alpha.fsm.spring.integration.akka.AkkaConfigPropertyAdapter;
@@ -65,6 +77,96 @@ public class FsmAutoConfiguration {
   @Value("${alpha.feature.akka.transaction.repository.elasticsearch.refreshTime:5000}")
   int repositoryElasticsearchRefreshTime;
 
+  @Value("${alpha.feature.akka.transaction.repository.elasticsearch.batchBytes:5242880}")
+  long repositoryElasticsearchBatchBytes;
+
+  @Value("${alpha.feature.akka.transaction.repository.elasticsearch.concurrentRequests:2}")
+  int repositoryElasticsearchConcurrentRequests;
+
+  @Value("${alpha.feature.akka.transaction.repository.elasticsearch.backlogSize:10000}")
+  int repositoryElasticsearchBacklogSize;
+
+  @Value("${alpha.feature.akka.transaction.repository.elasticsearch.indexRolling:none}")
+  String repositoryElasticsearchIndexRolling;
+
+  @Value("${alpha.feature.akka.transaction.repository.elasticsearch.retentionDays:0}")
+  int repositoryElasticsearchRetentionDays;
+
+  @Value("${alpha.feature.akka.transaction.repository.channel.type:default}")
+  String repositoryChannelType;
+
+  @Value("${alpha.feature.akka.transaction.repository.channel.queueSize:10000}")
+  int repositoryChannelQueueSize;
+
+  @Value("${alpha.feature.akka.transaction.repository.channel.workers:2}")
+  int repositoryChannelWorkers;
+
+  @Value("${alpha.feature.akka.transaction.repository.channel.batchSize:100}")
+  int repositoryChannelBatchSize;
+
+  @Value("${alpha.feature.akka.transaction.repository.channel.overflow:block}")
+  String repositoryChannelOverflow;
+
+  @Value("${alpha.feature.akka.transaction.repository.channel.spillDir:actor/repository/spill}")
+  String repositoryChannelSpillDir;
+
+  @Value("${alpha.feature.akka.transaction.repository.channel.spill:false}")
+  boolean repositoryChannelSpill;
+
+  @Value("${alpha.feature.akka.transaction.repository.channel.spillSegmentSize:67108864}")
+  int repositoryChannelSpillSegmentSize;
+
+  @Value("${alpha.feature.akka.transaction.repository.channel.spillMaxSize:1073741824}")
+  long repositoryChannelSpillMaxSize;
+
+  @Value("${alpha.feature.akka.transaction.repository.channel.spillReplayInterval:5000}")
+  long repositoryChannelSpillReplayInterval;
+
+  @Value("${alpha.feature.akka.transaction.events.payloads:inline}")
+  String eventPayloads;
+
+  @Value("${alpha.feature.akka.transaction.events.maxSize:0}")
+  int eventMaxSize;
+
+  @Value("${alpha.feature.akka.transaction.snapshot.afterEvents:0}")
+  int snapshotAfterEvents;
+
+  @Value("${alpha.feature.akka.transaction.snapshot.interval:0}")
+  long snapshotInterval;
+
+  @Value("${alpha.feature.akka.transaction.repository.jdbc.batchSize:100}")
+  int repositoryJdbcBatchSize;
+
+  @Value("${alpha.feature.akka.transaction.repository.jdbc.refreshTime:1000}")
+  int repositoryJdbcRefreshTime;
+
+  @Value("${alpha.feature.akka.transaction.repository.jdbc.backlogSize:10000}")
+  int repositoryJdbcBacklogSize;
+
+  @Value("${alpha.feature.akka.transaction.repository.jdbc.copy:false}")
+  boolean repositoryJdbcCopy;
+
+  @Value("${alpha.feature.akka.sharding.numberOfShards:10}")
+  int numberOfShards;
+
+  @Value("${alpha.feature.akka.sharding.hashing:legacy}")
+  String shardHashing;
+
+  @Value("${alpha.feature.akka.sharding.maxSimultaneousRebalance:3}")
+  int maxSimultaneousRebalance;
+
+  @Value("${alpha.feature.akka.compensation.ackTimeout:60}")
+  int compensationAckTimeout;
+
+  @Value("${alpha.feature.akka.channel.serializer:kryo}")
+  String channelSerializer;
+
+  @Value("${alpha.feature.akka.channel.type:memory}")
+  String channelType;
+
+  @Value("${kafka.numPartitions:6}")
+  int kafkaPartitions;
+
   @PostConstruct
   void init() {
     System.setProperty("es.set.netty.runtime.available.processors", "false");
@@ -78,8 +180,13 @@ public class FsmAutoConfiguration {
         .create("alpha-cluster", akkaConfiguration(applicationContext, environment));
 
     SPRING_EXTENSION_PROVIDER.get(system).initialize(applicationContext);
+    SPRING_EXTENSION_PROVIDER.get(system).setAckTimeout(compensationAckTimeout);
     SAGA_DATA_EXTENSION_PROVIDER.get(system).setRepositoryChannel(repositoryChannel);
     SAGA_DATA_EXTENSION_PROVIDER.get(system).setMetricsService(metricsService);
+    SAGA_DATA_EXTENSION_PROVIDER.get(system).setEventPayloadPolicy(PayloadPolicy.of(eventPayloads));
+    SAGA_DATA_EXTENSION_PROVIDER.get(system).setMaxEvents(eventMaxSize);
+    SAGA_DATA_EXTENSION_PROVIDER.get(system).setSnapshotAfter(snapshotAfterEvents);
+    SAGA_DATA_EXTENSION_PROVIDER.get(system).setSnapshotInterval(snapshotInterval);
     return system;
   }
 
@@ -96,9 +203,28 @@ public class FsmAutoConfiguration {
     return new MetricsService();
   }
 
+  @Bean
+  @ConditionalOnMissingBean(ActorEventSerializer.class)
+  public ActorEventSerializer actorEventSerializer() {
+    return new CompatibleActorEventSerializer(channelSerializer);
+  }
+
   @Bean(name = "sagaShardRegionActor")
   public ActorRef sagaShardRegionActor(ActorSystem actorSystem) {
-    return actorSystem.actorOf(Props.create(SagaShardRegionActor.class));
+    // the shards follow the Kafka partitions consumed by each node
+    int numberOfPartitions = "kafka".equals(channelType) ? kafkaPartitions : 0;
+    return actorSystem.actorOf(
+        Props.create(SagaShardRegionActor.class, numberOfShards, ShardHashing.of(shardHashing),
+            maxSimultaneousRebalance, numberOfPartitions));
+  }
+
+  // declared before the default repository, which is only created when no repository exists
+  @Bean
+  @ConditionalOnProperty(value = "alpha.feature.akka.transaction.repository.type", havingValue = "jdbc")
+  public TransactionRepository jdbcTransactionRepository(MetricsService metricsService,
+      DataSource dataSource) {
+    return new JdbcTransactionRepository(dataSource, metricsService, repositoryJdbcBatchSize,
+        repositoryJdbcRefreshTime, repositoryJdbcBacklogSize, repositoryJdbcCopy);
   }
 
   @Bean
@@ -112,12 +238,33 @@ public class FsmAutoConfiguration {
   public TransactionRepository transactionRepository(MetricsService metricsService,
       ElasticsearchTemplate template) {
     return new ElasticsearchTransactionRepository(template, metricsService,
-        repositoryElasticsearchBatchSize, repositoryElasticsearchRefreshTime);
+        repositoryElasticsearchBatchSize, repositoryElasticsearchRefreshTime,
+        repositoryElasticsearchBatchBytes, repositoryElasticsearchConcurrentRequests,
+        repositoryElasticsearchBacklogSize,
+        IndexRolling.of(repositoryElasticsearchIndexRolling), repositoryElasticsearchRetentionDays);
   }
 
+  // the inferred destroy method closes the channel and its spill log
   @Bean
   TransactionRepositoryChannel memoryTransactionRepositoryChannel(TransactionRepository repository,
-      MetricsService metricsService) {
+      MetricsService metricsService) throws IOException {
+    OverflowPolicy overflowPolicy = AsyncTransactionRepositoryChannel
+        .overflowPolicyOf(repositoryChannelOverflow);
+    boolean async = "async".equals(repositoryChannelType);
+    SpillLog spillLog = null;
+    if (repositoryChannelSpill || (async && overflowPolicy == OverflowPolicy.SPILL)) {
+      spillLog = new SpillLog(Paths.get(repositoryChannelSpillDir),
+          repositoryChannelSpillSegmentSize, repositoryChannelSpillMaxSize);
+    }
+    if (async) {
+      return new AsyncTransactionRepositoryChannel(repository, metricsService,
+          repositoryChannelQueueSize, repositoryChannelWorkers, repositoryChannelBatchSize,
+          overflowPolicy, spillLog, repositoryChannelSpillReplayInterval);
+    }
+    if (spillLog != null) {
+      return new DefaultTransactionRepositoryChannel(repository, metricsService, spillLog,
+          repositoryChannelBatchSize, repositoryChannelSpillReplayInterval);
+    }
     return new DefaultTransactionRepositoryChannel(repository, metricsService);
   }
 
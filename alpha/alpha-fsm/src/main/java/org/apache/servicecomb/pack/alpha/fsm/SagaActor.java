@@ -20,13 +20,19 @@ package org.apache.servicecomb.pack.alpha.fsm;
 import akka.actor.PoisonPill;
 import akka.actor.Props;
 import akka.cluster.sharding.ShardRegion;
+import akka.pattern.Patterns;
+import akka.persistence.SaveSnapshotFailure;
+import akka.persistence.SaveSnapshotSuccess;
+import akka.persistence.SnapshotSelectionCriteria;
 import akka.persistence.fsm.AbstractPersistentFSM;
+import akka.persistence.fsm.PersistentFSM.PersistentFSMSnapshot;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.invoke.MethodHandles;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.apache.servicecomb.pack.alpha.core.AlphaException;
@@ -50,13 +56,16 @@ import org.apache.servicecomb.pack.alpha.fsm.domain.SagaEndedDomain;
 import org.apache.servicecomb.pack.alpha.fsm.domain.SagaStartedDomain;
 import org.apache.servicecomb.pack.alpha.fsm.domain.UpdateTxEventDomain;
 import org.apache.servicecomb.pack.alpha.fsm.model.SagaData;
+import org.apache.servicecomb.pack.alpha.fsm.model.SagaDataSerializer;
 import org.apache.servicecomb.pack.alpha.fsm.model.TxEntity;
 import org.apache.servicecomb.pack.alpha.fsm.spring.integration.akka.SagaDataExtension;
 import org.apache.servicecomb.pack.alpha.fsm.spring.integration.akka.SpringAkkaExtension;
 import org.apache.servicecomb.pack.common.Environment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import scala.Option;
 import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
 
 public class SagaActor extends
     AbstractPersistentFSM<SagaActorState, SagaData, DomainEvent> {
@@ -64,6 +73,12 @@ public class SagaActor extends
   private String persistenceId;
   private long sagaBeginTime;
   private long sagaEndTime;
+  private final long recoveryBeginTime = System.currentTimeMillis();
+  private int recoveredEvents;
+  private int eventsSinceSnapshot;
+  private long lastSnapshotTime = recoveryBeginTime;
+  private boolean snapshotRequested;
+  private static final SagaDataSerializer SNAPSHOT_SERIALIZER = new SagaDataSerializer();
 
   public static Props props(String persistenceId) {
     return Props.create(SagaActor.class, persistenceId);
@@ -76,7 +91,11 @@ public class SagaActor extends
       this.persistenceId = getSelf().path().name();
     }
 
-    startWith(SagaActorState.IDLE, SagaData.builder().build());
+    SagaDataExtension.SagaDataExt sagaDataExt =
+        SagaDataExtension.SAGA_DATA_EXTENSION_PROVIDER.get(context().system());
+    startWith(SagaActorState.IDLE, SagaData.builder()
+        .events(sagaDataExt.getEventPayloadPolicy(), sagaDataExt.getMaxEvents())
+        .build());
 
     when(SagaActorState.IDLE,
         matchEvent(SagaStartedEvent.class,
@@ -277,6 +296,20 @@ public class SagaActor extends
                     .build(), self());
               }));
             }
+        ).event(CompensationFailed.class, SagaData.class,
+            (event, data) -> {
+              onCompensationFailed(event, data);
+              return stay();
+            }
+        ).event(RetryCompensation.class, SagaData.class,
+            (event, data) -> {
+              TxEntity txEntity = data.getTxEntities().get(event.localTxId);
+              if (txEntity != null && txEntity.getState() == TxState.COMPENSATED_FAILED
+                  && txEntity.getRetriesCounter().get() == event.retries) {
+                compensation(txEntity, data);
+              }
+              return stay();
+            }
         ).event(ComponsitedCheckEvent.class, SagaData.class,
             (event, data) -> {
               if (data.getTxEntities().hasCompensationSentTx() ||
@@ -299,7 +332,8 @@ public class SagaActor extends
                 SagaEndedDomain domainEvent = new SagaEndedDomain(event, SagaActorState.FAILED);
                 return stay()
                     .applying(domainEvent);
-              } else if (data.getTxEntities().hasCompensationSentTx()) {
+              } else if (data.getTxEntities().hasCompensationSentTx()
+                  || data.getTxEntities().hasCompensationFailedTx()) {
                 SagaEndedDomain domainEvent = new SagaEndedDomain(event, SagaActorState.FAILED);
                 return stay()
                     .applying(domainEvent);
@@ -319,9 +353,8 @@ public class SagaActor extends
             (event, data) -> {
               UpdateTxEventDomain domainEvent = new UpdateTxEventDomain(event);
               return stay().applying(domainEvent).andThen(exec(_data -> {
-                TxEntity txEntity = _data.getTxEntities().get(event.getLocalTxId());
                 // call compensate
-                compensation(domainEvent, txEntity, _data);
+                compensateNext(_data);
               }));
             }
         ).event(Arrays.asList(StateTimeout()), SagaData.class,
@@ -360,7 +393,26 @@ public class SagaActor extends
     );
 
     whenUnhandled(
-        matchAnyEvent((event, data) -> {
+        matchEvent(SaveSnapshot.class, SagaData.class,
+            (event, data) -> {
+              saveSagaSnapshot(data);
+              return stay();
+            }
+        ).event(SaveSnapshotSuccess.class, SagaData.class,
+            (event, data) -> {
+              SagaDataExtension.SAGA_DATA_EXTENSION_PROVIDER.get(context().system()).doActorSnapshot();
+              // the recovery starts from this snapshot, drop what it replaces
+              long sequenceNr = event.metadata().sequenceNr();
+              deleteMessages(sequenceNr);
+              deleteSnapshots(SnapshotSelectionCriteria.create(sequenceNr - 1, Long.MAX_VALUE));
+              return stay();
+            }
+        ).event(SaveSnapshotFailure.class, SagaData.class,
+            (event, data) -> {
+              LOG.warn("save snapshot [{}] fail", data.getGlobalTxId(), event.cause());
+              return stay();
+            }
+        ).anyEvent((event, data) -> {
           if (event instanceof BaseEvent){
             LOG.debug("Unhandled event {}", event);
           }
@@ -456,7 +508,7 @@ public class SagaActor extends
       //  end
       //  return delkeys;
       deleteMessages(lastSequenceNr());
-      deleteSnapshot(snapshotSequenceNr());
+      deleteSnapshots(SnapshotSelectionCriteria.create(lastSequenceNr(), Long.MAX_VALUE));
     }catch(Exception e){
       LOG.error("stop [{}] fail",data.getGlobalTxId());
       throw e;
@@ -469,8 +521,13 @@ public class SagaActor extends
     try{
       if (this.recoveryRunning()) {
         LOG.info("recovery {}",event.getEvent());
-      }else if (LOG.isDebugEnabled()) {
-        LOG.debug("persistence {}", event.getEvent());
+        recoveredEvents++;
+      }else {
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("persistence {}", event.getEvent());
+        }
+        eventsSinceSnapshot++;
+        requestSnapshot();
       }
       if (event.getEvent() != null && !(event
           .getEvent() instanceof ComponsitedCheckEvent)) {
@@ -508,37 +565,35 @@ public class SagaActor extends
         UpdateTxEventDomain domainEvent = (UpdateTxEventDomain) event;
         TxEntity txEntity = data.getTxEntities().get(domainEvent.getLocalTxId());
         txEntity.setEndTime(domainEvent.getEvent().getCreateTime());
-        if (domainEvent.getState() == TxState.COMMITTED) {
+        if (domainEvent.getEvent() instanceof ComponsitedCheckEvent) {
+          // the check follows the ack which has updated the entity already
+        } else if (domainEvent.getState() == TxState.COMMITTED) {
           txEntity.setState(domainEvent.getState());
         } else if (domainEvent.getState() == TxState.FAILED) {
           txEntity.setState(domainEvent.getState());
           txEntity.setThrowablePayLoads(domainEvent.getThrowablePayLoads());
-          data.getTxEntities().forEachReverse((k, v) -> {
-            if (v.getState() == TxState.COMMITTED) {
-              // call compensate
-              if (!compensation(domainEvent, v, data)) {
-                return;
-              }
-            }
-          });
+          compensateNext(data);
         } else if (domainEvent.getState() == TxState.COMPENSATED_SUCCEED) {
-          data.getCompensationRunningCounter().decrementAndGet();
+          if (txEntity.getState() == TxState.COMPENSATION_SENT) {
+            data.getCompensationRunningCounter().decrementAndGet();
+          }
           txEntity.setState(TxState.COMPENSATED_SUCCEED);
           LOG.info("compensate is succeed [{}] {}", txEntity.getGlobalTxId(), txEntity.getLocalTxId());
+          // the next compensation of the saga is sent once the previous one is acked
+          compensateNext(data);
         } else if (domainEvent.getState() == TxState.COMPENSATED_FAILED) {
+          if (txEntity.getState() != TxState.COMPENSATION_SENT) {
+            // e.g. a second failed ack, the retry of the first one is scheduled already
+            LOG.debug("compensation of [{}] {} is not in flight", txEntity.getGlobalTxId(),
+                txEntity.getLocalTxId());
+            return data;
+          }
           data.getCompensationRunningCounter().decrementAndGet();
           txEntity.setState(TxState.COMPENSATED_FAILED);
           txEntity.setThrowablePayLoads(domainEvent.getThrowablePayLoads());
           if (txEntity.getReverseRetries() > 0 &&
-              txEntity.getRetriesCounter().get() < txEntity.getReverseRetries()) {
-            data.getTxEntities().forEachReverse((k, v) -> {
-              if (v.getState() == TxState.COMMITTED || v.getState() == TxState.COMPENSATED_FAILED) {
-                // call compensate
-                if (!compensation(domainEvent, v, data)){
-                  return;
-                }
-              }
-            });
+              txEntity.getRetriesCounter().incrementAndGet() < txEntity.getReverseRetries()) {
+            retryCompensation(txEntity);
           } else {
             data.setSuspendedType(SuspendedType.COMPENSATE_FAILED);
             self().tell(ComponsitedCheckEvent.builder()
@@ -553,14 +608,7 @@ public class SagaActor extends
       } else if (event instanceof SagaEndedDomain) {
         SagaEndedDomain domainEvent = (SagaEndedDomain) event;
         if (domainEvent.getState() == SagaActorState.FAILED) {
-          data.getTxEntities().forEachReverse((k, v) -> {
-            if (v.getState() == TxState.COMMITTED) {
-              // call compensate
-              if (!compensation(domainEvent, v, data)){
-                return;
-              }
-            }
-          });
+          compensateNext(data);
         } else if (domainEvent.getState() == SagaActorState.SUSPENDED) {
           data.setEndTime(event.getEvent() != null ? event.getEvent().getCreateTime() : new Date());
           data.setSuspendedType(domainEvent.getSuspendedType());
@@ -583,8 +631,56 @@ public class SagaActor extends
   @Override
   public void onRecoveryCompleted() {
     if(stateName() != SagaActorState.IDLE){
-      LOG.info("recovery completed [{}] state={}", stateData().getGlobalTxId(), stateName());
+      LOG.info("recovery completed [{}] state={} replayed={}", stateData().getGlobalTxId(),
+          stateName(), recoveredEvents);
+      SagaDataExtension.SAGA_DATA_EXTENSION_PROVIDER.get(context().system())
+          .doActorRecovered(System.currentTimeMillis() - recoveryBeginTime, recoveredEvents);
+      eventsSinceSnapshot = recoveredEvents;
+    }
+  }
+
+  /**
+   * Asks for a snapshot after <code>snapshotAfter</code> domain events or at the first domain event
+   * after <code>snapshotInterval</code> milliseconds. The snapshot is saved when the message is
+   * received, after the state of the events is applied.
+   */
+  private void requestSnapshot() {
+    if (snapshotRequested) {
+      return;
+    }
+    SagaDataExtension.SagaDataExt sagaDataExt =
+        SagaDataExtension.SAGA_DATA_EXTENSION_PROVIDER.get(context().system());
+    if (sagaDataExt.getSnapshotAfter() > 0
+        && eventsSinceSnapshot >= sagaDataExt.getSnapshotAfter()
+        || sagaDataExt.getSnapshotInterval() > 0
+        && System.currentTimeMillis() - lastSnapshotTime >= sagaDataExt.getSnapshotInterval()) {
+      snapshotRequested = true;
+      self().tell(SaveSnapshot.INSTANCE, self());
+    }
+  }
+
+  private void saveSagaSnapshot(SagaData data) {
+    snapshotRequested = false;
+    if (data.isTerminated() || stateName() == SagaActorState.COMMITTED
+        || stateName() == SagaActorState.COMPENSATED || stateName() == SagaActorState.SUSPENDED) {
+      // the actor stops and deletes its snapshots
+      return;
+    }
+    // the snapshot store serializes the data asynchronously, snapshot a copy
+    Option<FiniteDuration> timeout = Option.empty();
+    if (data.getExpirationTime() != null) {
+      long remaining = data.getExpirationTime().getTime() - System.currentTimeMillis();
+      timeout = Option.apply(Duration.create(Math.max(remaining, 1), TimeUnit.MILLISECONDS));
     }
+    saveSnapshot(new PersistentFSMSnapshot<>(stateName().identifier(),
+        SNAPSHOT_SERIALIZER.copyOf(data), timeout));
+    eventsSinceSnapshot = 0;
+    lastSnapshotTime = System.currentTimeMillis();
+  }
+
+  private static final class SaveSnapshot {
+
+    static final SaveSnapshot INSTANCE = new SaveSnapshot();
   }
 
   @Override
@@ -598,60 +694,128 @@ public class SagaActor extends
     return persistenceId;
   }
 
+  /**
+   * Sends the compensation of the last committed sub transaction. The compensations of a saga are
+   * sent one at a time in the reverse order of the sub transactions, the next one is sent when
+   * the ack of the previous one succeeds.
+   */
+  private void compensateNext(SagaData data) {
+    if (data.getTxEntities().hasCompensationSentTx()
+        || data.getTxEntities().hasCompensationFailedTx()) {
+      // a compensation is in flight or waiting for its retry
+      return;
+    }
+    final TxEntity[] next = {null};
+    data.getTxEntities().forEachReverse((k, v) -> {
+      if (next[0] == null && v.getState() == TxState.COMMITTED) {
+        next[0] = v;
+      }
+    });
+    if (next[0] != null) {
+      // call compensate
+      compensation(next[0], data);
+    }
+  }
+
   //call omega compensate method
-  private boolean compensation(DomainEvent event, TxEntity txEntity, SagaData data) {
+  private void compensation(TxEntity txEntity, SagaData data) {
     // increments the compensation running counter by one
     data.getCompensationRunningCounter().incrementAndGet();
     txEntity.setState(TxState.COMPENSATION_SENT);
-    try {
-      LOG.info("compensate {} {} [{}] {}", txEntity.getServiceName(), txEntity.getInstanceId(), txEntity.getGlobalTxId(), txEntity.getLocalTxId());
-      SpringAkkaExtension.SPRING_EXTENSION_PROVIDER.get(context().system()).compensate(txEntity);
-    } catch (Exception ex) {
-      LOG.error("compensate failed [{}] {}", txEntity.getGlobalTxId(), txEntity.getLocalTxId(), ex);
-      if (txEntity.getReverseRetries() > 0 &&
-          txEntity.getRetriesCounter().incrementAndGet() < txEntity.getReverseRetries()) {
-        LOG.info("Retry compensate {}/{} [{}] {} after {} ms",
-            txEntity.getRetriesCounter().get() + 1,
-            txEntity.getReverseRetries(),
-            txEntity.getGlobalTxId(),
-            txEntity.getLocalTxId(),
-            txEntity.getRetryDelayInMilliseconds());
-        try {
-          Thread.sleep(txEntity.getRetryDelayInMilliseconds());
-        } catch (InterruptedException e) {
-          LOG.error(e.getMessage(), e);
-        }
-      }
-      if (ex instanceof TimeoutException) {
-        StringWriter writer = new StringWriter();
-        ex.printStackTrace(new PrintWriter(writer));
-        String stackTrace = writer.toString();
-        if (stackTrace.length() > Environment.getInstance().getPayloadsMaxLength()) {
-          stackTrace = stackTrace.substring(0, Environment.getInstance().getPayloadsMaxLength());
-        }
-        CompensateAckTimeoutEvent compensateAckTimeoutEvent = CompensateAckTimeoutEvent.builder()
-            .createTime(new Date(System.currentTimeMillis()))
-            .globalTxId(txEntity.getGlobalTxId())
-            .parentTxId(txEntity.getParentTxId())
-            .localTxId(txEntity.getLocalTxId())
-            .serviceName(txEntity.getServiceName())
-            .instanceId(txEntity.getInstanceId())
-            .payloads(stackTrace.getBytes())
-            .build();
-        self().tell(compensateAckTimeoutEvent, self());
-      }
-      if (ex instanceof AlphaException) {
-        self().tell(TxCompensateAckFailedEvent.builder()
-            .serviceName(txEntity.getServiceName())
-            .instanceId(txEntity.getInstanceId())
-            .globalTxId(txEntity.getGlobalTxId())
-            .localTxId(txEntity.getLocalTxId())
-            .parentTxId(txEntity.getParentTxId())
-            .payloads(ex.getMessage().getBytes())
-            .build(), self());
+    LOG.info("compensate {} {} [{}] {}", txEntity.getServiceName(), txEntity.getInstanceId(), txEntity.getGlobalTxId(), txEntity.getLocalTxId());
+    // the ack of omega arrives as a message, the failures of sending are piped back to this actor
+    String localTxId = txEntity.getLocalTxId();
+    int retries = txEntity.getRetriesCounter().get();
+    Patterns.pipe(SpringAkkaExtension.SPRING_EXTENSION_PROVIDER.get(context().system())
+        .compensate(txEntity)
+        .handle((ignored, throwable) -> throwable == null
+            ? CompensationSent.INSTANCE
+            : new CompensationFailed(localTxId, retries,
+                throwable instanceof CompletionException ? throwable.getCause() : throwable)),
+        context().dispatcher()).to(self());
+  }
+
+  // sends the failed compensation again after its retry delay
+  private void retryCompensation(TxEntity txEntity) {
+    LOG.info("Retry compensate {}/{} [{}] {} after {} ms",
+        txEntity.getRetriesCounter().get() + 1,
+        txEntity.getReverseRetries(),
+        txEntity.getGlobalTxId(),
+        txEntity.getLocalTxId(),
+        txEntity.getRetryDelayInMilliseconds());
+    context().system().scheduler().scheduleOnce(
+        Duration.create(txEntity.getRetryDelayInMilliseconds(), TimeUnit.MILLISECONDS), self(),
+        new RetryCompensation(txEntity.getLocalTxId(), txEntity.getRetriesCounter().get()),
+        context().dispatcher(), self());
+  }
+
+  /**
+   * Turns the failure of sending a compensation into the event the actor handles like a failed
+   * ack. A failed ack of omega arrives as a {@link TxCompensateAckFailedEvent} by itself.
+   */
+  private void onCompensationFailed(CompensationFailed failure, SagaData data) {
+    TxEntity txEntity = data.getTxEntities().get(failure.localTxId);
+    if (txEntity == null || txEntity.getState() != TxState.COMPENSATION_SENT
+        || txEntity.getRetriesCounter().get() != failure.retries) {
+      // the compensation has been acked or sent again meanwhile
+      return;
+    }
+    Throwable ex = failure.cause;
+    LOG.error("compensate failed [{}] {}", txEntity.getGlobalTxId(), txEntity.getLocalTxId(), ex);
+    if (ex instanceof TimeoutException) {
+      StringWriter writer = new StringWriter();
+      ex.printStackTrace(new PrintWriter(writer));
+      String stackTrace = writer.toString();
+      if (stackTrace.length() > Environment.getInstance().getPayloadsMaxLength()) {
+        stackTrace = stackTrace.substring(0, Environment.getInstance().getPayloadsMaxLength());
       }
-      return false;
+      self().tell(CompensateAckTimeoutEvent.builder()
+          .createTime(new Date(System.currentTimeMillis()))
+          .globalTxId(txEntity.getGlobalTxId())
+          .parentTxId(txEntity.getParentTxId())
+          .localTxId(txEntity.getLocalTxId())
+          .serviceName(txEntity.getServiceName())
+          .instanceId(txEntity.getInstanceId())
+          .payloads(stackTrace.getBytes())
+          .build(), self());
+    } else if (ex instanceof AlphaException) {
+      self().tell(TxCompensateAckFailedEvent.builder()
+          .serviceName(txEntity.getServiceName())
+          .instanceId(txEntity.getInstanceId())
+          .globalTxId(txEntity.getGlobalTxId())
+          .localTxId(txEntity.getLocalTxId())
+          .parentTxId(txEntity.getParentTxId())
+          .payloads(ex.getMessage().getBytes())
+          .build(), self());
+    }
+  }
+
+  private static final class CompensationSent {
+
+    static final CompensationSent INSTANCE = new CompensationSent();
+  }
+
+  private static final class CompensationFailed {
+
+    private final String localTxId;
+    private final int retries;
+    private final Throwable cause;
+
+    private CompensationFailed(String localTxId, int retries, Throwable cause) {
+      this.localTxId = localTxId;
+      this.retries = retries;
+      this.cause = cause;
+    }
+  }
+
+  private static final class RetryCompensation {
+
+    private final String localTxId;
+    private final int retries;
+
+    private RetryCompensation(String localTxId, int retries) {
+      this.localTxId = localTxId;
+      this.retries = retries;
     }
-    return true;
   }
-}
\ No newline at end of file
+}
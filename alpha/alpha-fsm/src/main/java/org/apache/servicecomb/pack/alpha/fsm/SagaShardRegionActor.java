@@ -20,11 +20,14 @@ package org.apache.servicecomb.pack.alpha.fsm;
 import akka.actor.AbstractActor;
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
-import akka.actor.Props;
+import akka.actor.PoisonPill;
+import akka.cluster.Cluster;
 import akka.cluster.sharding.ClusterSharding;
 import akka.cluster.sharding.ClusterShardingSettings;
 import akka.cluster.sharding.ShardRegion;
+import com.google.common.hash.Hashing;
 import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,37 +37,84 @@ public class SagaShardRegionActor extends AbstractActor {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private final ActorRef sagaActorRegion;
 
-  static ShardRegion.MessageExtractor messageExtractor = new ShardRegion.MessageExtractor() {
-    @Override
-    public String entityId(Object message) {
-      if (message instanceof BaseEvent) {
-        return ((BaseEvent) message).getGlobalTxId();
-      } else {
-        return null;
+  /**
+   * How a global transaction id is hashed to its shard. The shards of the sagas in flight are
+   * remembered by the cluster, so a node with another hashing or number of shards must not join
+   * them, changing either needs a full cluster restart with all the sagas ended.
+   */
+  public enum ShardHashing {
+    // the hash code of the global transaction id over 10 shards, as the earlier releases did
+    LEGACY {
+      @Override
+      String shardIdOf(String globalTxId, int numberOfShards) {
+        return String.valueOf(globalTxId.hashCode() % numberOfShards);
       }
-    }
+    },
+    // murmur3 spreads the similar global transaction ids evenly, floorMod never returns a negative shard
+    MURMUR3 {
+      @Override
+      String shardIdOf(String globalTxId, int numberOfShards) {
+        int hash = Hashing.murmur3_32().hashString(globalTxId, StandardCharsets.UTF_8).asInt();
+        return String.valueOf(Math.floorMod(hash, numberOfShards));
+      }
+    };
 
-    @Override
-    public Object entityMessage(Object message) {
-      return message;
+    abstract String shardIdOf(String globalTxId, int numberOfShards);
+
+    public static ShardHashing of(String name) {
+      return valueOf(name.trim().toUpperCase());
     }
+  }
 
-    @Override
-    public String shardId(Object message) {
-      int numberOfShards = 10; // NOTE: Greater than the number of alpha nodes
-      if (message instanceof BaseEvent) {
-        String actorId = ((BaseEvent) message).getGlobalTxId();
-        return String.valueOf(actorId.hashCode() % numberOfShards);
-      } else if (message instanceof ShardRegion.StartEntity) {
-        String actorId = ((ShardRegion.StartEntity) message).entityId();
-        return String.valueOf(actorId.hashCode() % numberOfShards);
-      } else {
-        return null;
+  static ShardRegion.MessageExtractor messageExtractor(final int numberOfShards,
+      final ShardHashing hashing) {
+    return new ShardRegion.MessageExtractor() {
+      @Override
+      public String entityId(Object message) {
+        if (message instanceof BaseEvent) {
+          return ((BaseEvent) message).getGlobalTxId();
+        } else {
+          return null;
+        }
       }
-    }
-  };
 
-  public SagaShardRegionActor() {
+      @Override
+      public Object entityMessage(Object message) {
+        return message;
+      }
+
+      @Override
+      public String shardId(Object message) {
+        if (message instanceof BaseEvent) {
+          String actorId = ((BaseEvent) message).getGlobalTxId();
+          return hashing.shardIdOf(actorId, numberOfShards);
+        } else if (message instanceof ShardRegion.StartEntity) {
+          String actorId = ((ShardRegion.StartEntity) message).entityId();
+          return hashing.shardIdOf(actorId, numberOfShards);
+        } else {
+          return null;
+        }
+      }
+    };
+  }
+
+  static String shardIdOf(String globalTxId, int numberOfShards, ShardHashing hashing) {
+    return hashing.shardIdOf(globalTxId, numberOfShards);
+  }
+
+  // a partition holds whole shards, so all the events of a shard are consumed by the same node,
+  // floorMod also places the negative shards of the legacy hashing
+  static int partitionOfShard(String shardId, int numberOfPartitions) {
+    return Math.floorMod(Integer.parseInt(shardId), numberOfPartitions);
+  }
+
+  public static int partitionOf(String globalTxId, int numberOfShards, ShardHashing hashing,
+      int numberOfPartitions) {
+    return partitionOfShard(hashing.shardIdOf(globalTxId, numberOfShards), numberOfPartitions);
+  }
+
+  public SagaShardRegionActor(int numberOfShards, ShardHashing hashing,
+      int maxSimultaneousRebalance, int numberOfPartitions) {
     ActorSystem system = getContext().getSystem();
     ClusterShardingSettings settings = ClusterShardingSettings.create(system);
     sagaActorRegion = ClusterSharding.get(system)
@@ -72,7 +122,10 @@ public class SagaShardRegionActor extends AbstractActor {
             SagaActor.class.getSimpleName(),
             SagaActor.props(null),
             settings,
-            messageExtractor);
+            messageExtractor(numberOfShards, hashing),
+            new ConsistentHashingShardAllocationStrategy(Cluster.get(system).selfAddress(),
+                maxSimultaneousRebalance, numberOfPartitions),
+            PoisonPill.getInstance());
   }
 
   @Override
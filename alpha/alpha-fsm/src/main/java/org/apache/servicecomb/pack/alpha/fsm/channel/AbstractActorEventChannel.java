@@ -17,6 +17,8 @@
 
 package org.apache.servicecomb.pack.alpha.fsm.channel;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventChannel;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
@@ -50,4 +52,40 @@ public abstract class AbstractActorEventChannel implements ActorEventChannel {
     metricsService.metrics().doEventAvgTime(end - begin);
   }
 
+  /**
+   * Sends the event without blocking, the channels backed by an asynchronous client override it.
+   */
+  protected CompletionStage<Void> sendToAsync(BaseEvent event) {
+    this.sendTo(event);
+    return CompletableFuture.completedFuture(null);
+  }
+
+  @Override
+  public CompletionStage<Void> sendAsync(BaseEvent event) {
+    long begin = System.currentTimeMillis();
+    metricsService.metrics().doEventReceived();
+    metricsService.metrics().doEventSendStarted();
+    CompletionStage<Void> sent;
+    try {
+      sent = this.sendToAsync(event);
+    } catch (Exception ex) {
+      CompletableFuture<Void> failed = new CompletableFuture<>();
+      failed.completeExceptionally(ex);
+      sent = failed;
+    }
+    // like send, a failure is only logged and counted
+    return sent.handle((done, ex) -> {
+      metricsService.metrics().doEventSendCompleted();
+      if (ex == null) {
+        metricsService.metrics().doEventAccepted();
+      } else {
+        logger.error("send Exception = [{}]", ex.getMessage(), ex);
+        metricsService.metrics().doEventRejected();
+      }
+      long end = System.currentTimeMillis();
+      metricsService.metrics().doEventAvgTime(end - begin);
+      return null;
+    });
+  }
+
 }
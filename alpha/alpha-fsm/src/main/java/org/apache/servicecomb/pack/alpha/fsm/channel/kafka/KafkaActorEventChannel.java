@@ -17,6 +17,7 @@
 
 package org.apache.servicecomb.pack.alpha.fsm.channel.kafka;
 
+import java.util.concurrent.CompletionStage;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 import org.apache.servicecomb.pack.alpha.fsm.channel.AbstractActorEventChannel;
 import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
@@ -34,4 +35,9 @@ public class KafkaActorEventChannel extends AbstractActorEventChannel {
   public void sendTo(BaseEvent event){
       kafkaMessagePublisher.publish(event);
   }
+
+  @Override
+  protected CompletionStage<Void> sendToAsync(BaseEvent event) {
+    return kafkaMessagePublisher.publishAsync(event);
+  }
 }
@@ -32,8 +32,11 @@ import org.apache.kafka.clients.admin.KafkaAdminClient;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventChannel;
+import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventSerializer;
+import org.apache.servicecomb.pack.alpha.fsm.SagaShardRegionActor.ShardHashing;
 import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,7 +51,6 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 @Configuration
 @ConditionalOnClass(KafkaProperties.class)
@@ -78,6 +80,12 @@ public class KafkaChannelAutoConfiguration {
   @Value("${spring.kafka.producer.buffer.memory:33554432}")
   private long bufferMemory;
 
+  @Value("${spring.kafka.producer.linger.ms:5}")
+  private int lingerMs;
+
+  @Value("${spring.kafka.producer.acks:1}")
+  private String acks;
+
   @Value("${spring.kafka.consumer.auto.offset.reset:earliest}")
   private String autoOffsetReset;
 
@@ -99,6 +107,18 @@ public class KafkaChannelAutoConfiguration {
   @Value("${kafka.replicationFactor:1}")
   private short replicationFactor;
 
+  @Value("${alpha.feature.akka.sharding.numberOfShards:10}")
+  private int numberOfShards;
+
+  @Value("${alpha.feature.akka.sharding.hashing:legacy}")
+  private String shardHashing;
+
+  @Value("${alpha.feature.akka.channel.kafka.consumer.parallelism:20}")
+  private int consumerParallelism;
+
+  @Value("${alpha.feature.akka.channel.kafka.consumer.batch-size:100}")
+  private int consumerBatchSize;
+
   @PostConstruct
   public void init() {
     Map props = new HashMap<>();
@@ -124,16 +144,20 @@ public class KafkaChannelAutoConfiguration {
 
   @Bean
   @ConditionalOnMissingBean
-  public KafkaMessagePublisher kafkaMessagePublisher() {
+  public KafkaMessagePublisher kafkaMessagePublisher(ActorEventSerializer actorEventSerializer) {
     Map<String, Object> map = Maps.newHashMap();
     map.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap_servers);
     map.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-    map.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+    map.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
     map.put(ProducerConfig.RETRIES_CONFIG, retries);
     map.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
     map.put(ProducerConfig.BUFFER_MEMORY_CONFIG, bufferMemory);
+    // the events are sent asynchronously, so waiting a few milliseconds fills the batches
+    map.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+    map.put(ProducerConfig.ACKS_CONFIG, acks);
     return new KafkaMessagePublisher(topic,
-        new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(map)));
+        new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(map)), actorEventSerializer,
+        numberOfShards, ShardHashing.of(shardHashing), numPartitions);
   }
 
   @Bean
@@ -146,8 +170,9 @@ public class KafkaChannelAutoConfiguration {
   @Bean
   KafkaSagaEventConsumer sagaEventKafkaConsumer(ActorSystem actorSystem,
       @Qualifier("sagaShardRegionActor") ActorRef sagaShardRegionActor,
-      MetricsService metricsService) {
+      MetricsService metricsService, ActorEventSerializer actorEventSerializer) {
     return new KafkaSagaEventConsumer(actorSystem, sagaShardRegionActor, metricsService,
-        bootstrap_servers, topic);
+        bootstrap_servers, topic, actorEventSerializer, numPartitions, consumerParallelism,
+        consumerBatchSize);
   }
 }
@@ -17,32 +17,45 @@
 
 package org.apache.servicecomb.pack.alpha.fsm.channel.kafka;
 
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
+import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventSerializer;
 import org.apache.servicecomb.pack.alpha.core.fsm.channel.MessagePublisher;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.fsm.SagaShardRegionActor;
+import org.apache.servicecomb.pack.alpha.fsm.SagaShardRegionActor.ShardHashing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.ListenableFuture;
 
 public class KafkaMessagePublisher implements MessagePublisher<BaseEvent> {
 
     private static final Logger LOG = LoggerFactory.getLogger(KafkaMessagePublisher.class);
 
     private String topic;
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    private ActorEventSerializer serializer;
+    private int numberOfShards;
+    private ShardHashing shardHashing;
+    private int numberOfPartitions;
 
-    public KafkaMessagePublisher(String topic, KafkaTemplate<String, Object> kafkaTemplate) {
+    public KafkaMessagePublisher(String topic, KafkaTemplate<String, byte[]> kafkaTemplate,
+        ActorEventSerializer serializer, int numberOfShards, ShardHashing shardHashing,
+        int numberOfPartitions) {
         this.topic = topic;
         this.kafkaTemplate = kafkaTemplate;
+        this.serializer = serializer;
+        this.numberOfShards = numberOfShards;
+        this.shardHashing = shardHashing;
+        this.numberOfPartitions = numberOfPartitions;
     }
 
     @Override
     public void publish(BaseEvent data) {
-        if(LOG.isDebugEnabled()){
-            LOG.debug("send [{}] {} {}", data.getGlobalTxId(), data.getType(), data.getLocalTxId());
-        }
         try {
-            kafkaTemplate.send(topic, data.getGlobalTxId(), data).get();
+            send(data).get();
         } catch (InterruptedException | ExecutionException | UnsupportedOperationException e) {
             if (e.getCause() instanceof InterruptedException) {
                 Thread.currentThread().interrupt();
@@ -50,4 +63,20 @@ public class KafkaMessagePublisher implements MessagePublisher<BaseEvent> {
             throw new RuntimeException(e);
         }
     }
+
+    @Override
+    public CompletionStage<Void> publishAsync(BaseEvent data) {
+        // completed by the producer's callback once the batch containing the event is acknowledged
+        return send(data).completable().thenApply(result -> null);
+    }
+
+    private ListenableFuture<SendResult<String, byte[]>> send(BaseEvent data) {
+        if(LOG.isDebugEnabled()){
+            LOG.debug("send [{}] {} {}", data.getGlobalTxId(), data.getType(), data.getLocalTxId());
+        }
+        // send the events of a shard to the same partition, see ConsistentHashingShardAllocationStrategy
+        int partition = SagaShardRegionActor
+            .partitionOf(data.getGlobalTxId(), numberOfShards, shardHashing, numberOfPartitions);
+        return kafkaTemplate.send(topic, partition, data.getGlobalTxId(), serializer.serialize(data));
+    }
 }
@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.channel.kafka;
+
+import akka.Done;
+import akka.actor.AbstractActor;
+import akka.actor.Address;
+import akka.actor.Props;
+import akka.cluster.Cluster;
+import akka.cluster.ClusterEvent;
+import akka.cluster.ClusterEvent.MemberRemoved;
+import akka.cluster.ClusterEvent.MemberUp;
+import akka.cluster.ClusterEvent.ReachableMember;
+import akka.cluster.ClusterEvent.UnreachableMember;
+import akka.cluster.MemberStatus;
+import akka.pattern.Patterns;
+import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.apache.servicecomb.pack.alpha.fsm.ConsistentHashingShardAllocationStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scala.concurrent.duration.Duration;
+
+/**
+ * Consumes the Kafka partitions which the shard allocation assigns to the shard region of this
+ * node, the consumer is restarted with the new partitions when a member joins, leaves or becomes
+ * unreachable. A partition taken over from a reachable member is only consumed once that member
+ * has drained its consumer and committed the offsets, or the hand-over timed out.
+ */
+public class KafkaPartitionAssignmentActor extends AbstractActor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final Object STOPPED = "stopped";
+  // longer than draining a consumer, see akka.kafka.consumer.stop-timeout
+  private static final long HANDOVER_TIMEOUT_SECONDS = 60;
+
+  private final Cluster cluster = Cluster.get(getContext().getSystem());
+  private final String regionPath;
+  private final int numberOfPartitions;
+  private final Function<Set<Integer>, PartitionConsumer> consumer;
+  private final Set<Address> upMembers = new HashSet<>();
+  private final Set<Address> unreachableMembers = new HashSet<>();
+  private Map<Integer, Address> owners = Collections.emptyMap();
+  private Set<Integer> partitions = Collections.emptySet();
+  // the partitions taken over from a member which has not released them yet
+  private final Set<Integer> awaiting = new TreeSet<>();
+  // the partitions released by the other members, which may arrive before the member change
+  private final Set<Integer> released = new HashSet<>();
+  // the partitions assigned to another member since this node released its partitions last
+  private final Set<Integer> revoked = new TreeSet<>();
+  private int handovers;
+  private PartitionConsumer control;
+  private boolean stopping;
+
+  /**
+   * The consumer of the partitions assigned to this node.
+   */
+  public interface PartitionConsumer {
+
+    // stops consuming and completes once the consumed events are committed
+    CompletionStage<Done> drainAndShutdown(Executor executor);
+
+    CompletionStage<Done> shutdown();
+  }
+
+  public static Props props(String regionPath, int numberOfPartitions,
+      Function<Set<Integer>, PartitionConsumer> consumer) {
+    return Props.create(KafkaPartitionAssignmentActor.class,
+        () -> new KafkaPartitionAssignmentActor(regionPath, numberOfPartitions, consumer));
+  }
+
+  KafkaPartitionAssignmentActor(String regionPath, int numberOfPartitions,
+      Function<Set<Integer>, PartitionConsumer> consumer) {
+    this.regionPath = regionPath;
+    this.numberOfPartitions = numberOfPartitions;
+    this.consumer = consumer;
+  }
+
+  @Override
+  public void preStart() {
+    cluster.subscribe(getSelf(), ClusterEvent.initialStateAsEvents(), MemberUp.class,
+        MemberRemoved.class, UnreachableMember.class, ReachableMember.class);
+  }
+
+  @Override
+  public void postStop() {
+    cluster.unsubscribe(getSelf());
+    if (control != null) {
+      control.shutdown();
+    }
+  }
+
+  @Override
+  public Receive createReceive() {
+    return receiveBuilder()
+        .match(MemberUp.class, event -> {
+          upMembers.add(event.member().address());
+          assign();
+        })
+        .match(MemberRemoved.class, event -> {
+          upMembers.remove(event.member().address());
+          unreachableMembers.remove(event.member().address());
+          assign();
+        })
+        .match(UnreachableMember.class, event -> {
+          // an unreachable member is not downed automatically, so its partitions would stay
+          // unconsumed until it is
+          unreachableMembers.add(event.member().address());
+          assign();
+        })
+        .match(ReachableMember.class, event -> {
+          unreachableMembers.remove(event.member().address());
+          if (event.member().status() == MemberStatus.up()) {
+            upMembers.add(event.member().address());
+          }
+          assign();
+        })
+        .match(Released.class, event -> {
+          released.addAll(event.partitions);
+          if (!awaiting.isEmpty() && control == null && !stopping) {
+            start();
+          }
+        })
+        .match(HandoverTimeout.class, event -> {
+          if (event.handover == handovers && !awaiting.isEmpty()) {
+            LOG.warn("Kafka partitions {} are not released by their previous owners in {} s",
+                awaiting, HANDOVER_TIMEOUT_SECONDS);
+            awaiting.clear();
+            if (control == null && !stopping) {
+              start();
+            }
+          }
+        })
+        .matchEquals(STOPPED, stopped -> {
+          stopping = false;
+          release();
+          start();
+        })
+        .build();
+  }
+
+  private void assign() {
+    Map<String, Address> membersByKey = new HashMap<>();
+    for (Address member : upMembers) {
+      if (!unreachableMembers.contains(member)) {
+        membersByKey.put(member + regionPath, member);
+      }
+    }
+    Map<Integer, Address> previousOwners = owners;
+    owners = new HashMap<>();
+    ConsistentHashingShardAllocationStrategy
+        .partitionOwnersOf(membersByKey.keySet(), numberOfPartitions)
+        .forEach((partition, key) -> owners.put(partition, membersByKey.get(key)));
+    Set<Integer> assigned = new TreeSet<>();
+    owners.forEach((partition, owner) -> {
+      if (owner.equals(cluster.selfAddress())) {
+        assigned.add(partition);
+      }
+    });
+    if (assigned.equals(partitions)) {
+      return;
+    }
+    LOG.info("Kafka partitions {} are assigned to {}", assigned, cluster.selfAddress());
+    // a removed or unreachable member does not release its partitions
+    for (Integer partition : assigned) {
+      Address previousOwner = previousOwners.get(partition);
+      if (!partitions.contains(partition) && previousOwner != null
+          && !previousOwner.equals(cluster.selfAddress())
+          && membersByKey.containsValue(previousOwner)) {
+        awaiting.add(partition);
+      }
+    }
+    awaiting.retainAll(assigned);
+    revoked.addAll(partitions);
+    revoked.removeAll(assigned);
+    partitions = assigned;
+    if (!awaiting.isEmpty()) {
+      getContext().getSystem().scheduler().scheduleOnce(
+          Duration.create(HANDOVER_TIMEOUT_SECONDS, TimeUnit.SECONDS), getSelf(),
+          new HandoverTimeout(++handovers), getContext().getDispatcher(), getSelf());
+    }
+    if (control != null) {
+      // the offsets of the revoked partitions are committed before they are released
+      stopping = true;
+      Patterns.pipe(control.drainAndShutdown(getContext().getDispatcher())
+              .handle((done, ex) -> STOPPED),
+          getContext().getDispatcher()).to(getSelf());
+      control = null;
+    } else if (!stopping) {
+      release();
+      start();
+    }
+  }
+
+  // tells the other members that this node does not consume the revoked partitions any more
+  private void release() {
+    if (revoked.isEmpty()) {
+      return;
+    }
+    Released message = new Released(new HashSet<>(revoked));
+    for (Address member : upMembers) {
+      if (!member.equals(cluster.selfAddress())) {
+        getContext().actorSelection(getSelf().path().toStringWithAddress(member))
+            .tell(message, getSelf());
+      }
+    }
+    revoked.clear();
+  }
+
+  private void start() {
+    awaiting.removeAll(released);
+    if (!awaiting.isEmpty()) {
+      LOG.info("Kafka partitions {} wait for their previous owners to commit", awaiting);
+      return;
+    }
+    released.removeAll(partitions);
+    if (!partitions.isEmpty()) {
+      control = consumer.apply(partitions);
+    }
+  }
+
+  static final class Released implements Serializable {
+
+    private final Set<Integer> partitions;
+
+    Released(Set<Integer> partitions) {
+      this.partitions = partitions;
+    }
+  }
+
+  private static final class HandoverTimeout {
+
+    private final int handover;
+
+    private HandoverTimeout(int handover) {
+      this.handover = handover;
+    }
+  }
+}
@@ -17,6 +17,7 @@
 
 package org.apache.servicecomb.pack.alpha.fsm.channel.kafka;
 
+import akka.Done;
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import akka.kafka.ConsumerMessage;
@@ -26,82 +27,131 @@ import akka.kafka.javadsl.Consumer;
 import akka.pattern.Patterns;
 import akka.stream.ActorMaterializer;
 import akka.stream.Materializer;
+import akka.stream.javadsl.RestartSource;
 import akka.stream.javadsl.Sink;
-import akka.util.Timeout;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import akka.stream.javadsl.Source;
 import com.typesafe.config.Config;
 import java.lang.invoke.MethodHandles;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CompletionException;
+import java.time.Duration;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventSerializer;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.fsm.SagaActor;
 import org.apache.servicecomb.pack.alpha.fsm.channel.AbstractEventConsumer;
+import org.apache.servicecomb.pack.alpha.fsm.channel.kafka.KafkaPartitionAssignmentActor.PartitionConsumer;
 import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import scala.concurrent.Await;
-import scala.concurrent.Future;
-import scala.concurrent.duration.Duration;
 
 public class KafkaSagaEventConsumer extends AbstractEventConsumer {
 
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final Duration ASK_TIMEOUT = Duration.ofSeconds(10);
+  // a failed consumer, e.g. while Kafka is unavailable, is restarted with these backoffs
+  private static final Duration MIN_BACKOFF = Duration.ofSeconds(3);
+  private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+  private static final double RANDOM_FACTOR = 0.2;
   final String groupId = "servicecomb-pack";
-  final ObjectMapper jsonMapper = new ObjectMapper();
 
   public KafkaSagaEventConsumer(ActorSystem actorSystem, ActorRef sagaShardRegionActor,
-      MetricsService metricsService, String bootstrap_servers, String topic) {
+      MetricsService metricsService, String bootstrap_servers, String topic,
+      ActorEventSerializer serializer, int numberOfPartitions, int parallelism, int batchSize) {
     super(actorSystem, sagaShardRegionActor, metricsService);
 
 
     // init consumer
     final Materializer materializer = ActorMaterializer.create(actorSystem);
     final Config consumerConfig = actorSystem.settings().config().getConfig("akka.kafka.consumer");
-    final ConsumerSettings<String, String> consumerSettings =
+    final ConsumerSettings<String, byte[]> consumerSettings =
         ConsumerSettings
-            .create(consumerConfig, new StringDeserializer(), new StringDeserializer())
+            .create(consumerConfig, new StringDeserializer(), new ByteArrayDeserializer())
             .withBootstrapServers(bootstrap_servers)
             .withGroupId(groupId)
             .withProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false")
             .withProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest")
             .withProperty(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, "StringDeserializer.class")
-            .withProperty(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, "StringDeserializer.class");
-    Consumer.committableSource(consumerSettings, Subscriptions.topics(topic))
-        .mapAsync(20, event -> {
-          BaseEvent bean = jsonMapper.readValue(event.record().value(), BaseEvent.class);
-          if (LOG.isDebugEnabled()) {
-            LOG.debug("receive [{}] {} {}", bean.getGlobalTxId(), bean.getType(), bean.getLocalTxId());
-          }
-          return sendSagaActor(bean).thenApply(done -> event.committableOffset());
-        })
-        .batch(
-            100,
-            ConsumerMessage::createCommittableOffsetBatch,
-            ConsumerMessage.CommittableOffsetBatch::updated
-        )
-        .mapAsync(20, offset -> offset.commitJavadsl())
-        .to(Sink.ignore())
-        .run(materializer);
+            .withProperty(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, "ByteArrayDeserializer.class");
+    // Each node consumes the partitions whose shards are allocated to its own shard region,
+    // every partition is a sub stream so its events keep their order and its offsets are
+    // committed independently
+    final String regionPath = "/system/"
+        + actorSystem.settings().config().getString("akka.cluster.sharding.guardian-name")
+        + "/" + SagaActor.class.getSimpleName();
+    actorSystem.actorOf(KafkaPartitionAssignmentActor.props(regionPath, numberOfPartitions,
+        partitions -> {
+          // the consumer of the restarted source, which is drained when the partitions change
+          final AtomicReference<Consumer.Control> control =
+              new AtomicReference<>(Consumer.createNoopControl());
+          final AtomicBoolean stopping = new AtomicBoolean();
+          final CompletionStage<Done> completion = RestartSource.onFailuresWithBackoff(
+              MIN_BACKOFF, MAX_BACKOFF, RANDOM_FACTOR,
+              () -> stopping.get() ? Source.<Done>empty() : Consumer
+                  .committableSource(consumerSettings, Subscriptions.assignment(partitions.stream()
+                      .map(partition -> new TopicPartition(topic, partition))
+                      .collect(Collectors.toSet())))
+                  .mapMaterializedValue(consumerControl -> {
+                    control.set(consumerControl);
+                    return consumerControl;
+                  })
+                  .groupBy(numberOfPartitions, event -> event.record().partition())
+                  // up to parallelism asks are in flight, the events of a global transaction
+                  // still reach its SagaActor in order only because every ask enqueues its event
+                  // into the mailbox of the shard region before the next event is asked, and the
+                  // region forwards the events of an entity in the order of its mailbox
+                  .mapAsync(parallelism, event -> {
+                    BaseEvent bean = serializer.deserialize(event.record().value());
+                    if (LOG.isDebugEnabled()) {
+                      LOG.debug("receive [{}] {} {}", bean.getGlobalTxId(), bean.getType(), bean.getLocalTxId());
+                    }
+                    return sendSagaActor(bean).thenApply(done -> event.committableOffset());
+                  })
+                  .batch(
+                      batchSize,
+                      ConsumerMessage::createCommittableOffsetBatch,
+                      ConsumerMessage.CommittableOffsetBatch::updated
+                  )
+                  .mapAsync(1, offset -> offset.commitJavadsl())
+                  .mergeSubstreams())
+              .runWith(Sink.ignore(), materializer);
+          return new PartitionConsumer() {
+            @Override
+            public CompletionStage<Done> drainAndShutdown(Executor executor) {
+              // a consumer restarted after the drain would not be stopped
+              stopping.set(true);
+              return control.get().drainAndShutdown(completion, executor);
+            }
+
+            @Override
+            public CompletionStage<Done> shutdown() {
+              stopping.set(true);
+              return control.get().shutdown();
+            }
+          };
+        }), "kafkaPartitionAssignmentActor");
   }
 
-  private CompletionStage<String> sendSagaActor(BaseEvent event) {
-    try {
-      long begin = System.currentTimeMillis();
-      metricsService.metrics().doActorReceived();
-      // Use the synchronous method call to ensure that Kafka's Offset is set after the delivery is successful.
-      Timeout timeout = new Timeout(Duration.create(10, "seconds"));
-      Future<Object> future = Patterns.ask(sagaShardRegionActor, event, timeout);
-      Await.result(future, timeout.duration());
-      long end = System.currentTimeMillis();
-      metricsService.metrics().doActorAccepted();
-      metricsService.metrics().doActorAvgTime(end - begin);
-      return CompletableFuture.completedFuture("OK");
-    } catch (Exception ex) {
-      LOG.error(ex.getMessage(),ex);
-      metricsService.metrics().doActorRejected();
-      throw new CompletionException(ex);
-    }
+  private CompletionStage<Object> sendSagaActor(BaseEvent event) {
+    long begin = System.currentTimeMillis();
+    metricsService.metrics().doActorReceived();
+    // Kafka's Offset is only committed after the ask completes, the stream thread is not blocked
+    return Patterns.ask(sagaShardRegionActor, event, ASK_TIMEOUT)
+        .whenComplete((result, ex) -> {
+          if (ex == null) {
+            long end = System.currentTimeMillis();
+            metricsService.metrics().doActorAccepted();
+            metricsService.metrics().doActorAvgTime(end - begin);
+          } else {
+            LOG.error(ex.getMessage(), ex);
+            metricsService.metrics().doActorRejected();
+          }
+        });
   }
 }
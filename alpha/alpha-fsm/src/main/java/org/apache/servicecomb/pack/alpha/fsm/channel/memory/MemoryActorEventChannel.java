@@ -17,38 +17,86 @@
 
 package org.apache.servicecomb.pack.alpha.fsm.channel.memory;
 
-import java.lang.invoke.MethodHandles;
-import java.util.concurrent.LinkedBlockingQueue;
-
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.BusySpinWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.EventTranslatorOneArg;
+import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.YieldingWaitStrategy;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 import org.apache.servicecomb.pack.alpha.fsm.channel.AbstractActorEventChannel;
 import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
-import org.apache.servicecomb.pack.alpha.core.fsm.sink.ActorEventSink;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+/**
+ * Publishes the events to a pre-allocated ring buffer, the gRPC threads are the producers and
+ * a single {@link MemorySagaEventConsumer} thread drains it.
+ */
 public class MemoryActorEventChannel extends AbstractActorEventChannel {
 
-  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
-  private final LinkedBlockingQueue<BaseEvent> eventQueue;
-  private int size;
+  static final int DEFAULT_SIZE = 64 * 1024;
+
+  private static final EventTranslatorOneArg<EventSlot, BaseEvent> TRANSLATOR =
+      (slot, sequence, event) -> slot.event = event;
+
+  private final Disruptor<EventSlot> disruptor;
 
   public MemoryActorEventChannel(MetricsService metricsService, int size) {
-    super(metricsService);
-    this.size = size > 0 ? size : Integer.MAX_VALUE;
-    eventQueue = new LinkedBlockingQueue(this.size);
+    this(metricsService, size, "blocking");
   }
 
-  public LinkedBlockingQueue<BaseEvent> getEventQueue() {
-    return eventQueue;
+  public MemoryActorEventChannel(MetricsService metricsService, int size, String waitStrategy) {
+    super(metricsService);
+    this.disruptor = new Disruptor<>(EventSlot::new, ringBufferSizeOf(size), runnable -> {
+      Thread thread = new Thread(runnable, "MemorySagaEventConsumer");
+      thread.setDaemon(true);
+      return thread;
+    }, ProducerType.MULTI, waitStrategyOf(waitStrategy));
   }
 
   @Override
   public void sendTo(BaseEvent event) {
-    try {
-      eventQueue.put(event);
-    } catch (Exception e) {
-      throw new RuntimeException(e);
+    // waits for a free slot when the ring buffer is full
+    disruptor.publishEvent(TRANSLATOR, event);
+  }
+
+  void start(EventHandler<EventSlot> consumer) {
+    disruptor.handleEventsWith(consumer);
+    disruptor.start();
+  }
+
+  public void shutdown() {
+    disruptor.shutdown();
+  }
+
+  // the ring buffer size must be a power of 2
+  static int ringBufferSizeOf(int size) {
+    if (size <= 0) {
+      return DEFAULT_SIZE;
     }
+    int ringBufferSize = Integer.highestOneBit(size);
+    return ringBufferSize == size ? size : Math.min(ringBufferSize << 1, 1 << 30);
+  }
+
+  static WaitStrategy waitStrategyOf(String name) {
+    switch (name) {
+      case "busy-spin":
+        return new BusySpinWaitStrategy();
+      case "yielding":
+        return new YieldingWaitStrategy();
+      case "parking":
+        return new SleepingWaitStrategy();
+      case "blocking":
+        return new BlockingWaitStrategy();
+      default:
+        throw new IllegalArgumentException("Unsupported memory channel wait strategy " + name);
+    }
+  }
+
+  static class EventSlot {
+
+    BaseEvent event;
   }
 }
@@ -40,15 +40,19 @@ public class MemoryChannelAutoConfiguration {
   @Value("${alpha.feature.akka.channel.memory.size:-1}")
   int memoryEventChannelMemorySize;
 
+  @Value("${alpha.feature.akka.channel.memory.waitStrategy:blocking}")
+  String memoryEventChannelWaitStrategy;
+
   @PostConstruct
   public void init(){
     LOG.info("Memory Channel Init");
   }
 
-  @Bean(name = "memoryEventChannel")
+  @Bean(name = "memoryEventChannel", destroyMethod = "shutdown")
   @ConditionalOnMissingBean(ActorEventChannel.class)
   public ActorEventChannel memoryEventChannel(MetricsService metricsService) {
-    return new MemoryActorEventChannel(metricsService, memoryEventChannelMemorySize);
+    return new MemoryActorEventChannel(metricsService, memoryEventChannelMemorySize,
+        memoryEventChannelWaitStrategy);
   }
 
   @Bean
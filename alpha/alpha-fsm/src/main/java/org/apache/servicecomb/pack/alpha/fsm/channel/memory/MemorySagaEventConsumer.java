@@ -19,9 +19,11 @@ package org.apache.servicecomb.pack.alpha.fsm.channel.memory;
 
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
+import com.lmax.disruptor.EventHandler;
 import java.lang.invoke.MethodHandles;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 import org.apache.servicecomb.pack.alpha.fsm.channel.AbstractEventConsumer;
+import org.apache.servicecomb.pack.alpha.fsm.channel.memory.MemoryActorEventChannel.EventSlot;
 import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,34 +37,30 @@ public class MemorySagaEventConsumer extends AbstractEventConsumer {
       MemoryActorEventChannel channel) {
     super(actorSystem, sagaShardRegionActor, metricsService);
     this.channel = channel;
-    new Thread(new MemorySagaEventConsumer.EventConsumer(), "MemorySagaEventConsumer").start();
+    channel.start(new MemorySagaEventConsumer.EventConsumer());
   }
 
-  class EventConsumer implements Runnable {
+  class EventConsumer implements EventHandler<EventSlot> {
 
+    // the ring buffer hands over all the available events as one batch, without sleeping
+    // between them
     @Override
-    public void run() {
-      while (true) {
-        try {
-          BaseEvent event = channel.getEventQueue().peek();
-          if (event != null) {
-            if (LOG.isDebugEnabled()) {
-              LOG.debug("event {}", event);
-            }
-            long begin = System.currentTimeMillis();
-            metricsService.metrics().doActorReceived();
-            sagaShardRegionActor.tell(event, sagaShardRegionActor);
-            long end = System.currentTimeMillis();
-            metricsService.metrics().doActorAccepted();
-            metricsService.metrics().doActorAvgTime(end - begin);
-            channel.getEventQueue().poll();
-          } else {
-            Thread.sleep(10);
-          }
-        } catch (Exception ex) {
-          metricsService.metrics().doActorRejected();
-          LOG.error(ex.getMessage(), ex);
+    public void onEvent(EventSlot slot, long sequence, boolean endOfBatch) {
+      BaseEvent event = slot.event;
+      slot.event = null;
+      try {
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("event {}", event);
         }
+        long begin = System.currentTimeMillis();
+        metricsService.metrics().doActorReceived();
+        sagaShardRegionActor.tell(event, sagaShardRegionActor);
+        long end = System.currentTimeMillis();
+        metricsService.metrics().doActorAccepted();
+        metricsService.metrics().doActorAvgTime(end - begin);
+      } catch (Exception ex) {
+        metricsService.metrics().doActorRejected();
+        LOG.error(ex.getMessage(), ex);
       }
     }
   }
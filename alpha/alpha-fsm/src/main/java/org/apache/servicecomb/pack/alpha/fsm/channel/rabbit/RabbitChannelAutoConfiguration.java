@@ -20,6 +20,7 @@ package org.apache.servicecomb.pack.alpha.fsm.channel.rabbit;
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventChannel;
+import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventSerializer;
 import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -43,19 +44,21 @@ public class RabbitChannelAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean()
-    public RabbitMessagePublisher rabbitMessagePublisher(BindingServiceProperties bindingServiceProperties, RabbitMessageChannel producerMessage) {
+    public RabbitMessagePublisher rabbitMessagePublisher(BindingServiceProperties bindingServiceProperties, RabbitMessageChannel producerMessage,
+                                                         ActorEventSerializer actorEventSerializer) {
         Map<String, BindingProperties> bindings = bindingServiceProperties.getBindings();
         // partitionCount must consistent with alpha server because of alpha server contains the consumer
         int partitionCount = bindings.get(RabbitMessageChannel.SERVICE_COMB_PACK_PRODUCER).getProducer().getPartitionCount();
-        RabbitMessagePublisher messagePublisher = new RabbitMessagePublisher(partitionCount, producerMessage);
+        RabbitMessagePublisher messagePublisher = new RabbitMessagePublisher(partitionCount, producerMessage, actorEventSerializer);
         return messagePublisher;
     }
 
     @Bean
     RabbitSagaEventConsumer sagaEventRabbitConsumer(ActorSystem actorSystem,
                                                     @Qualifier("sagaShardRegionActor") ActorRef sagaShardRegionActor,
-                                                    MetricsService metricsService) {
-        return new RabbitSagaEventConsumer(actorSystem, sagaShardRegionActor, metricsService);
+                                                    MetricsService metricsService,
+                                                    ActorEventSerializer actorEventSerializer) {
+        return new RabbitSagaEventConsumer(actorSystem, sagaShardRegionActor, metricsService, actorEventSerializer);
     }
 
     @Bean
@@ -17,11 +17,14 @@
 
 package org.apache.servicecomb.pack.alpha.fsm.channel.rabbit;
 
+import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventSerializer;
 import org.apache.servicecomb.pack.alpha.core.fsm.channel.MessagePublisher;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.MimeTypeUtils;
 
 import java.lang.invoke.MethodHandles;
 
@@ -32,11 +35,14 @@ public class RabbitMessagePublisher implements MessagePublisher<BaseEvent> {
 
     private RabbitMessageChannel producerMessage;
     private int partitionCount;
+    private ActorEventSerializer serializer;
 
-    public RabbitMessagePublisher(int partitionCount, RabbitMessageChannel producerMessage) {
+    public RabbitMessagePublisher(int partitionCount, RabbitMessageChannel producerMessage,
+        ActorEventSerializer serializer) {
 
         this.partitionCount = partitionCount;
         this.producerMessage = producerMessage;
+        this.serializer = serializer;
 
     }
 
@@ -49,7 +55,10 @@ public class RabbitMessagePublisher implements MessagePublisher<BaseEvent> {
             LOG.debug("send message [{}] to [{}]", data, partitionIndex);
         }
         // the headerName must consistent with partition key expression of spring cloud stream
-        producerMessage.messageChannel().send(MessageBuilder.withPayload(data).setHeader("partitionKey", partitionIndex).build());
+        producerMessage.messageChannel().send(MessageBuilder.withPayload(serializer.serialize(data))
+            .setHeader("partitionKey", partitionIndex)
+            .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_OCTET_STREAM_VALUE)
+            .build());
 
     }
 }
@@ -21,6 +21,7 @@ import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import akka.pattern.Patterns;
 import akka.util.Timeout;
+import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventSerializer;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 import org.apache.servicecomb.pack.alpha.fsm.channel.AbstractEventConsumer;
 import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
@@ -38,15 +39,19 @@ import java.util.concurrent.CompletionStage;
 
 public class RabbitSagaEventConsumer extends AbstractEventConsumer {
     private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private ActorEventSerializer serializer;
+
     public RabbitSagaEventConsumer(ActorSystem actorSystem, ActorRef sagaShardRegionActor,
-                                   MetricsService metricsService) {
+                                   MetricsService metricsService, ActorEventSerializer serializer) {
         super(actorSystem, sagaShardRegionActor, metricsService);
+        this.serializer = serializer;
 
     }
 
     @StreamListener(org.apache.servicecomb.pack.alpha.fsm.channel.rabbit.RabbitMessageChannel.SERVICE_COMB_PACK_CONSUMER)
-    public void receive(BaseEvent baseEvent) {
-        sendSagaActor(baseEvent);
+    public void receive(byte[] message) {
+        // the JSON messages published by former versions arrive here as raw bytes as well
+        sendSagaActor(serializer.deserialize(message));
     }
 
 
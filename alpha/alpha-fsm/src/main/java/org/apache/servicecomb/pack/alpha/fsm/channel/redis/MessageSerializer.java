@@ -22,6 +22,8 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.lang.invoke.MethodHandles;
 import java.util.Optional;
+import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventSerializer;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.redis.serializer.RedisSerializer;
@@ -31,18 +33,37 @@ public class MessageSerializer {
 
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-  private static MessageSerializerImpl serializer = null;
+  // stream header of the Java serialized events published by former versions
+  private static final byte STREAM_MAGIC_HIGH = (byte) 0xAC;
+  private static final byte STREAM_MAGIC_LOW = (byte) 0xED;
 
-  public MessageSerializer() {
-    serializer = new MessageSerializerImpl();
+  private final ActorEventSerializer serializer;
+
+  private final MessageSerializerImpl javaSerializer = new MessageSerializerImpl();
+
+  public MessageSerializer(ActorEventSerializer serializer) {
+    this.serializer = serializer;
   }
 
-  public Optional<byte[]> serializer(Object data) {
-    return Optional.ofNullable(serializer.serialize(data));
+  public Optional<byte[]> serializer(BaseEvent data) {
+    try {
+      return Optional.of(serializer.serialize(data));
+    } catch (Exception e) {
+      LOG.error("serialize Exception = [{}]", e.getMessage(), e);
+    }
+    return Optional.empty();
   }
 
   public Optional<Object> deserialize(byte[] bytes) {
-    return Optional.ofNullable(serializer.deserialize(bytes));
+    if (bytes.length > 1 && bytes[0] == STREAM_MAGIC_HIGH && bytes[1] == STREAM_MAGIC_LOW) {
+      return Optional.ofNullable(javaSerializer.deserialize(bytes));
+    }
+    try {
+      return Optional.of(serializer.deserialize(bytes));
+    } catch (Exception e) {
+      LOG.error("deserialize Exception = [{}]", e.getMessage(), e);
+    }
+    return Optional.empty();
   }
 
   private class MessageSerializerImpl implements RedisSerializer<Object> {
@@ -22,6 +22,7 @@ import java.lang.invoke.MethodHandles;
 import javax.annotation.PostConstruct;
 import org.apache.servicecomb.pack.alpha.core.NodeStatus;
 import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventChannel;
+import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventSerializer;
 import org.apache.servicecomb.pack.alpha.core.fsm.channel.MessagePublisher;
 import org.apache.servicecomb.pack.alpha.core.fsm.sink.ActorEventSink;
 import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
@@ -72,13 +73,19 @@ public class RedisChannelAutoConfiguration {
     return redisTemplate;
   }
 
+  @Bean
+  MessageSerializer messageSerializer(ActorEventSerializer actorEventSerializer) {
+    return new MessageSerializer(actorEventSerializer);
+  }
+
   @Bean
   RedisSagaEventConsumer redisSagaEventConsumer(ActorSystem actorSystem,
       @Qualifier("sagaShardRegionActor") ActorRef sagaShardRegionActor,
       MetricsService metricsService,
-      @Lazy @Qualifier("nodeStatus") NodeStatus nodeStatus) {
+      @Lazy @Qualifier("nodeStatus") NodeStatus nodeStatus,
+      MessageSerializer messageSerializer) {
     return new RedisSagaEventConsumer(actorSystem, sagaShardRegionActor, metricsService,
-        nodeStatus);
+        nodeStatus, messageSerializer);
   }
 
   @Bean
@@ -101,8 +108,9 @@ public class RedisChannelAutoConfiguration {
   }
 
   @Bean
-  MessagePublisher redisMessagePublisher(RedisTemplate<String, Object> redisTemplate) {
-    return new RedisMessagePublisher(redisTemplate, channelTopic());
+  MessagePublisher redisMessagePublisher(RedisTemplate<String, Object> redisTemplate,
+      MessageSerializer messageSerializer) {
+    return new RedisMessagePublisher(redisTemplate, channelTopic(), messageSerializer);
   }
 
   @Bean
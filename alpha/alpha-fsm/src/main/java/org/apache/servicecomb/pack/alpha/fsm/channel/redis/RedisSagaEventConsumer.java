@@ -34,13 +34,14 @@ public class RedisSagaEventConsumer extends AbstractEventConsumer implements Mes
 
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private NodeStatus nodeStatus;
-  private MessageSerializer messageSerializer = new MessageSerializer();
+  private MessageSerializer messageSerializer;
 
   public RedisSagaEventConsumer(ActorSystem actorSystem, ActorRef sagaShardRegionActor,
       MetricsService metricsService,
-      NodeStatus nodeStatus) {
+      NodeStatus nodeStatus, MessageSerializer messageSerializer) {
     super(actorSystem, sagaShardRegionActor, metricsService);
     this.nodeStatus = nodeStatus;
+    this.messageSerializer = messageSerializer;
   }
 
   @Override
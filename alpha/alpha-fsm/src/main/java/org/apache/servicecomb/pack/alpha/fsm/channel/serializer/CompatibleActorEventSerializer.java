@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.channel.serializer;
+
+import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventSerializer;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+
+/**
+ * Writes events with the configured format and reads any supported format, the format is
+ * detected from the first byte of a message. This keeps the records published by alpha servers
+ * running another format readable, e.g. the JSON records left in a topic during a rolling upgrade.
+ */
+public class CompatibleActorEventSerializer implements ActorEventSerializer {
+
+  private final JsonActorEventSerializer json = new JsonActorEventSerializer();
+  private final KryoActorEventSerializer kryo = new KryoActorEventSerializer();
+  private final ActorEventSerializer writer;
+
+  public CompatibleActorEventSerializer(String format) {
+    if ("json".equalsIgnoreCase(format)) {
+      this.writer = json;
+    } else if ("kryo".equalsIgnoreCase(format)) {
+      this.writer = kryo;
+    } else {
+      throw new IllegalArgumentException("Unsupported actor event serializer " + format);
+    }
+  }
+
+  @Override
+  public byte[] serialize(BaseEvent event) {
+    return writer.serialize(event);
+  }
+
+  @Override
+  public BaseEvent deserialize(byte[] bytes) {
+    if (bytes == null || bytes.length == 0) {
+      throw new IllegalArgumentException("Empty event message");
+    }
+    if (KryoActorEventSerializer.isFormat(bytes[0])) {
+      return kryo.deserialize(bytes);
+    } else if (bytes[0] == JsonActorEventSerializer.FORMAT) {
+      return json.deserialize(bytes);
+    }
+    throw new IllegalArgumentException("Unknown event format " + bytes[0]);
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.channel.serializer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.pool.KryoPool;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventSerializer;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaTimeoutEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckFailedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckSucceedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensatedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.fsm.domain.PersistentEventCodec;
+
+/**
+ * Compact binary format, a message is laid out as
+ * <pre>
+ *   [FORMAT][event encoded by the PersistentEventCodec]
+ * </pre>
+ * The fields are written in a fixed order by the {@link PersistentEventCodec}, so the format byte
+ * is bumped with the version of its layout and the records of an older format left in a channel
+ * during a rolling upgrade are still read. The records of <code>FIELD_SERIALIZER_FORMAT</code>
+ * were written by the kryo field serializer, which lays out the fields by their position, they are
+ * only read.
+ */
+public class KryoActorEventSerializer implements ActorEventSerializer {
+
+  // a format carries the events of the PersistentEventCodec version format - 1
+  public static final byte FORMAT = 2;
+
+  static final byte FIELD_SERIALIZER_FORMAT = 1;
+
+  private static final int DEFAULT_BUFFER_SIZE = 256;
+
+  // the tags of FIELD_SERIALIZER_FORMAT, which must never change
+  static final List<Class<? extends BaseEvent>> EVENT_TYPES = Collections.unmodifiableList(
+      Arrays.asList(
+          SagaStartedEvent.class,
+          SagaEndedEvent.class,
+          SagaAbortedEvent.class,
+          SagaTimeoutEvent.class,
+          TxStartedEvent.class,
+          TxEndedEvent.class,
+          TxAbortedEvent.class,
+          TxCompensatedEvent.class,
+          TxCompensateAckSucceedEvent.class,
+          TxCompensateAckFailedEvent.class));
+
+  private static final KryoPool pool = new KryoPool.Builder(() -> {
+    Kryo kryo = new Kryo();
+    kryo.setRegistrationRequired(true);
+    kryo.setReferences(false);
+    kryo.register(Date.class);
+    kryo.register(byte[].class);
+    EVENT_TYPES.forEach(kryo::register);
+    return kryo;
+  }).softReferences().build();
+
+  static boolean isFormat(byte format) {
+    return format >= FIELD_SERIALIZER_FORMAT && format <= FORMAT;
+  }
+
+  @Override
+  public byte[] serialize(BaseEvent event) {
+    Output output = new Output(DEFAULT_BUFFER_SIZE, -1);
+    output.writeByte(FORMAT);
+    PersistentEventCodec.writeEvent(output, event);
+    return output.toBytes();
+  }
+
+  @Override
+  public BaseEvent deserialize(byte[] bytes) {
+    Input input = new Input(bytes);
+    byte format = input.readByte();
+    if (!isFormat(format)) {
+      throw new IllegalArgumentException("Not a kryo encoded event");
+    }
+    if (format != FIELD_SERIALIZER_FORMAT) {
+      try {
+        return PersistentEventCodec.readEvent(input, format - FIELD_SERIALIZER_FORMAT);
+      } catch (KryoException e) {
+        throw new IllegalArgumentException("Unable to deserialize event", e);
+      }
+    }
+    int tag = input.readByte();
+    if (tag < 0 || tag >= EVENT_TYPES.size()) {
+      throw new IllegalArgumentException("Unknown event type tag " + tag);
+    }
+    Kryo kryo = pool.borrow();
+    try {
+      return kryo.readObject(input, EVENT_TYPES.get(tag));
+    } catch (KryoException e) {
+      throw new IllegalArgumentException("Unable to deserialize event", e);
+    } finally {
+      pool.release(kryo);
+    }
+  }
+}
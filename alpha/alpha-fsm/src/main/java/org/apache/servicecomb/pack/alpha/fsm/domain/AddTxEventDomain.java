@@ -39,6 +39,11 @@ public class AddTxEventDomain implements DomainEvent {
     this.retryDelayInMilliseconds = event.getRetryDelayInMilliseconds();
   }
 
+  AddTxEventDomain(TxStartedEvent event, TxState state) {
+    this(event);
+    this.state = state;
+  }
+
   public TxState getState() {
     return state;
   }
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.domain;
+
+import static org.apache.servicecomb.pack.alpha.fsm.domain.PersistentEventCodec.readBytes;
+import static org.apache.servicecomb.pack.alpha.fsm.domain.PersistentEventCodec.readDate;
+import static org.apache.servicecomb.pack.alpha.fsm.domain.PersistentEventCodec.readEnum;
+import static org.apache.servicecomb.pack.alpha.fsm.domain.PersistentEventCodec.readEvent;
+import static org.apache.servicecomb.pack.alpha.fsm.domain.PersistentEventCodec.writeBytes;
+import static org.apache.servicecomb.pack.alpha.fsm.domain.PersistentEventCodec.writeDate;
+import static org.apache.servicecomb.pack.alpha.fsm.domain.PersistentEventCodec.writeEnum;
+import static org.apache.servicecomb.pack.alpha.fsm.domain.PersistentEventCodec.writeEvent;
+
+import akka.serialization.SerializerWithStringManifest;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import java.io.NotSerializableException;
+import org.apache.servicecomb.pack.alpha.core.fsm.SuspendedType;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.PayloadsEvent;
+import org.apache.servicecomb.pack.alpha.fsm.SagaActorState;
+
+/**
+ * Binary format of the {@link DomainEvent} in the journal of a saga actor, the manifest names the
+ * domain event type and a journal entry is laid out as
+ * <pre>
+ *   [VERSION][event][fields of the domain event]
+ * </pre>
+ * The event is encoded by {@link PersistentEventCodec}, the payloads a domain event shares with
+ * its event are written once. A new field is appended with a new
+ * <code>VERSION</code>, the entries written with an older version are read without it, so the
+ * journal of a running saga survives an upgrade. Bound to {@link DomainEvent} in
+ * <code>reference.conf</code>, the entries journaled by java serialization before are still read
+ * by the java serializer.
+ */
+public class DomainEventSerializer extends SerializerWithStringManifest {
+
+  public static final byte VERSION = 1;
+
+  static final String SAGA_STARTED = "SS";
+  static final String ADD_TX = "AT";
+  static final String UPDATE_TX = "UT";
+  static final String SAGA_ENDED = "SE";
+
+  private static final int IDENTIFIER = 7302;
+  private static final int DEFAULT_BUFFER_SIZE = 256;
+
+  @Override
+  public int identifier() {
+    return IDENTIFIER;
+  }
+
+  @Override
+  public String manifest(Object o) {
+    if (o instanceof SagaStartedDomain) {
+      return SAGA_STARTED;
+    } else if (o instanceof AddTxEventDomain) {
+      return ADD_TX;
+    } else if (o instanceof UpdateTxEventDomain) {
+      return UPDATE_TX;
+    } else if (o instanceof SagaEndedDomain) {
+      return SAGA_ENDED;
+    }
+    throw new IllegalArgumentException("Unsupported domain event " + o.getClass());
+  }
+
+  @Override
+  public byte[] toBinary(Object o) {
+    Output output = new Output(DEFAULT_BUFFER_SIZE, -1);
+    output.writeByte(VERSION);
+    BaseEvent event = ((DomainEvent) o).getEvent();
+    writeEvent(output, event);
+    if (o instanceof SagaStartedDomain) {
+      SagaStartedDomain domain = (SagaStartedDomain) o;
+      writeDate(output, domain.getExpirationTime());
+    } else if (o instanceof AddTxEventDomain) {
+      AddTxEventDomain domain = (AddTxEventDomain) o;
+      writeEnum(output, domain.getState());
+      output.writeString(domain.getCompensationMethod());
+      writeSharedBytes(output, domain.getPayloads(), event);
+      output.writeVarInt(domain.getReverseRetries(), false);
+      output.writeVarInt(domain.getReverseTimeout(), false);
+      output.writeVarInt(domain.getRetryDelayInMilliseconds(), false);
+    } else if (o instanceof UpdateTxEventDomain) {
+      UpdateTxEventDomain domain = (UpdateTxEventDomain) o;
+      output.writeString(domain.getLocalTxId());
+      writeEnum(output, domain.getState());
+      writeSharedBytes(output, domain.getThrowablePayLoads(), event);
+    } else if (o instanceof SagaEndedDomain) {
+      SagaEndedDomain domain = (SagaEndedDomain) o;
+      writeEnum(output, domain.getState());
+      writeEnum(output, domain.getSuspendedType());
+    } else {
+      throw new IllegalArgumentException("Unsupported domain event " + o.getClass());
+    }
+    return output.toBytes();
+  }
+
+  @Override
+  public Object fromBinary(byte[] bytes, String manifest) throws NotSerializableException {
+    Input input = new Input(bytes);
+    int version = input.readByte();
+    if (version < 1 || version > VERSION) {
+      throw new NotSerializableException("Unsupported domain event version " + version);
+    }
+    BaseEvent event = readEvent(input, version);
+    switch (manifest) {
+      case SAGA_STARTED:
+        return new SagaStartedDomain((SagaStartedEvent) event, readDate(input));
+      case ADD_TX: {
+        AddTxEventDomain domain = new AddTxEventDomain((TxStartedEvent) event,
+            readEnum(input, TxState.class));
+        domain.setCompensationMethod(input.readString());
+        domain.setPayloads(readSharedBytes(input, event));
+        domain.setReverseRetries(input.readVarInt(false));
+        domain.setReverseTimeout(input.readVarInt(false));
+        domain.setRetryDelayInMilliseconds(input.readVarInt(false));
+        return domain;
+      }
+      case UPDATE_TX: {
+        String localTxId = input.readString();
+        TxState state = readEnum(input, TxState.class);
+        return new UpdateTxEventDomain(event, localTxId, state, readSharedBytes(input, event));
+      }
+      case SAGA_ENDED: {
+        SagaActorState state = readEnum(input, SagaActorState.class);
+        return new SagaEndedDomain(event, state, readEnum(input, SuspendedType.class));
+      }
+      default:
+        throw new NotSerializableException("Unknown domain event manifest " + manifest);
+    }
+  }
+
+  private static void writeSharedBytes(Output output, byte[] bytes, BaseEvent event) {
+    if (bytes != null && event instanceof PayloadsEvent
+        && ((PayloadsEvent) event).getPayloads() == bytes) {
+      output.writeBoolean(true);
+    } else {
+      output.writeBoolean(false);
+      writeBytes(output, bytes);
+    }
+  }
+
+  private static byte[] readSharedBytes(Input input, BaseEvent event) {
+    return input.readBoolean() ? ((PayloadsEvent) event).getPayloads() : readBytes(input);
+  }
+}
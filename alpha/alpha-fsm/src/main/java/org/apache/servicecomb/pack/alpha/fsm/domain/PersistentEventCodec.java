@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.domain;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaTimeoutEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckFailedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckSucceedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensatedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.PayloadsEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.CompensateAckTimeoutEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.ComponsitedCheckEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.StopEvent;
+
+/**
+ * Field by field encoding of the events kept in the journal and the snapshots, an event is laid
+ * out as
+ * <pre>
+ *   [event type tag][base fields][fields of the event type]
+ * </pre>
+ * Unlike the kryo field serializer of the channels the fields are written in a fixed order by
+ * hand, so a field added to an event is appended and read only from the data written with a newer
+ * <code>version</code>. The tag of an event type is its position in {@link #EVENT_TYPES} and must
+ * never change, the event types which are not listed fall back to java serialization.
+ */
+public final class PersistentEventCodec {
+
+  private static final byte NULL_EVENT = -1;
+  private static final byte JAVA_EVENT = -2;
+
+  static final List<Class<? extends BaseEvent>> EVENT_TYPES = Collections.unmodifiableList(
+      Arrays.asList(
+          SagaStartedEvent.class,
+          SagaEndedEvent.class,
+          SagaAbortedEvent.class,
+          SagaTimeoutEvent.class,
+          TxStartedEvent.class,
+          TxEndedEvent.class,
+          TxAbortedEvent.class,
+          TxCompensatedEvent.class,
+          TxCompensateAckSucceedEvent.class,
+          TxCompensateAckFailedEvent.class,
+          CompensateAckTimeoutEvent.class,
+          ComponsitedCheckEvent.class,
+          StopEvent.class));
+
+  private static final Map<Class<?>, Byte> TAGS = new IdentityHashMap<>();
+
+  static {
+    for (int i = 0; i < EVENT_TYPES.size(); i++) {
+      TAGS.put(EVENT_TYPES.get(i), (byte) i);
+    }
+  }
+
+  private PersistentEventCodec() {
+  }
+
+  public static void writeEvent(Output output, BaseEvent event) {
+    if (event == null) {
+      output.writeByte(NULL_EVENT);
+      return;
+    }
+    Byte tag = TAGS.get(event.getClass());
+    if (tag == null) {
+      output.writeByte(JAVA_EVENT);
+      writeBytes(output, javaSerialize(event));
+      return;
+    }
+    output.writeByte(tag);
+    output.writeString(event.getServiceName());
+    output.writeString(event.getInstanceId());
+    output.writeString(event.getGlobalTxId());
+    output.writeString(event.getParentTxId());
+    output.writeString(event.getLocalTxId());
+    writeDate(output, event.getCreateTime());
+    if (event instanceof SagaStartedEvent) {
+      output.writeVarInt(((SagaStartedEvent) event).getTimeout(), true);
+    } else if (event instanceof TxStartedEvent) {
+      TxStartedEvent txStartedEvent = (TxStartedEvent) event;
+      output.writeString(txStartedEvent.getCompensationMethod());
+      writeBytes(output, txStartedEvent.getPayloads());
+      output.writeString(txStartedEvent.getRetryMethod());
+      output.writeVarInt(txStartedEvent.getForwardRetries(), false);
+      output.writeVarInt(txStartedEvent.getForwardTimeout(), false);
+      output.writeVarInt(txStartedEvent.getReverseRetries(), false);
+      output.writeVarInt(txStartedEvent.getReverseTimeout(), false);
+      output.writeVarInt(txStartedEvent.getRetryDelayInMilliseconds(), false);
+    } else if (event instanceof PayloadsEvent) {
+      writeBytes(output, ((PayloadsEvent) event).getPayloads());
+    } else if (event instanceof ComponsitedCheckEvent) {
+      writeEnum(output, ((ComponsitedCheckEvent) event).getPreComponsitedState());
+    }
+  }
+
+  /**
+   * Reads an event written by {@link #writeEvent(Output, BaseEvent)}, <code>version</code> is the
+   * version of the data the event is part of and tells which of the appended fields were written
+   */
+  public static BaseEvent readEvent(Input input, int version) {
+    byte tag = input.readByte();
+    if (tag == NULL_EVENT) {
+      return null;
+    } else if (tag == JAVA_EVENT) {
+      return javaDeserialize(readBytes(input));
+    } else if (tag < 0 || tag >= EVENT_TYPES.size()) {
+      throw new IllegalArgumentException("Unknown event type tag " + tag);
+    }
+    String serviceName = input.readString();
+    String instanceId = input.readString();
+    String globalTxId = input.readString();
+    String parentTxId = input.readString();
+    String localTxId = input.readString();
+    Date createTime = readDate(input);
+
+    BaseEvent event;
+    Class<? extends BaseEvent> type = EVENT_TYPES.get(tag);
+    if (type == SagaStartedEvent.class) {
+      SagaStartedEvent sagaStartedEvent = new SagaStartedEvent();
+      sagaStartedEvent.setTimeout(input.readVarInt(true));
+      event = sagaStartedEvent;
+    } else if (type == TxStartedEvent.class) {
+      TxStartedEvent txStartedEvent = new TxStartedEvent();
+      txStartedEvent.setCompensationMethod(input.readString());
+      txStartedEvent.setPayloads(readBytes(input));
+      txStartedEvent.setRetryMethod(input.readString());
+      txStartedEvent.setForwardRetries(input.readVarInt(false));
+      txStartedEvent.setForwardTimeout(input.readVarInt(false));
+      txStartedEvent.setReverseRetries(input.readVarInt(false));
+      txStartedEvent.setReverseTimeout(input.readVarInt(false));
+      txStartedEvent.setRetryDelayInMilliseconds(input.readVarInt(false));
+      event = txStartedEvent;
+    } else if (type == ComponsitedCheckEvent.class) {
+      event = ComponsitedCheckEvent.builder()
+          .preState(readEnum(input, TxState.class))
+          .build();
+    } else {
+      event = newEvent(type);
+      if (event instanceof PayloadsEvent) {
+        byte[] payloads = readBytes(input);
+        if (event instanceof SagaAbortedEvent) {
+          ((SagaAbortedEvent) event).setPayloads(payloads);
+        } else if (event instanceof TxAbortedEvent) {
+          ((TxAbortedEvent) event).setPayloads(payloads);
+        } else if (event instanceof TxCompensateAckFailedEvent) {
+          ((TxCompensateAckFailedEvent) event).setPayloads(payloads);
+        } else if (event instanceof CompensateAckTimeoutEvent) {
+          ((CompensateAckTimeoutEvent) event).setPayloads(payloads);
+        }
+      }
+    }
+    event.setServiceName(serviceName);
+    event.setInstanceId(instanceId);
+    event.setGlobalTxId(globalTxId);
+    event.setParentTxId(parentTxId);
+    event.setLocalTxId(localTxId);
+    event.setCreateTime(createTime);
+    return event;
+  }
+
+  public static void writeDate(Output output, Date date) {
+    output.writeLong(date == null ? -1 : date.getTime());
+  }
+
+  public static Date readDate(Input input) {
+    long time = input.readLong();
+    return time == -1 ? null : new Date(time);
+  }
+
+  public static void writeEnum(Output output, Enum<?> value) {
+    output.writeString(value == null ? null : value.name());
+  }
+
+  public static <E extends Enum<E>> E readEnum(Input input, Class<E> type) {
+    String name = input.readString();
+    return name == null ? null : Enum.valueOf(type, name);
+  }
+
+  public static void writeBytes(Output output, byte[] bytes) {
+    if (bytes == null) {
+      output.writeVarInt(0, true);
+    } else {
+      output.writeVarInt(bytes.length + 1, true);
+      output.writeBytes(bytes);
+    }
+  }
+
+  public static byte[] readBytes(Input input) {
+    int length = input.readVarInt(true);
+    return length == 0 ? null : input.readBytes(length - 1);
+  }
+
+  private static BaseEvent newEvent(Class<? extends BaseEvent> type) {
+    try {
+      return type.newInstance();
+    } catch (InstantiationException | IllegalAccessException e) {
+      throw new IllegalStateException("Unable to create event " + type.getSimpleName(), e);
+    }
+  }
+
+  private static byte[] javaSerialize(BaseEvent event) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream stream = new ObjectOutputStream(bytes)) {
+      stream.writeObject(event);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Unable to serialize event " + event.getType(), e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static BaseEvent javaDeserialize(byte[] bytes) {
+    try (ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return (BaseEvent) stream.readObject();
+    } catch (IOException | ClassNotFoundException e) {
+      throw new IllegalArgumentException("Unable to deserialize event", e);
+    }
+  }
+}
@@ -37,6 +37,11 @@ public class SagaStartedDomain implements DomainEvent {
     }
   }
 
+  SagaStartedDomain(SagaStartedEvent event, Date expirationTime) {
+    this.event = event;
+    this.expirationTime = expirationTime;
+  }
+
   public Date getExpirationTime() {
     return expirationTime;
   }
@@ -70,6 +70,14 @@ public class UpdateTxEventDomain implements DomainEvent {
     this.state = event.getPreComponsitedState();
   }
 
+  UpdateTxEventDomain(BaseEvent event, String localTxId, TxState state,
+      byte[] throwablePayLoads) {
+    this.event = event;
+    this.localTxId = localTxId;
+    this.state = state;
+    this.throwablePayLoads = throwablePayLoads;
+  }
+
   public String getLocalTxId() {
     return localTxId;
   }
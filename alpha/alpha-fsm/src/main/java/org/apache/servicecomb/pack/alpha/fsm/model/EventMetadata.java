@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.model;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+
+/**
+ * The properties of a logged event without its payloads, only their length is kept.
+ */
+public class EventMetadata extends BaseEvent {
+
+  private final Map<String, Object> properties;
+  private final int payloadsLength;
+  private final byte[] payloads;
+
+  private EventMetadata(Map<String, Object> properties, int payloadsLength, byte[] payloads) {
+    this.properties = properties;
+    this.payloadsLength = payloadsLength;
+    this.payloads = payloads;
+  }
+
+  static EventMetadata of(BaseEvent event, byte[] payloads) {
+    Map<String, Object> properties = event.toMap();
+    properties.remove("payloads");
+    return new EventMetadata(properties, payloads == null ? 0 : payloads.length, null)
+        .copyOf(event);
+  }
+
+  /**
+   * The event of a snapshot
+   */
+  static EventMetadata restore(Map<String, Object> properties, int payloadsLength,
+      byte[] payloads) {
+    EventMetadata event = new EventMetadata(properties, payloadsLength, payloads);
+    event.setServiceName((String) properties.get("serviceName"));
+    event.setInstanceId((String) properties.get("instanceId"));
+    event.setGlobalTxId((String) properties.get("globalTxId"));
+    event.setParentTxId((String) properties.get("parentTxId"));
+    event.setLocalTxId((String) properties.get("localTxId"));
+    Long createTime = (Long) properties.get("createTime");
+    event.setCreateTime(createTime == null ? null : new Date(createTime));
+    return event;
+  }
+
+  private EventMetadata copyOf(BaseEvent event) {
+    setServiceName(event.getServiceName());
+    setInstanceId(event.getInstanceId());
+    setGlobalTxId(event.getGlobalTxId());
+    setParentTxId(event.getParentTxId());
+    setLocalTxId(event.getLocalTxId());
+    setCreateTime(event.getCreateTime());
+    return this;
+  }
+
+  Map<String, Object> getProperties() {
+    return properties;
+  }
+
+  int getPayloadsLength() {
+    return payloadsLength;
+  }
+
+  byte[] getPayloads() {
+    return payloads;
+  }
+
+  @Override
+  public String getType() {
+    return (String) properties.get("type");
+  }
+
+  @Override
+  public Map<String, Object> toMap() {
+    Map<String, Object> map = new LinkedHashMap<>(properties);
+    if (payloads != null) {
+      map.put("payloads", encodeBytes(payloads));
+    } else if (payloadsLength > 0) {
+      map.put("payloadsLength", payloadsLength);
+    }
+    return map;
+  }
+
+  @Override
+  public String toString() {
+    return toMap().toString();
+  }
+}
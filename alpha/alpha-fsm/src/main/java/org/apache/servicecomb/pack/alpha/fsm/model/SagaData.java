@@ -19,12 +19,12 @@ package org.apache.servicecomb.pack.alpha.fsm.model;
 
 import java.io.Serializable;
 import java.util.Date;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 import org.apache.servicecomb.pack.alpha.core.fsm.SuspendedType;
 import org.apache.servicecomb.pack.alpha.fsm.SagaActorState;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.fsm.model.SagaEvents.PayloadPolicy;
 
 public class SagaData implements Serializable {
   private String serviceName;
@@ -39,7 +39,7 @@ public class SagaData implements Serializable {
   private SagaActorState lastState;
   private AtomicLong compensationRunningCounter = new AtomicLong();
   private TxEntities txEntities = new TxEntities();
-  private List<BaseEvent> events = new LinkedList<>();
+  private SagaEvents events = new SagaEvents();
 
   public String getServiceName() {
     return serviceName;
@@ -134,6 +134,10 @@ public class SagaData implements Serializable {
     this.lastState = lastState;
   }
 
+  int getTimeoutInSeconds() {
+    return timeout;
+  }
+
   public long getTimeout(){
     return expirationTime.getTime()-beginTime.getTime();
   }
@@ -143,9 +147,21 @@ public class SagaData implements Serializable {
   }
 
   public List<BaseEvent> getEvents() {
+    return events.toList();
+  }
+
+  public long getDroppedEvents() {
+    return events.getDropped();
+  }
+
+  SagaEvents getSagaEvents() {
     return events;
   }
 
+  void setSagaEvents(SagaEvents events) {
+    this.events = events;
+  }
+
   public static Builder builder() {
     return new Builder();
   }
@@ -212,6 +228,11 @@ public class SagaData implements Serializable {
       return this;
     }
 
+    public Builder events(PayloadPolicy payloadPolicy, int maxEvents) {
+      sagaData.events = new SagaEvents(payloadPolicy, maxEvents);
+      return this;
+    }
+
     public SagaData build() {
       return sagaData;
     }
@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.model;
+
+import static org.apache.servicecomb.pack.alpha.fsm.domain.PersistentEventCodec.readBytes;
+import static org.apache.servicecomb.pack.alpha.fsm.domain.PersistentEventCodec.readDate;
+import static org.apache.servicecomb.pack.alpha.fsm.domain.PersistentEventCodec.readEnum;
+import static org.apache.servicecomb.pack.alpha.fsm.domain.PersistentEventCodec.writeBytes;
+import static org.apache.servicecomb.pack.alpha.fsm.domain.PersistentEventCodec.writeDate;
+import static org.apache.servicecomb.pack.alpha.fsm.domain.PersistentEventCodec.writeEnum;
+
+import akka.serialization.JSerializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.servicecomb.pack.alpha.core.fsm.SuspendedType;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.fsm.SagaActorState;
+import org.apache.servicecomb.pack.alpha.fsm.channel.serializer.KryoActorEventSerializer;
+import org.apache.servicecomb.pack.alpha.fsm.domain.PersistentEventCodec;
+import org.apache.servicecomb.pack.alpha.fsm.model.SagaEvents.PayloadPolicy;
+
+/**
+ * Binary format of the {@link SagaData} in the snapshots of a saga actor, a snapshot is laid out as
+ * <pre>
+ *   [FORMAT][saga fields][sub transactions][events]
+ * </pre>
+ * The events are encoded by the {@link PersistentEventCodec}, the snapshots of the former
+ * <code>FORMAT</code> with the events encoded by the {@link KryoActorEventSerializer} are still
+ * read. Bound to {@link SagaData} in <code>reference.conf</code>.
+ */
+public class SagaDataSerializer extends JSerializer {
+
+  public static final byte FORMAT = 2;
+
+  private static final byte KRYO_FORMAT = 1;
+
+  private static final int IDENTIFIER = 7301;
+  private static final int DEFAULT_BUFFER_SIZE = 1024;
+
+  // KRYO_EVENT and JAVA_EVENT are only read from the snapshots of KRYO_FORMAT
+  private static final byte KRYO_EVENT = 0;
+  private static final byte EVENT_METADATA = 1;
+  private static final byte JAVA_EVENT = 2;
+  private static final byte FIELDS_EVENT = 3;
+
+  private static final byte NULL_VALUE = 0;
+  private static final byte STRING_VALUE = 1;
+  private static final byte INT_VALUE = 2;
+  private static final byte LONG_VALUE = 3;
+
+  private final KryoActorEventSerializer eventSerializer = new KryoActorEventSerializer();
+
+  @Override
+  public int identifier() {
+    return IDENTIFIER;
+  }
+
+  @Override
+  public boolean includeManifest() {
+    return false;
+  }
+
+  @Override
+  public byte[] toBinary(Object o) {
+    SagaData data = (SagaData) o;
+    Output output = new Output(DEFAULT_BUFFER_SIZE, -1);
+    output.writeByte(FORMAT);
+    output.writeString(data.getServiceName());
+    output.writeString(data.getInstanceId());
+    output.writeString(data.getGlobalTxId());
+    writeDate(output, data.getBeginTime());
+    writeDate(output, data.getEndTime());
+    writeDate(output, data.getExpirationTime());
+    output.writeVarInt(data.getTimeoutInSeconds(), true);
+    writeEnum(output, data.getSuspendedType());
+    output.writeBoolean(data.isTerminated());
+    writeEnum(output, data.getLastState());
+    output.writeVarLong(data.getCompensationRunningCounter().get(), true);
+
+    output.writeVarInt(data.getTxEntities().size(), true);
+    data.getTxEntities().forEach((localTxId, txEntity) -> {
+      output.writeString(localTxId);
+      writeTxEntity(output, txEntity);
+    });
+
+    SagaEvents events = data.getSagaEvents();
+    writeEnum(output, events.getPayloadPolicy());
+    output.writeVarInt(events.getMaxSize(), true);
+    output.writeVarLong(events.getDropped(), true);
+    List<BaseEvent> list = events.toList();
+    output.writeVarInt(list.size(), true);
+    for (BaseEvent event : list) {
+      writeEvent(output, event);
+    }
+    return output.toBytes();
+  }
+
+  @Override
+  public Object fromBinaryJava(byte[] bytes, Class<?> manifest) {
+    Input input = new Input(bytes);
+    byte format = input.readByte();
+    if (format != FORMAT && format != KRYO_FORMAT) {
+      throw new IllegalArgumentException("Not a saga data snapshot");
+    }
+    SagaData data = SagaData.builder()
+        .serviceName(input.readString())
+        .instanceId(input.readString())
+        .globalTxId(input.readString())
+        .beginTime(readDate(input))
+        .endTime(readDate(input))
+        .expirationTime(readDate(input))
+        .timeout(input.readVarInt(true))
+        .suspendedType(readEnum(input, SuspendedType.class))
+        .terminated(input.readBoolean())
+        .build();
+    data.setLastState(readEnum(input, SagaActorState.class));
+    data.setCompensationRunningCounter(new AtomicLong(input.readVarLong(true)));
+
+    TxEntities txEntities = new TxEntities();
+    int size = input.readVarInt(true);
+    for (int i = 0; i < size; i++) {
+      String localTxId = input.readString();
+      txEntities.put(localTxId, readTxEntity(input));
+    }
+    data.setTxEntities(txEntities);
+
+    PayloadPolicy payloadPolicy = readEnum(input, PayloadPolicy.class);
+    int maxSize = input.readVarInt(true);
+    long dropped = input.readVarLong(true);
+    size = input.readVarInt(true);
+    List<BaseEvent> events = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      events.add(readEvent(input, format));
+    }
+    data.setSagaEvents(SagaEvents.restore(payloadPolicy, maxSize, events, dropped));
+    return data;
+  }
+
+  /**
+   * A copy of the data which the actor does not change while it is written to the snapshot store
+   */
+  public SagaData copyOf(SagaData data) {
+    return (SagaData) fromBinaryJava(toBinary(data), SagaData.class);
+  }
+
+  private static void writeTxEntity(Output output, TxEntity txEntity) {
+    output.writeString(txEntity.getServiceName());
+    output.writeString(txEntity.getInstanceId());
+    output.writeString(txEntity.getGlobalTxId());
+    output.writeString(txEntity.getParentTxId());
+    output.writeString(txEntity.getLocalTxId());
+    writeDate(output, txEntity.getBeginTime());
+    writeDate(output, txEntity.getEndTime());
+    writeEnum(output, txEntity.getState());
+    output.writeString(txEntity.getCompensationMethod());
+    writeBytes(output, txEntity.getPayloads());
+    writeBytes(output, txEntity.getThrowablePayLoads());
+    output.writeVarInt(txEntity.getReverseRetries(), true);
+    output.writeVarInt(txEntity.getReverseTimeout(), true);
+    output.writeVarInt(txEntity.getRetryDelayInMilliseconds(), true);
+    output.writeVarInt(txEntity.getRetriesCounter().get(), true);
+  }
+
+  private static TxEntity readTxEntity(Input input) {
+    TxEntity txEntity = TxEntity.builder()
+        .serviceName(input.readString())
+        .instanceId(input.readString())
+        .globalTxId(input.readString())
+        .parentTxId(input.readString())
+        .localTxId(input.readString())
+        .beginTime(readDate(input))
+        .endTime(readDate(input))
+        .state(readEnum(input, TxState.class))
+        .compensationMethod(input.readString())
+        .payloads(readBytes(input))
+        .throwablePayLoads(readBytes(input))
+        .reverseRetries(input.readVarInt(true))
+        .reverseTimeout(input.readVarInt(true))
+        .retryDelayInMilliseconds(input.readVarInt(true))
+        .build();
+    txEntity.getRetriesCounter().set(input.readVarInt(true));
+    return txEntity;
+  }
+
+  private void writeEvent(Output output, BaseEvent event) {
+    if (event instanceof EventMetadata) {
+      EventMetadata metadata = (EventMetadata) event;
+      output.writeByte(EVENT_METADATA);
+      Map<String, Object> properties = metadata.getProperties();
+      output.writeVarInt(properties.size(), true);
+      properties.forEach((key, value) -> {
+        output.writeString(key);
+        writeValue(output, value);
+      });
+      output.writeVarInt(metadata.getPayloadsLength(), true);
+      writeBytes(output, metadata.getPayloads());
+    } else {
+      output.writeByte(FIELDS_EVENT);
+      PersistentEventCodec.writeEvent(output, event);
+    }
+  }
+
+  private BaseEvent readEvent(Input input, byte format) {
+    byte type = input.readByte();
+    if (type == EVENT_METADATA) {
+      int size = input.readVarInt(true);
+      Map<String, Object> properties = new LinkedHashMap<>();
+      for (int i = 0; i < size; i++) {
+        String key = input.readString();
+        properties.put(key, readValue(input));
+      }
+      int payloadsLength = input.readVarInt(true);
+      return EventMetadata.restore(properties, payloadsLength, readBytes(input));
+    } else if (type == FIELDS_EVENT) {
+      // the events in the snapshots of FORMAT 2 are of the first version
+      return PersistentEventCodec.readEvent(input, 1);
+    } else if (type == KRYO_EVENT && format == KRYO_FORMAT) {
+      return eventSerializer.deserialize(readBytes(input));
+    } else if (type == JAVA_EVENT && format == KRYO_FORMAT) {
+      try (ObjectInputStream stream = new ObjectInputStream(
+          new ByteArrayInputStream(readBytes(input)))) {
+        return (BaseEvent) stream.readObject();
+      } catch (IOException | ClassNotFoundException e) {
+        throw new IllegalArgumentException("Unable to deserialize event", e);
+      }
+    }
+    throw new IllegalArgumentException("Unknown event encoding " + type);
+  }
+
+  private static void writeValue(Output output, Object value) {
+    if (value == null) {
+      output.writeByte(NULL_VALUE);
+    } else if (value instanceof String) {
+      output.writeByte(STRING_VALUE);
+      output.writeString((String) value);
+    } else if (value instanceof Integer) {
+      output.writeByte(INT_VALUE);
+      output.writeVarInt((Integer) value, false);
+    } else if (value instanceof Long) {
+      output.writeByte(LONG_VALUE);
+      output.writeVarLong((Long) value, false);
+    } else {
+      throw new IllegalArgumentException("Unsupported event property " + value.getClass());
+    }
+  }
+
+  private static Object readValue(Input input) {
+    byte type = input.readByte();
+    switch (type) {
+      case NULL_VALUE:
+        return null;
+      case STRING_VALUE:
+        return input.readString();
+      case INT_VALUE:
+        return input.readVarInt(false);
+      case LONG_VALUE:
+        return input.readVarLong(false);
+      default:
+        throw new IllegalArgumentException("Unknown event property type " + type);
+    }
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.PayloadsEvent;
+
+/**
+ * The events of a saga in an array. With <code>maxSize</code> the first half of the events is
+ * kept and the newest events replace the oldest ones of the second half.
+ */
+public class SagaEvents implements Serializable {
+
+  private static final int INITIAL_CAPACITY = 8;
+
+  public enum PayloadPolicy {
+    // the events are kept as they are
+    INLINE,
+    // the payloads are dropped, only their length is kept
+    NONE;
+
+    public static PayloadPolicy of(String name) {
+      return valueOf(name.trim().toUpperCase());
+    }
+  }
+
+  private final PayloadPolicy payloadPolicy;
+  private final int maxSize;
+  private BaseEvent[] events;
+  private int size;
+  // the oldest event of the second half once the events were capped
+  private int next;
+  private long dropped;
+
+  public SagaEvents() {
+    this(PayloadPolicy.INLINE, 0);
+  }
+
+  public SagaEvents(PayloadPolicy payloadPolicy, int maxSize) {
+    this.payloadPolicy = payloadPolicy;
+    this.maxSize = maxSize;
+    this.events = new BaseEvent[maxSize > 0
+        ? Math.min(maxSize, INITIAL_CAPACITY) : INITIAL_CAPACITY];
+  }
+
+  public void add(BaseEvent event) {
+    append(logged(event));
+  }
+
+  /**
+   * The events of a snapshot, as returned by {@link #toList()}
+   */
+  static SagaEvents restore(PayloadPolicy payloadPolicy, int maxSize, List<BaseEvent> events,
+      long dropped) {
+    SagaEvents sagaEvents = new SagaEvents(payloadPolicy, maxSize);
+    for (BaseEvent event : events) {
+      sagaEvents.append(event);
+    }
+    sagaEvents.dropped = dropped;
+    return sagaEvents;
+  }
+
+  private void append(BaseEvent logged) {
+    if (maxSize > 0 && size == maxSize) {
+      int head = maxSize / 2;
+      int slot = head + next;
+      events[slot] = logged;
+      next = (next + 1) % (maxSize - head);
+      dropped++;
+      return;
+    }
+    if (size == events.length) {
+      int capacity = events.length + (events.length >> 1);
+      events = Arrays.copyOf(events, maxSize > 0 ? Math.min(capacity, maxSize) : capacity);
+    }
+    events[size++] = logged;
+  }
+
+  /**
+   * The logged events in their order
+   */
+  public List<BaseEvent> toList() {
+    List<BaseEvent> list = new ArrayList<>(size);
+    int head = maxSize > 0 ? Math.min(maxSize / 2, size) : size;
+    for (int i = 0; i < head; i++) {
+      list.add(events[i]);
+    }
+    int tail = size - head;
+    for (int i = 0; i < tail; i++) {
+      list.add(events[head + (next + i) % tail]);
+    }
+    return list;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  PayloadPolicy getPayloadPolicy() {
+    return payloadPolicy;
+  }
+
+  int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Number of events replaced after <code>maxSize</code> was reached
+   */
+  public long getDropped() {
+    return dropped;
+  }
+
+  private BaseEvent logged(BaseEvent event) {
+    if (payloadPolicy == PayloadPolicy.INLINE || !(event instanceof PayloadsEvent)) {
+      return event;
+    }
+    return EventMetadata.of(event, ((PayloadsEvent) event).getPayloads());
+  }
+}
@@ -17,62 +17,113 @@
 
 package org.apache.servicecomb.pack.alpha.fsm.model;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.ListIterator;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.function.BiConsumer;
 import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
 
+/**
+ * The sub transactions of a saga in their insertion order. The entities are kept in arrays and
+ * the number of entities in each {@link TxState} is counted when the state of an entity changes,
+ * so the state checks of the actor do not walk all the entities.
+ */
 public class TxEntities {
 
-  private LinkedHashMap<String, TxEntity> entities = new LinkedHashMap<>();
+  private static final int INITIAL_CAPACITY = 8;
+
+  private String[] localTxIds = new String[INITIAL_CAPACITY];
+  private TxEntity[] entities = new TxEntity[INITIAL_CAPACITY];
+  private int size;
+  private final Map<String, Integer> indexes = new HashMap<>();
+  private final int[] stateCounters = new int[TxState.values().length];
 
   public void forEach(BiConsumer<String, TxEntity> action) {
-    entities.forEach(action);
+    for (int i = 0; i < size; i++) {
+      action.accept(localTxIds[i], entities[i]);
+    }
   }
 
   public void forEachReverse(BiConsumer<String, TxEntity> action) {
-    ListIterator<Map.Entry<String, TxEntity>> iterator = new ArrayList<>(entities.entrySet()).listIterator(entities.size());
-    while (iterator.hasPrevious()) {
-      Map.Entry<String, TxEntity> entry = iterator.previous();
-      action.accept(entry.getKey(),entry.getValue());
+    for (int i = size - 1; i >= 0; i--) {
+      action.accept(localTxIds[i], entities[i]);
     }
   }
 
   public TxEntity get(String localTxId) {
-    return entities.get(localTxId);
+    Integer index = indexes.get(localTxId);
+    return index == null ? null : entities[index];
   }
 
   public boolean exists(String localTxId) {
-    return entities.containsKey(localTxId);
+    return indexes.containsKey(localTxId);
   }
 
   public TxEntity put(String localTxId, TxEntity txEntity) {
-    return entities.put(localTxId, txEntity);
+    Integer index = indexes.get(localTxId);
+    TxEntity previous = null;
+    if (index != null) {
+      // replaced in place, as a LinkedHashMap keeps the insertion order of a replaced key
+      previous = entities[index];
+      previous.setEntities(null);
+      stateChanged(previous.getState(), null);
+      entities[index] = txEntity;
+    } else {
+      if (size == entities.length) {
+        int capacity = entities.length << 1;
+        localTxIds = Arrays.copyOf(localTxIds, capacity);
+        entities = Arrays.copyOf(entities, capacity);
+      }
+      localTxIds[size] = localTxId;
+      entities[size] = txEntity;
+      indexes.put(localTxId, size++);
+    }
+    txEntity.setEntities(this);
+    stateChanged(null, txEntity.getState());
+    return previous;
   }
 
   public int size() {
-    return entities.size();
+    return size;
+  }
+
+  /**
+   * Number of the entities in the state
+   */
+  public int count(TxState state) {
+    return stateCounters[state.ordinal()];
   }
 
   public boolean hasCommittedTx() {
-    return entities.entrySet().stream()
-        .filter(map -> map.getValue().getState() == TxState.COMMITTED)
-        .count() > 0;
+    return count(TxState.COMMITTED) > 0;
   }
 
   public boolean hasCompensationSentTx() {
-    return entities.entrySet().stream()
-        .filter(map -> map.getValue().getState() == TxState.COMPENSATION_SENT)
-        .count() > 0;
+    return count(TxState.COMPENSATION_SENT) > 0;
   }
 
   public boolean hasCompensationFailedTx() {
-    return entities.entrySet().stream()
-        .filter(map -> map.getValue().getState() == TxState.COMPENSATED_FAILED
-            && map.getValue().getReverseRetries() > 0
-            && map.getValue().getReverseRetries() > map.getValue().getRetriesCounter().get())
-        .count() > 0;
+    if (count(TxState.COMPENSATED_FAILED) == 0) {
+      return false;
+    }
+    // the retries counter is not part of the state counts, check the few failed entities
+    for (int i = 0; i < size; i++) {
+      TxEntity entity = entities[i];
+      if (entity.getState() == TxState.COMPENSATED_FAILED
+          && entity.getReverseRetries() > 0
+          && entity.getReverseRetries() > entity.getRetriesCounter().get()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  void stateChanged(TxState from, TxState to) {
+    if (from != null) {
+      stateCounters[from.ordinal()]--;
+    }
+    if (to != null) {
+      stateCounters[to.ordinal()]++;
+    }
   }
-}
\ No newline at end of file
+}
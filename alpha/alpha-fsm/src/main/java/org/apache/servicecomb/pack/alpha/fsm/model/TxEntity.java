@@ -38,6 +38,8 @@ public class TxEntity implements Serializable {
   private int reverseTimeout;
   private int retryDelayInMilliseconds = 5;
   private AtomicInteger retriesCounter = new AtomicInteger();
+  // counts the state changes of the entity
+  private transient TxEntities entities;
 
   public String getServiceName() {
     return serviceName;
@@ -100,6 +102,9 @@ public class TxEntity implements Serializable {
   }
 
   public void setState(TxState state) {
+    if (entities != null && this.state != state) {
+      entities.stateChanged(this.state, state);
+    }
     this.state = state;
   }
 
@@ -155,6 +160,10 @@ public class TxEntity implements Serializable {
     return retriesCounter;
   }
 
+  void setEntities(TxEntities entities) {
+    this.entities = entities;
+  }
+
   public static Builder builder() {
     return new Builder();
   }
@@ -49,6 +49,12 @@ public class NoneTransactionRepository implements TransactionRepository {
     throw new UnsupportedOperationException("NoneTransactionRepository Unsupported!");
   }
 
+  @Override
+  public PagingGlobalTransactions getGlobalTransactionsAfter(String state, String cursor, int size,
+      boolean snapshot) throws Exception {
+    throw new UnsupportedOperationException("NoneTransactionRepository Unsupported!");
+  }
+
   @Override
   public Map<String,Long> getTransactionStatistics() {
     throw new UnsupportedOperationException("NoneTransactionRepository Unsupported!");
@@ -17,8 +17,10 @@
 
 package org.apache.servicecomb.pack.alpha.fsm.repository;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.PagingGlobalTransactions;
 
@@ -26,6 +28,19 @@ public interface TransactionRepository {
 
   void send(GlobalTransaction transaction) throws Exception;
 
+  default void send(List<GlobalTransaction> transactions) throws Exception {
+    for (GlobalTransaction transaction : transactions) {
+      send(transaction);
+    }
+  }
+
+  /**
+   * The transactions which the background writer of the repository fails to store, because the
+   * repository is unavailable, are handed to the handler instead of being rejected
+   */
+  default void setFailedTransactionsHandler(Consumer<List<GlobalTransaction>> handler) {
+  }
+
   GlobalTransaction getGlobalTransactionByGlobalTxId(String globalTxId)
       throws Exception;
 
@@ -35,7 +50,30 @@ public interface TransactionRepository {
   PagingGlobalTransactions getGlobalTransactions(int page, int size)
       throws Exception;
 
+  /**
+   * Returns the transactions after the cursor of the previous page, newest first. The cost of a
+   * page does not depend on its depth.
+   *
+   * @param cursor the cursor of the previous page, null or empty for the first page
+   * @param snapshot the pages started from the first page reflect the transactions at the time
+   * of the first page
+   */
+  PagingGlobalTransactions getGlobalTransactionsAfter(String state, String cursor, int size,
+      boolean snapshot) throws Exception;
+
   Map<String,Long> getTransactionStatistics();
 
+  /**
+   * Statistics of the transactions which began in the time range, a null bound leaves the range open.
+   */
+  default Map<String,Long> getTransactionStatistics(Date startTime, Date endTime) {
+    return getTransactionStatistics();
+  }
+
   List<GlobalTransaction> getSlowGlobalTransactionsTopN(int n);
+
+  default List<GlobalTransaction> getSlowGlobalTransactionsTopN(int n, Date startTime,
+      Date endTime) {
+    return getSlowGlobalTransactionsTopN(n);
+  }
 }
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.repository.channel;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
+import org.apache.servicecomb.pack.alpha.fsm.repository.AbstractTransactionRepositoryChannel;
+import org.apache.servicecomb.pack.alpha.fsm.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hands the finished transactions to a pool of workers, so the actor which stops a saga never
+ * waits for the repository. The workers send the queued transactions to the repository in
+ * batches, a full queue is handled by the {@link OverflowPolicy}.
+ */
+public class AsyncTransactionRepositoryChannel extends AbstractTransactionRepositoryChannel {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final long POLL_TIMEOUT = 100;
+  private static final long CLOSE_TIMEOUT = 10000;
+
+  public enum OverflowPolicy {
+    // the sender waits for a free slot
+    BLOCK,
+    // the oldest queued transaction is dropped and never stored
+    DROP_OLDEST,
+    // the transaction is appended to the spill log and replayed when the queue is idle
+    SPILL
+  }
+
+  private final BlockingQueue<QueuedTransaction> queue;
+  private final int batchSize;
+  private final OverflowPolicy overflowPolicy;
+  private final TransactionSpill spill;
+  private final List<Thread> workers = new ArrayList<>();
+  private volatile boolean running = true;
+
+  public AsyncTransactionRepositoryChannel(TransactionRepository repository,
+      MetricsService metricsService, int queueSize, int workerSize, int batchSize,
+      OverflowPolicy overflowPolicy, SpillLog spillLog, long replayInterval) {
+    super(repository, metricsService);
+    if (overflowPolicy == OverflowPolicy.SPILL && spillLog == null) {
+      throw new IllegalArgumentException("Overflow policy SPILL requires a spill log");
+    }
+    this.queue = new ArrayBlockingQueue<>(queueSize);
+    this.batchSize = batchSize;
+    this.overflowPolicy = overflowPolicy;
+    // a spill log also keeps the batches which the repository fails to store
+    this.spill = spillLog == null ? null : new TransactionSpill(spillLog, repository,
+        metricsService, batchSize, replayInterval, queue::isEmpty);
+    if (spill != null) {
+      repository.setFailedTransactionsHandler(transactions -> transactions.forEach(spill::spill));
+    }
+    for (int i = 0; i < workerSize; i++) {
+      Thread worker = new Thread(new Worker(), "transaction-repository-channel-" + i);
+      worker.setDaemon(true);
+      worker.start();
+      workers.add(worker);
+    }
+  }
+
+  public static OverflowPolicy overflowPolicyOf(String name) {
+    return OverflowPolicy.valueOf(name.trim().toUpperCase().replace('-', '_'));
+  }
+
+  @Override
+  public void sendTo(GlobalTransaction transaction) {
+    if (!running) {
+      // closed, nobody drains the queue any more
+      sendNow(transaction);
+      return;
+    }
+    QueuedTransaction queued = new QueuedTransaction(transaction);
+    switch (overflowPolicy) {
+      case DROP_OLDEST:
+        while (!queue.offer(queued)) {
+          QueuedTransaction dropped = queue.poll();
+          if (dropped != null) {
+            metricsService.metrics().doRepositoryChannelDequeued(1);
+            metricsService.metrics().doRepositoryChannelDropped();
+            LOG.warn("Repository channel is full, drop transaction {}",
+                dropped.transaction.getGlobalTxId());
+          }
+        }
+        break;
+      case SPILL:
+        if (!queue.offer(queued)) {
+          spill.spill(transaction);
+          return;
+        }
+        break;
+      default:
+        try {
+          queue.put(queued);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException(e);
+        }
+    }
+    metricsService.metrics().doRepositoryChannelQueued();
+  }
+
+  /**
+   * Stops accepting transactions and waits for the workers to send the queued ones
+   */
+  public void close() throws IOException {
+    running = false;
+    for (Thread worker : workers) {
+      try {
+        worker.join(CLOSE_TIMEOUT);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    if (!queue.isEmpty()) {
+      LOG.warn("Repository channel closed with {} queued transactions", queue.size());
+    }
+    // after the workers, they may still spill a failed batch
+    if (spill != null) {
+      spill.close();
+    }
+  }
+
+  private void sendNow(GlobalTransaction transaction) {
+    try {
+      repository.send(transaction);
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void persist(List<QueuedTransaction> batch) {
+    List<GlobalTransaction> transactions = new ArrayList<>(batch.size());
+    batch.forEach(queued -> transactions.add(queued.transaction));
+    try {
+      repository.send(transactions);
+      long now = System.currentTimeMillis();
+      batch.forEach(
+          queued -> metricsService.metrics().doRepositoryChannelLatency(now - queued.queuedTime));
+    } catch (Exception e) {
+      LOG.error("Send {} transactions to the repository failed", transactions.size(), e);
+      if (spill != null) {
+        transactions.forEach(spill::spill);
+      } else {
+        metricsService.metrics().doRepositoryRejected(transactions.size());
+      }
+    }
+  }
+
+  class Worker implements Runnable {
+
+    @Override
+    public void run() {
+      List<QueuedTransaction> batch = new ArrayList<>(batchSize);
+      while (running || !queue.isEmpty()) {
+        try {
+          QueuedTransaction queued = queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+          if (queued == null) {
+            continue;
+          }
+          batch.add(queued);
+          queue.drainTo(batch, batchSize - 1);
+          metricsService.metrics().doRepositoryChannelDequeued(batch.size());
+          persist(batch);
+          batch = new ArrayList<>(batchSize);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        } catch (Exception e) {
+          LOG.error(e.getMessage(), e);
+        }
+      }
+    }
+  }
+
+  static class QueuedTransaction {
+    final GlobalTransaction transaction;
+    final long queuedTime = System.currentTimeMillis();
+
+    QueuedTransaction(GlobalTransaction transaction) {
+      this.transaction = transaction;
+    }
+  }
+}
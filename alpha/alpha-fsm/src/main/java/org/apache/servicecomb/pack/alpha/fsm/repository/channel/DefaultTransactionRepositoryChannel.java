@@ -17,23 +17,63 @@
 
 package org.apache.servicecomb.pack.alpha.fsm.repository.channel;
 
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
 import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
 import org.apache.servicecomb.pack.alpha.fsm.repository.AbstractTransactionRepositoryChannel;
 import org.apache.servicecomb.pack.alpha.fsm.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class DefaultTransactionRepositoryChannel extends AbstractTransactionRepositoryChannel {
 
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final TransactionSpill spill;
+
   public DefaultTransactionRepositoryChannel(TransactionRepository repository, MetricsService metricsService) {
     super(repository, metricsService);
+    this.spill = null;
+  }
+
+  /**
+   * The transactions which the repository fails to store, also in its background writer, are
+   * appended to the spill log and replayed every <code>replayInterval</code> milliseconds
+   */
+  public DefaultTransactionRepositoryChannel(TransactionRepository repository,
+      MetricsService metricsService, SpillLog spillLog, int replayBatchSize, long replayInterval) {
+    super(repository, metricsService);
+    this.spill = new TransactionSpill(spillLog, repository, metricsService, replayBatchSize,
+        replayInterval, () -> true);
+    repository.setFailedTransactionsHandler(transactions -> transactions.forEach(spill::spill));
   }
 
   @Override
   public void sendTo(GlobalTransaction transaction) {
-    try {
-      repository.send(transaction);
-    } catch (Exception e) {
-      throw new RuntimeException(e);
+    if (spill == null) {
+      try {
+        repository.send(transaction);
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    } else if (!spill.isEmpty()) {
+      // the repository was unavailable lately, do not make the actor wait for it again
+      spill.spill(transaction);
+    } else {
+      try {
+        repository.send(transaction);
+      } catch (Exception e) {
+        LOG.warn("Send transaction {} to the repository failed, spill it",
+            transaction.getGlobalTxId(), e);
+        spill.spill(transaction);
+      }
+    }
+  }
+
+  public void close() throws IOException {
+    if (spill != null) {
+      spill.close();
     }
   }
 }
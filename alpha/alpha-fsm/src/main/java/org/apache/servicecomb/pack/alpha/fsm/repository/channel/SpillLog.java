@@ -0,0 +1,304 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.repository.channel;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.CRC32;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.EventCodec;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.fsm.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only log of the finished transactions which could not be sent to the repository. The
+ * log is a list of memory-mapped segment files, every record is
+ * <code>length | crc32 | JSON</code>. A replayed record is marked by negating its length, so
+ * only the records not yet replayed are sent again after a restart. The record length is written
+ * last, a record torn by a crash fails the checksum and ends the segment.
+ */
+public class SpillLog implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final String SUFFIX = ".spill";
+  private static final int HEADER_SIZE = 8;
+
+  private final Path dir;
+  private final int segmentSize;
+  private final long maxSize;
+  private final ObjectMapper mapper = EventCodec.mapper();
+  // oldest first, the last segment is the one appended to
+  private final Deque<Segment> segments = new ArrayDeque<>();
+  private long nextSequence;
+  private volatile long pending;
+
+  public SpillLog(Path dir, int segmentSize, long maxSize) throws IOException {
+    if (maxSize < segmentSize) {
+      throw new IllegalArgumentException("maxSize must not be less than segmentSize");
+    }
+    this.dir = dir;
+    this.segmentSize = segmentSize;
+    this.maxSize = maxSize;
+    Files.createDirectories(dir);
+    List<Long> sequences = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        sequences.add(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())));
+      }
+    }
+    sequences.sort(Long::compare);
+    for (long sequence : sequences) {
+      Segment segment = new Segment(sequence);
+      segments.addLast(segment);
+      pending += segment.records;
+      nextSequence = sequence + 1;
+    }
+    if (segments.isEmpty()) {
+      segments.addLast(new Segment(nextSequence++));
+    } else if (pending > 0) {
+      LOG.info("Spill log {} has {} transactions to replay", dir, pending);
+    }
+    release();
+  }
+
+  /**
+   * Returns false if the log reached <code>maxSize</code>
+   */
+  public synchronized boolean append(GlobalTransaction transaction) throws IOException {
+    byte[] payload = mapper.writeValueAsBytes(transaction);
+    if (HEADER_SIZE + payload.length > segmentSize) {
+      throw new IOException("Transaction " + transaction.getGlobalTxId() + " of " + payload.length
+          + " bytes does not fit in a spill segment");
+    }
+    Segment segment = segments.getLast();
+    if (segment.remaining() < HEADER_SIZE + payload.length) {
+      if ((segments.size() + 1L) * segmentSize > maxSize) {
+        return false;
+      }
+      segment.buffer.force();
+      segment = new Segment(nextSequence++);
+      segments.addLast(segment);
+    }
+    segment.append(payload);
+    pending++;
+    return true;
+  }
+
+  /**
+   * Sends the oldest <code>batchSize</code> records to the repository and marks them replayed.
+   * If the repository throws, the records stay in the log.
+   *
+   * @return the number of replayed transactions, 0 if the log is empty
+   */
+  public int replayTo(TransactionRepository repository, int batchSize) throws Exception {
+    List<Record> records = read(batchSize);
+    if (records.isEmpty()) {
+      return 0;
+    }
+    List<GlobalTransaction> transactions = new ArrayList<>(records.size());
+    records.forEach(record -> transactions.add(record.transaction));
+    repository.send(transactions);
+    commit(records);
+    return records.size();
+  }
+
+  public boolean isEmpty() {
+    return pending == 0;
+  }
+
+  /**
+   * Number of transactions not yet replayed
+   */
+  public long pending() {
+    return pending;
+  }
+
+  /**
+   * Bytes of the segment files on disk
+   */
+  public synchronized long size() {
+    return (long) segments.size() * segmentSize;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    for (Segment segment : segments) {
+      segment.buffer.force();
+      segment.channel.close();
+    }
+  }
+
+  private synchronized List<Record> read(int batchSize) {
+    List<Record> records = new ArrayList<>(batchSize);
+    for (Segment segment : segments) {
+      int position = segment.readPosition;
+      while (records.size() < batchSize && position < segment.writePosition) {
+        int length = segment.buffer.getInt(position);
+        if (length > 0) {
+          try {
+            byte[] payload = new byte[length];
+            ByteBuffer view = segment.buffer.duplicate();
+            view.position(position + HEADER_SIZE);
+            view.get(payload);
+            records.add(new Record(segment, position, length,
+                mapper.readValue(payload, GlobalTransaction.class)));
+          } catch (IOException e) {
+            // checksum is fine but the record can not be read, it would never be replayed
+            LOG.error("Discard unreadable spilled transaction at {} of {}", position,
+                segment.file, e);
+            segment.buffer.putInt(position, -length);
+            pending--;
+          }
+        }
+        position += HEADER_SIZE + Math.abs(length);
+      }
+      if (records.size() >= batchSize) {
+        break;
+      }
+    }
+    return records;
+  }
+
+  private synchronized void commit(List<Record> records) {
+    for (Record record : records) {
+      record.segment.buffer.putInt(record.position, -record.length);
+      record.segment.readPosition = Math.max(record.segment.readPosition,
+          record.position + HEADER_SIZE + record.length);
+      pending--;
+    }
+    release();
+  }
+
+  // deletes the fully replayed segments except the one appended to
+  private void release() {
+    while (segments.size() > 1 && segments.getFirst().readPosition >= segments
+        .getFirst().writePosition) {
+      Segment segment = segments.removeFirst();
+      try {
+        segment.channel.close();
+        Files.deleteIfExists(segment.file);
+      } catch (IOException e) {
+        LOG.warn("Delete spill segment {} failed", segment.file, e);
+      }
+    }
+  }
+
+  private static int crc(MappedByteBuffer buffer, int position, int length) {
+    ByteBuffer view = buffer.duplicate();
+    view.position(position);
+    view.limit(position + length);
+    CRC32 crc = new CRC32();
+    crc.update(view);
+    return (int) crc.getValue();
+  }
+
+  class Segment {
+
+    final Path file;
+    final FileChannel channel;
+    final MappedByteBuffer buffer;
+    int writePosition;
+    int readPosition = -1;
+    int records;
+
+    Segment(long sequence) throws IOException {
+      this.file = dir.resolve(String.format("%020d%s", sequence, SUFFIX));
+      this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      // an existing segment may have been written with a larger segmentSize
+      this.buffer = channel.map(MapMode.READ_WRITE, 0, Math.max(segmentSize, channel.size()));
+      scan();
+    }
+
+    int remaining() {
+      return buffer.capacity() - writePosition;
+    }
+
+    void append(byte[] payload) {
+      int position = writePosition;
+      ByteBuffer view = buffer.duplicate();
+      view.position(position + HEADER_SIZE);
+      view.put(payload);
+      buffer.putInt(position + 4, crc(buffer, position + HEADER_SIZE, payload.length));
+      buffer.putInt(position, payload.length);
+      writePosition = position + HEADER_SIZE + payload.length;
+    }
+
+    // finds the first record to replay and the end of the written records
+    private void scan() {
+      int position = 0;
+      while (position + HEADER_SIZE <= buffer.capacity()) {
+        int length = buffer.getInt(position);
+        if (length == 0) {
+          break;
+        }
+        int size = Math.abs(length);
+        if (length == Integer.MIN_VALUE || position + HEADER_SIZE + size > buffer.capacity()) {
+          LOG.warn("Spill segment {} is corrupted at {}, the rest is ignored", file, position);
+          break;
+        }
+        if (length > 0) {
+          if (crc(buffer, position + HEADER_SIZE, length) != buffer.getInt(position + 4)) {
+            LOG.warn("Spill segment {} is corrupted at {}, the rest is ignored", file, position);
+            break;
+          }
+          if (readPosition < 0) {
+            readPosition = position;
+          }
+          records++;
+        }
+        position += HEADER_SIZE + size;
+      }
+      writePosition = position;
+      if (readPosition < 0) {
+        readPosition = writePosition;
+      }
+    }
+  }
+
+  static class Record {
+
+    final Segment segment;
+    final int position;
+    final int length;
+    final GlobalTransaction transaction;
+
+    Record(Segment segment, int position, int length, GlobalTransaction transaction) {
+      this.segment = segment;
+      this.position = position;
+      this.length = length;
+      this.transaction = transaction;
+    }
+  }
+}
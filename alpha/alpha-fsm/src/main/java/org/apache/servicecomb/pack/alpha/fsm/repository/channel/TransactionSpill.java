@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.repository.channel;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
+import org.apache.servicecomb.pack.alpha.fsm.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Spills transactions to the {@link SpillLog} and replays them to the repository every
+ * <code>interval</code> milliseconds while the channel is <code>idle</code>, until the
+ * repository throws again.
+ */
+class TransactionSpill {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final SpillLog spillLog;
+  private final TransactionRepository repository;
+  private final MetricsService metricsService;
+  private final int batchSize;
+  private final BooleanSupplier idle;
+  private final ScheduledExecutorService executor = Executors
+      .newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "transaction-repository-spill-replayer");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  TransactionSpill(SpillLog spillLog, TransactionRepository repository,
+      MetricsService metricsService, int batchSize, long interval, BooleanSupplier idle) {
+    this.spillLog = spillLog;
+    this.repository = repository;
+    this.metricsService = metricsService;
+    this.batchSize = batchSize;
+    this.idle = idle;
+    metricsService.metrics().doRepositoryChannelSpillSize(spillLog.size());
+    executor.scheduleWithFixedDelay(this::replay, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  void spill(GlobalTransaction transaction) {
+    try {
+      if (spillLog.append(transaction)) {
+        metricsService.metrics().doRepositoryChannelSpilled();
+      } else {
+        LOG.error("Spill log is full, drop transaction {}", transaction.getGlobalTxId());
+        metricsService.metrics().doRepositoryChannelDropped();
+      }
+    } catch (IOException e) {
+      LOG.error("Spill transaction {} failed", transaction.getGlobalTxId(), e);
+      metricsService.metrics().doRepositoryRejected();
+    }
+    metricsService.metrics().doRepositoryChannelSpillSize(spillLog.size());
+  }
+
+  boolean isEmpty() {
+    return spillLog.isEmpty();
+  }
+
+  void close() throws IOException {
+    executor.shutdown();
+    try {
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    spillLog.close();
+  }
+
+  private void replay() {
+    try {
+      int replayed;
+      while (!executor.isShutdown() && idle.getAsBoolean()
+          && (replayed = spillLog.replayTo(repository, batchSize)) > 0) {
+        metricsService.metrics().doRepositoryChannelReplayed(replayed);
+      }
+    } catch (Exception e) {
+      // logged on every attempt while the repository is unavailable, so without the stack trace
+      LOG.warn("Replay spilled transactions failed, {} transactions remain spilled: {}",
+          spillLog.pending(), e.toString());
+    } finally {
+      metricsService.metrics().doRepositoryChannelSpillSize(spillLog.size());
+    }
+  }
+}
@@ -20,30 +20,55 @@ package org.apache.servicecomb.pack.alpha.fsm.repository.elasticsearch;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.EventCodec;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.PagingGlobalTransactions;
 import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
 import org.apache.servicecomb.pack.alpha.fsm.repository.TransactionRepository;
-import org.elasticsearch.action.admin.indices.exists.indices.IndicesExistsRequest;
-import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
+import org.elasticsearch.ElasticsearchTimeoutException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.admin.indices.alias.Alias;
+import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
-import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.client.transport.NoNodeAvailableException;
+import org.elasticsearch.cluster.block.ClusterBlockException;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeQueryBuilder;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
-import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
 import org.elasticsearch.search.sort.SortBuilders;
 import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.transport.ConnectTransportException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
@@ -54,8 +79,6 @@ import org.springframework.data.elasticsearch.core.aggregation.AggregatedPage;
 import org.springframework.data.elasticsearch.core.aggregation.impl.AggregatedPageImpl;
 import org.springframework.data.elasticsearch.core.query.GetQuery;
 import org.springframework.data.elasticsearch.core.query.IndexQuery;
-import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
-import org.springframework.data.elasticsearch.core.query.SearchQuery;
 
 public class ElasticsearchTransactionRepository implements TransactionRepository {
 
@@ -63,46 +86,161 @@ public class ElasticsearchTransactionRepository implements TransactionRepository
   public static final String INDEX_NAME = "alpha_global_transaction";
   public static final String INDEX_TYPE = "alpha_global_transaction_type";
   private static final long SCROLL_TIMEOUT = 3000;
+  private static final long SNAPSHOT_KEEP_ALIVE = 60000;
+  private static final String SNAPSHOT_CURSOR_PREFIX = "scroll:";
   private final ElasticsearchTemplate template;
   private final MetricsService metricsService;
-  private final ObjectMapper mapper = new ObjectMapper();
+  private final ObjectMapper mapper = EventCodec.mapper();
+  private static final int DEFAULT_CONCURRENT_REQUESTS = 2;
+  private static final int DEFAULT_BACKLOG_SIZE = 10000;
+  private static final long DEFAULT_BATCH_BYTES = 5 * 1024 * 1024;
+  private static final int BULK_RETRIES = 3;
+  private static final long BULK_RETRY_BACKOFF = 100;
+  private static final long CLOSE_TIMEOUT = 10000;
   private int batchSize;
-  private int batchSizeCounter;
   private int refreshTime;
-  private final List<IndexQuery> queries = new ArrayList<>();
-  private final Object lock = new Object();
+  private long batchBytes;
+  private final BlockingQueue<IndexQuery> backlog;
+  private final ExecutorService bulkExecutor;
+  private final Thread flusher;
+  private ScheduledExecutorService retention;
+  private volatile boolean running = true;
+  private volatile Consumer<List<GlobalTransaction>> failedTransactionsHandler;
+  private final IndexRolling rolling;
+  private final int retentionDays;
+  // the rolling indices map the state as keyword, the dynamic mapping adds a keyword sub field
+  private final String stateField;
+  private final String globalTxIdField;
 
   public ElasticsearchTransactionRepository(
       ElasticsearchTemplate template, MetricsService metricsService, int batchSize,
       int refreshTime) {
+    this(template, metricsService, batchSize, refreshTime, DEFAULT_BATCH_BYTES,
+        DEFAULT_CONCURRENT_REQUESTS, DEFAULT_BACKLOG_SIZE, IndexRolling.NONE, 0);
+  }
+
+  public ElasticsearchTransactionRepository(
+      ElasticsearchTemplate template, MetricsService metricsService, int batchSize,
+      int refreshTime, long batchBytes, int concurrentRequests, int backlogSize,
+      IndexRolling rolling, int retentionDays) {
     this.template = template;
+    this.rolling = rolling;
+    this.retentionDays = retentionDays;
+    this.stateField = rolling == IndexRolling.NONE ? "state.keyword" : "state";
+    this.globalTxIdField = rolling == IndexRolling.NONE ? "globalTxId.keyword" : "globalTxId";
     this.metricsService = metricsService;
     this.batchSize = batchSize;
     this.refreshTime = refreshTime;
-    if (this.refreshTime > 0) {
-      new Thread(new RefreshTimer(), "elasticsearch-repository-refresh").start();
+    this.batchBytes = batchBytes;
+    this.backlog = new LinkedBlockingQueue<>(backlogSize);
+    // the flusher runs the bulk request itself when all the bulk threads are busy, so the
+    // backlog fills up and send() blocks until a bulk request completes
+    this.bulkExecutor = new ThreadPoolExecutor(concurrentRequests, concurrentRequests, 0L,
+        TimeUnit.MILLISECONDS, new SynchronousQueue<>(), runnable -> {
+      Thread thread = new Thread(runnable, "elasticsearch-repository-bulk");
+      thread.setDaemon(true);
+      return thread;
+    }, new ThreadPoolExecutor.CallerRunsPolicy());
+    if (this.batchSize > 0) {
+      this.flusher = new Thread(new Flusher(), "elasticsearch-repository-flush");
+      this.flusher.setDaemon(true);
+      this.flusher.start();
+    } else {
+      this.flusher = null;
     }
-    if (!this.template.indexExists(INDEX_NAME)) {
-      this.template.createIndex(INDEX_NAME);
+    if (rolling == IndexRolling.NONE) {
+      if (!this.template.indexExists(INDEX_NAME)) {
+        this.template.createIndex(INDEX_NAME);
+      }
+    } else {
+      // the rolling indices are created by the first bulk request of their time unit
+      checkIndexMigrated();
+      putIndexTemplate();
+      if (retentionDays > 0) {
+        this.retention = Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "elasticsearch-repository-retention");
+              thread.setDaemon(true);
+              return thread;
+            });
+        retention.scheduleWithFixedDelay(this::deleteExpiredIndices, 0, 1, TimeUnit.HOURS);
+      }
     }
   }
 
   @Override
   public void send(GlobalTransaction transaction) throws Exception {
-    synchronized (lock) {
-      long begin = System.currentTimeMillis();
-      queries.add(convert(transaction));
-      batchSizeCounter++;
-      metricsService.metrics().doRepositoryReceived();
-      if (batchSize == 0 || batchSizeCounter == batchSize) {
-        save(begin);
-        batchSizeCounter = 0;
+    IndexQuery query = convert(transaction);
+    metricsService.metrics().doRepositoryReceived();
+    if (batchSize == 0) {
+      bulk(Collections.singletonList(query));
+    } else {
+      backlog.put(query);
+      metricsService.metrics().doRepositoryQueued();
+    }
+  }
+
+  @Override
+  public void send(List<GlobalTransaction> transactions) throws Exception {
+    if (batchSize == 0) {
+      List<IndexQuery> queries = new ArrayList<>(transactions.size());
+      for (GlobalTransaction transaction : transactions) {
+        queries.add(convert(transaction));
+        metricsService.metrics().doRepositoryReceived();
+      }
+      bulk(queries);
+    } else {
+      TransactionRepository.super.send(transactions);
+    }
+  }
+
+  @Override
+  public void setFailedTransactionsHandler(Consumer<List<GlobalTransaction>> handler) {
+    this.failedTransactionsHandler = handler;
+  }
+
+  /**
+   * Stops the flusher once it has sent the backlog and waits for the bulk requests in flight
+   */
+  public void close() {
+    running = false;
+    if (flusher != null) {
+      try {
+        flusher.join(CLOSE_TIMEOUT);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
       }
     }
+    bulkExecutor.shutdown();
+    try {
+      bulkExecutor.awaitTermination(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (retention != null) {
+      retention.shutdownNow();
+    }
+    if (!backlog.isEmpty()) {
+      LOG.warn("Repository closed with {} queued transactions", backlog.size());
+    }
   }
 
   @Override
-  public GlobalTransaction getGlobalTransactionByGlobalTxId(String globalTxId) {
+  public GlobalTransaction getGlobalTransactionByGlobalTxId(String globalTxId) throws Exception {
+    if (rolling != IndexRolling.NONE) {
+      // a get request can not be routed through an alias of many indices
+      SearchResponse response = this.template.getClient().prepareSearch(INDEX_NAME)
+          .setTypes(INDEX_TYPE)
+          .setIndicesOptions(IndicesOptions.lenientExpandOpen())
+          .setQuery(QueryBuilders.idsQuery().addIds(globalTxId))
+          .setSize(1)
+          .get();
+      if (response.getHits().getHits().length == 0) {
+        return null;
+      }
+      return mapper.readValue(response.getHits().getAt(0).getSourceAsString(),
+          GlobalTransactionDocument.class);
+    }
     GetQuery getQuery = new GetQuery();
     getQuery.setId(globalTxId);
     GlobalTransactionDocument globalTransaction = this.template
@@ -122,39 +260,13 @@ public class ElasticsearchTransactionRepository implements TransactionRepository
     PagingGlobalTransactions pagingGlobalTransactions;
     List<GlobalTransaction> globalTransactions = new ArrayList();
     try{
-      IndicesExistsRequest request = new IndicesExistsRequest(INDEX_NAME);
-      if (this.template.getClient().admin().indices().exists(request).actionGet().isExists()) {
-        QueryBuilder query;
-        if (state != null && state.trim().length() > 0) {
-          query = QueryBuilders.termQuery("state.keyword", state);
-        } else {
-          query = QueryBuilders.matchAllQuery();
-        }
-        SearchResponse response = this.template.getClient().prepareSearch(INDEX_NAME)
-            .setTypes(INDEX_TYPE)
-            .setQuery(query)
-            .addSort(SortBuilders.fieldSort("beginTime").order(SortOrder.DESC).unmappedType("date"))
-            .setSize(size)
-            .setFrom(page * size)
-            .execute()
-            .actionGet();
-        ObjectMapper jsonMapper = new ObjectMapper();
-        response.getHits().forEach(hit -> {
-          try {
-            GlobalTransactionDocument dto = jsonMapper
-                .readValue(hit.getSourceAsString(), GlobalTransactionDocument.class);
-            globalTransactions.add(dto);
-          } catch (Exception e) {
-            LOG.error(e.getMessage(), e);
-          }
-        });
-        pagingGlobalTransactions = PagingGlobalTransactions.builder().page(page).size(size).total(response.getHits().getTotalHits())
-            .globalTransactions(globalTransactions).elapsed(System.currentTimeMillis() - start).build();
-      } else {
-        LOG.warn("[alpha_global_transaction] index not exist");
-        pagingGlobalTransactions = PagingGlobalTransactions.builder().page(page).size(size).total(0)
-            .globalTransactions(globalTransactions).elapsed(System.currentTimeMillis() - start).build();
-      }
+      SearchResponse response = searchOf(state)
+          .setSize(size)
+          .setFrom(page * size)
+          .get();
+      globalTransactions.addAll(transactionsOf(response));
+      pagingGlobalTransactions = PagingGlobalTransactions.builder().page(page).size(size).total(response.getHits().getTotalHits())
+          .globalTransactions(globalTransactions).elapsed(System.currentTimeMillis() - start).build();
     }catch (Exception ex){
       LOG.error(ex.getMessage(),ex);
       pagingGlobalTransactions = PagingGlobalTransactions.builder().page(page).size(size).total(0)
@@ -164,50 +276,213 @@ public class ElasticsearchTransactionRepository implements TransactionRepository
     return pagingGlobalTransactions;
   }
 
+  @Override
+  public PagingGlobalTransactions getGlobalTransactionsAfter(String state, String cursor, int size,
+      boolean snapshot) {
+    long start = System.currentTimeMillis();
+    SearchResponse response;
+    if (cursor != null && cursor.startsWith(SNAPSHOT_CURSOR_PREFIX)) {
+      response = this.template.getClient()
+          .prepareSearchScroll(cursor.substring(SNAPSHOT_CURSOR_PREFIX.length()))
+          .setScroll(TimeValue.timeValueMillis(SNAPSHOT_KEEP_ALIVE))
+          .get();
+    } else {
+      SearchRequestBuilder search = searchOf(state).setSize(size);
+      if (cursor != null && !cursor.isEmpty()) {
+        search.searchAfter(decodeCursor(cursor));
+      } else if (snapshot) {
+        search.setScroll(TimeValue.timeValueMillis(SNAPSHOT_KEEP_ALIVE));
+      }
+      response = search.get();
+    }
+    SearchHit[] hits = response.getHits().getHits();
+    String next = null;
+    if (hits.length > 0 && hits.length == size) {
+      next = response.getScrollId() != null
+          ? SNAPSHOT_CURSOR_PREFIX + response.getScrollId()
+          : encodeCursor(hits[hits.length - 1].getSortValues());
+    } else if (response.getScrollId() != null) {
+      this.template.getClient().prepareClearScroll().addScrollId(response.getScrollId()).get();
+    }
+    PagingGlobalTransactions pagingGlobalTransactions = PagingGlobalTransactions.builder()
+        .size(size).total(response.getHits().getTotalHits())
+        .globalTransactions(transactionsOf(response)).cursor(next)
+        .elapsed(System.currentTimeMillis() - start).build();
+    LOG.debug("Query total hits {}, return size {}, next cursor {}",
+        pagingGlobalTransactions.getTotal(), hits.length, next);
+    return pagingGlobalTransactions;
+  }
+
+  // newest first, the globalTxId breaks the ties of the begin time for search_after
+  private SearchRequestBuilder searchOf(String state) {
+    QueryBuilder query;
+    if (state != null && state.trim().length() > 0) {
+      query = QueryBuilders.termQuery(stateField, state);
+    } else {
+      query = QueryBuilders.matchAllQuery();
+    }
+    return this.template.getClient().prepareSearch(INDEX_NAME)
+        .setTypes(INDEX_TYPE)
+        .setIndicesOptions(IndicesOptions.lenientExpandOpen())
+        .setQuery(query)
+        .addSort(SortBuilders.fieldSort("beginTime").order(SortOrder.DESC).unmappedType("date"))
+        .addSort(SortBuilders.fieldSort(globalTxIdField).order(SortOrder.DESC)
+            .unmappedType("keyword"));
+  }
+
+  private List<GlobalTransaction> transactionsOf(SearchResponse response) {
+    List<GlobalTransaction> globalTransactions = new ArrayList<>();
+    response.getHits().forEach(hit -> {
+      try {
+        GlobalTransactionDocument dto = mapper
+            .readValue(hit.getSourceAsString(), GlobalTransactionDocument.class);
+        globalTransactions.add(dto);
+      } catch (Exception e) {
+        LOG.error(e.getMessage(), e);
+      }
+    });
+    return globalTransactions;
+  }
+
+  static String encodeCursor(Object[] sortValues) {
+    String value = sortValues[0] + ":" + sortValues[1];
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static Object[] decodeCursor(String cursor) {
+    try {
+      String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = value.indexOf(':');
+      return new Object[]{Long.parseLong(value.substring(0, separator)),
+          value.substring(separator + 1)};
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("Invalid cursor " + cursor, e);
+    }
+  }
+
   public Map<String, Long> getTransactionStatistics() {
+    return getTransactionStatistics(null, null);
+  }
+
+  @Override
+  public Map<String, Long> getTransactionStatistics(Date startTime, Date endTime) {
     TermsAggregationBuilder termsAggregationBuilder = AggregationBuilders
-        .terms("count_group_by_state").field("state.keyword");
-    SearchQuery searchQuery = new NativeSearchQueryBuilder()
-        .withIndices(INDEX_NAME)
+        .terms("count_group_by_state").field(stateField);
+    SearchResponse response = searchOf(startTime, endTime)
         .addAggregation(termsAggregationBuilder)
-        .build();
-    return this.template.query(searchQuery, response -> {
-      Map<String, Long> statistics = new HashMap<>();
-      if (response.getHits().totalHits > 0) {
-        final StringTerms groupState = response.getAggregations().get("count_group_by_state");
-        statistics = groupState.getBuckets()
-            .stream()
-            .collect(Collectors.toMap(MultiBucketsAggregation.Bucket::getKeyAsString,
-                MultiBucketsAggregation.Bucket::getDocCount));
-      }
-      return statistics;
-    });
+        .setSize(0)
+        .get();
+    Map<String, Long> statistics = new HashMap<>();
+    if (response.getHits().totalHits > 0) {
+      final Terms groupState = response.getAggregations().get("count_group_by_state");
+      statistics = groupState.getBuckets()
+          .stream()
+          .collect(Collectors.toMap(MultiBucketsAggregation.Bucket::getKeyAsString,
+              MultiBucketsAggregation.Bucket::getDocCount));
+    }
+    return statistics;
   }
 
   @Override
   public List<GlobalTransaction> getSlowGlobalTransactionsTopN(int n) {
+    return getSlowGlobalTransactionsTopN(n, null, null);
+  }
+
+  @Override
+  public List<GlobalTransaction> getSlowGlobalTransactionsTopN(int n, Date startTime,
+      Date endTime) {
     // ElasticsearchTemplate.prepareScroll() does not add sorting https://jira.spring.io/browse/DATAES-457
-    ObjectMapper jsonMapper = new ObjectMapper();
-    List<GlobalTransaction> globalTransactions = new ArrayList();
-    IndicesStatsResponse indicesStatsResponse = this.template.getClient().admin().indices().prepareStats(INDEX_NAME).get();
-    if(indicesStatsResponse.getIndices().get(INDEX_NAME).getTotal().docs.getCount()>0){
-      SearchResponse response = this.template.getClient().prepareSearch(INDEX_NAME)
-          .setSearchType(SearchType.DFS_QUERY_THEN_FETCH)
-          .setQuery(QueryBuilders.matchAllQuery())
-          .addSort(SortBuilders.fieldSort("durationTime").order(SortOrder.DESC))
-          .setFrom(0).setSize(n).setExplain(true)
+    SearchResponse response = searchOf(startTime, endTime)
+        .addSort(SortBuilders.fieldSort("durationTime").order(SortOrder.DESC).unmappedType("long"))
+        .setFrom(0).setSize(n)
+        .get();
+    return transactionsOf(response);
+  }
+
+  // only the indices overlapping the time range are searched, missing ones are skipped
+  private SearchRequestBuilder searchOf(Date startTime, Date endTime) {
+    List<String> indices = rolling.indicesOf(INDEX_NAME, startTime, endTime);
+    QueryBuilder query = QueryBuilders.matchAllQuery();
+    if (startTime != null || endTime != null) {
+      RangeQueryBuilder range = QueryBuilders.rangeQuery("beginTime");
+      if (startTime != null) {
+        range.gte(startTime.getTime());
+      }
+      if (endTime != null) {
+        range.lte(endTime.getTime());
+      }
+      query = range;
+    }
+    return this.template.getClient().prepareSearch(indices.toArray(new String[0]))
+        .setTypes(INDEX_TYPE)
+        .setIndicesOptions(IndicesOptions.lenientExpandOpen())
+        .setQuery(query);
+  }
+
+  // the alias of the rolling indices can not be created beside the index of the rolling none
+  private void checkIndexMigrated() {
+    String[] indices = this.template.getClient().admin().indices().prepareGetIndex()
+        .setIndices(INDEX_NAME)
+        .setIndicesOptions(IndicesOptions.lenientExpandOpen())
+        .get().getIndices();
+    if (Arrays.asList(indices).contains(INDEX_NAME)) {
+      throw new IllegalStateException("The index " + INDEX_NAME + " of the index rolling none "
+          + "exists, reindex its transactions into the rolling indices " + INDEX_NAME
+          + "-<begin time> and delete it before the index rolling " + rolling.name().toLowerCase()
+          + " is enabled");
+    }
+  }
+
+  private void putIndexTemplate() {
+    try {
+      XContentBuilder mapping = XContentFactory.jsonBuilder()
+          .startObject()
+            .startObject("properties")
+              .startObject("globalTxId").field("type", "keyword").endObject()
+              .startObject("type").field("type", "keyword").endObject()
+              .startObject("serviceName").field("type", "keyword").endObject()
+              .startObject("instanceId").field("type", "keyword").endObject()
+              .startObject("state").field("type", "keyword").endObject()
+              .startObject("suspendedType").field("type", "keyword").endObject()
+              .startObject("beginTime").field("type", "date").endObject()
+              .startObject("endTime").field("type", "date").endObject()
+              .startObject("durationTime").field("type", "long").endObject()
+              .startObject("subTxSize").field("type", "integer").endObject()
+              // only returned with the transaction, never searched
+              .startObject("events").field("type", "object").field("enabled", false).endObject()
+            .endObject()
+          .endObject();
+      this.template.getClient().admin().indices().preparePutTemplate(INDEX_NAME)
+          .setPatterns(Collections.singletonList(INDEX_NAME + "-*"))
+          .addMapping(INDEX_TYPE, mapping)
+          .addAlias(new Alias(INDEX_NAME))
           .get();
-      response.getHits().forEach(hit -> {
-        try {
-          GlobalTransactionDocument dto = jsonMapper
-              .readValue(hit.getSourceAsString(), GlobalTransactionDocument.class);
-          globalTransactions.add(dto);
-        } catch (Exception e) {
-          LOG.error(e.getMessage(), e);
-        }
-      });
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // whole indices are dropped, an index expires when its time unit ended before the retention
+  void deleteExpiredIndices() {
+    try {
+      Date expiry = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays));
+      String[] indices = this.template.getClient().admin().indices()
+          .prepareGetIndex().setIndices(INDEX_NAME + "-*").get().getIndices();
+      List<String> expired = new ArrayList<>();
+      for (String index : indices) {
+        rolling.timeOf(INDEX_NAME, index)
+            .filter(time -> time.getTime() + rolling.durationMillis() <= expiry.getTime())
+            .ifPresent(time -> expired.add(index));
+      }
+      if (!expired.isEmpty()) {
+        LOG.info("Delete expired indices {}", expired);
+        this.template.getClient().admin().indices()
+            .prepareDelete(expired.toArray(new String[0])).get();
+      }
+    } catch (Exception e) {
+      LOG.error(e.getMessage(), e);
     }
-    return globalTransactions;
   }
 
   private final SearchResultMapper searchResultMapper = new DefaultResultMapper() {
@@ -242,47 +517,131 @@ public class ElasticsearchTransactionRepository implements TransactionRepository
     IndexQuery indexQuery = new IndexQuery();
     indexQuery.setId(transaction.getGlobalTxId());
     indexQuery.setSource(mapper.writeValueAsString(transaction));
-    indexQuery.setIndexName(INDEX_NAME);
+    indexQuery.setIndexName(rolling.indexOf(INDEX_NAME, transaction.getBeginTime()));
     indexQuery.setType(INDEX_TYPE);
     return indexQuery;
   }
 
-  private void save(long begin) {
-    template.bulkIndex(queries);
-    template.refresh(INDEX_NAME);
-    metricsService.metrics().doRepositoryAccepted(queries.size());
+  // the documents are visible after the periodic refresh of the index, no refresh is forced
+  private void bulk(List<IndexQuery> queries) {
+    long begin = System.currentTimeMillis();
+    long backoff = BULK_RETRY_BACKOFF;
+    for (int retries = 0; ; retries++) {
+      try {
+        template.bulkIndex(queries);
+        metricsService.metrics().doRepositoryAccepted(queries.size());
+        break;
+      } catch (RuntimeException e) {
+        if (batchSize == 0 && isUnavailable(e)) {
+          // thrown to the repository channel, which keeps the transactions until ES is back
+          throw e;
+        }
+        // the background bulk requests wait for a short outage, which holds back the flusher
+        if (isUnavailable(e) && retries < BULK_RETRIES && sleep(backoff)) {
+          LOG.warn("bulk index {} transactions failed, retry in {} ms: {}", queries.size(),
+              backoff, e.toString());
+          backoff *= 2;
+          continue;
+        }
+        Consumer<List<GlobalTransaction>> handler = failedTransactionsHandler;
+        if (isUnavailable(e) && handler != null) {
+          LOG.warn("bulk index {} transactions failed, hand them over: {}", queries.size(),
+              e.toString());
+          handler.accept(transactionsOf(queries));
+        } else {
+          LOG.error("bulk index {} transactions failed", queries.size(), e);
+          metricsService.metrics().doRepositoryRejected(queries.size());
+        }
+        break;
+      }
+    }
     long end = System.currentTimeMillis();
     metricsService.metrics().doRepositoryAvgTime((end - begin) / queries.size());
+    metricsService.metrics().doRepositoryFlushAvgTime(end - begin);
     if (LOG.isDebugEnabled()) {
       LOG.debug("save queries={}, received={}, accepted={}", queries.size(),
           metricsService.metrics().getRepositoryReceived(),
           metricsService.metrics().getRepositoryAccepted());
     }
-    queries.clear();
   }
 
-  class RefreshTimer implements Runnable {
+  private List<GlobalTransaction> transactionsOf(List<IndexQuery> queries) {
+    List<GlobalTransaction> transactions = new ArrayList<>(queries.size());
+    for (IndexQuery query : queries) {
+      try {
+        transactions.add(mapper.readValue(query.getSource(), GlobalTransaction.class));
+      } catch (IOException e) {
+        LOG.error("read transaction {} failed", query.getId(), e);
+        metricsService.metrics().doRepositoryRejected();
+      }
+    }
+    return transactions;
+  }
+
+  private static boolean sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  // the cluster can not take the request now, unlike a failure of single documents
+  private static boolean isUnavailable(Exception e) {
+    Throwable cause = ExceptionsHelper.unwrapCause(e);
+    return cause instanceof NoNodeAvailableException
+        || cause instanceof ConnectTransportException
+        || cause instanceof ElasticsearchTimeoutException
+        || cause instanceof EsRejectedExecutionException
+        || cause instanceof ClusterBlockException;
+  }
+
+  /**
+   * Drains the backlog into bulk requests of <code>batchSize</code> documents or
+   * <code>batchBytes</code> bytes, a partial batch is flushed after <code>refreshTime</code>
+   * milliseconds. Once the repository is closed, the backlog is flushed before the flusher stops.
+   */
+  class Flusher implements Runnable {
 
     @Override
     public void run() {
-      while (true) {
+      List<IndexQuery> queries = new ArrayList<>(batchSize);
+      long bytes = 0;
+      long deadline = System.currentTimeMillis() + refreshTime;
+      while ((running || !backlog.isEmpty()) && !Thread.currentThread().isInterrupted()) {
         try {
-          synchronized (lock) {
-            if (!queries.isEmpty()) {
-              save(System.currentTimeMillis());
-            }
+          long timeout = refreshTime > 0 ? deadline - System.currentTimeMillis() : 1000;
+          IndexQuery query = backlog.poll(running ? Math.max(timeout, 0) : 0,
+              TimeUnit.MILLISECONDS);
+          if (query != null) {
+            metricsService.metrics().doRepositoryDequeued();
+            queries.add(query);
+            bytes += query.getSource().length();
+          }
+          boolean expired = !running && backlog.isEmpty()
+              || refreshTime > 0 && System.currentTimeMillis() >= deadline;
+          if (queries.size() >= batchSize || bytes >= batchBytes
+              || (expired && !queries.isEmpty())) {
+            final List<IndexQuery> batch = queries;
+            bulkExecutor.execute(() -> bulk(batch));
+            queries = new ArrayList<>(batchSize);
+            bytes = 0;
+            expired = true;
           }
+          if (expired) {
+            deadline = System.currentTimeMillis() + refreshTime;
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
         } catch (Exception e) {
           LOG.error(e.getMessage(), e);
-        } finally {
-          try {
-            Thread.sleep(refreshTime);
-          } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            LOG.error(e.getMessage(), e);
-          }
         }
       }
+      if (!queries.isEmpty()) {
+        bulk(queries);
+      }
     }
   }
 }
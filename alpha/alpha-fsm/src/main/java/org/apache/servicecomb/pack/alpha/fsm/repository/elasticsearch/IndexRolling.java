@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.repository.elasticsearch;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Names the time based indices of the global transactions, a transaction is stored in the index
+ * of its begin time in UTC.
+ */
+public enum IndexRolling {
+  NONE(null, null),
+  DAILY("yyyy.MM.dd", ChronoUnit.DAYS),
+  HOURLY("yyyy.MM.dd.HH", ChronoUnit.HOURS);
+
+  // a wider range is queried through the alias
+  static final int MAX_QUERY_INDICES = 1000;
+
+  private final DateTimeFormatter formatter;
+  private final ChronoUnit unit;
+
+  IndexRolling(String pattern, ChronoUnit unit) {
+    this.formatter = pattern == null ? null : new DateTimeFormatterBuilder()
+        .appendPattern(pattern)
+        .parseDefaulting(ChronoField.HOUR_OF_DAY, 0)
+        .parseDefaulting(ChronoField.MINUTE_OF_HOUR, 0)
+        .toFormatter();
+    this.unit = unit;
+  }
+
+  public static IndexRolling of(String name) {
+    return valueOf(name.toUpperCase());
+  }
+
+  public String indexOf(String alias, Date time) {
+    if (this == NONE) {
+      return alias;
+    }
+    return alias + "-" + formatter.format(truncate(time == null ? new Date() : time));
+  }
+
+  public long durationMillis() {
+    return unit.getDuration().toMillis();
+  }
+
+  /**
+   * Returns the indices which overlap the time range, or the alias itself when the range is
+   * open, empty or too wide, never an empty list which would search all the indices
+   */
+  public List<String> indicesOf(String alias, Date startTime, Date endTime) {
+    if (this == NONE || startTime == null || endTime == null || endTime.before(startTime)) {
+      return Collections.singletonList(alias);
+    }
+    List<String> indices = new ArrayList<>();
+    LocalDateTime end = truncate(endTime);
+    for (LocalDateTime time = truncate(startTime); !time.isAfter(end); time = time.plus(1, unit)) {
+      indices.add(alias + "-" + formatter.format(time));
+      if (indices.size() > MAX_QUERY_INDICES) {
+        return Collections.singletonList(alias);
+      }
+    }
+    return indices;
+  }
+
+  /**
+   * Returns the begin of the time unit of the index, or empty if it is not a rolling index
+   */
+  public Optional<Date> timeOf(String alias, String index) {
+    if (this == NONE || !index.startsWith(alias + "-")) {
+      return Optional.empty();
+    }
+    try {
+      LocalDateTime time = LocalDateTime.parse(index.substring(alias.length() + 1), formatter);
+      return Optional.of(Date.from(time.toInstant(ZoneOffset.UTC)));
+    } catch (DateTimeParseException e) {
+      return Optional.empty();
+    }
+  }
+
+  private LocalDateTime truncate(Date time) {
+    return LocalDateTime.ofInstant(Instant.ofEpochMilli(time.getTime()), ZoneOffset.UTC)
+        .truncatedTo(unit);
+  }
+}
@@ -0,0 +1,513 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.repository.jdbc;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.EventCodec;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.PagingGlobalTransactions;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.SagaSubTransaction;
+import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
+import org.apache.servicecomb.pack.alpha.fsm.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Stores the finished global transactions, their sub transactions and events in relational
+ * tables. The transactions are queued and written in JDBC batches by a background writer, the
+ * statistics are maintained in a summary table in the same database transaction.
+ */
+public class JdbcTransactionRepository implements TransactionRepository {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  static final String GLOBAL_TRANSACTION_COLUMNS = "globalTxId, type, serviceName, instanceId, "
+      + "beginTime, endTime, state, subTxSize, durationTime, suspendedType";
+  static final String SUB_TRANSACTION_COLUMNS = "globalTxId, localTxId, parentTxId, beginTime, "
+      + "endTime, state, durationTime";
+  static final String EVENT_COLUMNS = "globalTxId, eventIndex, type, payload";
+
+  private static final String INSERT_GLOBAL_TRANSACTION = "INSERT INTO saga_global_transaction ("
+      + GLOBAL_TRANSACTION_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+  private static final String INSERT_SUB_TRANSACTION = "INSERT INTO saga_sub_transaction ("
+      + SUB_TRANSACTION_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+  private static final String INSERT_EVENT = "INSERT INTO saga_transaction_event ("
+      + EVENT_COLUMNS + ") VALUES (?, ?, ?, ?)";
+  private static final String UPDATE_STATISTICS =
+      "UPDATE saga_transaction_statistics SET total = total + ? WHERE state = ?";
+  private static final String INSERT_STATISTICS =
+      "INSERT INTO saga_transaction_statistics (state, total) VALUES (?, ?)";
+  private static final String SELECT_GLOBAL_TRANSACTION =
+      "SELECT " + GLOBAL_TRANSACTION_COLUMNS + " FROM saga_global_transaction";
+  // newest first, the globalTxId breaks the ties of the begin time for the keyset paging
+  private static final String ORDER_BY_BEGIN_TIME = " ORDER BY beginTime DESC, globalTxId DESC";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final MetricsService metricsService;
+  private final ObjectMapper mapper = EventCodec.mapper();
+  private final int batchSize;
+  private final int refreshTime;
+  private final BlockingQueue<GlobalTransaction> backlog;
+  private final PostgresCopyWriter copyWriter;
+  private volatile Consumer<List<GlobalTransaction>> failedTransactionsHandler;
+
+  public JdbcTransactionRepository(DataSource dataSource, MetricsService metricsService,
+      int batchSize, int refreshTime, int backlogSize, boolean copy) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.metricsService = metricsService;
+    this.batchSize = batchSize;
+    this.refreshTime = refreshTime;
+    this.backlog = new LinkedBlockingQueue<>(backlogSize);
+    this.copyWriter = copy ? new PostgresCopyWriter(mapper) : null;
+    if (this.batchSize > 0) {
+      Thread writer = new Thread(new Writer(), "jdbc-repository-writer");
+      writer.setDaemon(true);
+      writer.start();
+    }
+  }
+
+  @Override
+  public void send(GlobalTransaction transaction) throws Exception {
+    metricsService.metrics().doRepositoryReceived();
+    if (batchSize == 0) {
+      write(Collections.singletonList(transaction));
+    } else {
+      backlog.put(transaction);
+      metricsService.metrics().doRepositoryQueued();
+    }
+  }
+
+  @Override
+  public void send(List<GlobalTransaction> transactions) throws Exception {
+    if (batchSize == 0) {
+      transactions.forEach(transaction -> metricsService.metrics().doRepositoryReceived());
+      write(transactions);
+    } else {
+      TransactionRepository.super.send(transactions);
+    }
+  }
+
+  @Override
+  public void setFailedTransactionsHandler(Consumer<List<GlobalTransaction>> handler) {
+    this.failedTransactionsHandler = handler;
+  }
+
+  @Override
+  public GlobalTransaction getGlobalTransactionByGlobalTxId(String globalTxId) throws Exception {
+    List<Map<String, Object>> transactions = jdbcTemplate.query(
+        SELECT_GLOBAL_TRANSACTION + " WHERE globalTxId = ?", rowMapper, globalTxId);
+    if (transactions.isEmpty()) {
+      return null;
+    }
+    Map<String, Object> transaction = transactions.get(0);
+    transaction.put("subTransactions", jdbcTemplate.query("SELECT " + SUB_TRANSACTION_COLUMNS
+        + " FROM saga_sub_transaction WHERE globalTxId = ? ORDER BY surrogateId", (rs, rowNum) -> {
+      Map<String, Object> subTransaction = new HashMap<>();
+      subTransaction.put("localTxId", rs.getString("localTxId"));
+      subTransaction.put("parentTxId", rs.getString("parentTxId"));
+      subTransaction.put("beginTime", rs.getTimestamp("beginTime").getTime());
+      subTransaction.put("endTime", rs.getTimestamp("endTime").getTime());
+      subTransaction.put("state", rs.getString("state"));
+      subTransaction.put("durationTime", rs.getLong("durationTime"));
+      return subTransaction;
+    }, globalTxId));
+    List<String> payloads = jdbcTemplate.queryForList(
+        "SELECT payload FROM saga_transaction_event WHERE globalTxId = ? ORDER BY eventIndex",
+        String.class, globalTxId);
+    List<Map<String, Object>> events = new ArrayList<>(payloads.size());
+    for (String payload : payloads) {
+      events.add(mapper.readValue(payload, Map.class));
+    }
+    transaction.put("events", events);
+    return mapper.convertValue(transaction, GlobalTransaction.class);
+  }
+
+  @Override
+  public PagingGlobalTransactions getGlobalTransactions(int page, int size) {
+    return getGlobalTransactions(null, page, size);
+  }
+
+  /**
+   * The listed transactions do not contain their sub transactions and events
+   */
+  @Override
+  public PagingGlobalTransactions getGlobalTransactions(String state, int page, int size) {
+    long start = System.currentTimeMillis();
+    List<Object> args = new ArrayList<>();
+    StringBuilder sql = new StringBuilder(SELECT_GLOBAL_TRANSACTION);
+    if (hasState(state)) {
+      sql.append(" WHERE state = ?");
+      args.add(state);
+    }
+    sql.append(ORDER_BY_BEGIN_TIME).append(" LIMIT ? OFFSET ?");
+    args.add(size);
+    args.add(page * size);
+    List<GlobalTransaction> globalTransactions = transactionsOf(
+        jdbcTemplate.query(sql.toString(), rowMapper, args.toArray()));
+    return PagingGlobalTransactions.builder().page(page).size(size).total(totalOf(state))
+        .globalTransactions(globalTransactions).elapsed(System.currentTimeMillis() - start)
+        .build();
+  }
+
+  /**
+   * Keyset paging, the snapshot is ignored because a page never moves once it has been read
+   */
+  @Override
+  public PagingGlobalTransactions getGlobalTransactionsAfter(String state, String cursor,
+      int size, boolean snapshot) {
+    long start = System.currentTimeMillis();
+    List<Object> args = new ArrayList<>();
+    List<String> conditions = new ArrayList<>();
+    if (hasState(state)) {
+      conditions.add("state = ?");
+      args.add(state);
+    }
+    if (cursor != null && !cursor.isEmpty()) {
+      Object[] key = decodeCursor(cursor);
+      conditions.add("(beginTime < ? OR (beginTime = ? AND globalTxId < ?))");
+      args.add(key[0]);
+      args.add(key[0]);
+      args.add(key[1]);
+    }
+    StringBuilder sql = new StringBuilder(SELECT_GLOBAL_TRANSACTION);
+    if (!conditions.isEmpty()) {
+      sql.append(" WHERE ").append(String.join(" AND ", conditions));
+    }
+    sql.append(ORDER_BY_BEGIN_TIME).append(" LIMIT ?");
+    args.add(size);
+    List<GlobalTransaction> globalTransactions = transactionsOf(
+        jdbcTemplate.query(sql.toString(), rowMapper, args.toArray()));
+    String next = null;
+    if (!globalTransactions.isEmpty() && globalTransactions.size() == size) {
+      GlobalTransaction last = globalTransactions.get(globalTransactions.size() - 1);
+      next = encodeCursor(last.getBeginTime(), last.getGlobalTxId());
+    }
+    return PagingGlobalTransactions.builder().size(size).total(totalOf(state)).cursor(next)
+        .globalTransactions(globalTransactions).elapsed(System.currentTimeMillis() - start)
+        .build();
+  }
+
+  @Override
+  public Map<String, Long> getTransactionStatistics() {
+    Map<String, Long> statistics = new HashMap<>();
+    jdbcTemplate.query("SELECT state, total FROM saga_transaction_statistics", rs -> {
+      if (rs.getLong("total") > 0) {
+        statistics.put(rs.getString("state"), rs.getLong("total"));
+      }
+    });
+    return statistics;
+  }
+
+  @Override
+  public Map<String, Long> getTransactionStatistics(Date startTime, Date endTime) {
+    if (startTime == null && endTime == null) {
+      return getTransactionStatistics();
+    }
+    List<Object> args = new ArrayList<>();
+    Map<String, Long> statistics = new HashMap<>();
+    jdbcTemplate.query("SELECT state, COUNT(*) AS total FROM saga_global_transaction"
+        + whereBeginTime(startTime, endTime, args) + " GROUP BY state", rs -> {
+      statistics.put(rs.getString("state"), rs.getLong("total"));
+    }, args.toArray());
+    return statistics;
+  }
+
+  @Override
+  public List<GlobalTransaction> getSlowGlobalTransactionsTopN(int n) {
+    return getSlowGlobalTransactionsTopN(n, null, null);
+  }
+
+  @Override
+  public List<GlobalTransaction> getSlowGlobalTransactionsTopN(int n, Date startTime,
+      Date endTime) {
+    List<Object> args = new ArrayList<>();
+    String sql = SELECT_GLOBAL_TRANSACTION + whereBeginTime(startTime, endTime, args)
+        + " ORDER BY durationTime DESC LIMIT ?";
+    args.add(n);
+    return transactionsOf(jdbcTemplate.query(sql, rowMapper, args.toArray()));
+  }
+
+  private String whereBeginTime(Date startTime, Date endTime, List<Object> args) {
+    List<String> conditions = new ArrayList<>();
+    if (startTime != null) {
+      conditions.add("beginTime >= ?");
+      args.add(new Timestamp(startTime.getTime()));
+    }
+    if (endTime != null) {
+      conditions.add("beginTime <= ?");
+      args.add(new Timestamp(endTime.getTime()));
+    }
+    return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+  }
+
+  private final RowMapper<Map<String, Object>> rowMapper = (rs, rowNum) -> {
+    Map<String, Object> transaction = new LinkedHashMap<>();
+    transaction.put("globalTxId", rs.getString("globalTxId"));
+    transaction.put("type", rs.getString("type"));
+    transaction.put("serviceName", rs.getString("serviceName"));
+    transaction.put("instanceId", rs.getString("instanceId"));
+    transaction.put("beginTime", rs.getTimestamp("beginTime").getTime());
+    transaction.put("endTime", rs.getTimestamp("endTime").getTime());
+    transaction.put("state", rs.getString("state"));
+    transaction.put("subTxSize", rs.getInt("subTxSize"));
+    transaction.put("durationTime", rs.getLong("durationTime"));
+    transaction.put("suspendedType", rs.getString("suspendedType"));
+    return transaction;
+  };
+
+  private List<GlobalTransaction> transactionsOf(List<Map<String, Object>> rows) {
+    List<GlobalTransaction> globalTransactions = new ArrayList<>(rows.size());
+    for (Map<String, Object> row : rows) {
+      globalTransactions.add(mapper.convertValue(row, GlobalTransaction.class));
+    }
+    return globalTransactions;
+  }
+
+  private long totalOf(String state) {
+    Long total;
+    if (hasState(state)) {
+      total = jdbcTemplate.queryForObject(
+          "SELECT SUM(total) FROM saga_transaction_statistics WHERE state = ?", Long.class, state);
+    } else {
+      total = jdbcTemplate.queryForObject(
+          "SELECT SUM(total) FROM saga_transaction_statistics", Long.class);
+    }
+    return total == null ? 0 : total;
+  }
+
+  private boolean hasState(String state) {
+    return state != null && state.trim().length() > 0;
+  }
+
+  static String encodeCursor(Date beginTime, String globalTxId) {
+    String value = beginTime.getTime() + ":" + globalTxId;
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static Object[] decodeCursor(String cursor) {
+    try {
+      String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = value.indexOf(':');
+      return new Object[]{new Timestamp(Long.parseLong(value.substring(0, separator))),
+          value.substring(separator + 1)};
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("Invalid cursor " + cursor, e);
+    }
+  }
+
+  /**
+   * Writes the transactions and their statistics in one database transaction. A failed batch is
+   * written again one transaction at a time, so a single bad transaction, e.g. a duplicate
+   * globalTxId, only rejects itself.
+   */
+  private void write(List<GlobalTransaction> transactions) {
+    long begin = System.currentTimeMillis();
+    try {
+      jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+          if (copyWriter != null) {
+            copyWriter.copy(connection, transactions);
+          } else {
+            insert(connection, transactions);
+          }
+          updateStatistics(connection, transactions);
+          connection.commit();
+        } catch (SQLException | IOException | RuntimeException e) {
+          connection.rollback();
+          throw e instanceof SQLException ? (SQLException) e : new SQLException(e);
+        } finally {
+          connection.setAutoCommit(autoCommit);
+        }
+        return null;
+      });
+      metricsService.metrics().doRepositoryAccepted(transactions.size());
+    } catch (RuntimeException e) {
+      if (batchSize == 0 && isUnavailable(e)) {
+        // thrown to the repository channel, which keeps the transactions until the database is back
+        throw e;
+      }
+      Consumer<List<GlobalTransaction>> handler = failedTransactionsHandler;
+      if (isUnavailable(e) && handler != null) {
+        LOG.warn("write {} transactions failed, hand them over: {}", transactions.size(),
+            e.toString());
+        handler.accept(transactions);
+        return;
+      }
+      if (transactions.size() > 1) {
+        LOG.warn("write {} transactions failed, retry one by one", transactions.size(), e);
+        transactions.forEach(transaction -> write(Collections.singletonList(transaction)));
+        return;
+      }
+      LOG.error("write transaction {} failed", transactions.get(0).getGlobalTxId(), e);
+      metricsService.metrics().doRepositoryRejected(1);
+    }
+    long end = System.currentTimeMillis();
+    metricsService.metrics().doRepositoryAvgTime((end - begin) / transactions.size());
+    metricsService.metrics().doRepositoryFlushAvgTime(end - begin);
+  }
+
+  // the database can not be reached now, unlike a rejected row which fails again on a retry
+  private static boolean isUnavailable(RuntimeException e) {
+    return e instanceof DataAccessResourceFailureException
+        || e instanceof TransientDataAccessException
+        || e instanceof RecoverableDataAccessException;
+  }
+
+  private void insert(Connection connection, List<GlobalTransaction> transactions)
+      throws SQLException, JsonProcessingException {
+    try (PreparedStatement globalStatement = connection.prepareStatement(INSERT_GLOBAL_TRANSACTION);
+        PreparedStatement subStatement = connection.prepareStatement(INSERT_SUB_TRANSACTION);
+        PreparedStatement eventStatement = connection.prepareStatement(INSERT_EVENT)) {
+      boolean hasSubTransactions = false;
+      boolean hasEvents = false;
+      for (GlobalTransaction transaction : transactions) {
+        globalStatement.setString(1, transaction.getGlobalTxId());
+        globalStatement.setString(2, transaction.getType().name());
+        globalStatement.setString(3, transaction.getServiceName());
+        globalStatement.setString(4, transaction.getInstanceId());
+        globalStatement.setTimestamp(5, new Timestamp(transaction.getBeginTime().getTime()));
+        globalStatement.setTimestamp(6, new Timestamp(transaction.getEndTime().getTime()));
+        globalStatement.setString(7, transaction.getState());
+        globalStatement.setInt(8, transaction.getSubTxSize() == null ? 0 : transaction.getSubTxSize());
+        globalStatement.setLong(9, transaction.getDurationTime());
+        globalStatement.setString(10, transaction.getSuspendedType() == null
+            ? null : transaction.getSuspendedType().name());
+        globalStatement.addBatch();
+        if (transaction.getSubTransactions() != null) {
+          for (SagaSubTransaction sub : transaction.getSubTransactions()) {
+            subStatement.setString(1, transaction.getGlobalTxId());
+            subStatement.setString(2, sub.getLocalTxId());
+            subStatement.setString(3, sub.getParentTxId());
+            subStatement.setTimestamp(4, new Timestamp(sub.getBeginTime().getTime()));
+            subStatement.setTimestamp(5, new Timestamp(sub.getEndTime().getTime()));
+            subStatement.setString(6, sub.getState().name());
+            subStatement.setLong(7, sub.getDurationTime());
+            subStatement.addBatch();
+            hasSubTransactions = true;
+          }
+        }
+        List<Map<String, Object>> events = transaction.getEvents();
+        for (int i = 0; i < events.size(); i++) {
+          eventStatement.setString(1, transaction.getGlobalTxId());
+          eventStatement.setInt(2, i);
+          eventStatement.setString(3, String.valueOf(events.get(i).get("type")));
+          eventStatement.setString(4, mapper.writeValueAsString(events.get(i)));
+          eventStatement.addBatch();
+          hasEvents = true;
+        }
+      }
+      globalStatement.executeBatch();
+      if (hasSubTransactions) {
+        subStatement.executeBatch();
+      }
+      if (hasEvents) {
+        eventStatement.executeBatch();
+      }
+    }
+  }
+
+  private void updateStatistics(Connection connection, List<GlobalTransaction> transactions)
+      throws SQLException {
+    Map<String, Long> counts = new HashMap<>();
+    transactions.forEach(transaction -> counts.merge(transaction.getState(), 1L, Long::sum));
+    try (PreparedStatement update = connection.prepareStatement(UPDATE_STATISTICS)) {
+      for (Map.Entry<String, Long> count : counts.entrySet()) {
+        update.setLong(1, count.getValue());
+        update.setString(2, count.getKey());
+        if (update.executeUpdate() == 0) {
+          try (PreparedStatement insert = connection.prepareStatement(INSERT_STATISTICS)) {
+            insert.setString(1, count.getKey());
+            insert.setLong(2, count.getValue());
+            insert.executeUpdate();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Drains the backlog into batches of <code>batchSize</code> transactions, a partial batch is
+   * written after <code>refreshTime</code> milliseconds.
+   */
+  class Writer implements Runnable {
+
+    @Override
+    public void run() {
+      List<GlobalTransaction> transactions = new ArrayList<>(batchSize);
+      long deadline = System.currentTimeMillis() + refreshTime;
+      while (!Thread.currentThread().isInterrupted()) {
+        try {
+          long timeout = refreshTime > 0 ? deadline - System.currentTimeMillis() : 1000;
+          GlobalTransaction transaction = backlog.poll(Math.max(timeout, 0), TimeUnit.MILLISECONDS);
+          if (transaction != null) {
+            metricsService.metrics().doRepositoryDequeued();
+            transactions.add(transaction);
+            // take what is already queued without waiting
+            int drained = backlog.drainTo(transactions, batchSize - transactions.size());
+            for (int i = 0; i < drained; i++) {
+              metricsService.metrics().doRepositoryDequeued();
+            }
+          }
+          boolean expired = refreshTime > 0 && System.currentTimeMillis() >= deadline;
+          if (transactions.size() >= batchSize || (expired && !transactions.isEmpty())) {
+            write(transactions);
+            transactions = new ArrayList<>(batchSize);
+            expired = true;
+          }
+          if (expired) {
+            deadline = System.currentTimeMillis() + refreshTime;
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } catch (Exception e) {
+          LOG.error(e.getMessage(), e);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.repository.jdbc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.SagaSubTransaction;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+/**
+ * Writes the rows of a batch with the PostgreSQL COPY protocol, which is cheaper than batched
+ * inserts for large batches. Kept apart from {@link JdbcTransactionRepository} so the PostgreSQL
+ * driver is only needed when COPY is enabled.
+ */
+class PostgresCopyWriter {
+
+  private final ObjectMapper mapper;
+
+  PostgresCopyWriter(ObjectMapper mapper) {
+    this.mapper = mapper;
+  }
+
+  void copy(Connection connection, List<GlobalTransaction> transactions)
+      throws SQLException, IOException {
+    CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+    StringBuilder globalRows = new StringBuilder();
+    StringBuilder subRows = new StringBuilder();
+    StringBuilder eventRows = new StringBuilder();
+    for (GlobalTransaction transaction : transactions) {
+      row(globalRows, transaction.getGlobalTxId(), transaction.getType().name(),
+          transaction.getServiceName(), transaction.getInstanceId(),
+          timestamp(transaction.getBeginTime()), timestamp(transaction.getEndTime()),
+          transaction.getState(),
+          transaction.getSubTxSize() == null ? 0 : transaction.getSubTxSize(),
+          transaction.getDurationTime(),
+          transaction.getSuspendedType() == null ? null : transaction.getSuspendedType().name());
+      if (transaction.getSubTransactions() != null) {
+        for (SagaSubTransaction sub : transaction.getSubTransactions()) {
+          row(subRows, transaction.getGlobalTxId(), sub.getLocalTxId(), sub.getParentTxId(),
+              timestamp(sub.getBeginTime()), timestamp(sub.getEndTime()), sub.getState().name(),
+              sub.getDurationTime());
+        }
+      }
+      List<Map<String, Object>> events = transaction.getEvents();
+      for (int i = 0; i < events.size(); i++) {
+        row(eventRows, transaction.getGlobalTxId(), i, events.get(i).get("type"),
+            mapper.writeValueAsString(events.get(i)));
+      }
+    }
+    copyIn(copyManager, "saga_global_transaction",
+        JdbcTransactionRepository.GLOBAL_TRANSACTION_COLUMNS, globalRows);
+    copyIn(copyManager, "saga_sub_transaction",
+        JdbcTransactionRepository.SUB_TRANSACTION_COLUMNS, subRows);
+    copyIn(copyManager, "saga_transaction_event",
+        JdbcTransactionRepository.EVENT_COLUMNS, eventRows);
+  }
+
+  private void copyIn(CopyManager copyManager, String table, String columns, StringBuilder rows)
+      throws SQLException, IOException {
+    if (rows.length() > 0) {
+      copyManager.copyIn("COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv)",
+          new StringReader(rows.toString()));
+    }
+  }
+
+  // CSV row, every value is quoted so an unquoted empty value is a NULL
+  private void row(StringBuilder rows, Object... values) {
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        rows.append(',');
+      }
+      if (values[i] != null) {
+        rows.append('"').append(values[i].toString().replace("\"", "\"\"")).append('"');
+      }
+    }
+    rows.append('\n');
+  }
+
+  // same local time representation as PreparedStatement.setTimestamp
+  private String timestamp(Date time) {
+    return new Timestamp(time.getTime()).toString();
+  }
+}
@@ -28,6 +28,7 @@ import org.apache.servicecomb.pack.alpha.fsm.SagaActorState;
 import org.apache.servicecomb.pack.alpha.core.fsm.TransactionType;
 import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
 import org.apache.servicecomb.pack.alpha.fsm.model.SagaData;
+import org.apache.servicecomb.pack.alpha.fsm.model.SagaEvents.PayloadPolicy;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.SagaSubTransaction;
 import org.apache.servicecomb.pack.alpha.fsm.repository.TransactionRepositoryChannel;
@@ -50,6 +51,10 @@ public class SagaDataExtension extends AbstractExtensionId<SagaDataExt> {
     private final ConcurrentHashMap<String, SagaData> sagaDataMap = new ConcurrentHashMap();
     private MetricsService metricsService;
     private TransactionRepositoryChannel repositoryChannel;
+    private PayloadPolicy eventPayloadPolicy = PayloadPolicy.INLINE;
+    private int maxEvents;
+    private int snapshotAfter;
+    private long snapshotInterval;
 
     public void putSagaData(String globalTxId, SagaData sagaData) {
       sagaDataMap.put(globalTxId, sagaData);
@@ -114,6 +119,14 @@ public class SagaDataExtension extends AbstractExtensionId<SagaDataExt> {
       this.metricsService.metrics().doSagaAvgTime(time);
     }
 
+    public void doActorRecovered(long time, int replayed) {
+      this.metricsService.metrics().doActorRecovered(time, replayed);
+    }
+
+    public void doActorSnapshot() {
+      this.metricsService.metrics().doActorSnapshot();
+    }
+
     public void setMetricsService(
         MetricsService metricsService) {
       this.metricsService = metricsService;
@@ -123,5 +136,44 @@ public class SagaDataExtension extends AbstractExtensionId<SagaDataExt> {
         TransactionRepositoryChannel repositoryChannel) {
       this.repositoryChannel = repositoryChannel;
     }
+
+    public PayloadPolicy getEventPayloadPolicy() {
+      return eventPayloadPolicy;
+    }
+
+    public void setEventPayloadPolicy(PayloadPolicy eventPayloadPolicy) {
+      this.eventPayloadPolicy = eventPayloadPolicy;
+    }
+
+    public int getMaxEvents() {
+      return maxEvents;
+    }
+
+    public void setMaxEvents(int maxEvents) {
+      this.maxEvents = maxEvents;
+    }
+
+    public int getSnapshotAfter() {
+      return snapshotAfter;
+    }
+
+    /**
+     * Saves a snapshot of a saga after this number of domain events, 0 disables it
+     */
+    public void setSnapshotAfter(int snapshotAfter) {
+      this.snapshotAfter = snapshotAfter;
+    }
+
+    public long getSnapshotInterval() {
+      return snapshotInterval;
+    }
+
+    /**
+     * Saves a snapshot of a saga at the first domain event after this number of milliseconds,
+     * 0 disables it
+     */
+    public void setSnapshotInterval(long snapshotInterval) {
+      this.snapshotInterval = snapshotInterval;
+    }
   }
 }
@@ -24,7 +24,10 @@ import akka.actor.ExtendedActorSystem;
 import akka.actor.Extension;
 import java.lang.invoke.MethodHandles;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.apache.servicecomb.pack.alpha.core.OmegaCallback;
@@ -48,20 +51,32 @@ public class SpringAkkaExtension extends AbstractExtensionId<SpringExt> {
   public static class SpringExt implements Extension {
 
     private static final String omegaCallbackBeanName = "omegaCallback";
+    private static final ScheduledExecutorService TIMEOUT_SCHEDULER =
+        Executors.newSingleThreadScheduledExecutor(runnable -> {
+          Thread thread = new Thread(runnable, "compensation-ack-timeout");
+          thread.setDaemon(true);
+          return thread;
+        });
     private volatile ApplicationContext applicationContext;
     private OmegaCallback omegaCallback;
+    // applies to the compensations without reverseTimeout, 0 waits for their acks forever
+    private volatile int ackTimeout = 60;
 
-    public void compensate(TxEntity txEntity)
-        throws InterruptedException, ExecutionException, TimeoutException {
-      if (txEntity.getReverseTimeout() > 0) {
-        CompletableFuture.runAsync(() -> doCompensate(txEntity))
-            .get(txEntity.getReverseTimeout(), TimeUnit.SECONDS);
-      } else {
-        doCompensate(txEntity);
+    public CompletionStage<Void> compensate(TxEntity txEntity) {
+      CompletableFuture<Void> future = doCompensate(txEntity).toCompletableFuture();
+      // the compensation keeps its slot of the omega until it is acked or timed out
+      int timeoutSeconds = txEntity.getReverseTimeout() > 0 ? txEntity.getReverseTimeout() : ackTimeout;
+      if (timeoutSeconds > 0 && !future.isDone()) {
+        ScheduledFuture<?> timeout = TIMEOUT_SCHEDULER.schedule(
+            () -> future.completeExceptionally(new TimeoutException(
+                "Compensation ack timeout after " + timeoutSeconds + " seconds")),
+            timeoutSeconds, TimeUnit.SECONDS);
+        future.whenComplete((ignored, throwable) -> timeout.cancel(false));
       }
+      return future;
     }
 
-    private void doCompensate(TxEntity txEntity) {
+    private CompletionStage<Void> doCompensate(TxEntity txEntity) {
       if (applicationContext != null) {
         if (applicationContext.containsBean(omegaCallbackBeanName)) {
           omegaCallback = applicationContext.getBean(omegaCallbackBeanName, OmegaCallback.class);
@@ -74,17 +89,22 @@ public class SpringAkkaExtension extends AbstractExtensionId<SpringExt> {
               TxCompensateEvent.name(),
               txEntity.getCompensationMethod(),
               txEntity.getPayloads());
-          omegaCallback.compensate(event);
+          return omegaCallback.compensateAsync(event);
         } else {
           LOG.warn("Spring Bean {} doesn't exist in ApplicationContext", omegaCallbackBeanName);
         }
       } else {
         LOG.warn("Spring ApplicationContext is null");
       }
+      return CompletableFuture.completedFuture(null);
     }
 
     public void initialize(ApplicationContext applicationContext) {
       this.applicationContext = applicationContext;
     }
+
+    public void setAckTimeout(int ackTimeout) {
+      this.ackTimeout = ackTimeout;
+    }
   }
 }
@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm;
+
+import static org.apache.servicecomb.pack.alpha.fsm.SagaShardRegionActor.ShardHashing.LEGACY;
+import static org.apache.servicecomb.pack.alpha.fsm.SagaShardRegionActor.ShardHashing.MURMUR3;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Address;
+import akka.actor.Props;
+import akka.testkit.javadsl.TestKit;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scala.collection.JavaConverters;
+import scala.collection.immutable.IndexedSeq;
+import scala.concurrent.Await;
+import scala.concurrent.duration.Duration;
+
+public class ConsistentHashingShardAllocationStrategyTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final int NUMBER_OF_SHARDS = 100;
+  private static ActorSystem system;
+  private final ConsistentHashingShardAllocationStrategy strategy =
+      new ConsistentHashingShardAllocationStrategy(
+          new Address("akka", "alpha-cluster", "127.0.0.1", 8070), 3);
+
+  @BeforeClass
+  public static void setup() {
+    system = ActorSystem.create("ShardAllocationTest");
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    TestKit.shutdownActorSystem(system);
+    system = null;
+  }
+
+  @Test
+  public void shardIdIsNeverNegative() {
+    for (int i = 0; i < 10000; i++) {
+      int shardId = Integer.parseInt(
+          SagaShardRegionActor.shardIdOf(UUID.randomUUID().toString(), NUMBER_OF_SHARDS, MURMUR3));
+      assertTrue(shardId >= 0 && shardId < NUMBER_OF_SHARDS);
+    }
+    // "polygenelubricants".hashCode() is Integer.MIN_VALUE
+    int shardId = Integer.parseInt(SagaShardRegionActor.shardIdOf("polygenelubricants", 10, MURMUR3));
+    assertTrue(shardId >= 0 && shardId < 10);
+  }
+
+  @Test
+  public void legacyHashingKeepsShardsOfEarlierReleases() {
+    for (int i = 0; i < 10000; i++) {
+      String globalTxId = UUID.randomUUID().toString();
+      assertEquals(String.valueOf(globalTxId.hashCode() % 10),
+          SagaShardRegionActor.shardIdOf(globalTxId, 10, LEGACY));
+      int partition = SagaShardRegionActor.partitionOf(globalTxId, 10, LEGACY, 6);
+      assertTrue(partition >= 0 && partition < 6);
+    }
+  }
+
+  @Test
+  public void allocateShardToOwnerOnRingWhoeverRequests() throws Exception {
+    List<ActorRef> regions = regionsOf("allocate", 3);
+    Map<ActorRef, IndexedSeq<String>> allocations = emptyAllocationsOf(regions);
+    for (int shard = 0; shard < NUMBER_OF_SHARDS; shard++) {
+      String shardId = String.valueOf(shard);
+      ActorRef first = allocate(regions.get(0), shardId, allocations);
+      ActorRef second = allocate(regions.get(2), shardId, allocations);
+      assertEquals(first, second);
+    }
+  }
+
+  @Test
+  public void moveFewShardsWhenRegionJoins() throws Exception {
+    List<ActorRef> regions = regionsOf("join", 3);
+    Map<ActorRef, IndexedSeq<String>> allocations = allocationsOf(regions);
+
+    List<ActorRef> joined = new ArrayList<>(regions);
+    ActorRef newcomer = system.actorOf(Props.empty(), "join-region-4");
+    joined.add(newcomer);
+    Map<String, ActorRef> assignment = strategy.assignmentOf(shardIds(), new HashSet<>(joined));
+
+    int moved = 0;
+    int movedToNewcomer = 0;
+    for (Map.Entry<ActorRef, IndexedSeq<String>> allocation : allocations.entrySet()) {
+      for (String shardId : JavaConverters.seqAsJavaList(allocation.getValue())) {
+        ActorRef owner = assignment.get(shardId);
+        if (!owner.equals(allocation.getKey())) {
+          moved++;
+          if (owner.equals(newcomer)) {
+            movedToNewcomer++;
+          }
+        }
+      }
+    }
+    // almost all the moved shards go to the newcomer, the others are kept in place
+    assertTrue(movedToNewcomer > 0);
+    assertTrue(moved - movedToNewcomer <= NUMBER_OF_SHARDS / 20);
+
+    allocations.put(newcomer, emptyShards());
+    Set<String> rebalance = Await.result(
+        strategy.rebalance(allocations, Collections.emptySet()), Duration.create(1, TimeUnit.SECONDS));
+    assertEquals(3, rebalance.size());
+    Set<String> inProgress = new HashSet<>(rebalance);
+    rebalance = Await.result(
+        strategy.rebalance(allocations, inProgress), Duration.create(1, TimeUnit.SECONDS));
+    assertTrue(rebalance.isEmpty());
+  }
+
+  @Test
+  public void rebalanceNothingWhenRegionsAreStable() throws Exception {
+    List<ActorRef> regions = regionsOf("stable", 6);
+    Set<String> rebalance = Await.result(
+        strategy.rebalance(allocationsOf(regions), Collections.emptySet()),
+        Duration.create(1, TimeUnit.SECONDS));
+    assertTrue(rebalance.isEmpty());
+  }
+
+  @Test
+  public void shardsFollowTheirKafkaPartition() {
+    final int numberOfPartitions = 6;
+    final Address selfAddress = new Address("akka", "alpha-cluster", "127.0.0.1", 8070);
+    ConsistentHashingShardAllocationStrategy partitionStrategy =
+        new ConsistentHashingShardAllocationStrategy(selfAddress, 3, numberOfPartitions);
+    List<ActorRef> regions = regionsOf("partition", 3);
+    Map<String, ActorRef> owners = partitionStrategy.assignmentOf(shardIds(), new HashSet<>(regions));
+    assertEquals(NUMBER_OF_SHARDS, owners.size());
+
+    Set<String> regionKeys = new HashSet<>();
+    regions.forEach(region -> regionKeys.add(region.path().toStringWithAddress(selfAddress)));
+    Set<Integer> consumed = new HashSet<>();
+    for (ActorRef region : regions) {
+      Set<Integer> partitions = ConsistentHashingShardAllocationStrategy.partitionsOf(
+          region.path().toStringWithAddress(selfAddress), regionKeys, numberOfPartitions);
+      for (int i = 0; i < 1000; i++) {
+        String globalTxId = UUID.randomUUID().toString();
+        int partition = SagaShardRegionActor
+            .partitionOf(globalTxId, NUMBER_OF_SHARDS, MURMUR3, numberOfPartitions);
+        if (partitions.contains(partition)) {
+          // the node consuming the partition hosts the saga
+          assertEquals(region,
+              owners.get(SagaShardRegionActor.shardIdOf(globalTxId, NUMBER_OF_SHARDS, MURMUR3)));
+        }
+      }
+      assertTrue(Collections.disjoint(consumed, partitions));
+      consumed.addAll(partitions);
+    }
+    assertEquals(numberOfPartitions, consumed.size());
+  }
+
+  /**
+   * Prints how the events of random global transactions are spread over 3, 6 and 12 nodes
+   */
+  @Test
+  public void eventDistributionBenchmark() {
+    final int events = 120000;
+    for (int nodes : new int[]{3, 6, 12}) {
+      List<ActorRef> regions = regionsOf("benchmark-" + nodes, nodes);
+      Map<String, ActorRef> owners = strategy.assignmentOf(shardIds(), new HashSet<>(regions));
+      Map<ActorRef, Integer> eventsPerNode = new HashMap<>();
+      for (int i = 0; i < events; i++) {
+        String shardId = SagaShardRegionActor
+            .shardIdOf(UUID.randomUUID().toString(), NUMBER_OF_SHARDS, MURMUR3);
+        eventsPerNode.merge(owners.get(shardId), 1, Integer::sum);
+      }
+      int mean = events / nodes;
+      int max = Collections.max(eventsPerNode.values());
+      int min = Collections.min(eventsPerNode.values());
+      LOG.info("{} shards on {} nodes, events per node {}, min {} ({}%), max {} ({}%)",
+          NUMBER_OF_SHARDS, nodes, eventsPerNode.values(), min, min * 100 / mean, max, max * 100 / mean);
+      assertEquals(nodes, eventsPerNode.size());
+      // bounded by the load factor plus the rounding of the shards per node
+      assertTrue(max < mean * 1.3);
+    }
+  }
+
+  private List<ActorRef> regionsOf(String name, int size) {
+    List<ActorRef> regions = new ArrayList<>();
+    for (int i = 1; i <= size; i++) {
+      regions.add(system.actorOf(Props.empty(), name + "-region-" + i));
+    }
+    return regions;
+  }
+
+  private Map<ActorRef, IndexedSeq<String>> emptyAllocationsOf(List<ActorRef> regions) {
+    Map<ActorRef, IndexedSeq<String>> allocations = new HashMap<>();
+    regions.forEach(region -> allocations.put(region, emptyShards()));
+    return allocations;
+  }
+
+  private Set<String> shardIds() {
+    Set<String> shardIds = new HashSet<>();
+    for (int shard = 0; shard < NUMBER_OF_SHARDS; shard++) {
+      shardIds.add(String.valueOf(shard));
+    }
+    return shardIds;
+  }
+
+  private Map<ActorRef, IndexedSeq<String>> allocationsOf(List<ActorRef> regions) {
+    Map<ActorRef, List<String>> shards = new HashMap<>();
+    regions.forEach(region -> shards.put(region, new ArrayList<>()));
+    strategy.assignmentOf(shardIds(), new HashSet<>(regions))
+        .forEach((shardId, region) -> shards.get(region).add(shardId));
+    Map<ActorRef, IndexedSeq<String>> allocations = new HashMap<>();
+    shards.forEach((region, ids) -> allocations.put(region,
+        JavaConverters.asScalaBufferConverter(ids).asScala().toIndexedSeq()));
+    return allocations;
+  }
+
+  private IndexedSeq<String> emptyShards() {
+    return JavaConverters.asScalaBufferConverter(new ArrayList<String>()).asScala().toIndexedSeq();
+  }
+
+  private ActorRef allocate(ActorRef requester, String shardId,
+      Map<ActorRef, IndexedSeq<String>> allocations) throws Exception {
+    return Await.result(strategy.allocateShard(requester, shardId, allocations),
+        Duration.create(1, TimeUnit.SECONDS));
+  }
+}
@@ -18,11 +18,20 @@
 package org.apache.servicecomb.pack.alpha.fsm;
 
 import static org.apache.servicecomb.pack.alpha.fsm.spring.integration.akka.SagaDataExtension.SAGA_DATA_EXTENSION_PROVIDER;
+import static org.apache.servicecomb.pack.alpha.fsm.spring.integration.akka.SpringAkkaExtension.SPRING_EXTENSION_PROVIDER;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
+import akka.actor.PoisonPill;
 import akka.actor.Terminated;
 import akka.persistence.fsm.PersistentFSM;
 import akka.persistence.fsm.PersistentFSM.CurrentState;
@@ -33,7 +42,20 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import org.apache.servicecomb.pack.alpha.core.AlphaException;
+import org.apache.servicecomb.pack.alpha.core.OmegaCallback;
+import org.apache.servicecomb.pack.alpha.core.TxEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckSucceedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
 import org.apache.servicecomb.pack.alpha.fsm.model.SagaData;
@@ -50,6 +72,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.context.ApplicationContext;
 import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
 
 import static org.hamcrest.CoreMatchers.*;
@@ -271,6 +294,91 @@ public class SagaActorTest {
     }};
   }
 
+  /**
+   * 1. SagaStartedEvent-1
+   * 2. TxStartedEvent-11
+   * 3. TxEndedEvent-11
+   * 4. TxStartedEvent-12
+   * 5. TxEndedEvent-12
+   * 4. TxStartedEvent-13
+   * 5. TxEndedEvent-13
+   * 6. SagaEndedEvent-1
+   */
+  @Test
+  public void successfulRecoveryFromSnapshotTest() {
+    SAGA_DATA_EXTENSION_PROVIDER.get(system).setSnapshotAfter(2);
+    try {
+      new TestKit(system) {{
+        final String globalTxId = UUID.randomUUID().toString();
+        final String localTxId_1 = UUID.randomUUID().toString();
+        final String localTxId_2 = UUID.randomUUID().toString();
+        final String localTxId_3 = UUID.randomUUID().toString();
+        final long snapshots = metricsService.metrics().getActorSnapshots();
+        final long recovered = metricsService.metrics().getActorRecovered();
+        final long replayed = metricsService.metrics().getActorRecoveryReplayed();
+
+        String persistenceId = genPersistenceId();
+        ActorRef saga = system.actorOf(SagaActor.props(persistenceId));
+        watch(saga);
+        saga.tell(new PersistentFSM.SubscribeTransitionCallBack(getRef()), getRef());
+        List<BaseEvent> eventListFirst = SagaEventSender.successfulFirstHalfEvents(globalTxId, localTxId_1, localTxId_2, localTxId_3);
+        eventListFirst.stream().forEach(event -> {
+          saga.tell(event, getRef());
+        });
+
+        CurrentState currentState = expectMsgClass(PersistentFSM.CurrentState.class);
+        assertEquals(SagaActorState.IDLE, currentState.state());
+        for (int i = 0; i < eventListFirst.size(); i++) {
+          expectMsgClass(PersistentFSM.Transition.class);
+        }
+        await().atMost(10, SECONDS)
+            .until(() -> metricsService.metrics().getActorSnapshots() > snapshots);
+
+        // the saga actor is restarted, e.g. on another node
+        saga.tell(PoisonPill.getInstance(), ActorRef.noSender());
+        expectTerminated(saga);
+
+        ActorRef recoveredSaga = system.actorOf(SagaActor.props(persistenceId), "recoveredSnapshotSaga");
+        watch(recoveredSaga);
+        recoveredSaga.tell(new PersistentFSM.SubscribeTransitionCallBack(getRef()), getRef());
+        List<BaseEvent> eventListSecond = SagaEventSender.successfulSecondHalfEvents(globalTxId, localTxId_1, localTxId_2, localTxId_3);
+        eventListSecond.stream().forEach(event -> {
+          recoveredSaga.tell(event, getRef());
+        });
+
+        currentState = expectMsgClass(PersistentFSM.CurrentState.class);
+        assertEquals(SagaActorState.PARTIALLY_ACTIVE, currentState.state());
+        PersistentFSM.Transition transition = null;
+        for (int i = 0; i < eventListSecond.size(); i++) {
+          transition = expectMsgClass(PersistentFSM.Transition.class);
+        }
+        assertSagaTransition(transition, recoveredSaga, SagaActorState.PARTIALLY_COMMITTED,
+            SagaActorState.COMMITTED);
+        Terminated terminated = expectMsgClass(Terminated.class);
+        assertEquals(terminated.getActor(), recoveredSaga);
+
+        // only the events persisted after the snapshot are replayed
+        assertEquals(recovered + 1, metricsService.metrics().getActorRecovered());
+        assertTrue(metricsService.metrics().getActorRecoveryReplayed() - replayed < eventListFirst.size());
+
+        SagaData sagaData = SAGA_DATA_EXTENSION_PROVIDER.get(system).getLastSagaData();
+        assertEquals(sagaData.getGlobalTxId(), globalTxId);
+        assertEquals(sagaData.getTxEntities().size(), 3);
+        sagaData.getTxEntities().forEach((k, v) -> {
+          assertEquals(v.getState(), TxState.COMMITTED);
+        });
+        eventListFirst.addAll(eventListSecond);
+        assertEquals(eventListFirst.size(), sagaData.getEvents().size());
+        for (int i = 0; i < eventListFirst.size(); i++) {
+          assertEquals(eventListFirst.get(i).getType(), sagaData.getEvents().get(i).getType());
+          assertEquals(eventListFirst.get(i).getLocalTxId(), sagaData.getEvents().get(i).getLocalTxId());
+        }
+      }};
+    } finally {
+      SAGA_DATA_EXTENSION_PROVIDER.get(system).setSnapshotAfter(0);
+    }
+  }
+
   /**
    * 1. SagaStartedEvent-1
    * 2. TxStartedEvent-11
@@ -1045,6 +1153,108 @@ public class SagaActorTest {
     }};
   }
 
+  /**
+   * The compensations of a saga are sent one at a time in reverse order, the next one on the ack
+   * of the previous one
+   */
+  @Test
+  public void compensateOneSubTransactionAtATime() {
+    ConcurrentLinkedQueue<String> compensated = new ConcurrentLinkedQueue<>();
+    omegaCallbackOf(event -> {
+      compensated.add(event.localTxId());
+      return new CompletableFuture<>();
+    });
+    try {
+      new TestKit(system) {{
+        final String globalTxId = UUID.randomUUID().toString();
+        final String localTxId_1 = UUID.randomUUID().toString();
+        final String localTxId_2 = UUID.randomUUID().toString();
+        final String localTxId_3 = UUID.randomUUID().toString();
+
+        ActorRef saga = system.actorOf(SagaActor.props(genPersistenceId()));
+        watch(saga);
+        List<BaseEvent> eventList = SagaEventSender.lastTxAbortedEvents(globalTxId, localTxId_1, localTxId_2, localTxId_3);
+        // 1-7 ends with TxAbortedEvent-13, then TxCompensateAckSucceedEvent-11, -12 and SagaAbortedEvent
+        eventList.subList(0, 7).forEach(event -> saga.tell(event, getRef()));
+
+        await().atMost(5, SECONDS).until(() -> compensated.size() == 1);
+        assertThat(compensated.peek(), is(localTxId_2));
+
+        saga.tell(eventList.get(8), getRef());
+        await().atMost(5, SECONDS).until(() -> compensated.size() == 2);
+        assertThat(compensated, contains(localTxId_2, localTxId_1));
+
+        saga.tell(eventList.get(7), getRef());
+        saga.tell(eventList.get(9), getRef());
+        Terminated terminated = expectMsgClass(Terminated.class);
+        assertEquals(terminated.getActor(), saga);
+
+        SagaData sagaData = SAGA_DATA_EXTENSION_PROVIDER.get(system).getLastSagaData();
+        assertEquals(sagaData.getTxEntities().get(localTxId_1).getState(), TxState.COMPENSATED_SUCCEED);
+        assertEquals(sagaData.getTxEntities().get(localTxId_2).getState(), TxState.COMPENSATED_SUCCEED);
+        assertEquals(sagaData.getCompensationRunningCounter().intValue(), 0);
+      }};
+    } finally {
+      SPRING_EXTENSION_PROVIDER.get(system).initialize(null);
+    }
+  }
+
+  /**
+   * A compensation which cannot be sent is retried by the actor after the retry delay
+   */
+  @Test
+  public void retryCompensationFailedToSend() {
+    ConcurrentLinkedQueue<String> compensated = new ConcurrentLinkedQueue<>();
+    AtomicBoolean failed = new AtomicBoolean();
+    omegaCallbackOf(event -> {
+      compensated.add(event.localTxId());
+      CompletableFuture<Void> ack = new CompletableFuture<>();
+      if (failed.compareAndSet(false, true)) {
+        ack.completeExceptionally(new AlphaException("No such omega callback found"));
+      }
+      return ack;
+    });
+    try {
+      new TestKit(system) {{
+        final String globalTxId = UUID.randomUUID().toString();
+        final String localTxId_1 = UUID.randomUUID().toString();
+        final String localTxId_2 = UUID.randomUUID().toString();
+
+        ActorRef saga = system.actorOf(SagaActor.props(genPersistenceId()));
+        watch(saga);
+        saga.tell(SagaStartedEvent.builder().serviceName("service_g").instanceId("instance_g").globalTxId(globalTxId).build(), getRef());
+        saga.tell(TxStartedEvent.builder().serviceName("service_c1").instanceId("instance_c1").globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId_1).reverseRetries(3).retryDelayInMilliseconds(10).build(), getRef());
+        saga.tell(TxEndedEvent.builder().serviceName("service_c1").instanceId("instance_c1").globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId_1).build(), getRef());
+        saga.tell(TxStartedEvent.builder().serviceName("service_c2").instanceId("instance_c2").globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId_2).build(), getRef());
+        saga.tell(TxAbortedEvent.builder().serviceName("service_c2").instanceId("instance_c2").globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId_2).build(), getRef());
+
+        await().atMost(5, SECONDS).until(() -> compensated.size() == 2);
+        assertThat(compensated, contains(localTxId_1, localTxId_1));
+
+        saga.tell(TxCompensateAckSucceedEvent.builder().serviceName("service_c1").instanceId("instance_c1").globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId_1).build(), getRef());
+        saga.tell(SagaAbortedEvent.builder().serviceName("service_g").instanceId("instance_g").globalTxId(globalTxId).build(), getRef());
+        Terminated terminated = expectMsgClass(Terminated.class);
+        assertEquals(terminated.getActor(), saga);
+
+        SagaData sagaData = SAGA_DATA_EXTENSION_PROVIDER.get(system).getLastSagaData();
+        assertEquals(sagaData.getTxEntities().get(localTxId_1).getState(), TxState.COMPENSATED_SUCCEED);
+        assertEquals(sagaData.getTxEntities().get(localTxId_1).getRetriesCounter().get(), 1);
+      }};
+    } finally {
+      SPRING_EXTENSION_PROVIDER.get(system).initialize(null);
+    }
+  }
+
+  private static void omegaCallbackOf(Function<TxEvent, CompletableFuture<Void>> compensate) {
+    OmegaCallback omegaCallback = mock(OmegaCallback.class);
+    when(omegaCallback.compensateAsync(any(TxEvent.class)))
+        .thenAnswer(invocation -> compensate.apply(invocation.getArgument(0)));
+    ApplicationContext applicationContext = mock(ApplicationContext.class);
+    when(applicationContext.containsBean("omegaCallback")).thenReturn(true);
+    when(applicationContext.getBean("omegaCallback", OmegaCallback.class)).thenReturn(omegaCallback);
+    SPRING_EXTENSION_PROVIDER.get(system).initialize(applicationContext);
+  }
+
   private static void assertSagaTransition(PersistentFSM.Transition transition, ActorRef actorRef,
       SagaActorState from, SagaActorState to) {
     assertEquals(transition.fsmRef(), actorRef);
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.channel.memory;
+
+import static org.junit.Assert.assertEquals;
+
+import akka.actor.ActorSystem;
+import akka.testkit.javadsl.TestKit;
+import java.util.Arrays;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class MemoryActorEventChannelTest {
+
+  private static ActorSystem system;
+
+  @BeforeClass
+  public static void setup() {
+    system = ActorSystem.create("MemoryActorEventChannelTest");
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    TestKit.shutdownActorSystem(system);
+    system = null;
+  }
+
+  @Test
+  public void roundUpRingBufferSize() {
+    assertEquals(MemoryActorEventChannel.DEFAULT_SIZE, MemoryActorEventChannel.ringBufferSizeOf(-1));
+    assertEquals(1024, MemoryActorEventChannel.ringBufferSizeOf(1024));
+    assertEquals(2048, MemoryActorEventChannel.ringBufferSizeOf(1025));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectUnknownWaitStrategy() {
+    MemoryActorEventChannel.waitStrategyOf("sleep");
+  }
+
+  @Test
+  public void deliverEventsInOrderWithEveryWaitStrategy() throws InterruptedException {
+    for (String waitStrategy : Arrays.asList("blocking", "parking", "yielding", "busy-spin")) {
+      TestKit region = new TestKit(system);
+      MemoryActorEventChannel channel = new MemoryActorEventChannel(new MetricsService(), 16,
+          waitStrategy);
+      new MemorySagaEventConsumer(system, region.getRef(), new MetricsService(), channel);
+      try {
+        for (int i = 0; i < 100; i++) {
+          channel.send(SagaStartedEvent.builder().globalTxId(String.valueOf(i)).build());
+          if (i % 10 == 0) {
+            // leave the consumer idle now and then, so it waits with the strategy
+            Thread.sleep(1);
+          }
+        }
+        // the events of the single producer arrive in order
+        for (int i = 0; i < 100; i++) {
+          assertEquals(waitStrategy, String.valueOf(i),
+              region.expectMsgClass(SagaStartedEvent.class).getGlobalTxId());
+        }
+      } finally {
+        channel.shutdown();
+      }
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.channel.serializer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.fail;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventSerializer;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaTimeoutEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckFailedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckSucceedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensatedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.fsm.channel.redis.MessageSerializer;
+import org.junit.Test;
+
+public class CompatibleActorEventSerializerTest {
+
+  private final String globalTxId = UUID.randomUUID().toString();
+  private final String localTxId = UUID.randomUUID().toString();
+  private final byte[] payloads = "payloads".getBytes();
+
+  private final ActorEventSerializer kryo = new CompatibleActorEventSerializer("kryo");
+  private final ActorEventSerializer json = new CompatibleActorEventSerializer("json");
+
+  @Test
+  public void roundTripAllEventTypes() {
+    for (BaseEvent event : events()) {
+      for (ActorEventSerializer serializer : Arrays.asList(kryo, json)) {
+        BaseEvent decoded = serializer.deserialize(serializer.serialize(event));
+        assertThat(decoded.getClass().getName(), is(event.getClass().getName()));
+        assertThat(decoded.toMap(), is(event.toMap()));
+      }
+    }
+  }
+
+  @Test
+  public void readRecordsOfEitherFormat() {
+    for (BaseEvent event : events()) {
+      assertThat(kryo.deserialize(json.serialize(event)).toMap(), is(event.toMap()));
+      assertThat(json.deserialize(kryo.serialize(event)).toMap(), is(event.toMap()));
+    }
+  }
+
+  @Test
+  public void encodeEventsSmallerThanJson() {
+    for (BaseEvent event : events()) {
+      byte[] bytes = kryo.serialize(event);
+      assertThat(bytes[0], is(KryoActorEventSerializer.FORMAT));
+      assertThat(bytes.length, lessThan(json.serialize(event).length));
+    }
+  }
+
+  @Test
+  public void readRecordsOfFieldSerializerFormat() {
+    Kryo fieldSerializer = new Kryo();
+    fieldSerializer.setRegistrationRequired(true);
+    fieldSerializer.setReferences(false);
+    fieldSerializer.register(Date.class);
+    fieldSerializer.register(byte[].class);
+    KryoActorEventSerializer.EVENT_TYPES.forEach(fieldSerializer::register);
+    for (BaseEvent event : events()) {
+      Output output = new Output(256, -1);
+      output.writeByte(KryoActorEventSerializer.FIELD_SERIALIZER_FORMAT);
+      output.writeByte(KryoActorEventSerializer.EVENT_TYPES.indexOf(event.getClass()));
+      fieldSerializer.writeObject(output, event);
+      assertThat(kryo.deserialize(output.toBytes()).toMap(), is(event.toMap()));
+    }
+  }
+
+  @Test
+  public void rejectUnknownFormat() {
+    try {
+      kryo.deserialize(new byte[] {(byte) 0x7f, 0});
+      fail("IllegalArgumentException expected");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage(), is("Unknown event format 127"));
+    }
+  }
+
+  @Test
+  public void readJavaSerializedRedisMessages() throws IOException {
+    MessageSerializer messageSerializer = new MessageSerializer(kryo);
+    for (BaseEvent event : events()) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream outputStream = new ObjectOutputStream(bytes)) {
+        outputStream.writeObject(event);
+      }
+      BaseEvent legacy = (BaseEvent) messageSerializer.deserialize(bytes.toByteArray()).get();
+      assertThat(legacy.toMap(), is(event.toMap()));
+      BaseEvent current = (BaseEvent) messageSerializer
+          .deserialize(messageSerializer.serializer(event).get()).get();
+      assertThat(current.toMap(), is(event.toMap()));
+    }
+  }
+
+  private List<BaseEvent> events() {
+    return Arrays.asList(
+        SagaStartedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).timeout(30).build(),
+        SagaEndedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).build(),
+        SagaAbortedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).payloads(payloads).build(),
+        SagaTimeoutEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).build(),
+        TxStartedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId)
+            .compensationMethod("cancel").payloads(payloads).retryMethod("retry")
+            .forwardRetries(1).forwardTimeout(2).reverseRetries(3).reverseTimeout(4)
+            .retryDelayInMilliseconds(5).build(),
+        TxEndedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId).build(),
+        TxAbortedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId)
+            .payloads(payloads).build(),
+        TxCompensatedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId).build(),
+        TxCompensateAckSucceedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId).build(),
+        TxCompensateAckFailedEvent.builder().serviceName("service-a").instanceId("instance-a")
+            .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId)
+            .payloads(payloads).build());
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.domain;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.apache.servicecomb.pack.alpha.core.fsm.SuspendedType;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.CompensateAckTimeoutEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.ComponsitedCheckEvent;
+import org.apache.servicecomb.pack.alpha.fsm.SagaActorState;
+import org.junit.Test;
+
+public class DomainEventSerializerTest {
+
+  private final DomainEventSerializer serializer = new DomainEventSerializer();
+  private final String globalTxId = UUID.randomUUID().toString();
+  private final byte[] payloads = "payloads".getBytes();
+
+  @Test
+  public void roundTripJournal() throws NotSerializableException {
+    List<DomainEvent> journal = journal(globalTxId, 3);
+    for (DomainEvent domainEvent : journal) {
+      DomainEvent decoded = roundTrip(domainEvent);
+      assertThat(decoded.getClass().getName(), is(domainEvent.getClass().getName()));
+      if (domainEvent.getEvent() == null) {
+        assertThat(decoded.getEvent(), is(nullValue()));
+      } else {
+        assertThat(decoded.getEvent().getClass().getName(),
+            is(domainEvent.getEvent().getClass().getName()));
+        assertThat(decoded.getEvent().toMap(), is(domainEvent.getEvent().toMap()));
+      }
+    }
+  }
+
+  @Test
+  public void roundTripDomainFields() throws NotSerializableException {
+    SagaStartedDomain sagaStarted = (SagaStartedDomain) journal(globalTxId, 1).get(0);
+    assertThat(((SagaStartedDomain) roundTrip(sagaStarted)).getExpirationTime(),
+        is(sagaStarted.getExpirationTime()));
+
+    AddTxEventDomain addTx = new AddTxEventDomain(txStartedEvent(globalTxId, "local-1"));
+    addTx.setReverseRetries(5);
+    AddTxEventDomain decodedAddTx = (AddTxEventDomain) roundTrip(addTx);
+    assertThat(decodedAddTx.getState(), is(TxState.ACTIVE));
+    assertThat(decodedAddTx.getCompensationMethod(), is("cancel"));
+    assertArrayEquals(payloads, decodedAddTx.getPayloads());
+    assertThat(decodedAddTx.getReverseRetries(), is(5));
+    assertThat(decodedAddTx.getReverseTimeout(), is(4));
+    assertThat(decodedAddTx.getRetryDelayInMilliseconds(), is(5));
+
+    UpdateTxEventDomain updateTx = new UpdateTxEventDomain(ComponsitedCheckEvent.builder()
+        .globalTxId(globalTxId).parentTxId(globalTxId).localTxId("local-1")
+        .preState(TxState.COMPENSATED_FAILED).build());
+    UpdateTxEventDomain decodedUpdateTx = (UpdateTxEventDomain) roundTrip(updateTx);
+    assertThat(decodedUpdateTx.getLocalTxId(), is("local-1"));
+    assertThat(decodedUpdateTx.getState(), is(TxState.COMPENSATED_FAILED));
+    assertThat(decodedUpdateTx.getThrowablePayLoads(), is(nullValue()));
+
+    UpdateTxEventDomain aborted = new UpdateTxEventDomain(TxAbortedEvent.builder()
+        .globalTxId(globalTxId).parentTxId(globalTxId).localTxId("local-1")
+        .payloads(payloads).build());
+    assertArrayEquals(payloads,
+        ((UpdateTxEventDomain) roundTrip(aborted)).getThrowablePayLoads());
+
+    SagaEndedDomain sagaEnded = new SagaEndedDomain(null, SagaActorState.SUSPENDED,
+        SuspendedType.TIMEOUT);
+    SagaEndedDomain decodedSagaEnded = (SagaEndedDomain) roundTrip(sagaEnded);
+    assertThat(decodedSagaEnded.getState(), is(SagaActorState.SUSPENDED));
+    assertThat(decodedSagaEnded.getSuspendedType(), is(SuspendedType.TIMEOUT));
+  }
+
+  @Test
+  public void writeSharedPayloadsOnce() {
+    byte[] large = new byte[4096];
+    AddTxEventDomain addTx = new AddTxEventDomain(TxStartedEvent.builder()
+        .globalTxId(globalTxId).parentTxId(globalTxId).localTxId("local-1")
+        .payloads(large).build());
+    assertThat(serializer.toBinary(addTx).length, lessThan(large.length + 256));
+  }
+
+  @Test
+  public void rejectNewerVersion() {
+    byte[] bytes = serializer.toBinary(journal(globalTxId, 1).get(0));
+    bytes[0] = (byte) (DomainEventSerializer.VERSION + 1);
+    try {
+      serializer.fromBinary(bytes, serializer.manifest(journal(globalTxId, 1).get(0)));
+      fail("NotSerializableException expected");
+    } catch (NotSerializableException e) {
+      assertThat(e.getMessage(), is("Unsupported domain event version 2"));
+    }
+  }
+
+  @Test
+  public void writeJournalSmallerThanJavaSerialization() throws IOException {
+    // a saga with 3 sub transactions takes about 1.4 KB instead of 7.9 KB
+    long bytes = 0;
+    long javaBytes = 0;
+    for (DomainEvent domainEvent : journal(globalTxId, 3)) {
+      bytes += serializer.toBinary(domainEvent).length;
+      javaBytes += javaSerialize(domainEvent).length;
+    }
+    assertThat(bytes * 4, lessThan(javaBytes));
+  }
+
+  private DomainEvent roundTrip(DomainEvent domainEvent) throws NotSerializableException {
+    return (DomainEvent) serializer.fromBinary(serializer.toBinary(domainEvent),
+        serializer.manifest(domainEvent));
+  }
+
+  // the journal of a saga with a failed sub transaction and a compensation ack timeout
+  private List<DomainEvent> journal(String globalTxId, int subTransactions) {
+    List<DomainEvent> journal = new ArrayList<>();
+    journal.add(new SagaStartedDomain(SagaStartedEvent.builder().serviceName("service-a")
+        .instanceId("instance-a").globalTxId(globalTxId).timeout(30).build()));
+    for (int i = 0; i < subTransactions; i++) {
+      String localTxId = globalTxId + "-" + i;
+      journal.add(new AddTxEventDomain(txStartedEvent(globalTxId, localTxId)));
+      if (i < subTransactions - 1) {
+        journal.add(new UpdateTxEventDomain(TxEndedEvent.builder().serviceName("service-b")
+            .instanceId("instance-b").globalTxId(globalTxId).parentTxId(globalTxId)
+            .localTxId(localTxId).build()));
+      } else {
+        journal.add(new UpdateTxEventDomain(TxAbortedEvent.builder().serviceName("service-b")
+            .instanceId("instance-b").globalTxId(globalTxId).parentTxId(globalTxId)
+            .localTxId(localTxId).payloads("java.lang.NullPointerException".getBytes())
+            .build()));
+      }
+    }
+    journal.add(new UpdateTxEventDomain(CompensateAckTimeoutEvent.builder()
+        .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(globalTxId + "-0")
+        .payloads("compensate ack timeout".getBytes()).build()));
+    journal.add(new SagaEndedDomain(SagaEndedEvent.builder().serviceName("service-a")
+        .instanceId("instance-a").globalTxId(globalTxId).build(), SagaActorState.FAILED));
+    journal.add(new SagaEndedDomain(null, SagaActorState.SUSPENDED, SuspendedType.TIMEOUT));
+    return journal;
+  }
+
+  private TxStartedEvent txStartedEvent(String globalTxId, String localTxId) {
+    return TxStartedEvent.builder().serviceName("service-b").instanceId("instance-b")
+        .globalTxId(globalTxId).parentTxId(globalTxId).localTxId(localTxId)
+        .compensationMethod("cancel").payloads(payloads).retryMethod("retry")
+        .forwardRetries(1).forwardTimeout(2).reverseRetries(3).reverseTimeout(4)
+        .retryDelayInMilliseconds(5).build();
+  }
+
+  private static byte[] javaSerialize(DomainEvent domainEvent) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream stream = new ObjectOutputStream(bytes)) {
+      stream.writeObject(domainEvent);
+    }
+    return bytes.toByteArray();
+  }
+}
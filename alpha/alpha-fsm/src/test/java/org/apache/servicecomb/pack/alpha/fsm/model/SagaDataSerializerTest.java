@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.apache.servicecomb.pack.alpha.core.fsm.SuspendedType;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.CompensateAckTimeoutEvent;
+import org.apache.servicecomb.pack.alpha.fsm.SagaActorState;
+import org.apache.servicecomb.pack.alpha.fsm.model.SagaEvents.PayloadPolicy;
+import org.junit.Test;
+
+public class SagaDataSerializerTest {
+
+  private final SagaDataSerializer serializer = new SagaDataSerializer();
+  private final String globalTxId = UUID.randomUUID().toString();
+
+  @Test
+  public void sagaDataTest() {
+    SagaData data = sagaData(PayloadPolicy.INLINE, 0);
+    SagaData copy = (SagaData) serializer.fromBinary(serializer.toBinary(data));
+
+    assertEquals(data.getServiceName(), copy.getServiceName());
+    assertEquals(data.getInstanceId(), copy.getInstanceId());
+    assertEquals(data.getGlobalTxId(), copy.getGlobalTxId());
+    assertEquals(data.getBeginTime(), copy.getBeginTime());
+    assertEquals(data.getEndTime(), copy.getEndTime());
+    assertEquals(data.getExpirationTime(), copy.getExpirationTime());
+    assertEquals(data.getSuspendedType(), copy.getSuspendedType());
+    assertEquals(data.getLastState(), copy.getLastState());
+    assertEquals(1, copy.getCompensationRunningCounter().get());
+
+    assertEquals(2, copy.getTxEntities().size());
+    TxEntity txEntity = copy.getTxEntities().get("local-2");
+    assertEquals(TxState.COMPENSATED_FAILED, txEntity.getState());
+    assertEquals("compensate", txEntity.getCompensationMethod());
+    assertArrayEquals("payloads".getBytes(), txEntity.getPayloads());
+    assertEquals(3, txEntity.getReverseRetries());
+    assertEquals(1, txEntity.getRetriesCounter().get());
+    // the state counters are rebuilt
+    assertEquals(1, copy.getTxEntities().count(TxState.COMMITTED));
+    assertTrue(copy.getTxEntities().hasCompensationFailedTx());
+
+    assertEvents(data.getEvents(), copy.getEvents());
+  }
+
+  @Test
+  public void eventPayloadPoliciesTest() {
+    for (PayloadPolicy payloadPolicy : PayloadPolicy.values()) {
+      SagaData data = sagaData(payloadPolicy, 4);
+      SagaData copy = serializer.copyOf(data);
+      assertEvents(data.getEvents(), copy.getEvents());
+      assertEquals(data.getDroppedEvents(), copy.getDroppedEvents());
+      // the events logged after the snapshot follow the restored ones
+      TxAbortedEvent event = abortedEvent("local-3");
+      data.logEvent(event);
+      copy.logEvent(event);
+      assertEvents(data.getEvents(), copy.getEvents());
+    }
+  }
+
+  private void assertEvents(List<BaseEvent> expected, List<BaseEvent> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).getClass(), actual.get(i).getClass());
+      assertEquals(expected.get(i).toMap(), actual.get(i).toMap());
+    }
+  }
+
+  private SagaData sagaData(PayloadPolicy payloadPolicy, int maxEvents) {
+    Date now = new Date();
+    SagaData data = SagaData.builder()
+        .serviceName("service_g")
+        .instanceId("instance_g")
+        .globalTxId(globalTxId)
+        .beginTime(now)
+        .expirationTime(new Date(now.getTime() + 10000))
+        .timeout(10)
+        .suspendedType(SuspendedType.NONE)
+        .events(payloadPolicy, maxEvents)
+        .build();
+    data.setLastState(SagaActorState.FAILED);
+    data.getCompensationRunningCounter().incrementAndGet();
+
+    data.getTxEntities().put("local-1", TxEntity.builder()
+        .serviceName("service_c1")
+        .instanceId("instance_c1")
+        .globalTxId(globalTxId)
+        .parentTxId(globalTxId)
+        .localTxId("local-1")
+        .state(TxState.COMMITTED)
+        .build());
+    TxEntity failed = TxEntity.builder()
+        .serviceName("service_c2")
+        .instanceId("instance_c2")
+        .globalTxId(globalTxId)
+        .parentTxId(globalTxId)
+        .localTxId("local-2")
+        .compensationMethod("compensate")
+        .payloads("payloads".getBytes())
+        .throwablePayLoads("java.lang.NullPointerException".getBytes())
+        .reverseRetries(3)
+        .state(TxState.COMPENSATED_FAILED)
+        .build();
+    failed.getRetriesCounter().incrementAndGet();
+    data.getTxEntities().put("local-2", failed);
+
+    data.logEvent(SagaStartedEvent.builder().serviceName("service_g").instanceId("instance_g")
+        .globalTxId(globalTxId).timeout(10).build());
+    data.logEvent(TxStartedEvent.builder().serviceName("service_c1").instanceId("instance_c1")
+        .globalTxId(globalTxId).parentTxId(globalTxId).localTxId("local-1")
+        .compensationMethod("compensate").payloads("payloads".getBytes()).build());
+    data.logEvent(abortedEvent("local-2"));
+    data.logEvent(abortedEvent("local-2"));
+    data.logEvent(CompensateAckTimeoutEvent.builder().globalTxId(globalTxId)
+        .parentTxId(globalTxId).localTxId("local-2").build());
+    return data;
+  }
+
+  private TxAbortedEvent abortedEvent(String localTxId) {
+    return TxAbortedEvent.builder()
+        .serviceName("service_c2")
+        .instanceId("instance_c2")
+        .globalTxId(globalTxId)
+        .parentTxId(globalTxId)
+        .localTxId(localTxId)
+        .payloads("java.lang.NullPointerException".getBytes())
+        .build();
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.fsm.model.SagaEvents.PayloadPolicy;
+import org.junit.Test;
+
+public class SagaEventsTest {
+
+  private final String globalTxId = UUID.randomUUID().toString();
+
+  @Test
+  public void inlineKeepsEventsTest() {
+    SagaEvents sagaEvents = new SagaEvents();
+    List<BaseEvent> events = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      BaseEvent event = abortedEvent(i, "payloads".getBytes());
+      events.add(event);
+      sagaEvents.add(event);
+    }
+    List<BaseEvent> logged = sagaEvents.toList();
+    assertEquals(events.size(), logged.size());
+    for (int i = 0; i < events.size(); i++) {
+      assertSame(events.get(i), logged.get(i));
+    }
+    assertEquals(0, sagaEvents.getDropped());
+  }
+
+  @Test
+  public void maxSizeKeepsFirstAndNewestEventsTest() {
+    SagaEvents sagaEvents = new SagaEvents(PayloadPolicy.INLINE, 6);
+    for (int i = 0; i < 20; i++) {
+      sagaEvents.add(abortedEvent(i, null));
+    }
+    List<String> localTxIds = new ArrayList<>();
+    sagaEvents.toList().forEach(event -> localTxIds.add(event.getLocalTxId()));
+    // the first 3 events and the newest 3 events
+    assertEquals(6, localTxIds.size());
+    assertEquals("0", localTxIds.get(0));
+    assertEquals("1", localTxIds.get(1));
+    assertEquals("2", localTxIds.get(2));
+    assertEquals("17", localTxIds.get(3));
+    assertEquals("18", localTxIds.get(4));
+    assertEquals("19", localTxIds.get(5));
+    assertEquals(14, sagaEvents.getDropped());
+  }
+
+  @Test
+  public void noneDropsPayloadsTest() {
+    SagaEvents sagaEvents = new SagaEvents(PayloadPolicy.NONE, 0);
+    sagaEvents.add(abortedEvent(0, "java.lang.NullPointerException".getBytes()));
+    BaseEvent event = sagaEvents.toList().get(0);
+    assertEquals("TxAbortedEvent", event.getType());
+    assertEquals(globalTxId, event.getGlobalTxId());
+    Map<String, Object> map = event.toMap();
+    assertFalse(map.containsKey("payloads"));
+    assertEquals("java.lang.NullPointerException".length(), map.get("payloadsLength"));
+    assertEquals("TxAbortedEvent", map.get("type"));
+  }
+
+  private BaseEvent abortedEvent(int i, byte[] payloads) {
+    return TxAbortedEvent.builder()
+        .serviceName("service_c1")
+        .instanceId("instance_c1")
+        .globalTxId(globalTxId)
+        .parentTxId(globalTxId)
+        .localTxId(String.valueOf(i))
+        .payloads(payloads)
+        .build();
+  }
+}
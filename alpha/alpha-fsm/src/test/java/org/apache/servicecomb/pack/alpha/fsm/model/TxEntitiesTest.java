@@ -17,6 +17,8 @@
 
 package org.apache.servicecomb.pack.alpha.fsm.model;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import com.google.common.collect.Iterables;
@@ -26,6 +28,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.UUID;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
 import org.junit.Test;
 
 public class TxEntitiesTest {
@@ -50,4 +53,72 @@ public class TxEntitiesTest {
     });
     assertTrue(Iterables.elementsEqual(entities, reverseEntities));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testStateCounters() {
+    TxEntities txEntities = new TxEntities();
+    TxEntity t1 = TxEntity.builder().state(TxState.ACTIVE).build();
+    TxEntity t2 = TxEntity.builder().state(TxState.ACTIVE).build();
+    txEntities.put("t1", t1);
+    txEntities.put("t2", t2);
+    assertEquals(2, txEntities.count(TxState.ACTIVE));
+    assertFalse(txEntities.hasCommittedTx());
+
+    t1.setState(TxState.COMMITTED);
+    t2.setState(TxState.COMMITTED);
+    assertEquals(0, txEntities.count(TxState.ACTIVE));
+    assertTrue(txEntities.hasCommittedTx());
+
+    t2.setState(TxState.COMPENSATION_SENT);
+    assertTrue(txEntities.hasCompensationSentTx());
+    t2.setState(TxState.COMPENSATED_FAILED);
+    assertFalse(txEntities.hasCompensationSentTx());
+    // no retries left
+    assertFalse(txEntities.hasCompensationFailedTx());
+    t2.setReverseRetries(3);
+    assertTrue(txEntities.hasCompensationFailedTx());
+
+    // a replaced entity keeps its position and is no longer counted
+    TxEntity t3 = TxEntity.builder().state(TxState.ACTIVE).build();
+    txEntities.put("t2", t3);
+    t2.setState(TxState.COMMITTED);
+    assertEquals(1, txEntities.count(TxState.COMMITTED));
+    assertEquals(1, txEntities.count(TxState.ACTIVE));
+    assertEquals(0, txEntities.count(TxState.COMPENSATED_FAILED));
+    assertEquals(2, txEntities.size());
+    List<TxEntity> reverseEntities = new ArrayList<>();
+    txEntities.forEachReverse((k, v) -> reverseEntities.add(v));
+    assertTrue(Iterables.elementsEqual(Lists.newArrayList(t3, t1), reverseEntities));
+  }
+
+  /**
+   * Compensates a saga the way the actor does: each ack checks the states and walks the entities
+   * in reverse order for the next compensation.
+   */
+  @Test
+  public void testCompensationCounters() {
+    int subTransactions = 100;
+    TxEntities txEntities = new TxEntities();
+    for (int i = 0; i < subTransactions; i++) {
+      txEntities.put(String.valueOf(i), TxEntity.builder().state(TxState.COMMITTED).build());
+    }
+    assertEquals(subTransactions, txEntities.count(TxState.COMMITTED));
+    List<String> compensated = new ArrayList<>();
+    txEntities.forEachReverse((k, v) -> {
+      compensated.add(k);
+      v.setState(TxState.COMPENSATION_SENT);
+    });
+    for (int i = 0; i < subTransactions; i++) {
+      assertEquals(String.valueOf(subTransactions - 1 - i), compensated.get(i));
+    }
+    assertFalse(txEntities.hasCommittedTx());
+    for (int i = subTransactions - 1; i >= 0; i--) {
+      assertTrue(txEntities.hasCompensationSentTx());
+      txEntities.get(String.valueOf(i)).setState(TxState.COMPENSATED_SUCCEED);
+      assertEquals(i, txEntities.count(TxState.COMPENSATION_SENT));
+      assertEquals(subTransactions - i, txEntities.count(TxState.COMPENSATED_SUCCEED));
+      assertFalse(txEntities.hasCompensationFailedTx());
+    }
+    assertFalse(txEntities.hasCompensationSentTx());
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.repository;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.servicecomb.pack.alpha.fsm.repository.GlobalTransactionMaker.someTransaction;
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
+import org.apache.servicecomb.pack.alpha.fsm.repository.channel.AsyncTransactionRepositoryChannel;
+import org.apache.servicecomb.pack.alpha.fsm.repository.channel.AsyncTransactionRepositoryChannel.OverflowPolicy;
+import org.apache.servicecomb.pack.alpha.fsm.repository.channel.SpillLog;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AsyncTransactionRepositoryChannelTest {
+
+  @Mock
+  TransactionRepository repository;
+  MetricsService metricsService;
+  Set<String> stored = ConcurrentHashMap.newKeySet();
+  CountDownLatch release = new CountDownLatch(1);
+
+  @Before
+  public void before() throws Exception {
+    metricsService = new MetricsService();
+    // the repository is slow until it is released
+    doAnswer(invocation -> {
+      release.await();
+      List<GlobalTransaction> transactions = invocation.getArgument(0);
+      transactions.forEach(transaction -> stored.add(transaction.getGlobalTxId()));
+      return null;
+    }).when(repository).send(anyList());
+  }
+
+  @Test
+  public void sendWithoutWaitingForTheRepositoryTest() throws Exception {
+    AsyncTransactionRepositoryChannel channel = new AsyncTransactionRepositoryChannel(repository,
+        metricsService, 100, 2, 10, OverflowPolicy.BLOCK, null, 0);
+    int size = 50;
+    long begin = System.currentTimeMillis();
+    for (int i = 0; i < size; i++) {
+      channel.send(someTransaction());
+    }
+    // nothing is stored yet, but the senders did not wait
+    assertTrue(System.currentTimeMillis() - begin < 1000);
+    assertEquals(0, stored.size());
+    Thread.sleep(100);
+    release.countDown();
+    await().atMost(10, SECONDS).until(() -> stored.size() == size);
+    await().atMost(10, SECONDS).until(
+        () -> metricsService.metrics().getRepositoryChannelBacklog() == 0);
+    assertTrue(metricsService.metrics().getRepositoryChannelLatency() >= 100);
+    channel.close();
+  }
+
+  @Test
+  public void dropOldestTest() throws Exception {
+    AsyncTransactionRepositoryChannel channel = new AsyncTransactionRepositoryChannel(repository,
+        metricsService, 5, 1, 1, OverflowPolicy.DROP_OLDEST, null, 0);
+    List<String> globalTxIds = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      GlobalTransaction transaction = someTransaction();
+      globalTxIds.add(transaction.getGlobalTxId());
+      channel.send(transaction);
+    }
+    release.countDown();
+    channel.close();
+    // the worker holds one transaction, the queue keeps the newest five
+    assertTrue(metricsService.metrics().getRepositoryChannelDropped() >= 14);
+    assertEquals(20 - metricsService.metrics().getRepositoryChannelDropped(), stored.size());
+    assertTrue(stored.containsAll(globalTxIds.subList(15, 20)));
+  }
+
+  @Test
+  public void spillTest() throws Exception {
+    SpillLog spillLog = new SpillLog(Files.createTempDirectory("spill"), 64 * 1024, 1024 * 1024);
+    AsyncTransactionRepositoryChannel channel = new AsyncTransactionRepositoryChannel(repository,
+        metricsService, 5, 1, 10, OverflowPolicy.SPILL, spillLog, 100);
+    int size = 50;
+    for (int i = 0; i < size; i++) {
+      channel.send(someTransaction());
+    }
+    assertTrue(metricsService.metrics().getRepositoryChannelSpilled() >= size - 10);
+    release.countDown();
+    // the spilled transactions are replayed once the queue is idle
+    await().atMost(10, SECONDS).until(() -> stored.size() == size);
+    assertTrue(spillLog.isEmpty());
+    channel.close();
+  }
+}
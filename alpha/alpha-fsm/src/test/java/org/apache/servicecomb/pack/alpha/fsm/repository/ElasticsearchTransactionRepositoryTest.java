@@ -18,8 +18,16 @@
 package org.apache.servicecomb.pack.alpha.fsm.repository;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.servicecomb.pack.alpha.fsm.repository.GlobalTransactionMaker.transactionOf;
 import static org.awaitility.Awaitility.await;
 import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.util.ArrayList;
 import java.util.Date;
@@ -28,7 +36,9 @@ import org.apache.servicecomb.pack.alpha.fsm.SagaActorState;
 import org.apache.servicecomb.pack.alpha.core.fsm.TransactionType;
 import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
 import org.apache.servicecomb.pack.alpha.fsm.repository.elasticsearch.ElasticsearchTransactionRepository;
+import org.apache.servicecomb.pack.alpha.fsm.repository.elasticsearch.IndexRolling;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.elasticsearch.client.transport.NoNodeAvailableException;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -136,4 +146,49 @@ public class ElasticsearchTransactionRepositoryTest {
     assertEquals(metricsService.metrics().getRepositoryAccepted(), size);
 
   }
+
+  @Test
+  public void flushByBytesWithoutRefreshTest() throws Exception {
+    int size = 15;
+    // a single document exceeds the batch bytes, every document is flushed alone
+    TransactionRepository repository = new ElasticsearchTransactionRepository(template,
+        metricsService, 100, 0, 1, 2, 5, IndexRolling.NONE, 0);
+    for (int i = 0; i < size; i++) {
+      repository.send(transactionOf(UUID.randomUUID().toString()));
+    }
+    await().atMost(10, SECONDS).until(
+        () -> metricsService.metrics().getRepositoryAccepted() == size);
+    assertEquals(0, metricsService.metrics().getRepositoryBacklog());
+    verify(template, times(size)).bulkIndex(anyList());
+    verify(template, never()).refresh(anyString());
+  }
+
+  @Test
+  public void retryBulkWhileUnavailableTest() throws Exception {
+    int size = 5;
+    doThrow(new NoNodeAvailableException("None of the configured nodes are available"))
+        .doNothing().when(template).bulkIndex(anyList());
+    TransactionRepository repository = new ElasticsearchTransactionRepository(template,
+        metricsService, 10, 100);
+    for (int i = 0; i < size; i++) {
+      repository.send(transactionOf(UUID.randomUUID().toString()));
+    }
+    await().atMost(10, SECONDS).until(
+        () -> metricsService.metrics().getRepositoryAccepted() == size);
+    assertEquals(0, metricsService.metrics().getRepositoryRejected());
+    verify(template, times(2)).bulkIndex(anyList());
+  }
+
+  @Test
+  public void closeFlushesBacklogTest() throws Exception {
+    int size = 15;
+    ElasticsearchTransactionRepository repository = new ElasticsearchTransactionRepository(
+        template, metricsService, 100, 60000);
+    for (int i = 0; i < size; i++) {
+      repository.send(transactionOf(UUID.randomUUID().toString()));
+    }
+    repository.close();
+    assertEquals(size, metricsService.metrics().getRepositoryAccepted());
+    assertEquals(0, metricsService.metrics().getRepositoryBacklog());
+  }
 }
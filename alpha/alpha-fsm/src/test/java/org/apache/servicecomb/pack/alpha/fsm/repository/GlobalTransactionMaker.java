@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.UUID;
+import org.apache.servicecomb.pack.alpha.core.fsm.TransactionType;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.SagaSubTransaction;
+import org.apache.servicecomb.pack.alpha.fsm.SagaActorState;
+
+class GlobalTransactionMaker {
+
+  static GlobalTransaction someTransaction() {
+    return transactionOf(UUID.randomUUID().toString());
+  }
+
+  static GlobalTransaction transactionOf(String globalTxId) {
+    return GlobalTransaction.builder()
+        .type(TransactionType.SAGA)
+        .serviceName("serviceName")
+        .instanceId("instanceId")
+        .globalTxId(globalTxId)
+        .beginTime(new Date())
+        .endTime(new Date())
+        .state(SagaActorState.COMMITTED.name())
+        .subTxSize(0)
+        .subTransactions(new ArrayList<>())
+        .events(new ArrayList<>())
+        .build();
+  }
+
+  // a saga with one committed sub transaction, its duration is derived from the globalTxId
+  static GlobalTransaction transactionOf(String globalTxId, SagaActorState state,
+      Date beginTime) {
+    Date endTime = new Date(beginTime.getTime() + (Math.abs(globalTxId.hashCode()) % 1000));
+    SagaSubTransaction subTransaction = SagaSubTransaction.builder()
+        .parentTxId(globalTxId)
+        .localTxId(UUID.randomUUID().toString())
+        .beginTime(beginTime)
+        .endTime(endTime)
+        .state(TxState.COMMITTED)
+        .build();
+    return GlobalTransaction.builder()
+        .type(TransactionType.SAGA)
+        .serviceName("serviceName")
+        .instanceId("instanceId")
+        .globalTxId(globalTxId)
+        .beginTime(beginTime)
+        .endTime(endTime)
+        .state(state.name())
+        .subTxSize(1)
+        .subTransactions(new ArrayList<>(Arrays.asList(subTransaction)))
+        .events(Arrays.asList(
+            SagaStartedEvent.builder().serviceName("serviceName").instanceId("instanceId")
+                .globalTxId(globalTxId).build(),
+            SagaEndedEvent.builder().serviceName("serviceName").instanceId("instanceId")
+                .globalTxId(globalTxId).build()))
+        .build();
+  }
+}
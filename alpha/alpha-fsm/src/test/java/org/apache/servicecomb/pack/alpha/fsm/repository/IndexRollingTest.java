@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Optional;
+import org.apache.servicecomb.pack.alpha.fsm.repository.elasticsearch.IndexRolling;
+import org.junit.Test;
+
+public class IndexRollingTest {
+
+  private static final String ALIAS = "alpha_global_transaction";
+
+  private final Date time = Date.from(Instant.parse("2020-02-28T23:15:30Z"));
+
+  @Test
+  public void indexOfTime() {
+    assertEquals(ALIAS, IndexRolling.NONE.indexOf(ALIAS, time));
+    assertEquals(ALIAS + "-2020.02.28", IndexRolling.DAILY.indexOf(ALIAS, time));
+    assertEquals(ALIAS + "-2020.02.28.23", IndexRolling.HOURLY.indexOf(ALIAS, time));
+  }
+
+  @Test
+  public void indicesOfTimeRange() {
+    Date end = Date.from(Instant.parse("2020-03-01T01:00:00Z"));
+    assertEquals(Arrays.asList(ALIAS + "-2020.02.28", ALIAS + "-2020.02.29", ALIAS + "-2020.03.01"),
+        IndexRolling.DAILY.indicesOf(ALIAS, time, end));
+    assertEquals(27, IndexRolling.HOURLY.indicesOf(ALIAS, time, end).size());
+    assertEquals(Collections.singletonList(ALIAS), IndexRolling.DAILY.indicesOf(ALIAS, null, end));
+    assertEquals(Collections.singletonList(ALIAS), IndexRolling.NONE.indicesOf(ALIAS, time, end));
+    // an empty range matches no transactions of the alias rather than of all indices
+    assertEquals(Collections.singletonList(ALIAS), IndexRolling.DAILY.indicesOf(ALIAS, end, time));
+    // too many hourly indices are queried through the alias
+    assertEquals(Collections.singletonList(ALIAS), IndexRolling.HOURLY
+        .indicesOf(ALIAS, new Date(0), end));
+  }
+
+  @Test
+  public void timeOfIndex() {
+    assertEquals(Optional.of(Date.from(Instant.parse("2020-02-28T00:00:00Z"))),
+        IndexRolling.DAILY.timeOf(ALIAS, ALIAS + "-2020.02.28"));
+    assertEquals(Optional.of(Date.from(Instant.parse("2020-02-28T23:00:00Z"))),
+        IndexRolling.HOURLY.timeOf(ALIAS, ALIAS + "-2020.02.28.23"));
+    assertFalse(IndexRolling.DAILY.timeOf(ALIAS, ALIAS + "-backup").isPresent());
+    assertFalse(IndexRolling.DAILY.timeOf(ALIAS, "other-2020.02.28").isPresent());
+  }
+}
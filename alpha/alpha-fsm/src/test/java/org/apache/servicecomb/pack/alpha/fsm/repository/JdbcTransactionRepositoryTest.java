@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.repository;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.servicecomb.pack.alpha.fsm.repository.GlobalTransactionMaker.transactionOf;
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.PagingGlobalTransactions;
+import org.apache.servicecomb.pack.alpha.fsm.SagaActorState;
+import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
+import org.apache.servicecomb.pack.alpha.fsm.repository.jdbc.JdbcTransactionRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class JdbcTransactionRepositoryTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(JdbcTransactionRepositoryTest.class);
+
+  EmbeddedDatabase dataSource;
+  MetricsService metricsService;
+
+  @Before
+  public void before() {
+    dataSource = new EmbeddedDatabaseBuilder()
+        .generateUniqueName(true)
+        .setType(EmbeddedDatabaseType.HSQL)
+        .addScript("schema-jdbc-repository.sql")
+        .build();
+    metricsService = new MetricsService();
+  }
+
+  @After
+  public void after() {
+    dataSource.shutdown();
+  }
+
+  @Test
+  public void syncTest() throws Exception {
+    TransactionRepository repository = new JdbcTransactionRepository(dataSource, metricsService,
+        0, 0, 100, false);
+    GlobalTransaction transaction = transactionOf(UUID.randomUUID().toString(),
+        SagaActorState.COMMITTED, new Date());
+    repository.send(transaction);
+    assertEquals(1, metricsService.metrics().getRepositoryAccepted());
+
+    GlobalTransaction stored = repository
+        .getGlobalTransactionByGlobalTxId(transaction.getGlobalTxId());
+    assertEquals(transaction.getGlobalTxId(), stored.getGlobalTxId());
+    assertEquals(transaction.getType(), stored.getType());
+    assertEquals(transaction.getState(), stored.getState());
+    assertEquals(transaction.getBeginTime(), stored.getBeginTime());
+    assertEquals(transaction.getDurationTime(), stored.getDurationTime());
+    assertEquals(1, stored.getSubTransactions().size());
+    assertEquals(transaction.getSubTransactions().get(0).getLocalTxId(),
+        stored.getSubTransactions().get(0).getLocalTxId());
+    assertEquals(TxState.COMMITTED, stored.getSubTransactions().get(0).getState());
+    assertEquals(2, stored.getEvents().size());
+    assertEquals("SagaStartedEvent", stored.getEvents().get(0).get("type"));
+    assertEquals("SagaEndedEvent", stored.getEvents().get(1).get("type"));
+    assertNull(repository.getGlobalTransactionByGlobalTxId(UUID.randomUUID().toString()));
+  }
+
+  @Test
+  public void batchTest() throws Exception {
+    TransactionRepository repository = new JdbcTransactionRepository(dataSource, metricsService,
+        10, 100, 100, false);
+    int size = 25;
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < size; i++) {
+      SagaActorState state = i % 5 == 0 ? SagaActorState.SUSPENDED : SagaActorState.COMMITTED;
+      repository.send(transactionOf(UUID.randomUUID().toString(), state, new Date(now - i * 1000)));
+    }
+    await().atMost(10, SECONDS).until(
+        () -> metricsService.metrics().getRepositoryAccepted() == size);
+    assertEquals(0, metricsService.metrics().getRepositoryBacklog());
+
+    Map<String, Long> statistics = repository.getTransactionStatistics();
+    assertEquals(Long.valueOf(20), statistics.get(SagaActorState.COMMITTED.name()));
+    assertEquals(Long.valueOf(5), statistics.get(SagaActorState.SUSPENDED.name()));
+    statistics = repository.getTransactionStatistics(new Date(now - 9500), new Date(now));
+    assertEquals(Long.valueOf(8), statistics.get(SagaActorState.COMMITTED.name()));
+    assertEquals(Long.valueOf(2), statistics.get(SagaActorState.SUSPENDED.name()));
+
+    PagingGlobalTransactions page = repository.getGlobalTransactions(null, 2, 10);
+    assertEquals(size, page.getTotal());
+    assertEquals(5, page.getGlobalTransactions().size());
+    page = repository.getGlobalTransactions(SagaActorState.SUSPENDED.name(), 0, 10);
+    assertEquals(5, page.getTotal());
+    assertEquals(5, page.getGlobalTransactions().size());
+  }
+
+  @Test
+  public void cursorTest() throws Exception {
+    TransactionRepository repository = new JdbcTransactionRepository(dataSource, metricsService,
+        0, 0, 100, false);
+    int size = 23;
+    // the same begin time on every transaction, the pages are ordered by the globalTxId
+    Date beginTime = new Date();
+    for (int i = 0; i < size; i++) {
+      repository.send(transactionOf(UUID.randomUUID().toString(), SagaActorState.COMMITTED,
+          beginTime));
+    }
+    List<String> globalTxIds = new ArrayList<>();
+    String cursor = null;
+    do {
+      PagingGlobalTransactions page = repository.getGlobalTransactionsAfter(null, cursor, 5, false);
+      page.getGlobalTransactions().forEach(t -> globalTxIds.add(t.getGlobalTxId()));
+      cursor = page.getCursor();
+    } while (cursor != null);
+    assertEquals(size, globalTxIds.size());
+    Set<String> distinct = new HashSet<>(globalTxIds);
+    assertEquals(size, distinct.size());
+    List<String> sorted = new ArrayList<>(globalTxIds);
+    sorted.sort((a, b) -> b.compareTo(a));
+    assertEquals(sorted, globalTxIds);
+  }
+
+  @Test
+  public void duplicateRejectedAloneTest() throws Exception {
+    TransactionRepository repository = new JdbcTransactionRepository(dataSource, metricsService,
+        10, 100, 100, false);
+    String globalTxId = UUID.randomUUID().toString();
+    for (int i = 0; i < 10; i++) {
+      repository.send(transactionOf(i == 9 ? globalTxId : UUID.randomUUID().toString(),
+          SagaActorState.COMMITTED, new Date()));
+    }
+    repository.send(transactionOf(globalTxId, SagaActorState.COMMITTED, new Date()));
+    await().atMost(10, SECONDS).until(
+        () -> metricsService.metrics().getRepositoryAccepted()
+            + metricsService.metrics().getRepositoryRejected() == 11);
+    assertEquals(10, metricsService.metrics().getRepositoryAccepted());
+    assertEquals(1, metricsService.metrics().getRepositoryRejected());
+    assertEquals(Long.valueOf(10),
+        repository.getTransactionStatistics().get(SagaActorState.COMMITTED.name()));
+  }
+
+  @Test
+  public void slowTest() throws Exception {
+    TransactionRepository repository = new JdbcTransactionRepository(dataSource, metricsService,
+        0, 0, 100, false);
+    for (int i = 0; i < 20; i++) {
+      repository.send(transactionOf(UUID.randomUUID().toString(), SagaActorState.COMMITTED,
+          new Date(System.currentTimeMillis() - i * 10)));
+    }
+    List<GlobalTransaction> slow = repository.getSlowGlobalTransactionsTopN(10);
+    assertEquals(10, slow.size());
+    for (int i = 1; i < slow.size(); i++) {
+      assertTrue(slow.get(i - 1).getDurationTime() >= slow.get(i).getDurationTime());
+    }
+  }
+
+  @Test
+  public void writeThroughputTest() throws Exception {
+    TransactionRepository repository = new JdbcTransactionRepository(dataSource, metricsService,
+        500, 100, 10000, false);
+    int size = 20000;
+    long begin = System.currentTimeMillis();
+    for (int i = 0; i < size; i++) {
+      repository.send(transactionOf(UUID.randomUUID().toString(), SagaActorState.COMMITTED,
+          new Date()));
+    }
+    await().atMost(60, SECONDS).until(
+        () -> metricsService.metrics().getRepositoryAccepted() == size);
+    long elapsed = Math.max(System.currentTimeMillis() - begin, 1);
+    LOG.info("jdbc repository wrote {} transactions in {} ms, {} tps, flush avg {} ms", size,
+        elapsed, size * 1000L / elapsed, metricsService.metrics().getRepositoryFlushAvgTime());
+  }
+}
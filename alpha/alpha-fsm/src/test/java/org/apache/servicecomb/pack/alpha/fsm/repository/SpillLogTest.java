@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.repository;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.servicecomb.pack.alpha.fsm.repository.GlobalTransactionMaker.someTransaction;
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.fsm.metrics.MetricsService;
+import org.apache.servicecomb.pack.alpha.fsm.repository.channel.DefaultTransactionRepositoryChannel;
+import org.apache.servicecomb.pack.alpha.fsm.repository.channel.SpillLog;
+import org.apache.servicecomb.pack.alpha.fsm.repository.elasticsearch.ElasticsearchTransactionRepository;
+import org.elasticsearch.client.transport.NoNodeAvailableException;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+
+public class SpillLogTest {
+
+  TransactionRepository repository = mock(TransactionRepository.class);
+  List<String> stored = Collections.synchronizedList(new ArrayList<>());
+  volatile boolean available = true;
+  Path dir;
+
+  @Before
+  public void before() throws Exception {
+    dir = Files.createTempDirectory("spill");
+    doAnswer(invocation -> {
+      store(Collections.singletonList(invocation.getArgument(0)));
+      return null;
+    }).when(repository).send(any(GlobalTransaction.class));
+    doAnswer(invocation -> {
+      store(invocation.getArgument(0));
+      return null;
+    }).when(repository).send(anyList());
+  }
+
+  @Test
+  public void replayInAppendOrderTest() throws Exception {
+    // small segments, the log rolls many times
+    SpillLog spillLog = new SpillLog(dir, 4096, 1024 * 1024);
+    List<String> globalTxIds = append(spillLog, 100);
+    assertTrue(segments() > 1);
+    assertEquals(100, spillLog.pending());
+    while (spillLog.replayTo(repository, 10) > 0) {
+    }
+    assertEquals(globalTxIds, stored);
+    assertTrue(spillLog.isEmpty());
+    // the replayed segments are deleted
+    assertEquals(1, segments());
+    spillLog.close();
+  }
+
+  @Test
+  public void failedReplayKeepsTransactionsTest() throws Exception {
+    SpillLog spillLog = new SpillLog(dir, 64 * 1024, 1024 * 1024);
+    List<String> globalTxIds = append(spillLog, 10);
+    available = false;
+    try {
+      spillLog.replayTo(repository, 5);
+      fail("repository is unavailable");
+    } catch (IllegalStateException e) {
+      assertEquals(10, spillLog.pending());
+    }
+    available = true;
+    assertEquals(5, spillLog.replayTo(repository, 5));
+    assertEquals(5, spillLog.replayTo(repository, 5));
+    assertEquals(0, spillLog.replayTo(repository, 5));
+    assertEquals(globalTxIds, stored);
+    spillLog.close();
+  }
+
+  @Test
+  public void reopenReplaysRemainingTransactionsTest() throws Exception {
+    SpillLog spillLog = new SpillLog(dir, 4096, 1024 * 1024);
+    List<String> globalTxIds = append(spillLog, 30);
+    spillLog.replayTo(repository, 12);
+    spillLog.close();
+
+    spillLog = new SpillLog(dir, 4096, 1024 * 1024);
+    assertEquals(18, spillLog.pending());
+    while (spillLog.replayTo(repository, 10) > 0) {
+    }
+    assertEquals(globalTxIds, stored);
+    spillLog.close();
+  }
+
+  @Test
+  public void tornRecordIsIgnoredTest() throws Exception {
+    SpillLog spillLog = new SpillLog(dir, 64 * 1024, 1024 * 1024);
+    List<String> globalTxIds = append(spillLog, 3);
+    spillLog.close();
+    // flip the last written byte, as if the process died while writing the third record
+    Path segment;
+    try (Stream<Path> files = Files.list(dir)) {
+      segment = files.findFirst().get();
+    }
+    try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+      long position = file.length() - 1;
+      file.seek(position);
+      while (file.read() == 0) {
+        file.seek(--position);
+      }
+      file.seek(position);
+      file.write('x');
+    }
+
+    spillLog = new SpillLog(dir, 64 * 1024, 1024 * 1024);
+    assertEquals(2, spillLog.pending());
+    // the torn record is overwritten by the next one
+    globalTxIds.set(2, append(spillLog, 1).get(0));
+    while (spillLog.replayTo(repository, 10) > 0) {
+    }
+    assertEquals(globalTxIds, stored);
+    spillLog.close();
+  }
+
+  @Test
+  public void maxSizeTest() throws Exception {
+    SpillLog spillLog = new SpillLog(dir, 4096, 8192);
+    int appended = 0;
+    while (spillLog.append(someTransaction())) {
+      appended++;
+    }
+    assertTrue(appended > 0);
+    assertEquals(appended, spillLog.pending());
+    assertEquals(8192, spillLog.size());
+    assertEquals(2, segments());
+    spillLog.close();
+  }
+
+  @Test
+  public void defaultChannelSpillsWhileRepositoryIsUnavailableTest() throws Exception {
+    MetricsService metricsService = new MetricsService();
+    DefaultTransactionRepositoryChannel channel = new DefaultTransactionRepositoryChannel(
+        repository, metricsService, new SpillLog(dir, 64 * 1024, 1024 * 1024), 10, 100);
+    available = false;
+    List<String> globalTxIds = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      GlobalTransaction transaction = someTransaction();
+      globalTxIds.add(transaction.getGlobalTxId());
+      // the actor is not failed by the unavailable repository
+      channel.send(transaction);
+    }
+    assertEquals(5, metricsService.metrics().getRepositoryChannelSpilled());
+    assertTrue(stored.isEmpty());
+    available = true;
+    await().atMost(10, SECONDS).until(
+        () -> metricsService.metrics().getRepositoryChannelReplayed() == 5);
+    assertEquals(globalTxIds, stored);
+    // sent to the repository again once the spill log is replayed
+    channel.send(someTransaction());
+    assertEquals(6, stored.size());
+    assertEquals(5, metricsService.metrics().getRepositoryChannelSpilled());
+    channel.close();
+  }
+
+  @Test
+  public void defaultChannelSpillsFailedBackgroundWritesTest() throws Exception {
+    MetricsService metricsService = new MetricsService();
+    ElasticsearchTemplate template = mock(ElasticsearchTemplate.class);
+    doThrow(new NoNodeAvailableException("None of the configured nodes are available"))
+        .when(template).bulkIndex(anyList());
+    ElasticsearchTransactionRepository elasticsearchRepository =
+        new ElasticsearchTransactionRepository(template, metricsService, 10, 100);
+    SpillLog spillLog = new SpillLog(dir, 64 * 1024, 1024 * 1024);
+    // replayed rarely, the spilled transactions stay in the spill log
+    DefaultTransactionRepositoryChannel channel = new DefaultTransactionRepositoryChannel(
+        elasticsearchRepository, metricsService, spillLog, 10, 60000);
+    for (int i = 0; i < 5; i++) {
+      channel.send(someTransaction());
+    }
+    await().atMost(10, SECONDS).until(
+        () -> metricsService.metrics().getRepositoryChannelSpilled() == 5);
+    assertEquals(5, spillLog.pending());
+    assertEquals(0, metricsService.metrics().getRepositoryRejected());
+    elasticsearchRepository.close();
+    channel.close();
+  }
+
+  private void store(List<GlobalTransaction> transactions) {
+    if (!available) {
+      throw new IllegalStateException("repository is unavailable");
+    }
+    transactions.forEach(transaction -> stored.add(transaction.getGlobalTxId()));
+  }
+
+  private List<String> append(SpillLog spillLog, int size) throws Exception {
+    List<String> globalTxIds = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      GlobalTransaction transaction = someTransaction();
+      assertTrue(spillLog.append(transaction));
+      globalTxIds.add(transaction.getGlobalTxId());
+    }
+    return globalTxIds;
+  }
+
+  private long segments() throws Exception {
+    try (Stream<Path> files = Files.list(dir)) {
+      return files.count();
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.fsm.spring.integration.akka;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.servicecomb.pack.alpha.core.OmegaCallback;
+import org.apache.servicecomb.pack.alpha.core.TxEvent;
+import org.apache.servicecomb.pack.alpha.fsm.model.TxEntity;
+import org.apache.servicecomb.pack.alpha.fsm.spring.integration.akka.SpringAkkaExtension.SpringExt;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.ApplicationContext;
+
+public class SpringAkkaExtensionTest {
+
+  private final OmegaCallback omegaCallback = mock(OmegaCallback.class);
+  private final SpringExt springExt = new SpringExt();
+
+  @Before
+  public void setUp() {
+    ApplicationContext applicationContext = mock(ApplicationContext.class);
+    when(applicationContext.containsBean("omegaCallback")).thenReturn(true);
+    when(applicationContext.getBean("omegaCallback", OmegaCallback.class)).thenReturn(omegaCallback);
+    // the omega never acks
+    when(omegaCallback.compensateAsync(any(TxEvent.class)))
+        .thenAnswer(invocation -> new CompletableFuture<Void>());
+    springExt.initialize(applicationContext);
+  }
+
+  @Test
+  public void timeoutCompensationWithoutReverseTimeout() {
+    springExt.setAckTimeout(1);
+    CompletableFuture<Void> future = springExt.compensate(txEntityOf(0)).toCompletableFuture();
+
+    await().atMost(3, TimeUnit.SECONDS).until(future::isDone);
+    try {
+      future.join();
+      fail("the compensation is not acked");
+    } catch (CompletionException e) {
+      assertThat(e.getCause() instanceof TimeoutException, is(true));
+    }
+  }
+
+  @Test
+  public void waitForAckWithoutAckTimeout() throws Exception {
+    springExt.setAckTimeout(0);
+    CompletableFuture<Void> future = springExt.compensate(txEntityOf(0)).toCompletableFuture();
+
+    Thread.sleep(1500);
+    assertFalse(future.isDone());
+  }
+
+  @Test
+  public void reverseTimeoutTakesPrecedence() {
+    springExt.setAckTimeout(60);
+    CompletableFuture<Void> future = springExt.compensate(txEntityOf(1)).toCompletableFuture();
+
+    await().atMost(3, TimeUnit.SECONDS).until(future::isDone);
+    assertThat(future.isCompletedExceptionally(), is(true));
+  }
+
+  private TxEntity txEntityOf(int reverseTimeout) {
+    return TxEntity.builder()
+        .serviceName("service")
+        .instanceId("service-1")
+        .globalTxId(UUID.randomUUID().toString())
+        .localTxId(UUID.randomUUID().toString())
+        .compensationMethod("cancel")
+        .payloads(new byte[0])
+        .reverseTimeout(reverseTimeout)
+        .build();
+  }
+}
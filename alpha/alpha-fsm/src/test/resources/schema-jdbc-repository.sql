@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+CREATE TABLE IF NOT EXISTS saga_global_transaction (
+  globalTxId varchar(36) PRIMARY KEY,
+  type varchar(12) NOT NULL,
+  serviceName varchar(100) NOT NULL,
+  instanceId varchar(255) NOT NULL,
+  beginTime TIMESTAMP NOT NULL,
+  endTime TIMESTAMP NOT NULL,
+  state varchar(12) NOT NULL,
+  subTxSize int DEFAULT 0 NOT NULL,
+  durationTime bigint NOT NULL,
+  suspendedType varchar(36) DEFAULT NULL
+);
+
+CREATE TABLE IF NOT EXISTS saga_sub_transaction (
+  surrogateId bigint GENERATED BY DEFAULT AS IDENTITY(START WITH 1, INCREMENT BY 1) PRIMARY KEY,
+  globalTxId varchar(36) NOT NULL,
+  localTxId varchar(36) NOT NULL,
+  parentTxId varchar(36) DEFAULT NULL,
+  beginTime TIMESTAMP NOT NULL,
+  endTime TIMESTAMP NOT NULL,
+  state varchar(12) NOT NULL,
+  durationTime bigint NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS saga_transaction_event (
+  surrogateId bigint GENERATED BY DEFAULT AS IDENTITY(START WITH 1, INCREMENT BY 1) PRIMARY KEY,
+  globalTxId varchar(36) NOT NULL,
+  eventIndex int NOT NULL,
+  type varchar(50) NOT NULL,
+  payload LONGVARCHAR NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS saga_transaction_statistics (
+  state varchar(12) PRIMARY KEY,
+  total bigint DEFAULT 0 NOT NULL
+);
@@ -95,6 +95,16 @@ public class AlphaConfig {
     return new SpringTxEventRepository(eventRepo);
   }
 
+  @Bean
+  GlobalTxStateRepository springGlobalTxStateRepository(
+      @Value("${alpha.event.scanner.batchSize:100}") int eventScannerBatchSize,
+      TxEventEnvelopeRepository eventRepo,
+      GlobalTxStateEntityRepository stateRepo) {
+    // done before the events are handled, which create the states of the new sagas
+    new GlobalTxStateBackfill(eventRepo, stateRepo, eventScannerBatchSize).run();
+    return new SpringGlobalTxStateRepository(stateRepo);
+  }
+
   @Bean
   CommandRepository springCommandRepository(TxEventEnvelopeRepository eventRepo, CommandEntityRepository commandRepository) {
     return new SpringCommandRepository(eventRepo, commandRepository);
@@ -123,19 +133,21 @@ public class AlphaConfig {
   TxConsistentService txConsistentService(
       @Value("${alpha.event.pollingInterval:500}") int eventPollingInterval,
       @Value("${alpha.event.scanner.enabled:true}") boolean eventScannerEnabled,
+      @Value("${alpha.event.scanner.batchSize:100}") int eventScannerBatchSize,
       ScheduledExecutorService scheduler,
       TxEventRepository eventRepository,
+      GlobalTxStateRepository stateRepository,
       CommandRepository commandRepository,
       TxTimeoutRepository timeoutRepository,
       OmegaCallback omegaCallback,
       NodeStatus nodeStatus) {
         if (eventScannerEnabled) {
           new EventScanner(scheduler,
-              eventRepository, commandRepository, timeoutRepository,
-              omegaCallback, eventPollingInterval, nodeStatus).run();
+              eventRepository, stateRepository, commandRepository, timeoutRepository,
+              omegaCallback, eventPollingInterval, eventScannerBatchSize, nodeStatus).run();
           LOG.info("Starting the EventScanner.");
           }
-        TxConsistentService consistentService = new TxConsistentService(eventRepository);
+        TxConsistentService consistentService = new TxConsistentService(eventRepository, stateRepository);
         return consistentService;
   }
 
@@ -189,11 +201,13 @@ public class AlphaConfig {
   @ConditionalOnProperty(name= "alpha.feature.akka.enabled", havingValue = "true")
   ServerStartable serverStartableWithAkka(GrpcServerConfig serverConfig,
       Map<String, Map<String, OmegaCallback>> omegaCallbacks, @Autowired(required = false) GrpcTccEventService grpcTccEventService,
-      @Qualifier("alphaEventBus") EventBus eventBus, ActorEventChannel actorEventChannel) throws IOException {
+      @Qualifier("alphaEventBus") EventBus eventBus, ActorEventChannel actorEventChannel,
+      @Value("${alpha.feature.akka.compensation.maxInFlight:100}") int compensationMaxInFlight) throws IOException {
     ServerMeta serverMeta = ServerMeta.newBuilder()
         .putMeta(AlphaMetaKeys.AkkaEnabled.name(), String.valueOf(true)).build();
     List<BindableService> bindableServices = new ArrayList();
-    bindableServices.add(new GrpcSagaEventService(actorEventChannel, omegaCallbacks, serverMeta));
+    bindableServices.add(
+        new GrpcSagaEventService(actorEventChannel, omegaCallbacks, serverMeta, compensationMaxInFlight));
     if (grpcTccEventService != null) {
       LOG.info("alpha.feature.tcc.enable=true, starting the TCC service.");
       bindableServices.add(grpcTccEventService);
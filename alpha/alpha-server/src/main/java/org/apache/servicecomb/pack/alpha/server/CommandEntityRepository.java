@@ -55,6 +55,17 @@ public interface CommandEntityRepository extends CrudRepository<Command, Long> {
       @Param("globalTxId") String globalTxId,
       @Param("localTxId") String localTxId);
 
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE org.apache.servicecomb.pack.alpha.core.Command c "
+      + "SET c.status = :toStatus "
+      + "WHERE c.surrogateId IN :surrogateIds "
+      + "  AND c.status = :fromStatus")
+  void updateStatusBySurrogateIdIn(
+      @Param("fromStatus") String fromStatus,
+      @Param("toStatus") String toStatus,
+      @Param("surrogateIds") List<Long> surrogateIds);
+
   List<Command> findByGlobalTxIdAndStatus(String globalTxId, String status);
 
   // TODO: 2018/1/18 we assumed compensation will never fail. if all service instances are not reachable, we have to set up retry mechanism for pending commands
@@ -66,6 +77,6 @@ public interface CommandEntityRepository extends CrudRepository<Command, Long> {
       + " WHERE c1.status = 'NEW' "
       + " GROUP BY c1.globalTxId "
       + " HAVING MAX( CASE c2.status WHEN 'PENDING' THEN 1 ELSE 0 END ) = 0) "
-      + "ORDER BY c.eventId ASC LIMIT 1", nativeQuery = true)
-  List<Command> findFirstGroupByGlobalTxIdWithoutPendingOrderByIdDesc();
+      + "ORDER BY c.eventId ASC LIMIT ?1", nativeQuery = true)
+  List<Command> findFirstGroupByGlobalTxIdWithoutPendingOrderByIdDesc(int size);
 }
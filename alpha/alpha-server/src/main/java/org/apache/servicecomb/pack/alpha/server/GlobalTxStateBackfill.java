@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import static org.apache.servicecomb.pack.alpha.core.GlobalTxStatus.ENDED;
+import static org.apache.servicecomb.pack.alpha.core.GlobalTxStatus.RUNNING;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.servicecomb.pack.alpha.core.GlobalTxState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Creates the {@link GlobalTxState} of the sagas stored before the table was introduced, so the
+ * event scanner picks up those still running. It walks the global transactions in batches and
+ * saves a marker row once done, so later startups skip it and an interrupted backfill resumes.
+ */
+class GlobalTxStateBackfill {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  // an ended state is never scanned, and the id is no uuid so it never clashes with a saga
+  static final String MARKER = "GlobalTxState-backfill";
+
+  private final TxEventEnvelopeRepository eventRepo;
+  private final GlobalTxStateEntityRepository stateRepo;
+  private final int batchSize;
+
+  GlobalTxStateBackfill(TxEventEnvelopeRepository eventRepo,
+      GlobalTxStateEntityRepository stateRepo, int batchSize) {
+    this.eventRepo = eventRepo;
+    this.stateRepo = stateRepo;
+    this.batchSize = batchSize;
+  }
+
+  void run() {
+    if (stateRepo.existsById(MARKER)) {
+      return;
+    }
+    LOG.info("Creating the global transaction states of the stored events");
+    long count = 0;
+    String globalTxId = "";
+    List<Object[]> summaries;
+    do {
+      summaries = eventRepo.findGlobalTxSummaries(globalTxId, PageRequest.of(0, batchSize));
+      for (Object[] summary : summaries) {
+        globalTxId = (String) summary[0];
+        if (!stateRepo.existsById(globalTxId)) {
+          boolean ended = ((Number) summary[2]).longValue() > 0;
+          boolean aborted = ((Number) summary[3]).longValue() > 0;
+          stateRepo.save(new GlobalTxState(globalTxId, (ended ? ENDED : RUNNING).name(), aborted,
+              (Date) summary[1]));
+          count++;
+        }
+      }
+    } while (summaries.size() == batchSize);
+    stateRepo.save(new GlobalTxState(MARKER, ENDED.name(), false, new Date()));
+    LOG.info("Created {} global transaction states", count);
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import java.util.Date;
+import java.util.List;
+
+import javax.transaction.Transactional;
+
+import org.apache.servicecomb.pack.alpha.core.GlobalTxState;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+interface GlobalTxStateEntityRepository extends CrudRepository<GlobalTxState, String> {
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE org.apache.servicecomb.pack.alpha.core.GlobalTxState s "
+      + "SET s.expiryTime = :expiryTime, s.lastModified = CURRENT_TIMESTAMP "
+      + "WHERE s.globalTxId = :globalTxId "
+      + "  AND s.expiryTime > :expiryTime")
+  int updateExpiryTimeIfEarlier(
+      @Param("globalTxId") String globalTxId,
+      @Param("expiryTime") Date expiryTime);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE org.apache.servicecomb.pack.alpha.core.GlobalTxState s "
+      + "SET s.expiryTime = :expiryTime, s.lastModified = CURRENT_TIMESTAMP "
+      + "WHERE s.globalTxId = :globalTxId "
+      + "  AND s.expiryTime < CURRENT_TIMESTAMP")
+  int advanceExpiryTime(
+      @Param("globalTxId") String globalTxId,
+      @Param("expiryTime") Date expiryTime);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE org.apache.servicecomb.pack.alpha.core.GlobalTxState s "
+      + "SET s.aborted = TRUE, s.status = 'RUNNING', s.lastModified = CURRENT_TIMESTAMP "
+      + "WHERE s.globalTxId = :globalTxId")
+  int markAborted(@Param("globalTxId") String globalTxId);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE org.apache.servicecomb.pack.alpha.core.GlobalTxState s "
+      + "SET s.status = :toStatus, s.lastModified = CURRENT_TIMESTAMP "
+      + "WHERE s.globalTxId = :globalTxId "
+      + "  AND s.status = :fromStatus "
+      + "  AND s.aborted = TRUE")
+  int updateStatusOfAbortedTx(
+      @Param("fromStatus") String fromStatus,
+      @Param("toStatus") String toStatus,
+      @Param("globalTxId") String globalTxId);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE org.apache.servicecomb.pack.alpha.core.GlobalTxState s "
+      + "SET s.status = :toStatus, s.lastModified = CURRENT_TIMESTAMP "
+      + "WHERE s.globalTxId = :globalTxId "
+      + "  AND s.status = :fromStatus")
+  int updateStatus(
+      @Param("fromStatus") String fromStatus,
+      @Param("toStatus") String toStatus,
+      @Param("globalTxId") String globalTxId);
+
+  @Query("SELECT s.globalTxId FROM GlobalTxState s "
+      + "WHERE s.status = 'RUNNING' "
+      + "  AND s.expiryTime < CURRENT_TIMESTAMP "
+      + "  AND s.globalTxId > :globalTxId "
+      + "ORDER BY s.globalTxId ASC")
+  List<String> findTimeoutGlobalTxIds(@Param("globalTxId") String globalTxId, Pageable pageable);
+
+  @Query("SELECT s.globalTxId FROM GlobalTxState s "
+      + "WHERE s.status = 'RUNNING' "
+      + "  AND s.aborted = TRUE "
+      + "  AND s.globalTxId > :globalTxId "
+      + "ORDER BY s.globalTxId ASC")
+  List<String> findAbortedGlobalTxIds(@Param("globalTxId") String globalTxId, Pageable pageable);
+}
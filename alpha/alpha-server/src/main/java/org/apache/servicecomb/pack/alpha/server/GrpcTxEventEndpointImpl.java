@@ -31,9 +31,11 @@ import org.apache.servicecomb.pack.alpha.core.OmegaCallback;
 import org.apache.servicecomb.pack.alpha.core.TxConsistentService;
 import org.apache.servicecomb.pack.alpha.core.TxEvent;
 import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
+import org.apache.servicecomb.pack.contract.grpc.GrpcAckBatch;
 import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommand;
 import org.apache.servicecomb.pack.contract.grpc.GrpcServiceConfig;
 import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEventBatch;
 import org.apache.servicecomb.pack.contract.grpc.ServerMeta;
 import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceImplBase;
 
@@ -97,7 +99,38 @@ class GrpcTxEventEndpointImpl extends TxEventServiceImplBase {
 
   @Override
   public void onTxEvent(GrpcTxEvent message, StreamObserver<GrpcAck> responseObserver) {
-    boolean ok = txConsistentService.handle(new TxEvent(
+    responseObserver.onNext(handle(message) ? ALLOW : REJECT);
+    responseObserver.onCompleted();
+  }
+
+  @Override
+  public StreamObserver<GrpcTxEventBatch> onTxEventStream(StreamObserver<GrpcAckBatch> responseObserver) {
+    return new StreamObserver<GrpcTxEventBatch>() {
+      @Override
+      public void onNext(GrpcTxEventBatch batch) {
+        GrpcAckBatch.Builder acks = GrpcAckBatch.newBuilder();
+        for (GrpcTxEvent message : batch.getEventsList()) {
+          acks.addAcks(GrpcAck.newBuilder()
+              .setAborted(!handle(message))
+              .setCorrelationId(message.getCorrelationId()));
+        }
+        responseObserver.onNext(acks.build());
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        LOG.error(throwable.getMessage());
+      }
+
+      @Override
+      public void onCompleted() {
+        responseObserver.onCompleted();
+      }
+    };
+  }
+
+  private boolean handle(GrpcTxEvent message) {
+    return txConsistentService.handle(new TxEvent(
         message.getServiceName(),
         message.getInstanceId(),
         new Date(),
@@ -111,9 +144,6 @@ class GrpcTxEventEndpointImpl extends TxEventServiceImplBase {
         message.getForwardRetries(),
         message.getPayloads().toByteArray()
     ));
-
-    responseObserver.onNext(ok ? ALLOW : REJECT);
-    responseObserver.onCompleted();
   }
 
   @Override
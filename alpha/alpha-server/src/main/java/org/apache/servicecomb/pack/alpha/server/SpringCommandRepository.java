@@ -25,6 +25,7 @@ import java.lang.invoke.MethodHandles;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import javax.transaction.Transactional;
 
@@ -80,16 +81,16 @@ public class SpringCommandRepository implements CommandRepository {
 
   @Transactional
   @Override
-  public List<Command> findFirstCommandToCompensate() {
+  public List<Command> findCommandsToCompensate(int size) {
     List<Command> commands = commandRepository
-        .findFirstGroupByGlobalTxIdWithoutPendingOrderByIdDesc();
-
-    commands.forEach(command ->
-        commandRepository.updateStatusByGlobalTxIdAndLocalTxId(
-            NEW.name(),
-            PENDING.name(),
-            command.globalTxId(),
-            command.localTxId()));
+        .findFirstGroupByGlobalTxIdWithoutPendingOrderByIdDesc(size);
+
+    if (!commands.isEmpty()) {
+      commandRepository.updateStatusBySurrogateIdIn(
+          NEW.name(),
+          PENDING.name(),
+          commands.stream().map(Command::id).collect(Collectors.toList()));
+    }
 
     return commands;
   }
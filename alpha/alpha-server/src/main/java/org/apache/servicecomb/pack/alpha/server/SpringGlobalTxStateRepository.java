@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.server;
+
+import static org.apache.servicecomb.pack.alpha.core.GlobalTxStatus.ENDED;
+import static org.apache.servicecomb.pack.alpha.core.GlobalTxStatus.RUNNING;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.servicecomb.pack.alpha.core.GlobalTxState;
+import org.apache.servicecomb.pack.alpha.core.GlobalTxStateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+
+public class SpringGlobalTxStateRepository implements GlobalTxStateRepository {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final GlobalTxStateEntityRepository stateRepo;
+
+  SpringGlobalTxStateRepository(GlobalTxStateEntityRepository stateRepo) {
+    this.stateRepo = stateRepo;
+  }
+
+  @Override
+  public void save(GlobalTxState state) {
+    if (stateRepo.existsById(state.globalTxId())) {
+      return;
+    }
+    try {
+      stateRepo.save(state);
+    } catch (Exception e) {
+      // another event of the same global transaction created the state concurrently
+      LOG.debug("Failed to save global transaction state {}", state, e);
+    }
+  }
+
+  @Override
+  public Optional<GlobalTxState> findByGlobalTxId(String globalTxId) {
+    return stateRepo.findById(globalTxId);
+  }
+
+  @Override
+  public void updateExpiryTimeIfEarlier(String globalTxId, Date expiryTime) {
+    stateRepo.updateExpiryTimeIfEarlier(globalTxId, expiryTime);
+  }
+
+  @Override
+  public void advanceExpiryTime(String globalTxId, Date expiryTime) {
+    stateRepo.advanceExpiryTime(globalTxId, expiryTime);
+  }
+
+  @Override
+  public void markAborted(String globalTxId) {
+    stateRepo.markAborted(globalTxId);
+  }
+
+  @Override
+  public void reopenAborted(String globalTxId) {
+    stateRepo.updateStatusOfAbortedTx(ENDED.name(), RUNNING.name(), globalTxId);
+  }
+
+  @Override
+  public void markEnded(String globalTxId) {
+    stateRepo.updateStatus(RUNNING.name(), ENDED.name(), globalTxId);
+  }
+
+  @Override
+  public List<String> findTimeoutGlobalTxIds(String globalTxId, int size) {
+    return stateRepo.findTimeoutGlobalTxIds(globalTxId, PageRequest.of(0, size));
+  }
+
+  @Override
+  public List<String> findAbortedGlobalTxIds(String globalTxId, int size) {
+    return stateRepo.findAbortedGlobalTxIds(globalTxId, PageRequest.of(0, size));
+  }
+}
@@ -19,6 +19,7 @@ package org.apache.servicecomb.pack.alpha.server;
 
 import static org.apache.servicecomb.pack.common.EventType.TxCompensatedEvent;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,7 +28,6 @@ import org.apache.servicecomb.pack.alpha.core.TxEventRepository;
 import org.springframework.data.domain.PageRequest;
 
 class SpringTxEventRepository implements TxEventRepository {
-  private static final PageRequest SINGLE_TX_EVENT_REQUEST = PageRequest.of(0, 1);
   private final TxEventEnvelopeRepository eventRepo;
 
   SpringTxEventRepository(TxEventEnvelopeRepository eventRepo) {
@@ -40,13 +40,18 @@ class SpringTxEventRepository implements TxEventRepository {
   }
 
   @Override
-  public Optional<List<TxEvent>> findFirstAbortedGlobalTransaction() {
-    return eventRepo.findFirstAbortedGlobalTxByType();
+  public List<TxEvent> findAbortedGlobalTransaction(String globalTxId) {
+    return eventRepo.findAbortedGlobalTxByGlobalTxId(globalTxId);
   }
 
   @Override
-  public List<TxEvent> findTimeoutEvents() {
-    return eventRepo.findTimeoutEvents(SINGLE_TX_EVENT_REQUEST);
+  public List<TxEvent> findTimeoutEvents(String globalTxId) {
+    return eventRepo.findTimeoutEventsByGlobalTxId(globalTxId);
+  }
+
+  @Override
+  public Optional<Date> findNextExpiryTime(String globalTxId) {
+    return Optional.ofNullable(eventRepo.findNextExpiryTimeByGlobalTxId(globalTxId));
   }
 
   @Override
@@ -60,18 +65,19 @@ class SpringTxEventRepository implements TxEventRepository {
   }
 
   @Override
-  public List<TxEvent> findFirstUncompensatedEventByIdGreaterThan(long id, String type) {
-    return eventRepo.findFirstByTypeAndSurrogateIdGreaterThan(type, id, SINGLE_TX_EVENT_REQUEST);
+  public List<TxEvent> findUncompensatedEvents(String globalTxId, String type) {
+    return eventRepo.findUncompensatedEventsByGlobalTxIdAndType(globalTxId, type);
   }
 
   @Override
-  public Optional<TxEvent> findFirstCompensatedEventByIdGreaterThan(long id) {
-    return eventRepo.findFirstByTypeAndSurrogateIdGreaterThan(TxCompensatedEvent.name(), id);
+  public List<TxEvent> findCompensatedEventsByIdGreaterThan(long id, int size) {
+    return eventRepo.findByTypeAndSurrogateIdGreaterThanOrderBySurrogateIdAsc(
+        TxCompensatedEvent.name(), id, PageRequest.of(0, size));
   }
 
   @Override
-  public void deleteDuplicateEvents(String type) {
-    eventRepo.findDuplicateEventsByType(type).forEach((txEvent) ->eventRepo.
+  public void deleteDuplicateEvents(String globalTxId, String type) {
+    eventRepo.findDuplicateEventsByGlobalTxIdAndType(globalTxId, type).forEach((txEvent) ->eventRepo.
             deleteBySurrogateId(txEvent.id()));
   }
 }
@@ -21,6 +21,7 @@ import static org.apache.servicecomb.pack.alpha.core.TaskStatus.PENDING;
 
 import java.lang.invoke.MethodHandles;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.transaction.Transactional;
 
@@ -48,6 +49,17 @@ public class SpringTxTimeoutRepository implements TxTimeoutRepository {
     }
   }
 
+  @Override
+  public void saveAll(List<TxTimeout> timeouts) {
+    try {
+      timeoutRepo.saveAll(timeouts);
+    } catch (Exception e) {
+      // fall back to save them one by one, so a single duplicate does not drop the whole batch
+      LOG.debug("Failed to save timeouts in batch, saving them one by one", e);
+      timeouts.forEach(this::save);
+    }
+  }
+
   @Override
   public void markTimeoutAsDone() {
     timeoutRepo.updateStatusOfFinishedTx();
@@ -55,10 +67,12 @@ public class SpringTxTimeoutRepository implements TxTimeoutRepository {
 
   @Transactional
   @Override
-  public List<TxTimeout> findFirstTimeout() {
-    List<TxTimeout> timeoutEvents = timeoutRepo.findFirstTimeoutTxOrderByExpireTimeAsc(PageRequest.of(0, 1));
-    timeoutEvents.forEach(event -> timeoutRepo
-        .updateStatusByGlobalTxIdAndLocalTxId(PENDING.name(), event.globalTxId(), event.localTxId()));
+  public List<TxTimeout> findTimeouts(int size) {
+    List<TxTimeout> timeoutEvents = timeoutRepo.findFirstTimeoutTxOrderByExpireTimeAsc(PageRequest.of(0, size));
+    if (!timeoutEvents.isEmpty()) {
+      timeoutRepo.updateStatusBySurrogateIdIn(PENDING.name(),
+          timeoutEvents.stream().map(TxTimeout::id).collect(Collectors.toList()));
+    }
     return timeoutEvents;
   }
 }
@@ -17,6 +17,7 @@
 
 package org.apache.servicecomb.pack.alpha.server;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,7 +33,7 @@ public interface TxEventEnvelopeRepository extends CrudRepository<TxEvent, Long>
   List<TxEvent> findByGlobalTxId(String globalTxId);
 
   @Query("SELECT t FROM TxEvent t "
-      + "WHERE t.type = 'TxAbortedEvent' AND NOT EXISTS( "
+      + "WHERE t.globalTxId = ?1 AND t.type = 'TxAbortedEvent' AND NOT EXISTS( "
       + "  SELECT t1.globalTxId FROM TxEvent t1"
       + "  WHERE t1.globalTxId = t.globalTxId "
       + "    AND t1.type IN ('TxEndedEvent', 'SagaEndedEvent')) AND NOT EXISTS ( "
@@ -46,17 +47,27 @@ public interface TxEventEnvelopeRepository extends CrudRepository<TxEvent, Long>
       + "  AND t2.localTxId = t.localTxId "
       + "  AND t2.type = 'TxStartedEvent') = 0 "
       + "OR t.globalTxId = t.localTxId)")
-  Optional<List<TxEvent>> findFirstAbortedGlobalTxByType();
+  List<TxEvent> findAbortedGlobalTxByGlobalTxId(String globalTxId);
 
   @Query("SELECT t FROM TxEvent t "
-      + "WHERE t.type IN ('TxStartedEvent', 'SagaStartedEvent') "
+      + "WHERE t.globalTxId = ?1 AND t.type IN ('TxStartedEvent', 'SagaStartedEvent') "
       + "  AND t.expiryTime < CURRENT_TIMESTAMP AND NOT EXISTS( "
       + "  SELECT t1.globalTxId FROM TxEvent t1 "
       + "  WHERE t1.globalTxId = t.globalTxId "
       + "    AND t1.localTxId = t.localTxId "
       + "    AND t1.type != t.type"
       + ")")
-  List<TxEvent> findTimeoutEvents(Pageable pageable);
+  List<TxEvent> findTimeoutEventsByGlobalTxId(String globalTxId);
+
+  @Query("SELECT MIN(t.expiryTime) FROM TxEvent t "
+      + "WHERE t.globalTxId = ?1 AND t.type IN ('TxStartedEvent', 'SagaStartedEvent') "
+      + "  AND t.expiryTime >= CURRENT_TIMESTAMP AND NOT EXISTS( "
+      + "  SELECT t1.globalTxId FROM TxEvent t1 "
+      + "  WHERE t1.globalTxId = t.globalTxId "
+      + "    AND t1.localTxId = t.localTxId "
+      + "    AND t1.type != t.type"
+      + ")")
+  Date findNextExpiryTimeByGlobalTxId(String globalTxId);
 
   @Query("SELECT t FROM TxEvent t "
       + "WHERE t.globalTxId = ?1 "
@@ -92,7 +103,7 @@ public interface TxEventEnvelopeRepository extends CrudRepository<TxEvent, Long>
   List<TxEvent> findStartedEventsWithMatchingEndedButNotCompensatedEvents(String globalTxId);
 
   @Query("SELECT t FROM TxEvent t "
-      + "WHERE t.type = ?1 AND t.surrogateId > ?2 AND EXISTS ( "
+      + "WHERE t.globalTxId = ?1 AND t.type = ?2 AND EXISTS ( "
       + "  SELECT t1.globalTxId FROM TxEvent t1 "
       + "  WHERE t1.globalTxId = t.globalTxId "
       + "    AND t1.type = 'TxAbortedEvent' AND NOT EXISTS ( "
@@ -108,21 +119,24 @@ public interface TxEventEnvelopeRepository extends CrudRepository<TxEvent, Long>
       + "  SELECT MIN(t4.retries) FROM TxEvent t4 "
       + "  WHERE t4.globalTxId = t.globalTxId "
       + "    AND t4.localTxId = t.localTxId "
-      + "    AND t4.type = 'TxStartedEvent' ) = 0 "
+      + "    AND t4.type = 'TxStartedEvent' ) = 0 AND NOT EXISTS ( "
+      + "  SELECT c.globalTxId FROM Command c "
+      + "  WHERE c.globalTxId = t.globalTxId "
+      + "    AND c.localTxId = t.localTxId) "
       + "ORDER BY t.surrogateId ASC")
-  List<TxEvent> findFirstByTypeAndSurrogateIdGreaterThan(String type, long surrogateId, Pageable pageable);
+  List<TxEvent> findUncompensatedEventsByGlobalTxIdAndType(String globalTxId, String type);
 
-  Optional<TxEvent> findFirstByTypeAndSurrogateIdGreaterThan(String type, long surrogateId);
+  List<TxEvent> findByTypeAndSurrogateIdGreaterThanOrderBySurrogateIdAsc(String type, long surrogateId, Pageable pageable);
 
   @Query("SELECT t FROM TxEvent t "
-      + "WHERE t.type = ?1 AND EXISTS ( "
+      + "WHERE t.globalTxId = ?1 AND t.type = ?2 AND EXISTS ( "
       + "  SELECT t1.surrogateId"
       + "  FROM TxEvent t1 "
       + "  WHERE t1.globalTxId = t.globalTxId "
       + "  AND t1.localTxId = t.localTxId "
       + "  AND t1.type = t.type "
       + "  AND t1.surrogateId > t.surrogateId )")
-  List<TxEvent> findDuplicateEventsByType(String type);
+  List<TxEvent> findDuplicateEventsByGlobalTxIdAndType(String globalTxId, String type);
 
   List<TxEvent> findByServiceName(String serviceName);
 
@@ -256,6 +270,15 @@ public interface TxEventEnvelopeRepository extends CrudRepository<TxEvent, Long>
       "ORDER BY t.surrogateId DESC")
   List<TxEvent> findRollBackedEvents(Pageable pageable);
 
+  @Query("SELECT t.globalTxId, MIN(t.expiryTime), "
+      + "  SUM(CASE WHEN t.type = 'SagaEndedEvent' THEN 1 ELSE 0 END), "
+      + "  SUM(CASE WHEN t.type = 'TxAbortedEvent' THEN 1 ELSE 0 END) "
+      + "FROM TxEvent t "
+      + "WHERE t.globalTxId > ?1 "
+      + "GROUP BY t.globalTxId "
+      + "ORDER BY t.globalTxId ASC")
+  List<Object[]> findGlobalTxSummaries(String globalTxId, Pageable pageable);
+
   @Query("SELECT count(DISTINCT t.globalTxId) FROM TxEvent t")
   int findTotalCountOfTransactions();
 
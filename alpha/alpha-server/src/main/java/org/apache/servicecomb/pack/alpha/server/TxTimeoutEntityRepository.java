@@ -43,6 +43,15 @@ interface TxTimeoutEntityRepository extends CrudRepository<TxTimeout, Long> {
       @Param("globalTxId") String globalTxId,
       @Param("localTxId") String localTxId);
 
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE org.apache.servicecomb.pack.alpha.core.TxTimeout t "
+      + "SET t.status = :status "
+      + "WHERE t.surrogateId IN :surrogateIds")
+  void updateStatusBySurrogateIdIn(
+      @Param("status") String status,
+      @Param("surrogateIds") List<Long> surrogateIds);
+
   @Lock(LockModeType.OPTIMISTIC)
   @Query("SELECT t FROM TxTimeout AS t "
       + "WHERE t.status = 'NEW' "
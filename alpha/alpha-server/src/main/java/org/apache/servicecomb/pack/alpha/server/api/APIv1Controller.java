@@ -17,6 +17,7 @@
 
 package org.apache.servicecomb.pack.alpha.server.api;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import org.apache.servicecomb.pack.alpha.core.metrics.AlphaMetrics;
@@ -50,18 +51,33 @@ public class APIv1Controller {
 
   @GetMapping(value = "/transaction")
   public ResponseEntity<PagingGlobalTransactions> getTransactions(@RequestParam(value = "page", required = false, defaultValue = "0") int page,
-      @RequestParam(value = "size", required = false, defaultValue = "50") int size)
+      @RequestParam(value = "size", required = false, defaultValue = "50") int size,
+      @RequestParam(value = "cursor", required = false) String cursor,
+      @RequestParam(value = "snapshot", required = false, defaultValue = "false") boolean snapshot)
       throws Exception {
+    // an empty cursor starts cursor paging from the first page
+    if (cursor != null || snapshot) {
+      return ResponseEntity.ok(APIv1Impl.getTransactions(null, cursor, size, snapshot));
+    }
     return ResponseEntity.ok(APIv1Impl.getTransactions(null,page,size));
   }
 
   @GetMapping(value = "/transaction/statistics")
-  public ResponseEntity<Map<String,Long>> getTransactionStatistics() {
-    return ResponseEntity.ok(APIv1Impl.getTransactionStatistics());
+  public ResponseEntity<Map<String,Long>> getTransactionStatistics(
+      @RequestParam(name = "startTime", required = false) Long startTime,
+      @RequestParam(name = "endTime", required = false) Long endTime) {
+    return ResponseEntity.ok(APIv1Impl.getTransactionStatistics(dateOf(startTime), dateOf(endTime)));
   }
 
   @GetMapping(value = "/transaction/slow")
-  public ResponseEntity<List<GlobalTransaction>> getSlowTransactions(@RequestParam(name="size", defaultValue = "10") int size) {
-    return ResponseEntity.ok(APIv1Impl.getSlowTransactions(size));
+  public ResponseEntity<List<GlobalTransaction>> getSlowTransactions(@RequestParam(name="size", defaultValue = "10") int size,
+      @RequestParam(name = "startTime", required = false) Long startTime,
+      @RequestParam(name = "endTime", required = false) Long endTime) {
+    return ResponseEntity.ok(APIv1Impl.getSlowTransactions(size, dateOf(startTime), dateOf(endTime)));
+  }
+
+  // the time range is given in epoch milliseconds
+  private Date dateOf(Long time) {
+    return time == null ? null : new Date(time);
   }
 }
@@ -17,6 +17,7 @@
 
 package org.apache.servicecomb.pack.alpha.server.api;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import org.apache.servicecomb.pack.alpha.core.api.APIv1;
@@ -58,11 +59,30 @@ public class APIv1Impl implements APIv1 {
     return pagingGlobalTransactions;
   }
 
+  public PagingGlobalTransactions getTransactions(String state, String cursor, int size,
+      boolean snapshot) throws Exception {
+    return transactionRepository.getGlobalTransactionsAfter(state, cursor, size, snapshot);
+  }
+
   public Map<String, Long> getTransactionStatistics() {
     return transactionRepository.getTransactionStatistics();
   }
 
+  public Map<String, Long> getTransactionStatistics(Date startTime, Date endTime) {
+    if (startTime == null && endTime == null) {
+      return getTransactionStatistics();
+    }
+    return transactionRepository.getTransactionStatistics(startTime, endTime);
+  }
+
   public List<GlobalTransaction> getSlowTransactions(int size) {
     return transactionRepository.getSlowGlobalTransactionsTopN(size);
   }
+
+  public List<GlobalTransaction> getSlowTransactions(int size, Date startTime, Date endTime) {
+    if (startTime == null && endTime == null) {
+      return getSlowTransactions(size);
+    }
+    return transactionRepository.getSlowGlobalTransactionsTopN(size, startTime, endTime);
+  }
 }
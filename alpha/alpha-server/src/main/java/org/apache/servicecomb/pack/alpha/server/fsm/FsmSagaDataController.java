@@ -60,7 +60,7 @@ class FsmSagaDataController {
       data.getEvents().forEach(event -> {
         Map<String, String> obj = new HashMap();
         obj.put("serviceName", event.getServiceName());
-        obj.put("type", event.getClass().getSimpleName());
+        obj.put("type", event.getType());
         eventVos.add(obj);
       });
       LOG.info("Get the event size {}", eventVos.size());
@@ -20,6 +20,14 @@ package org.apache.servicecomb.pack.alpha.server.fsm;
 import com.google.protobuf.ByteString;
 import io.grpc.stub.StreamObserver;
 import java.lang.invoke.MethodHandles;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
 import org.apache.servicecomb.pack.alpha.core.OmegaCallback;
 import org.apache.servicecomb.pack.alpha.core.TxEvent;
 import org.apache.servicecomb.pack.alpha.core.exception.CompensateAckFailedException;
@@ -29,61 +37,176 @@ import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommand;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Sends the compensation commands to one omega instance without waiting for the acks.
+ * The acks are correlated by globalTxId and localTxId, at most <code>maxInFlight</code>
+ * commands are waiting for their acks, the others are queued until a slot is released.
+ * An ack which doesn't match any command in flight is dropped. An omega which doesn't echo
+ * the localTxId in its acks gets one command in flight only, so its ack is matched to that
+ * command as long as the globalTxIds agree.
+ */
 class GrpcOmegaCallback implements OmegaCallback {
 
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private final StreamObserver<GrpcCompensateCommand> observer;
-  private CompensateAckCountDownLatch compensateAckCountDownLatch;
+  private final Map<String, CompletableFuture<Void>> pendingAcks = new ConcurrentHashMap<>();
+  private final Queue<PendingCompensation> queuedCompensations = new ConcurrentLinkedQueue<>();
+  private final Queue<PendingCompensation> sentCompensations = new ConcurrentLinkedQueue<>();
+  private final Semaphore inFlight;
+  // set by the first ack without localTxId
+  private volatile boolean withoutIds;
 
-  GrpcOmegaCallback(StreamObserver<GrpcCompensateCommand> observer) {
+  GrpcOmegaCallback(StreamObserver<GrpcCompensateCommand> observer, int maxInFlight) {
     this.observer = observer;
+    this.inFlight = new Semaphore(maxInFlight);
   }
 
   @Override
   public void compensate(TxEvent event) {
-    compensateAckCountDownLatch = new CompensateAckCountDownLatch(1);
     try {
-      GrpcCompensateCommand command = GrpcCompensateCommand.newBuilder()
-          .setGlobalTxId(event.globalTxId())
-          .setLocalTxId(event.localTxId())
-          .setParentTxId(event.parentTxId() == null ? "" : event.parentTxId())
-          .setCompensationMethod(event.compensationMethod())
-          .setPayloads(ByteString.copyFrom(event.payloads()))
-          .build();
-      observer.onNext(command);
-      compensateAckCountDownLatch.await();
-      if (compensateAckCountDownLatch.getType() == CompensateAckType.Disconnected) {
-        throw new CompensateConnectException("Omega connect exception");
-      }else{
-        LOG.debug("compensate ack "+ compensateAckCountDownLatch.getType().name());
-        if(compensateAckCountDownLatch.getType() == CompensateAckType.Failed){
-          throw new CompensateAckFailedException("An exception is thrown inside the compensation method");
-        }
+      compensateAsync(event).toCompletableFuture().join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
       }
-    } catch (InterruptedException e) {
-      throw new RuntimeException(e);
-    } finally {
-      compensateAckCountDownLatch = null;
+      throw e;
     }
   }
 
+  @Override
+  public CompletionStage<Void> compensateAsync(TxEvent event) {
+    String key = ackKeyOf(event.globalTxId(), event.localTxId());
+    CompletableFuture<Void> ack = new CompletableFuture<>();
+    CompletableFuture<Void> existing = pendingAcks.putIfAbsent(key, ack);
+    if (existing != null) {
+      LOG.debug("compensation of [{}] {} is already in flight", event.globalTxId(), event.localTxId());
+      return existing;
+    }
+    ack.whenComplete((ignored, throwable) -> pendingAcks.remove(key, ack));
+    queuedCompensations.offer(new PendingCompensation(commandOf(event), ack));
+    sendQueuedCompensations();
+    return ack;
+  }
+
   @Override
   public void disconnect() {
     observer.onCompleted();
-    if (compensateAckCountDownLatch != null) {
-      compensateAckCountDownLatch.countDown(CompensateAckType.Disconnected);
+    PendingCompensation compensation;
+    while ((compensation = queuedCompensations.poll()) != null) {
+      compensation.ack.completeExceptionally(new CompensateConnectException("Omega connect exception"));
     }
+    pendingAcks.values().forEach(
+        ack -> ack.completeExceptionally(new CompensateConnectException("Omega connect exception")));
   }
 
   @Override
-  public void getAck(CompensateAckType type) {
-    if (compensateAckCountDownLatch != null) {
-      compensateAckCountDownLatch.countDown(type);
+  public void getAck(String globalTxId, String localTxId, CompensateAckType type) {
+    CompletableFuture<Void> ack;
+    if (localTxId == null || localTxId.isEmpty()) {
+      withoutIds = true;
+      ack = onlySentAck(globalTxId);
+    } else {
+      ack = pendingAcks.get(ackKeyOf(globalTxId, localTxId));
+    }
+    if (ack == null) {
+      LOG.warn("Dropped the compensate ack {} of [{}] {}, no such compensation is in flight",
+          type, globalTxId, localTxId);
+      return;
+    }
+    LOG.debug("compensate ack {}", type.name());
+    if (type == CompensateAckType.Disconnected) {
+      ack.completeExceptionally(new CompensateConnectException("Omega connect exception"));
+    } else if (type == CompensateAckType.Failed) {
+      ack.completeExceptionally(
+          new CompensateAckFailedException("An exception is thrown inside the compensation method"));
+    } else {
+      ack.complete(null);
     }
   }
 
   @Override
-  public boolean isWaiting(){
-    return compensateAckCountDownLatch == null ? false : true;
+  public boolean isWaiting() {
+    return !pendingAcks.isEmpty();
+  }
+
+  private void sendQueuedCompensations() {
+    PendingCompensation compensation;
+    while ((compensation = nextCompensation()) != null) {
+      final PendingCompensation sent = compensation;
+      sent.ack.whenComplete((ignored, throwable) -> {
+        sentCompensations.remove(sent);
+        inFlight.release();
+        sendQueuedCompensations();
+      });
+      // the stream observer of grpc is not thread safe
+      synchronized (observer) {
+        observer.onNext(sent.command);
+      }
+    }
+  }
+
+  // takes a slot for the next queued compensation, an omega without ids has one slot only
+  private synchronized PendingCompensation nextCompensation() {
+    while (!queuedCompensations.isEmpty()) {
+      if (withoutIds && !sentCompensations.isEmpty()) {
+        return null;
+      }
+      if (!inFlight.tryAcquire()) {
+        return null;
+      }
+      PendingCompensation compensation = queuedCompensations.poll();
+      if (compensation == null) {
+        inFlight.release();
+        return null;
+      }
+      if (compensation.ack.isDone()) {
+        inFlight.release();
+        continue;
+      }
+      sentCompensations.offer(compensation);
+      return compensation;
+    }
+    return null;
+  }
+
+  // the ack without localTxId belongs to the compensation in flight if it is the only one
+  private CompletableFuture<Void> onlySentAck(String globalTxId) {
+    PendingCompensation only = null;
+    for (PendingCompensation compensation : sentCompensations) {
+      if (!compensation.ack.isDone()) {
+        if (only != null) {
+          return null;
+        }
+        only = compensation;
+      }
+    }
+    if (only == null || !only.command.getGlobalTxId().equals(globalTxId)) {
+      return null;
+    }
+    return only.ack;
+  }
+
+  private GrpcCompensateCommand commandOf(TxEvent event) {
+    return GrpcCompensateCommand.newBuilder()
+        .setGlobalTxId(event.globalTxId())
+        .setLocalTxId(event.localTxId())
+        .setParentTxId(event.parentTxId() == null ? "" : event.parentTxId())
+        .setCompensationMethod(event.compensationMethod())
+        .setPayloads(ByteString.copyFrom(event.payloads()))
+        .build();
+  }
+
+  private static String ackKeyOf(String globalTxId, String localTxId) {
+    return globalTxId + "/" + localTxId;
+  }
+
+  private static final class PendingCompensation {
+    private final GrpcCompensateCommand command;
+    private final CompletableFuture<Void> ack;
+
+    private PendingCompensation(GrpcCompensateCommand command, CompletableFuture<Void> ack) {
+      this.command = command;
+      this.ack = ack;
+    }
   }
 }
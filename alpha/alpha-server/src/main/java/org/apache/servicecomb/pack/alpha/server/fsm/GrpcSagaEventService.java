@@ -21,9 +21,13 @@ import static java.util.Collections.emptyMap;
 
 import io.grpc.stub.StreamObserver;
 import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.servicecomb.pack.alpha.core.OmegaCallback;
 import org.apache.servicecomb.pack.alpha.core.fsm.CompensateAckType;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckFailedEvent;
@@ -32,9 +36,11 @@ import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventChannel;
 import org.apache.servicecomb.pack.common.EventType;
 import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
+import org.apache.servicecomb.pack.contract.grpc.GrpcAckBatch;
 import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommand;
 import org.apache.servicecomb.pack.contract.grpc.GrpcServiceConfig;
 import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEventBatch;
 import org.apache.servicecomb.pack.contract.grpc.ServerMeta;
 import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceImplBase;
 import org.slf4j.Logger;
@@ -48,12 +54,15 @@ public class GrpcSagaEventService extends TxEventServiceImplBase {
   private final Map<String, Map<String, OmegaCallback>> omegaCallbacks;
   private final ActorEventChannel actorEventChannel;
   private final ServerMeta serverMeta;
+  private final int compensationMaxInFlight;
 
   public GrpcSagaEventService(ActorEventChannel actorEventChannel,
-      Map<String, Map<String, OmegaCallback>> omegaCallbacks, ServerMeta serverMeta) {
+      Map<String, Map<String, OmegaCallback>> omegaCallbacks, ServerMeta serverMeta,
+      int compensationMaxInFlight) {
     this.actorEventChannel = actorEventChannel;
     this.omegaCallbacks = omegaCallbacks;
     this.serverMeta = serverMeta;
+    this.compensationMaxInFlight = compensationMaxInFlight;
   }
 
   @Override
@@ -64,7 +73,7 @@ public class GrpcSagaEventService extends TxEventServiceImplBase {
 
       @Override
       public void onNext(GrpcServiceConfig grpcServiceConfig) {
-        grpcOmegaCallback = new GrpcOmegaCallback(responseObserver);
+        grpcOmegaCallback = new GrpcOmegaCallback(responseObserver, compensationMaxInFlight);
         omegaCallbacks
             .computeIfAbsent(grpcServiceConfig.getServiceName(), key -> new ConcurrentHashMap<>())
             .put(grpcServiceConfig.getInstanceId(), grpcOmegaCallback);
@@ -98,6 +107,63 @@ public class GrpcSagaEventService extends TxEventServiceImplBase {
 
   @Override
   public void onTxEvent(GrpcTxEvent message, StreamObserver<GrpcAck> responseObserver) {
+    handle(message).thenAccept(ok -> {
+      responseObserver.onNext(ok ? ALLOW : REJECT);
+      responseObserver.onCompleted();
+    });
+  }
+
+  @Override
+  public StreamObserver<GrpcTxEventBatch> onTxEventStream(StreamObserver<GrpcAckBatch> responseObserver) {
+    return new StreamObserver<GrpcTxEventBatch>() {
+
+      // the batches are acked from the channel's callbacks, the stream is completed after the last one
+      private final AtomicInteger pendingBatches = new AtomicInteger();
+      private boolean completed;
+      private boolean failed;
+
+      @Override
+      public void onNext(GrpcTxEventBatch batch) {
+        pendingBatches.incrementAndGet();
+        GrpcAck[] acks = new GrpcAck[batch.getEventsCount()];
+        CompletableFuture<?>[] handled = new CompletableFuture<?>[acks.length];
+        for (int i = 0; i < acks.length; i++) {
+          GrpcTxEvent message = batch.getEvents(i);
+          int index = i;
+          handled[i] = handle(message).thenAccept(ok -> acks[index] = GrpcAck.newBuilder()
+              .setAborted(!ok)
+              .setCorrelationId(message.getCorrelationId())
+              .build()).toCompletableFuture();
+        }
+        CompletableFuture.allOf(handled).thenRun(() -> {
+          synchronized (this) {
+            if (!failed) {
+              responseObserver.onNext(GrpcAckBatch.newBuilder().addAllAcks(Arrays.asList(acks)).build());
+            }
+            if (pendingBatches.decrementAndGet() == 0 && completed && !failed) {
+              responseObserver.onCompleted();
+            }
+          }
+        });
+      }
+
+      @Override
+      public synchronized void onError(Throwable throwable) {
+        failed = true;
+        LOG.error(throwable.getMessage());
+      }
+
+      @Override
+      public synchronized void onCompleted() {
+        completed = true;
+        if (pendingBatches.get() == 0 && !failed) {
+          responseObserver.onCompleted();
+        }
+      }
+    };
+  }
+
+  private CompletionStage<Boolean> handle(GrpcTxEvent message) {
     if(LOG.isDebugEnabled()){
       LOG.debug("onText {}",message);
     }
@@ -178,7 +244,7 @@ public class GrpcSagaEventService extends TxEventServiceImplBase {
           .createTime(new Date())
           .localTxId(message.getLocalTxId()).build();
       omegaCallbacks.get(message.getServiceName()).get(message.getInstanceId())
-          .getAck(CompensateAckType.Succeed);
+          .getAck(message.getGlobalTxId(), message.getLocalTxId(), CompensateAckType.Succeed);
     } else if (message.getType().equals(EventType.TxCompensateAckFailedEvent.name())) {
       event = TxCompensateAckFailedEvent.builder()
           .payloads(message.getPayloads().toByteArray())
@@ -189,15 +255,15 @@ public class GrpcSagaEventService extends TxEventServiceImplBase {
           .createTime(new Date())
           .localTxId(message.getLocalTxId()).build();
       omegaCallbacks.get(message.getServiceName()).get(message.getInstanceId())
-          .getAck(CompensateAckType.Failed);
+          .getAck(message.getGlobalTxId(), message.getLocalTxId(), CompensateAckType.Failed);
     } else {
       ok = false;
     }
     if (event != null) {
-      actorEventChannel.send(event);
+      // reply from the channel's callback instead of holding the gRPC executor thread
+      return actorEventChannel.sendAsync(event).handle((done, ex) -> true);
     }
-    responseObserver.onNext(ok ? ALLOW : REJECT);
-    responseObserver.onCompleted();
+    return CompletableFuture.completedFuture(ok);
   }
 
   @Override
@@ -34,6 +34,17 @@ CREATE TABLE IF NOT EXISTS TxEvent (
   INDEX saga_global_tx_index (globalTxId)
 ) DEFAULT CHARSET=utf8;
 
+CREATE TABLE IF NOT EXISTS GlobalTxState (
+  globalTxId varchar(36) NOT NULL,
+  status varchar(12) NOT NULL,
+  aborted boolean NOT NULL DEFAULT FALSE,
+  expiryTime datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  lastModified datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  version bigint NOT NULL,
+  PRIMARY KEY (globalTxId),
+  INDEX saga_global_tx_state_index (status, aborted, expiryTime)
+) DEFAULT CHARSET=utf8;
+
 CREATE TABLE IF NOT EXISTS Command (
   surrogateId bigint NOT NULL AUTO_INCREMENT,
   eventId bigint NOT NULL UNIQUE,
@@ -122,3 +133,51 @@ CREATE TABLE IF NOT EXISTS master_lock (
   PRIMARY KEY (serviceName)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
+
+CREATE TABLE IF NOT EXISTS saga_global_transaction (
+  globalTxId varchar(36) NOT NULL,
+  type varchar(12) NOT NULL,
+  serviceName varchar(100) NOT NULL,
+  instanceId varchar(255) NOT NULL,
+  beginTime datetime(3) NOT NULL,
+  endTime datetime(3) NOT NULL,
+  state varchar(12) NOT NULL,
+  subTxSize int(11) NOT NULL DEFAULT '0',
+  durationTime bigint NOT NULL,
+  suspendedType varchar(36) DEFAULT NULL,
+  PRIMARY KEY (globalTxId),
+  INDEX saga_global_transaction_begin_index (beginTime, globalTxId),
+  INDEX saga_global_transaction_state_index (state, beginTime, globalTxId),
+  INDEX saga_global_transaction_duration_index (durationTime)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS saga_sub_transaction (
+  surrogateId bigint NOT NULL AUTO_INCREMENT,
+  globalTxId varchar(36) NOT NULL,
+  localTxId varchar(36) NOT NULL,
+  parentTxId varchar(36) DEFAULT NULL,
+  beginTime datetime(3) NOT NULL,
+  endTime datetime(3) NOT NULL,
+  state varchar(12) NOT NULL,
+  durationTime bigint NOT NULL,
+  PRIMARY KEY (surrogateId),
+  INDEX saga_sub_transaction_index (globalTxId)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS saga_transaction_event (
+  surrogateId bigint NOT NULL AUTO_INCREMENT,
+  globalTxId varchar(36) NOT NULL,
+  eventIndex int(11) NOT NULL,
+  type varchar(50) NOT NULL,
+  payload mediumtext NOT NULL,
+  PRIMARY KEY (surrogateId),
+  INDEX saga_transaction_event_index (globalTxId, eventIndex)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS saga_transaction_statistics (
+  state varchar(12) NOT NULL,
+  total bigint NOT NULL DEFAULT '0',
+  PRIMARY KEY (state)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+INSERT IGNORE INTO saga_transaction_statistics (state, total) VALUES ('COMMITTED', 0), ('COMPENSATED', 0), ('SUSPENDED', 0);
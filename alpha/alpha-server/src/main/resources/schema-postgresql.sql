@@ -35,6 +35,17 @@ CREATE INDEX IF NOT EXISTS saga_events_index ON TxEvent (surrogateId, globalTxId
 CREATE INDEX IF NOT EXISTS saga_global_tx_index ON TxEvent (globalTxId);
 
 
+CREATE TABLE IF NOT EXISTS GlobalTxState (
+  globalTxId varchar(36) PRIMARY KEY,
+  status varchar(12) NOT NULL,
+  aborted boolean NOT NULL DEFAULT FALSE,
+  expiryTime timestamp(6) NOT NULL,
+  lastModified timestamp(6) NOT NULL DEFAULT CURRENT_DATE,
+  version bigint NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS saga_global_tx_state_index ON GlobalTxState (status, aborted, expiryTime);
+
 CREATE TABLE IF NOT EXISTS Command (
   surrogateId BIGSERIAL PRIMARY KEY,
   eventId bigint NOT NULL UNIQUE,
@@ -125,3 +136,50 @@ CREATE TABLE IF NOT EXISTS master_lock (
 );
 
 CREATE INDEX IF NOT EXISTS master_lock_index ON master_lock (serviceName);
+
+CREATE TABLE IF NOT EXISTS saga_global_transaction (
+  globalTxId varchar(36) PRIMARY KEY,
+  type varchar(12) NOT NULL,
+  serviceName varchar(100) NOT NULL,
+  instanceId varchar(255) NOT NULL,
+  beginTime timestamp(6) NOT NULL,
+  endTime timestamp(6) NOT NULL,
+  state varchar(12) NOT NULL,
+  subTxSize int NOT NULL DEFAULT 0,
+  durationTime bigint NOT NULL,
+  suspendedType varchar(36) DEFAULT NULL
+);
+
+CREATE INDEX IF NOT EXISTS saga_global_transaction_begin_index ON saga_global_transaction (beginTime, globalTxId);
+CREATE INDEX IF NOT EXISTS saga_global_transaction_state_index ON saga_global_transaction (state, beginTime, globalTxId);
+CREATE INDEX IF NOT EXISTS saga_global_transaction_duration_index ON saga_global_transaction (durationTime);
+
+CREATE TABLE IF NOT EXISTS saga_sub_transaction (
+  surrogateId BIGSERIAL PRIMARY KEY,
+  globalTxId varchar(36) NOT NULL,
+  localTxId varchar(36) NOT NULL,
+  parentTxId varchar(36) DEFAULT NULL,
+  beginTime timestamp(6) NOT NULL,
+  endTime timestamp(6) NOT NULL,
+  state varchar(12) NOT NULL,
+  durationTime bigint NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS saga_sub_transaction_index ON saga_sub_transaction (globalTxId);
+
+CREATE TABLE IF NOT EXISTS saga_transaction_event (
+  surrogateId BIGSERIAL PRIMARY KEY,
+  globalTxId varchar(36) NOT NULL,
+  eventIndex int NOT NULL,
+  type varchar(50) NOT NULL,
+  payload text NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS saga_transaction_event_index ON saga_transaction_event (globalTxId, eventIndex);
+
+CREATE TABLE IF NOT EXISTS saga_transaction_statistics (
+  state varchar(12) PRIMARY KEY,
+  total bigint NOT NULL DEFAULT 0
+);
+
+INSERT INTO saga_transaction_statistics (state, total) VALUES ('COMMITTED', 0), ('COMPENSATED', 0), ('SUSPENDED', 0) ON CONFLICT DO NOTHING;
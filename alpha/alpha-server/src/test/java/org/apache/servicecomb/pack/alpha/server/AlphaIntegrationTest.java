@@ -27,6 +27,7 @@ import static org.apache.servicecomb.pack.common.EventType.TxCompensatedEvent;
 import static org.apache.servicecomb.pack.common.EventType.TxEndedEvent;
 import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
 import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.core.Is.is;
@@ -37,6 +38,7 @@ import com.google.protobuf.ByteString;
 import io.grpc.ManagedChannel;
 import io.grpc.netty.NettyChannelBuilder;
 import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -51,9 +53,11 @@ import org.apache.servicecomb.pack.alpha.core.*;
 import org.apache.servicecomb.pack.common.EventType;
 import org.apache.servicecomb.pack.common.AlphaMetaKeys;
 import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
+import org.apache.servicecomb.pack.contract.grpc.GrpcAckBatch;
 import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommand;
 import org.apache.servicecomb.pack.contract.grpc.GrpcServiceConfig;
 import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEventBatch;
 import org.apache.servicecomb.pack.contract.grpc.ServerMeta;
 import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc;
 import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceBlockingStub;
@@ -107,6 +111,9 @@ public class AlphaIntegrationTest {
   @Autowired
   private TxEventRepository eventRepository;
 
+  @Autowired
+  private GlobalTxStateRepository stateRepository;
+
   @Autowired
   private CommandRepository commandRepository;
 
@@ -199,6 +206,44 @@ public class AlphaIntegrationTest {
     assertThat(envelope.payloads(), is(payload.getBytes()));
   }
 
+  @Test
+  public void persistsEventsOfStream() {
+    asyncStub.onConnected(compensateResponseObserver).onNext(serviceConfig);
+    Queue<GrpcAck> acks = new ConcurrentLinkedQueue<>();
+    StreamObserver<GrpcTxEventBatch> eventStream = asyncStub.onTxEventStream(
+        new StreamObserver<GrpcAckBatch>() {
+          @Override
+          public void onNext(GrpcAckBatch batch) {
+            acks.addAll(batch.getAcksList());
+          }
+
+          @Override
+          public void onError(Throwable t) {
+          }
+
+          @Override
+          public void onCompleted() {
+          }
+        });
+    eventStream.onNext(GrpcTxEventBatch.newBuilder()
+        .addEvents(someGrpcEvent(TxStartedEvent).toBuilder().setCorrelationId(1))
+        .addEvents(someGrpcEvent(TxEndedEvent).toBuilder().setCorrelationId(2))
+        .build());
+    await().atMost(1, SECONDS).until(() -> acks.size() == 2);
+    eventStream.onCompleted();
+
+    List<Long> correlationIds = new ArrayList<>();
+    for (GrpcAck ack : acks) {
+      assertThat(ack.getAborted(), is(false));
+      correlationIds.add(ack.getCorrelationId());
+    }
+    assertThat(correlationIds, contains(1L, 2L));
+    List<TxEvent> events = eventRepo.findByGlobalTxId(globalTxId);
+    assertThat(events.size(), is(2));
+    assertThat(events.get(0).type(), is(TxStartedEvent.name()));
+    assertThat(events.get(1).type(), is(TxEndedEvent.name()));
+  }
+
   @Test
   public void closeStreamOnDisconnected() {
     asyncStub.onConnected(compensateResponseObserver).onNext(serviceConfig);
@@ -617,8 +662,9 @@ public class AlphaIntegrationTest {
     new EventScanner(
         Executors.newSingleThreadScheduledExecutor(),
         eventRepository,
+        stateRepository,
         commandRepository,
         timeoutRepository,
-        omegaCallback, 1, new NodeStatus(NodeStatus.TypeEnum.MASTER)).run();
+        omegaCallback, 1, 100, new NodeStatus(NodeStatus.TypeEnum.MASTER)).run();
   }
 }
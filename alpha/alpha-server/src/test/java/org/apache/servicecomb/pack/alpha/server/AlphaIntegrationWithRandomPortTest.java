@@ -96,6 +96,9 @@ public class AlphaIntegrationWithRandomPortTest {
   @Autowired
   private TxEventRepository eventRepository;
 
+  @Autowired
+  private GlobalTxStateRepository stateRepository;
+
   @Autowired
   private CommandRepository commandRepository;
 
@@ -599,8 +602,9 @@ public class AlphaIntegrationWithRandomPortTest {
     new EventScanner(
         Executors.newSingleThreadScheduledExecutor(),
         eventRepository,
+        stateRepository,
         commandRepository,
         timeoutRepository,
-        omegaCallback, 1, new NodeStatus(NodeStatus.TypeEnum.MASTER)).run();
+        omegaCallback, 1, 100, new NodeStatus(NodeStatus.TypeEnum.MASTER)).run();
   }
 }
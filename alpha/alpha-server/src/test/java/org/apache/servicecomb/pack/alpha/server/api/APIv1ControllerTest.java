@@ -350,4 +350,34 @@ public class APIv1ControllerTest {
         .andExpect(jsonPath("$", hasSize(10)))
         .andReturn();
   }
+
+  @Test
+  public void transactionCursorTest() throws Exception {
+    List<GlobalTransaction> globalTransactions = new ArrayList<>();
+    for(int i=0;i<10;i++){
+      globalTransactions.add(GlobalTransaction.builder()
+          .globalTxId(UUID.randomUUID().toString())
+          .beginTime(new Date())
+          .endTime(new Date())
+          .events(new ArrayList<>())
+          .subTransactions(new ArrayList<>())
+          .build());
+    }
+    PagingGlobalTransactions paging = PagingGlobalTransactions.builder()
+        .size(10)
+        .total(100)
+        .cursor("next-cursor")
+        .globalTransactions(globalTransactions)
+        .build();
+    when(transactionRepository.getGlobalTransactionsAfter(null, "cursor", 10, false))
+        .thenReturn(paging);
+    mockMvc.perform(get("/alpha/api/v1/transaction?cursor=cursor&size=10"))
+        .andExpect(status().isOk())
+        .andExpect(
+            MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+        .andExpect(jsonPath("$.total").value(100))
+        .andExpect(jsonPath("$.cursor").value("next-cursor"))
+        .andExpect(jsonPath("$.globalTransactions", hasSize(10)))
+        .andReturn();
+  }
 }
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.server.fsm;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.grpc.stub.StreamObserver;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.apache.servicecomb.pack.alpha.core.TxEvent;
+import org.apache.servicecomb.pack.alpha.core.exception.CompensateAckFailedException;
+import org.apache.servicecomb.pack.alpha.core.exception.CompensateConnectException;
+import org.apache.servicecomb.pack.alpha.core.fsm.CompensateAckType;
+import org.apache.servicecomb.pack.common.EventType;
+import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommand;
+import org.junit.Test;
+
+public class GrpcOmegaCallbackTest {
+
+  @SuppressWarnings("unchecked")
+  private final StreamObserver<GrpcCompensateCommand> observer = mock(StreamObserver.class);
+
+  private final String globalTxId = UUID.randomUUID().toString();
+
+  @Test
+  public void correlateAcksByGlobalTxIdAndLocalTxId() {
+    GrpcOmegaCallback callback = new GrpcOmegaCallback(observer, 10);
+    TxEvent event1 = eventOf(UUID.randomUUID().toString());
+    TxEvent event2 = eventOf(UUID.randomUUID().toString());
+
+    CompletableFuture<Void> ack1 = callback.compensateAsync(event1).toCompletableFuture();
+    CompletableFuture<Void> ack2 = callback.compensateAsync(event2).toCompletableFuture();
+    verify(observer, times(2)).onNext(any(GrpcCompensateCommand.class));
+
+    callback.getAck(globalTxId, event2.localTxId(), CompensateAckType.Succeed);
+    assertThat(ack1.isDone(), is(false));
+    assertThat(ack2.isDone(), is(true));
+    assertThat(callback.isWaiting(), is(true));
+
+    callback.getAck(globalTxId, event1.localTxId(), CompensateAckType.Failed);
+    assertThat(causeOf(ack1) instanceof CompensateAckFailedException, is(true));
+    assertThat(callback.isWaiting(), is(false));
+  }
+
+  @Test
+  public void queueCompensationsBeyondInFlightWindow() {
+    GrpcOmegaCallback callback = new GrpcOmegaCallback(observer, 1);
+    TxEvent event1 = eventOf(UUID.randomUUID().toString());
+    TxEvent event2 = eventOf(UUID.randomUUID().toString());
+
+    callback.compensateAsync(event1);
+    CompletableFuture<Void> ack2 = callback.compensateAsync(event2).toCompletableFuture();
+    verify(observer, times(1)).onNext(any(GrpcCompensateCommand.class));
+
+    callback.getAck(globalTxId, event1.localTxId(), CompensateAckType.Succeed);
+    verify(observer, times(2)).onNext(any(GrpcCompensateCommand.class));
+
+    callback.getAck(globalTxId, event2.localTxId(), CompensateAckType.Succeed);
+    assertThat(ack2.isDone(), is(true));
+  }
+
+  @Test
+  public void dropUnmatchedAck() {
+    GrpcOmegaCallback callback = new GrpcOmegaCallback(observer, 10);
+
+    CompletableFuture<Void> ack1 = callback.compensateAsync(eventOf(UUID.randomUUID().toString())).toCompletableFuture();
+    CompletableFuture<Void> ack2 = callback.compensateAsync(eventOf(UUID.randomUUID().toString())).toCompletableFuture();
+
+    callback.getAck(globalTxId, UUID.randomUUID().toString(), CompensateAckType.Succeed);
+    // an ack without localTxId is ambiguous while two compensations are in flight
+    callback.getAck(globalTxId, "", CompensateAckType.Succeed);
+    assertThat(ack1.isDone(), is(false));
+    assertThat(ack2.isDone(), is(false));
+  }
+
+  @Test
+  public void sendOneCompensationAtATimeToOmegaWithoutIds() {
+    GrpcOmegaCallback callback = new GrpcOmegaCallback(observer, 10);
+
+    CompletableFuture<Void> ack1 = callback.compensateAsync(eventOf(UUID.randomUUID().toString())).toCompletableFuture();
+    callback.getAck(globalTxId, "", CompensateAckType.Succeed);
+    assertThat(ack1.isDone(), is(true));
+
+    CompletableFuture<Void> ack2 = callback.compensateAsync(eventOf(UUID.randomUUID().toString())).toCompletableFuture();
+    CompletableFuture<Void> ack3 = callback.compensateAsync(eventOf(UUID.randomUUID().toString())).toCompletableFuture();
+    verify(observer, times(2)).onNext(any(GrpcCompensateCommand.class));
+
+    // never matched across global transactions
+    callback.getAck(UUID.randomUUID().toString(), "", CompensateAckType.Succeed);
+    assertThat(ack2.isDone(), is(false));
+
+    callback.getAck(globalTxId, "", CompensateAckType.Succeed);
+    assertThat(ack2.isDone(), is(true));
+    assertThat(ack3.isDone(), is(false));
+    verify(observer, times(3)).onNext(any(GrpcCompensateCommand.class));
+  }
+
+  @Test
+  public void failPendingCompensationsOnDisconnect() {
+    GrpcOmegaCallback callback = new GrpcOmegaCallback(observer, 1);
+
+    CompletableFuture<Void> ack1 = callback.compensateAsync(eventOf(UUID.randomUUID().toString())).toCompletableFuture();
+    CompletableFuture<Void> ack2 = callback.compensateAsync(eventOf(UUID.randomUUID().toString())).toCompletableFuture();
+    callback.disconnect();
+
+    assertThat(causeOf(ack1) instanceof CompensateConnectException, is(true));
+    assertThat(causeOf(ack2) instanceof CompensateConnectException, is(true));
+    verify(observer).onCompleted();
+    verify(observer, times(1)).onNext(any(GrpcCompensateCommand.class));
+  }
+
+  private Throwable causeOf(CompletableFuture<Void> future) {
+    try {
+      future.join();
+      return null;
+    } catch (CompletionException e) {
+      return e.getCause();
+    }
+  }
+
+  private TxEvent eventOf(String localTxId) {
+    return new TxEvent(
+        "service",
+        "instance",
+        globalTxId,
+        localTxId,
+        globalTxId,
+        EventType.TxCompensateEvent.name(),
+        "compensate",
+        new byte[0]);
+  }
+}
@@ -31,6 +31,15 @@ CREATE TABLE IF NOT EXISTS TxEvent (
   payloads blob
 );
 
+CREATE TABLE IF NOT EXISTS GlobalTxState (
+  globalTxId varchar(36) PRIMARY KEY,
+  status varchar(12) NOT NULL,
+  aborted boolean DEFAULT FALSE NOT NULL,
+  expiryTime TIMESTAMP NOT NULL,
+  lastModified TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+  version bigint NOT NULL
+);
+
 CREATE TABLE IF NOT EXISTS Command (
   surrogateId bigint GENERATED BY DEFAULT AS IDENTITY(START WITH 1, INCREMENT BY 1) PRIMARY KEY,
   eventId bigint NOT NULL UNIQUE,
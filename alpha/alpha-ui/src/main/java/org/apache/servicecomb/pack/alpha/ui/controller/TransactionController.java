@@ -71,10 +71,19 @@ public class TransactionController {
   public DataTablesResponseDTO sagaList(@ModelAttribute DataTablesRequestDTO dataTablesRequestDTO)
       throws Exception {
     List<TransactionRowDTO> data = new ArrayList<>();
-    PagingGlobalTransactions pagingGlobalTransactions = apiv1
-        .getTransactions(dataTablesRequestDTO.getState(),
-            dataTablesRequestDTO.getStart() / dataTablesRequestDTO.getLength(),
-            dataTablesRequestDTO.getLength());
+    PagingGlobalTransactions pagingGlobalTransactions;
+    if (dataTablesRequestDTO.getLength() > 0 && (dataTablesRequestDTO.getStart() == 0
+        || dataTablesRequestDTO.getCursor() != null)) {
+      // the next pages follow the cursor of the previous page, a page jump falls back to offsets
+      pagingGlobalTransactions = apiv1
+          .getTransactions(dataTablesRequestDTO.getState(), dataTablesRequestDTO.getCursor(),
+              dataTablesRequestDTO.getLength(), false);
+    } else {
+      pagingGlobalTransactions = apiv1
+          .getTransactions(dataTablesRequestDTO.getState(),
+              dataTablesRequestDTO.getStart() / dataTablesRequestDTO.getLength(),
+              dataTablesRequestDTO.getLength());
+    }
     pagingGlobalTransactions.getGlobalTransactions().forEach(globalTransaction -> {
       data.add(TransactionRowDTO.builder()
           .serviceName(globalTransaction.getServiceName())
@@ -91,6 +100,7 @@ public class TransactionController {
         .draw(dataTablesRequestDTO.getDraw())
         .recordsTotal(pagingGlobalTransactions.getTotal())
         .recordsFiltered(pagingGlobalTransactions.getTotal())
+        .cursor(pagingGlobalTransactions.getCursor())
         .data(data)
         .build();
   }
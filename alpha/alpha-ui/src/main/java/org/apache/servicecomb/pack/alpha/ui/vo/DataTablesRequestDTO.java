@@ -29,6 +29,7 @@ public class DataTablesRequestDTO {
   private int length;
   private String query;
   private String state;
+  private String cursor;
 
   public int getDraw() {
     return draw;
@@ -85,4 +86,12 @@ public class DataTablesRequestDTO {
   public void setState(String state) {
     this.state = state;
   }
+
+  public String getCursor() {
+    return cursor;
+  }
+
+  public void setCursor(String cursor) {
+    this.cursor = cursor;
+  }
 }
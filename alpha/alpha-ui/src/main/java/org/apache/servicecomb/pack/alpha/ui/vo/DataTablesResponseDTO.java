@@ -24,6 +24,7 @@ public class DataTablesResponseDTO {
   private int draw;
   private long recordsTotal;
   private long recordsFiltered;
+  private String cursor;
   private List<TransactionRowDTO> data = new ArrayList<>();
 
   public int getDraw() {
@@ -38,6 +39,10 @@ public class DataTablesResponseDTO {
     return recordsFiltered;
   }
 
+  public String getCursor() {
+    return cursor;
+  }
+
   public List<TransactionRowDTO> getData() {
     return data;
   }
@@ -51,6 +56,7 @@ public class DataTablesResponseDTO {
     private int draw;
     private long recordsTotal;
     private long recordsFiltered;
+    private String cursor;
     private List<TransactionRowDTO> data = new ArrayList<>();
 
     private Builder() {
@@ -71,6 +77,11 @@ public class DataTablesResponseDTO {
       return this;
     }
 
+    public Builder cursor(String cursor) {
+      this.cursor = cursor;
+      return this;
+    }
+
     public Builder data(List<TransactionRowDTO> data) {
       this.data = data;
       return this;
@@ -81,6 +92,7 @@ public class DataTablesResponseDTO {
       dataTablesResponseDTO.recordsTotal = this.recordsTotal;
       dataTablesResponseDTO.recordsFiltered = this.recordsFiltered;
       dataTablesResponseDTO.draw = this.draw;
+      dataTablesResponseDTO.cursor = this.cursor;
       dataTablesResponseDTO.data = this.data;
       return dataTablesResponseDTO;
     }
@@ -17,6 +17,10 @@
 
 $(document).ready(function () {
 
+  // cursor of the page which starts at the offset, returned by the previous page
+  var cursors = {};
+  var nextStart = 0;
+
   function datatablesRequest(data) {
     for (var i = 0; i < data.columns.length; i++) {
       column = data.columns[i];
@@ -34,6 +38,11 @@ $(document).ready(function () {
     if($('select[name="state_select"]').find('option:selected').text() != 'ALL'){
       data.state = $('select[name="state_select"]').find('option:selected').text()
     }
+
+    if (cursors[data.start] !== undefined) {
+      data.cursor = cursors[data.start];
+    }
+    nextStart = data.start + data.length;
   }
 
   var transaction_table = $('#dataTable').DataTable({
@@ -49,6 +58,12 @@ $(document).ready(function () {
       type: 'POST',
       data: function (data) {
         datatablesRequest(data);
+      },
+      dataSrc: function (json) {
+        if (json.cursor) {
+          cursors[nextStart] = json.cursor;
+        }
+        return json.data;
       }
     },
     language: {
@@ -104,6 +119,11 @@ $(document).ready(function () {
       + '<option value="COMPENSATED">COMPENSATED</option>'
       + '<option value="SUSPENDED">SUSPENDED</option></select>');
   stateSelect.on('change',function(){
+    cursors = {};
     transaction_table.ajax.reload();
   })
+
+  transaction_table.on('length.dt', function () {
+    cursors = {};
+  });
 });
\ No newline at end of file
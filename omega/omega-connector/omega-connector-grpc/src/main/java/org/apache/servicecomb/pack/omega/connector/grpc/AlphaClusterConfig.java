@@ -26,6 +26,8 @@ import org.apache.servicecomb.pack.omega.transaction.tcc.TccMessageHandler;
 
 public class AlphaClusterConfig {
 
+  public static final int DEFAULT_EVENT_BATCH_SIZE = 128;
+
   private List<String> addresses;
 
   private boolean enableSSL;
@@ -46,6 +48,12 @@ public class AlphaClusterConfig {
 
   private TccMessageHandler tccMessageHandler;
 
+  private boolean enableEventStream;
+
+  private int eventBatchSize = DEFAULT_EVENT_BATCH_SIZE;
+
+  private long eventBatchLingerMillis;
+
   /**
    * @deprecated Use {@link Builder} instead.
    */
@@ -69,7 +77,10 @@ public class AlphaClusterConfig {
       MessageSerializer messageSerializer,
       MessageDeserializer messageDeserializer,
       MessageHandler messageHandler,
-      TccMessageHandler tccMessageHandler) {
+      TccMessageHandler tccMessageHandler,
+      boolean enableEventStream,
+      int eventBatchSize,
+      long eventBatchLingerMillis) {
     this.addresses = addresses;
     this.enableSSL = enableSSL;
     this.enableMutualAuth = enableMutualAuth;
@@ -80,6 +91,9 @@ public class AlphaClusterConfig {
     this.messageDeserializer = messageDeserializer;
     this.messageHandler = messageHandler;
     this.tccMessageHandler = tccMessageHandler;
+    this.enableEventStream = enableEventStream;
+    this.eventBatchSize = eventBatchSize;
+    this.eventBatchLingerMillis = eventBatchLingerMillis;
   }
 
   public static Builder builder() {
@@ -98,6 +112,9 @@ public class AlphaClusterConfig {
     private MessageDeserializer messageDeserializer;
     private MessageHandler messageHandler;
     private TccMessageHandler tccMessageHandler;
+    private boolean enableEventStream;
+    private int eventBatchSize = DEFAULT_EVENT_BATCH_SIZE;
+    private long eventBatchLingerMillis;
 
     public Builder addresses(List<String> addresses) {
       this.addresses = addresses;
@@ -149,6 +166,21 @@ public class AlphaClusterConfig {
       return this;
     }
 
+    public Builder enableEventStream(boolean enableEventStream) {
+      this.enableEventStream = enableEventStream;
+      return this;
+    }
+
+    public Builder eventBatchSize(int eventBatchSize) {
+      this.eventBatchSize = eventBatchSize;
+      return this;
+    }
+
+    public Builder eventBatchLingerMillis(long eventBatchLingerMillis) {
+      this.eventBatchLingerMillis = eventBatchLingerMillis;
+      return this;
+    }
+
 
     public AlphaClusterConfig build() {
       return new AlphaClusterConfig(this.addresses,
@@ -160,7 +192,10 @@ public class AlphaClusterConfig {
           this.messageSerializer,
           this.messageDeserializer,
           messageHandler,
-          tccMessageHandler);
+          tccMessageHandler,
+          enableEventStream,
+          eventBatchSize,
+          eventBatchLingerMillis);
     }
   }
 
@@ -203,4 +238,16 @@ public class AlphaClusterConfig {
   public TccMessageHandler getTccMessageHandler() {
     return tccMessageHandler;
   }
+
+  public boolean isEnableEventStream() {
+    return enableEventStream;
+  }
+
+  public int getEventBatchSize() {
+    return eventBatchSize;
+  }
+
+  public long getEventBatchLingerMillis() {
+    return eventBatchLingerMillis;
+  }
 }
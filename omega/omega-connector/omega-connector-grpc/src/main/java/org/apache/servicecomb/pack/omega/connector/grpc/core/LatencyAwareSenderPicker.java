@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.omega.connector.grpc.core;
+
+import org.apache.servicecomb.pack.omega.transaction.MessageSender;
+
+/**
+ * A {@link MessageSenderPicker} which is told about every send to the {@link MessageSender} it
+ * picked, {@link LoadBalanceSenderAdapter} calls {@link #onSendStarted(MessageSender)} and then
+ * exactly one of the other methods once the send is done
+ */
+public interface LatencyAwareSenderPicker extends MessageSenderPicker {
+
+  void onSendStarted(MessageSender messageSender);
+
+  void onSendSucceeded(MessageSender messageSender, long latencyNanos);
+
+  void onSendFailed(MessageSender messageSender);
+
+  /**
+   * The send is given up for a reason which says nothing about the sender, e.g. an interruption
+   */
+  void onSendCancelled(MessageSender messageSender);
+}
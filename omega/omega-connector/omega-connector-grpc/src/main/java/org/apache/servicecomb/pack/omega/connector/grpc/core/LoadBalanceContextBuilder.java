@@ -114,7 +114,10 @@ public class LoadBalanceContextBuilder {
             clusterConfig.getMessageDeserializer(),
             serviceConfig,
             clusterConfig.getMessageHandler(),
-            loadContext
+            loadContext,
+            clusterConfig.isEnableEventStream(),
+            clusterConfig.getEventBatchSize(),
+            clusterConfig.getEventBatchLingerMillis()
         );
         default:
     }
@@ -50,19 +50,54 @@ public abstract class LoadBalanceSenderAdapter implements MessageSender {
 
   public <T> Optional<AlphaResponse> doGrpcSend(MessageSender messageSender, T event, SenderExecutor<T> executor) {
     AlphaResponse response = null;
+    sendStarted(messageSender);
     try {
       long startTime = System.nanoTime();
       response = executor.apply(event);
-      loadContext.getSenders().put(messageSender, System.nanoTime() - startTime);
+      sendSucceeded(messageSender, System.nanoTime() - startTime);
     } catch (OmegaException e) {
+      sendFailed(messageSender, e);
       throw e;
     } catch (Exception e) {
       LOG.error("Retry sending event {} due to failure", event, e);
-      loadContext.getSenders().put(messageSender, Long.MAX_VALUE);
+      sendFailed(messageSender, e);
     }
     return Optional.fromNullable(response);
   }
 
+  /**
+   * Tells a {@link LatencyAwareSenderPicker} about a send to the picked sender, every call has to
+   * be followed by {@link #sendSucceeded(MessageSender, long)} or
+   * {@link #sendFailed(MessageSender, Throwable)}
+   */
+  protected void sendStarted(MessageSender messageSender) {
+    if (senderPicker instanceof LatencyAwareSenderPicker) {
+      ((LatencyAwareSenderPicker) senderPicker).onSendStarted(messageSender);
+    }
+  }
+
+  protected void sendSucceeded(MessageSender messageSender, long latencyNanos) {
+    loadContext.getSenders().put(messageSender, latencyNanos);
+    if (senderPicker instanceof LatencyAwareSenderPicker) {
+      ((LatencyAwareSenderPicker) senderPicker).onSendSucceeded(messageSender, latencyNanos);
+    }
+  }
+
+  // an OmegaException is raised by omega itself, so it does not count against the sender
+  protected void sendFailed(MessageSender messageSender, Throwable failure) {
+    if (!(failure instanceof OmegaException)) {
+      loadContext.getSenders().put(messageSender, Long.MAX_VALUE);
+    }
+    if (senderPicker instanceof LatencyAwareSenderPicker) {
+      LatencyAwareSenderPicker picker = (LatencyAwareSenderPicker) senderPicker;
+      if (failure instanceof OmegaException) {
+        picker.onSendCancelled(messageSender);
+      } else {
+        picker.onSendFailed(messageSender);
+      }
+    }
+  }
+
   @Override
   public void onConnected() {
     for(MessageSender sender : loadContext.getSenders().keySet()){
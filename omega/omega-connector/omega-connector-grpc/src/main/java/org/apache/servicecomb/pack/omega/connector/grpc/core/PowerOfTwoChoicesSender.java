@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.omega.connector.grpc.core;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Ticker;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.servicecomb.pack.omega.transaction.MessageSender;
+
+/**
+ * The strategy of picking the less loaded of two randomly chosen {@link MessageSender}s. The load
+ * of a sender is its peak EWMA latency times its sends in flight, so a sender which gets slow or
+ * busy loses traffic to the others step by step, instead of all the traffic moving from one
+ * fastest sender to the next. A failed send adds a penalty to the latency of its sender, the
+ * penalty decays over time until the sender is picked again, and is cleared by a successful send.
+ */
+public class PowerOfTwoChoicesSender implements LatencyAwareSenderPicker {
+
+  public static final long DEFAULT_DECAY_MILLIS = 1000;
+  public static final long DEFAULT_FAILURE_PENALTY_MILLIS = 1000;
+
+  // the latency of a sender without any response yet, so its sends in flight still count
+  private static final double MIN_LATENCY_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+  private final ConcurrentMap<MessageSender, SenderStats> senderStats = new ConcurrentHashMap<>();
+
+  private final double decayNanos;
+
+  private final double failurePenaltyNanos;
+
+  private final Ticker ticker;
+
+  // null picks with the random of the calling thread
+  private final Random random;
+
+  public PowerOfTwoChoicesSender() {
+    this(DEFAULT_DECAY_MILLIS, DEFAULT_FAILURE_PENALTY_MILLIS);
+  }
+
+  public PowerOfTwoChoicesSender(long decayMillis, long failurePenaltyMillis) {
+    this(decayMillis, failurePenaltyMillis, Ticker.systemTicker(), null);
+  }
+
+  /**
+   * @param ticker the clock the latencies decay with
+   * @param random picks the two candidates, null for the random of the calling thread
+   */
+  public PowerOfTwoChoicesSender(long decayMillis, long failurePenaltyMillis, Ticker ticker,
+      Random random) {
+    if (decayMillis <= 0) {
+      throw new IllegalArgumentException("decayMillis must be greater than 0");
+    }
+    this.decayNanos = TimeUnit.MILLISECONDS.toNanos(decayMillis);
+    this.failurePenaltyNanos = TimeUnit.MILLISECONDS.toNanos(failurePenaltyMillis);
+    this.ticker = ticker;
+    this.random = random;
+  }
+
+  @Override
+  public MessageSender pick(Map<? extends MessageSender, Long> messageSenders,
+      Supplier<MessageSender> defaultSender) {
+    int size = messageSenders.size();
+    // the stats of the senders removed while reconnecting are dropped, a sender without any send
+    // yet has no stats, so there are never more stats than senders otherwise
+    if (senderStats.size() > size) {
+      senderStats.keySet().retainAll(messageSenders.keySet());
+    }
+    if (size < 2) {
+      for (MessageSender sender : messageSenders.keySet()) {
+        return sender;
+      }
+      return defaultSender.get();
+    }
+    Random random = random();
+    int first = random.nextInt(size);
+    int second = random.nextInt(size - 1);
+    if (second >= first) {
+      second++;
+    }
+    MessageSender firstSender = null;
+    MessageSender secondSender = null;
+    int index = 0;
+    for (MessageSender sender : messageSenders.keySet()) {
+      if (index == first) {
+        firstSender = sender;
+      } else if (index == second) {
+        secondSender = sender;
+      }
+      if (++index > Math.max(first, second)) {
+        break;
+      }
+    }
+    // the senders may be removed while reconnecting
+    if (firstSender == null || secondSender == null) {
+      MessageSender sender = firstSender != null ? firstSender : secondSender;
+      return sender != null ? sender : defaultSender.get();
+    }
+    long now = ticker.read();
+    return cost(firstSender, now) <= cost(secondSender, now) ? firstSender : secondSender;
+  }
+
+  @Override
+  public void onSendStarted(MessageSender messageSender) {
+    stats(messageSender).outstanding.incrementAndGet();
+  }
+
+  @Override
+  public void onSendSucceeded(MessageSender messageSender, long latencyNanos) {
+    SenderStats stats = stats(messageSender);
+    stats.outstanding.decrementAndGet();
+    stats.succeeded(latencyNanos, ticker.read(), decayNanos);
+  }
+
+  @Override
+  public void onSendFailed(MessageSender messageSender) {
+    SenderStats stats = stats(messageSender);
+    stats.outstanding.decrementAndGet();
+    stats.failed(ticker.read(), failurePenaltyNanos, decayNanos);
+  }
+
+  @Override
+  public void onSendCancelled(MessageSender messageSender) {
+    stats(messageSender).outstanding.decrementAndGet();
+  }
+
+  double cost(MessageSender messageSender, long now) {
+    SenderStats stats = senderStats.get(messageSender);
+    return stats == null ? 0 : stats.cost(now, decayNanos);
+  }
+
+  private SenderStats stats(MessageSender messageSender) {
+    SenderStats stats = senderStats.get(messageSender);
+    if (stats == null) {
+      SenderStats newStats = new SenderStats();
+      stats = senderStats.putIfAbsent(messageSender, newStats);
+      if (stats == null) {
+        stats = newStats;
+      }
+    }
+    return stats;
+  }
+
+  private Random random() {
+    return random != null ? random : ThreadLocalRandom.current();
+  }
+
+  private static final class SenderStats {
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private double latencyNanos;
+    private long latencyTime;
+    private boolean measured;
+    private double penaltyNanos;
+    private long penaltyTime;
+
+    // a latency above the average is taken as is, so a slow sender is noticed at once
+    synchronized void succeeded(long latency, long now, double decayNanos) {
+      if (!measured || latency > latencyNanos) {
+        latencyNanos = latency;
+        measured = true;
+      } else {
+        double weight = Math.exp(-(now - latencyTime) / decayNanos);
+        latencyNanos = latencyNanos * weight + latency * (1 - weight);
+      }
+      latencyTime = now;
+      penaltyNanos = 0;
+    }
+
+    synchronized void failed(long now, double failurePenaltyNanos, double decayNanos) {
+      penaltyNanos = penalty(now, decayNanos) + failurePenaltyNanos;
+      penaltyTime = now;
+    }
+
+    synchronized double cost(long now, double decayNanos) {
+      double latency = Math.max(latencyNanos, MIN_LATENCY_NANOS) + penalty(now, decayNanos);
+      return latency * (outstanding.get() + 1);
+    }
+
+    private double penalty(long now, double decayNanos) {
+      if (penaltyNanos == 0) {
+        return 0;
+      }
+      return penaltyNanos * Math.exp(-(now - penaltyTime) / decayNanos);
+    }
+  }
+}
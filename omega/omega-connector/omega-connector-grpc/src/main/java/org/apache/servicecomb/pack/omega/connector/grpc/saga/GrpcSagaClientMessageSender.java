@@ -19,13 +19,17 @@ package org.apache.servicecomb.pack.omega.connector.grpc.saga;
 
 import com.google.protobuf.ByteString;
 import io.grpc.ManagedChannel;
+import java.util.concurrent.ExecutionException;
 import org.apache.servicecomb.pack.contract.grpc.ServerMeta;
+import org.apache.servicecomb.pack.omega.connector.grpc.AlphaClusterConfig;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.LoadBalanceContext;
 import org.apache.servicecomb.pack.omega.context.ServiceConfig;
 import org.apache.servicecomb.pack.omega.transaction.AlphaResponse;
+import org.apache.servicecomb.pack.omega.transaction.AlphaResponseFuture;
 import org.apache.servicecomb.pack.omega.transaction.MessageDeserializer;
 import org.apache.servicecomb.pack.omega.transaction.MessageHandler;
 import org.apache.servicecomb.pack.omega.transaction.MessageSerializer;
+import org.apache.servicecomb.pack.omega.transaction.OmegaException;
 import org.apache.servicecomb.pack.omega.transaction.SagaMessageSender;
 import org.apache.servicecomb.pack.omega.transaction.TxEvent;
 import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
@@ -50,6 +54,9 @@ public class GrpcSagaClientMessageSender implements SagaMessageSender {
 
   private final GrpcServiceConfig serviceConfig;
 
+  // null if the events are sent with a call per event
+  private final GrpcTxEventStream eventStream;
+
   public GrpcSagaClientMessageSender(
       String address,
       ManagedChannel channel,
@@ -58,6 +65,28 @@ public class GrpcSagaClientMessageSender implements SagaMessageSender {
       ServiceConfig serviceConfig,
       MessageHandler handler,
       LoadBalanceContext loadContext) {
+    this(address, channel, serializer, deserializer, serviceConfig, handler, loadContext, false,
+        AlphaClusterConfig.DEFAULT_EVENT_BATCH_SIZE, 0);
+  }
+
+  /**
+   * @param enableEventStream the events are sent in batches over a streaming call, alphas without
+   * it get a call per event
+   * @param eventBatchSize the max events of a batch
+   * @param eventBatchLingerMillis how long a batch short of eventBatchSize waits for more events,
+   * 0 sends it as soon as the stream is ready
+   */
+  public GrpcSagaClientMessageSender(
+      String address,
+      ManagedChannel channel,
+      MessageSerializer serializer,
+      MessageDeserializer deserializer,
+      ServiceConfig serviceConfig,
+      MessageHandler handler,
+      LoadBalanceContext loadContext,
+      boolean enableEventStream,
+      int eventBatchSize,
+      long eventBatchLingerMillis) {
     this.target = address;
     this.asyncEventService = TxEventServiceGrpc.newStub(channel);
     this.blockingEventService = TxEventServiceGrpc.newBlockingStub(channel);
@@ -65,6 +94,9 @@ public class GrpcSagaClientMessageSender implements SagaMessageSender {
     this.compensateStreamObserver =
         new GrpcCompensateStreamObserver(loadContext, this, handler, deserializer);
     this.serviceConfig = serviceConfig(serviceConfig.serviceName(), serviceConfig.instanceId());
+    this.eventStream = enableEventStream
+        ? new GrpcTxEventStream(asyncEventService, GrpcTxEventStream.DEFAULT_MAX_IN_FLIGHT,
+        eventBatchSize, eventBatchLingerMillis) : null;
   }
 
   @Override
@@ -94,8 +126,32 @@ public class GrpcSagaClientMessageSender implements SagaMessageSender {
 
   @Override
   public AlphaResponse send(TxEvent event) {
-    GrpcAck grpcAck = blockingEventService.onTxEvent(convertEvent(event));
-    return new AlphaResponse(grpcAck.getAborted());
+    if (eventStream == null) {
+      GrpcAck grpcAck = blockingEventService.onTxEvent(convertEvent(event));
+      return new AlphaResponse(grpcAck.getAborted());
+    }
+    try {
+      return eventStream.send(convertEvent(event)).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OmegaException("Failed to send event " + event + " due to interruption", e);
+    } catch (ExecutionException e) {
+      // rethrown as is like the blocking call does, so the load balancer resends the event
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new OmegaException("Failed to send event " + event, e.getCause());
+    }
+  }
+
+  @Override
+  public AlphaResponseFuture sendAsync(TxEvent event) {
+    if (eventStream != null) {
+      return eventStream.send(convertEvent(event));
+    }
+    AlphaResponseFuture future = new AlphaResponseFuture();
+    GrpcTxEventStream.sendUnary(asyncEventService, convertEvent(event), future);
+    return future;
   }
 
   private GrpcTxEvent convertEvent(TxEvent event) {
@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.omega.connector.grpc.saga;
+
+import io.grpc.Status;
+import io.grpc.Status.Code;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.StreamObserver;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
+import org.apache.servicecomb.pack.contract.grpc.GrpcAckBatch;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEventBatch;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceStub;
+import org.apache.servicecomb.pack.omega.transaction.AlphaResponse;
+import org.apache.servicecomb.pack.omega.transaction.AlphaResponseFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends the events to alpha over one long lived OnTxEventStream call instead of an OnTxEvent call
+ * per event. The events queued while the stream is busy go out together in a batch, and alpha
+ * acks every event by its correlation id. The events sent but not acked yet are limited by
+ * <code>maxInFlight</code>, and a batch is only written when the transport of the call is ready.
+ * An alpha without the streaming call answers UNIMPLEMENTED, the sender then falls back to
+ * OnTxEvent for good.
+ * <p>
+ * With a <code>lingerMillis</code> greater than 0 a batch is held back until it has
+ * <code>maxBatchSize</code> events or its first event has waited <code>lingerMillis</code>, so
+ * the events of many threads share a frame at the cost of up to <code>lingerMillis</code> of
+ * latency. The events are written in sending order, which keeps the order of the events of a
+ * global transaction.
+ */
+class GrpcTxEventStream {
+
+  static final int DEFAULT_MAX_IN_FLIGHT = 256;
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  // flushes the batches of all the streams once they have lingered
+  private static final ScheduledExecutorService LINGER_TIMER = Executors
+      .newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "omega-event-batch-linger");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+
+  private final TxEventServiceStub asyncEventService;
+
+  private final int maxInFlight;
+
+  private final int maxBatchSize;
+
+  private final long lingerMillis;
+
+  private final Queue<PendingEvent> pendingEvents = new ArrayDeque<>();
+
+  // the events written to the stream in sending order, keyed by correlation id
+  private final Map<Long, PendingEvent> inFlightEvents = new LinkedHashMap<>();
+
+  private ClientCallStreamObserver<GrpcTxEventBatch> requestStream;
+
+  private long nextCorrelationId;
+
+  private boolean unsupported;
+
+  private ScheduledFuture<?> lingerTask;
+
+  // the first pending event has waited lingerMillis, so a batch short of maxBatchSize is due
+  private boolean lingerExpired;
+
+  GrpcTxEventStream(TxEventServiceStub asyncEventService, int maxInFlight, int maxBatchSize,
+      long lingerMillis) {
+    if (maxBatchSize <= 0) {
+      throw new IllegalArgumentException("maxBatchSize must be greater than 0");
+    }
+    if (lingerMillis < 0) {
+      throw new IllegalArgumentException("lingerMillis must not be negative");
+    }
+    this.asyncEventService = asyncEventService;
+    this.maxInFlight = maxInFlight;
+    this.maxBatchSize = maxBatchSize;
+    this.lingerMillis = lingerMillis;
+  }
+
+  AlphaResponseFuture send(GrpcTxEvent event) {
+    AlphaResponseFuture future = new AlphaResponseFuture();
+    synchronized (this) {
+      if (!unsupported) {
+        pendingEvents.add(new PendingEvent(event, future));
+        if (requestStream == null) {
+          openStream();
+        } else {
+          flush();
+        }
+        return future;
+      }
+    }
+    sendUnary(asyncEventService, event, future);
+    return future;
+  }
+
+  static void sendUnary(TxEventServiceStub asyncEventService, GrpcTxEvent event,
+      final AlphaResponseFuture future) {
+    asyncEventService.onTxEvent(event, new StreamObserver<GrpcAck>() {
+      @Override
+      public void onNext(GrpcAck grpcAck) {
+        future.complete(new AlphaResponse(grpcAck.getAborted()));
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        future.fail(t);
+      }
+
+      @Override
+      public void onCompleted() {
+        // the ack is the only message of the response
+      }
+    });
+  }
+
+  // the batches are written from the transport's ready callback once the call is started
+  private void openStream() {
+    asyncEventService.onTxEventStream(new ClientResponseObserver<GrpcTxEventBatch, GrpcAckBatch>() {
+
+      private ClientCallStreamObserver<GrpcTxEventBatch> stream;
+
+      @Override
+      public void beforeStart(final ClientCallStreamObserver<GrpcTxEventBatch> stream) {
+        this.stream = stream;
+        requestStream = stream;
+        stream.setOnReadyHandler(new Runnable() {
+          @Override
+          public void run() {
+            synchronized (GrpcTxEventStream.this) {
+              if (requestStream == stream) {
+                flush();
+              }
+            }
+          }
+        });
+      }
+
+      @Override
+      public void onNext(GrpcAckBatch batch) {
+        onAcks(stream, batch);
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        onClosed(stream, t);
+      }
+
+      @Override
+      public void onCompleted() {
+        onClosed(stream, Status.UNAVAILABLE
+            .withDescription("Event stream is completed by alpha").asRuntimeException());
+      }
+    });
+  }
+
+  /**
+   * Writes the batches the transport and alpha can take, a batch short of
+   * <code>maxBatchSize</code> is only written when linger is off or has expired
+   */
+  private void flush() {
+    while (!pendingEvents.isEmpty() && inFlightEvents.size() < maxInFlight
+        && requestStream.isReady()
+        && (lingerExpired || lingerMillis == 0 || pendingEvents.size() >= maxBatchSize)) {
+      GrpcTxEventBatch.Builder batch = GrpcTxEventBatch.newBuilder();
+      while (!pendingEvents.isEmpty() && inFlightEvents.size() < maxInFlight
+          && batch.getEventsCount() < maxBatchSize) {
+        PendingEvent pendingEvent = pendingEvents.poll();
+        long correlationId = nextCorrelationId++;
+        inFlightEvents.put(correlationId, pendingEvent);
+        batch.addEvents(pendingEvent.event.toBuilder().setCorrelationId(correlationId));
+      }
+      requestStream.onNext(batch.build());
+    }
+    if (pendingEvents.isEmpty()) {
+      lingerExpired = false;
+    } else if (lingerMillis > 0 && lingerTask == null && !lingerExpired) {
+      lingerTask = LINGER_TIMER.schedule(new Runnable() {
+        @Override
+        public void run() {
+          synchronized (GrpcTxEventStream.this) {
+            lingerTask = null;
+            if (requestStream != null) {
+              lingerExpired = true;
+              flush();
+            }
+          }
+        }
+      }, lingerMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void onAcks(ClientCallStreamObserver<GrpcTxEventBatch> stream, GrpcAckBatch batch) {
+    List<PendingEvent> acked = new ArrayList<>(batch.getAcksCount());
+    synchronized (this) {
+      if (requestStream != stream) {
+        return;
+      }
+      for (GrpcAck ack : batch.getAcksList()) {
+        PendingEvent pendingEvent = inFlightEvents.remove(ack.getCorrelationId());
+        if (pendingEvent != null) {
+          pendingEvent.aborted = ack.getAborted();
+          acked.add(pendingEvent);
+        }
+      }
+      flush();
+    }
+    for (PendingEvent pendingEvent : acked) {
+      pendingEvent.future.complete(new AlphaResponse(pendingEvent.aborted));
+    }
+  }
+
+  private void onClosed(ClientCallStreamObserver<GrpcTxEventBatch> stream, Throwable t) {
+    List<PendingEvent> unacked;
+    boolean fallback;
+    synchronized (this) {
+      if (requestStream != stream) {
+        return;
+      }
+      requestStream = null;
+      unacked = new ArrayList<>(inFlightEvents.values());
+      unacked.addAll(pendingEvents);
+      inFlightEvents.clear();
+      pendingEvents.clear();
+      if (lingerTask != null) {
+        lingerTask.cancel(false);
+        lingerTask = null;
+      }
+      lingerExpired = false;
+      if (Status.fromThrowable(t).getCode() == Code.UNIMPLEMENTED) {
+        LOG.warn("Alpha does not support the event stream, sending the events one by one");
+        unsupported = true;
+      }
+      fallback = unsupported;
+    }
+    for (PendingEvent pendingEvent : unacked) {
+      if (fallback) {
+        sendUnary(asyncEventService, pendingEvent.event, pendingEvent.future);
+      } else {
+        pendingEvent.future.fail(t);
+      }
+    }
+  }
+
+  private static final class PendingEvent {
+
+    private final GrpcTxEvent event;
+    private final AlphaResponseFuture future;
+    private boolean aborted;
+
+    private PendingEvent(GrpcTxEvent event, AlphaResponseFuture future) {
+      this.event = event;
+      this.future = future;
+    }
+  }
+}
@@ -22,6 +22,7 @@ import static org.apache.servicecomb.pack.common.EventType.SagaStartedEvent;
 import java.util.concurrent.BlockingQueue;
 import org.apache.servicecomb.pack.contract.grpc.ServerMeta;
 import org.apache.servicecomb.pack.omega.transaction.AlphaResponse;
+import org.apache.servicecomb.pack.omega.transaction.AlphaResponseFuture;
 import org.apache.servicecomb.pack.omega.transaction.MessageSender;
 import org.apache.servicecomb.pack.omega.transaction.OmegaException;
 import org.apache.servicecomb.pack.omega.transaction.SagaMessageSender;
@@ -71,4 +72,18 @@ public class RetryableMessageSender implements SagaMessageSender {
       throw new OmegaException("Failed to send event " + event + " due to interruption", e);
     }
   }
+
+  /**
+   * Waits for an available alpha like {@link #send(TxEvent)}, the caller is blocked meanwhile
+   */
+  @Override
+  public AlphaResponseFuture sendAsync(TxEvent event) {
+    AlphaResponseFuture future = new AlphaResponseFuture();
+    try {
+      future.complete(send(event));
+    } catch (OmegaException e) {
+      future.fail(e);
+    }
+    return future;
+  }
 }
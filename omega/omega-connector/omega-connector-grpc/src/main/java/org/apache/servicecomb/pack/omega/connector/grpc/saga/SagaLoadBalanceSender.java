@@ -19,24 +19,75 @@ package org.apache.servicecomb.pack.omega.connector.grpc.saga;
 
 import com.google.common.base.Optional;
 
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.apache.servicecomb.pack.common.EventType;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.LoadBalanceSenderAdapter;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.MessageSenderPicker;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.SenderExecutor;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.LoadBalanceContext;
 import org.apache.servicecomb.pack.omega.transaction.AlphaResponse;
+import org.apache.servicecomb.pack.omega.transaction.AlphaResponseFuture;
 import org.apache.servicecomb.pack.omega.transaction.OmegaException;
 import org.apache.servicecomb.pack.omega.transaction.SagaMessageSender;
 import org.apache.servicecomb.pack.omega.transaction.TxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class SagaLoadBalanceSender extends LoadBalanceSenderAdapter implements SagaMessageSender {
 
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  // the first resend goes out at once, usually to another alpha, the next ones back off
+  static final long RETRY_BACKOFF_MILLIS = 100;
+  static final long MAX_RETRY_BACKOFF_MILLIS = 5000;
+
+  private final boolean asyncTxEnded;
+
+  // the events of a global transaction waiting for the ack of the first one, in sending order
+  private final Map<String, Queue<PendingEvent>> pendingEvents = new HashMap<>();
+
+  // resends the failed events after their backoff and sends the queued events once the previous
+  // one is acked
+  private final ScheduledExecutorService sendingExecutor =
+      Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "saga-async-sender");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+
   public SagaLoadBalanceSender(LoadBalanceContext loadContext,
       MessageSenderPicker senderPicker) {
+    this(loadContext, senderPicker, false);
+  }
+
+  /**
+   * @param asyncTxEnded the {@link EventType#TxEndedEvent} is sent without waiting for the ack of
+   * alpha, only the events which alpha may abort the transaction with block the caller
+   */
+  public SagaLoadBalanceSender(LoadBalanceContext loadContext,
+      MessageSenderPicker senderPicker, boolean asyncTxEnded) {
     super(loadContext, senderPicker);
+    this.asyncTxEnded = asyncTxEnded;
   }
 
   @Override
-  public AlphaResponse send(TxEvent event) {
+  public AlphaResponse send(final TxEvent event) {
+    if (asyncTxEnded) {
+      return sendInOrder(event);
+    }
     do {
       final SagaMessageSender messageSender = pickMessageSender();
       Optional<AlphaResponse> response = doGrpcSend(messageSender, event, new SenderExecutor<TxEvent>() {
@@ -50,4 +101,149 @@ public class SagaLoadBalanceSender extends LoadBalanceSenderAdapter implements S
 
     throw new OmegaException("Failed to send event " + event + " due to interruption");
   }
+
+  @Override
+  public AlphaResponseFuture sendAsync(TxEvent event) {
+    PendingEvent pendingEvent = new PendingEvent(event);
+    boolean first = false;
+    synchronized (pendingEvents) {
+      Queue<PendingEvent> queue = pendingEvents.get(event.globalTxId());
+      if (queue == null) {
+        queue = new ArrayDeque<>();
+        pendingEvents.put(event.globalTxId(), queue);
+        first = true;
+      }
+      queue.add(pendingEvent);
+    }
+    if (first) {
+      dispatch(pendingEvent);
+    }
+    return pendingEvent.future;
+  }
+
+  @Override
+  public void close() {
+    sendingExecutor.shutdownNow();
+    super.close();
+  }
+
+  // the events of a global transaction go through the same queue, so a blocking event is not
+  // delivered before the fire-and-forget events sent ahead of it
+  private AlphaResponse sendInOrder(final TxEvent event) {
+    final AlphaResponseFuture future = sendAsync(event);
+    if (event.type() == EventType.TxEndedEvent) {
+      future.addListener(new Runnable() {
+        @Override
+        public void run() {
+          if (future.failure() != null) {
+            LOG.error("Failed to send event {}", event, future.failure());
+          }
+        }
+      });
+      return new AlphaResponse(false);
+    }
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OmegaException("Failed to send event " + event + " due to interruption", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof OmegaException) {
+        throw (OmegaException) e.getCause();
+      }
+      throw new OmegaException("Failed to send event " + event, e.getCause());
+    }
+  }
+
+  private void dispatch(final PendingEvent pendingEvent) {
+    final SagaMessageSender messageSender = pickMessageSender();
+    final long startTime = System.nanoTime();
+    final AlphaResponseFuture response;
+    sendStarted(messageSender);
+    try {
+      response = messageSender.sendAsync(pendingEvent.event);
+    } catch (OmegaException e) {
+      sendFailed(messageSender, e);
+      finish(pendingEvent, null, e);
+      return;
+    } catch (Exception e) {
+      retry(pendingEvent, messageSender, e);
+      return;
+    }
+    response.addListener(new Runnable() {
+      @Override
+      public void run() {
+        Throwable failure = response.failure();
+        if (failure == null) {
+          sendSucceeded(messageSender, System.nanoTime() - startTime);
+          finish(pendingEvent, response.response(), null);
+        } else if (failure instanceof OmegaException) {
+          sendFailed(messageSender, failure);
+          finish(pendingEvent, null, failure);
+        } else {
+          retry(pendingEvent, messageSender, failure);
+        }
+      }
+    });
+  }
+
+  private void retry(final PendingEvent pendingEvent, SagaMessageSender messageSender,
+      Throwable failure) {
+    LOG.error("Retry sending event {} due to failure", pendingEvent.event, failure);
+    sendFailed(messageSender, failure);
+    execute(pendingEvent, retryDelayOf(++pendingEvent.retries));
+  }
+
+  static long retryDelayOf(int retries) {
+    if (retries <= 1) {
+      return 0;
+    }
+    return Math.min(MAX_RETRY_BACKOFF_MILLIS, RETRY_BACKOFF_MILLIS << Math.min(retries - 2, 16));
+  }
+
+  private void finish(PendingEvent pendingEvent, AlphaResponse response, Throwable failure) {
+    final PendingEvent next;
+    synchronized (pendingEvents) {
+      Queue<PendingEvent> queue = pendingEvents.get(pendingEvent.event.globalTxId());
+      queue.poll();
+      next = queue.peek();
+      if (next == null) {
+        pendingEvents.remove(pendingEvent.event.globalTxId());
+      }
+    }
+    if (failure == null) {
+      pendingEvent.future.complete(response);
+    } else {
+      pendingEvent.future.fail(failure);
+    }
+    if (next != null) {
+      execute(next, 0);
+    }
+  }
+
+  private void execute(final PendingEvent pendingEvent, long delayMillis) {
+    try {
+      sendingExecutor.schedule(new Runnable() {
+        @Override
+        public void run() {
+          dispatch(pendingEvent);
+        }
+      }, delayMillis, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      finish(pendingEvent, null,
+          new OmegaException("Failed to send event " + pendingEvent.event + " due to closed sender"));
+    }
+  }
+
+  private static final class PendingEvent {
+
+    private final TxEvent event;
+    private final AlphaResponseFuture future = new AlphaResponseFuture();
+    // the failed sends, only one send of the event is in flight at a time
+    private volatile int retries;
+
+    private PendingEvent(TxEvent event) {
+      this.event = event;
+    }
+  }
 }
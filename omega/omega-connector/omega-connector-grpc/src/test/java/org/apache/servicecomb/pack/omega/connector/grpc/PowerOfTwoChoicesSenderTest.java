@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.omega.connector.grpc;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Ticker;
+import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import org.apache.servicecomb.pack.omega.connector.grpc.core.FastestSender;
+import org.apache.servicecomb.pack.omega.connector.grpc.core.LatencyAwareSenderPicker;
+import org.apache.servicecomb.pack.omega.connector.grpc.core.MessageSenderPicker;
+import org.apache.servicecomb.pack.omega.connector.grpc.core.PowerOfTwoChoicesSender;
+import org.apache.servicecomb.pack.omega.transaction.MessageSender;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class PowerOfTwoChoicesSenderTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final MessageSender defaultSender = mock(MessageSender.class);
+  private final MessageSender fastSender = mock(MessageSender.class);
+  private final MessageSender slowSender = mock(MessageSender.class);
+  private final Map<MessageSender, Long> senders = new LinkedHashMap<>();
+  private final FakeTicker ticker = new FakeTicker();
+
+  private final Supplier<MessageSender> defaultSenderSupplier = new Supplier<MessageSender>() {
+    @Override
+    public MessageSender get() {
+      return defaultSender;
+    }
+  };
+
+  private final PowerOfTwoChoicesSender picker = new PowerOfTwoChoicesSender(
+      PowerOfTwoChoicesSender.DEFAULT_DECAY_MILLIS,
+      PowerOfTwoChoicesSender.DEFAULT_FAILURE_PENALTY_MILLIS, ticker, new Random(1));
+
+  @Before
+  public void setUp() throws Exception {
+    senders.put(fastSender, 0L);
+    senders.put(slowSender, 0L);
+  }
+
+  @Test
+  public void pickDefaultSenderWithoutSenders() {
+    assertThat(picker.pick(new LinkedHashMap<MessageSender, Long>(), defaultSenderSupplier),
+        is(defaultSender));
+
+    senders.remove(slowSender);
+    assertThat(picker.pick(senders, defaultSenderSupplier), is(fastSender));
+  }
+
+  @Test
+  public void pickSenderOfLowerLatency() {
+    send(fastSender, MILLISECONDS.toNanos(1));
+    send(slowSender, MILLISECONDS.toNanos(10));
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(picker.pick(senders, defaultSenderSupplier), is(fastSender));
+    }
+  }
+
+  @Test
+  public void pickSenderOfFewerSendsInFlight() {
+    send(fastSender, MILLISECONDS.toNanos(1));
+    send(slowSender, MILLISECONDS.toNanos(1));
+
+    picker.onSendStarted(fastSender);
+    assertThat(picker.pick(senders, defaultSenderSupplier), is(slowSender));
+
+    picker.onSendStarted(slowSender);
+    picker.onSendStarted(slowSender);
+    assertThat(picker.pick(senders, defaultSenderSupplier), is(fastSender));
+  }
+
+  @Test
+  public void pickFailedSenderAgainOncePenaltyDecayed() {
+    send(slowSender, MILLISECONDS.toNanos(1));
+    picker.onSendStarted(fastSender);
+    picker.onSendFailed(fastSender);
+
+    assertThat(picker.pick(senders, defaultSenderSupplier), is(slowSender));
+
+    ticker.advance(SECONDS.toNanos(10));
+    assertThat(picker.pick(senders, defaultSenderSupplier), is(fastSender));
+  }
+
+  @Test
+  public void ignoreCancelledSend() {
+    send(fastSender, MILLISECONDS.toNanos(1));
+    send(slowSender, MILLISECONDS.toNanos(2));
+
+    picker.onSendStarted(fastSender);
+    picker.onSendCancelled(fastSender);
+
+    assertThat(picker.pick(senders, defaultSenderSupplier), is(fastSender));
+  }
+
+  @Test
+  public void forgetRemovedSender() {
+    send(fastSender, MILLISECONDS.toNanos(1));
+    send(slowSender, MILLISECONDS.toNanos(10));
+
+    senders.remove(slowSender);
+    assertThat(picker.pick(senders, defaultSenderSupplier), is(fastSender));
+
+    // the sender is new to the picker once it is added again
+    senders.put(slowSender, 0L);
+    assertThat(picker.pick(senders, defaultSenderSupplier), is(slowSender));
+  }
+
+  @Test
+  public void routeSimulatedLoadAwayFromSlowAlpha() {
+    // the picking itself is cheap, what matters is where the events go, so both pickers route
+    // the same simulated load over alphas with queues, on a simulated clock
+    for (int alphas : new int[] {3, 5}) {
+      // the alphas take 1ms per event on average, one of them 4ms, at 70% of their capacity
+      double[] serviceMillis = new double[alphas];
+      Arrays.fill(serviceMillis, 1);
+      serviceMillis[alphas - 1] = 4;
+      double eventsPerMilli = 0.7 * (alphas - 1 + 0.25);
+
+      SimulationResult fastest = simulate(new FastestSender(), serviceMillis, eventsPerMilli);
+      SimulationResult p2c = simulate(new PowerOfTwoChoicesSender(
+          PowerOfTwoChoicesSender.DEFAULT_DECAY_MILLIS,
+          PowerOfTwoChoicesSender.DEFAULT_FAILURE_PENALTY_MILLIS, ticker, new Random(1)),
+          serviceMillis, eventsPerMilli);
+      LOG.info("{} alphas, fastest: {}", alphas, fastest);
+      LOG.info("{} alphas, p2c: {}", alphas, p2c);
+
+      assertThat(p2c.percentile(0.99), lessThan(fastest.percentile(0.99)));
+      assertThat(p2c.share(alphas - 1), lessThan(1.0 / alphas));
+      for (int i = 0; i < alphas - 1; i++) {
+        assertThat(p2c.share(i), greaterThan(0.5 / alphas));
+      }
+    }
+  }
+
+  private void send(MessageSender sender, long latencyNanos) {
+    picker.onSendStarted(sender);
+    picker.onSendSucceeded(sender, latencyNanos);
+  }
+
+  /**
+   * Every alpha serves its events one by one in arrival order with exponentially distributed
+   * service times, the events arrive as a Poisson process, and the picker learns the latency of
+   * an event once it is served, the same as {@link LatencyAwareSenderPicker} is told by the
+   * load balance sender
+   */
+  private SimulationResult simulate(MessageSenderPicker senderPicker, double[] serviceMillis,
+      double eventsPerMilli) {
+    int events = 200000;
+    Random random = new Random(7);
+    ticker.reset();
+
+    Map<MessageSender, Long> alphaSenders = new LinkedHashMap<>();
+    Map<MessageSender, Integer> alphaIndexes = new LinkedHashMap<>();
+    for (int i = 0; i < serviceMillis.length; i++) {
+      MessageSender sender = mock(MessageSender.class);
+      alphaSenders.put(sender, 0L);
+      alphaIndexes.put(sender, i);
+    }
+    LatencyAwareSenderPicker latencyAwarePicker = senderPicker instanceof LatencyAwareSenderPicker
+        ? (LatencyAwareSenderPicker) senderPicker : null;
+
+    long[] busyUntil = new long[serviceMillis.length];
+    long[] picked = new long[serviceMillis.length];
+    long[] latencies = new long[events];
+    PriorityQueue<ServedEvent> inFlight = new PriorityQueue<>();
+    long arrival = 0;
+    for (int i = 0; i < events; i++) {
+      arrival += exponentialNanos(random, 1 / eventsPerMilli);
+      // the events served until this one arrives are acked first
+      while (!inFlight.isEmpty() && inFlight.peek().servedAt <= arrival) {
+        ServedEvent served = inFlight.poll();
+        ticker.set(served.servedAt);
+        long latency = served.servedAt - served.arrival;
+        alphaSenders.put(served.sender, latency);
+        if (latencyAwarePicker != null) {
+          latencyAwarePicker.onSendSucceeded(served.sender, latency);
+        }
+      }
+      ticker.set(arrival);
+
+      MessageSender sender = senderPicker.pick(alphaSenders, defaultSenderSupplier);
+      int alpha = alphaIndexes.get(sender);
+      if (latencyAwarePicker != null) {
+        latencyAwarePicker.onSendStarted(sender);
+      }
+      long servedAt = Math.max(arrival, busyUntil[alpha])
+          + exponentialNanos(random, serviceMillis[alpha]);
+      busyUntil[alpha] = servedAt;
+      picked[alpha]++;
+      latencies[i] = servedAt - arrival;
+      inFlight.add(new ServedEvent(sender, arrival, servedAt));
+    }
+    return new SimulationResult(picked, latencies);
+  }
+
+  private static long exponentialNanos(Random random, double meanMillis) {
+    return (long) (-Math.log(1 - random.nextDouble()) * MILLISECONDS.toNanos(1) * meanMillis);
+  }
+
+  private static final class ServedEvent implements Comparable<ServedEvent> {
+
+    private final MessageSender sender;
+    private final long arrival;
+    private final long servedAt;
+
+    private ServedEvent(MessageSender sender, long arrival, long servedAt) {
+      this.sender = sender;
+      this.arrival = arrival;
+      this.servedAt = servedAt;
+    }
+
+    @Override
+    public int compareTo(ServedEvent other) {
+      return Long.compare(servedAt, other.servedAt);
+    }
+  }
+
+  private static final class SimulationResult {
+
+    private final long[] picked;
+    private final long[] latencies;
+
+    private SimulationResult(long[] picked, long[] latencies) {
+      this.picked = picked;
+      this.latencies = latencies.clone();
+      Arrays.sort(this.latencies);
+    }
+
+    double share(int alpha) {
+      return (double) picked[alpha] / latencies.length;
+    }
+
+    long percentile(double percentile) {
+      return latencies[(int) (percentile * (latencies.length - 1))];
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder shares = new StringBuilder();
+      for (int i = 0; i < picked.length; i++) {
+        shares.append(i == 0 ? "" : ", ").append(String.format("%.1f%%", share(i) * 100));
+      }
+      return String.format("share [%s], p50 %d us, p99 %d us, p999 %d us", shares,
+          MICROSECONDS.convert(percentile(0.5), NANOSECONDS),
+          MICROSECONDS.convert(percentile(0.99), NANOSECONDS),
+          MICROSECONDS.convert(percentile(0.999), NANOSECONDS));
+    }
+  }
+
+  private static final class FakeTicker extends Ticker {
+
+    private long nanos;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    void advance(long nanos) {
+      this.nanos += nanos;
+    }
+
+    void set(long nanos) {
+      this.nanos = nanos;
+    }
+
+    void reset() {
+      nanos = 0;
+    }
+  }
+}
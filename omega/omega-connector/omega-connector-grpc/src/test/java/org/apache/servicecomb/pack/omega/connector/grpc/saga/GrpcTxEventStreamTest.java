@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.omega.connector.grpc.saga;
+
+import static com.seanyinx.github.unit.scaffolding.Randomness.uniquify;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.grpc.testing.GrpcCleanupRule;
+import io.grpc.util.MutableHandlerRegistry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.apache.servicecomb.pack.common.EventType;
+import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
+import org.apache.servicecomb.pack.contract.grpc.GrpcAckBatch;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEventBatch;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceImplBase;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceStub;
+import org.apache.servicecomb.pack.omega.transaction.AlphaResponseFuture;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class GrpcTxEventStreamTest {
+  @Rule
+  public final GrpcCleanupRule grpcCleanup = new GrpcCleanupRule();
+  private final MutableHandlerRegistry serviceRegistry = new MutableHandlerRegistry();
+
+  private final String globalTxId = uniquify("globalTxId");
+  private final Queue<Integer> batchSizes = new ConcurrentLinkedQueue<>();
+  private final Queue<String> unaryEvents = new ConcurrentLinkedQueue<>();
+  private TxEventServiceStub asyncEventService;
+
+  @Before
+  public void setUp() throws Exception {
+    String serverName = InProcessServerBuilder.generateName();
+    grpcCleanup.register(InProcessServerBuilder.forName(serverName)
+        .fallbackHandlerRegistry(serviceRegistry).build().start());
+    ManagedChannel channel = grpcCleanup.register(
+        InProcessChannelBuilder.forName(serverName).build());
+    asyncEventService = TxEventServiceGrpc.newStub(channel);
+  }
+
+  @Test
+  public void batchEventsWithinLinger() throws Exception {
+    serviceRegistry.addService(new StreamingTxEventService());
+    GrpcTxEventStream eventStream = new GrpcTxEventStream(asyncEventService, 256, 10, 500);
+
+    AlphaResponseFuture started = eventStream.send(event(EventType.TxStartedEvent, "compensate"));
+    AlphaResponseFuture rejected = eventStream.send(event(EventType.TxStartedEvent, "reject"));
+    AlphaResponseFuture ended = eventStream.send(event(EventType.TxEndedEvent, "compensate"));
+
+    assertThat(started.get(5, SECONDS).aborted(), is(false));
+    assertThat(rejected.get(5, SECONDS).aborted(), is(true));
+    assertThat(ended.get(5, SECONDS).aborted(), is(false));
+    assertThat(batchSizes, contains(3));
+  }
+
+  @Test
+  public void sendFullBatchWithoutLinger() throws Exception {
+    serviceRegistry.addService(new StreamingTxEventService());
+    GrpcTxEventStream eventStream = new GrpcTxEventStream(asyncEventService, 256, 2, 60000);
+
+    AlphaResponseFuture started = eventStream.send(event(EventType.TxStartedEvent, "compensate"));
+    AlphaResponseFuture ended = eventStream.send(event(EventType.TxEndedEvent, "compensate"));
+
+    assertThat(started.get(5, SECONDS).aborted(), is(false));
+    assertThat(ended.get(5, SECONDS).aborted(), is(false));
+    assertThat(batchSizes, contains(2));
+  }
+
+  @Test
+  public void fallBackToCallPerEventWithoutStream() throws Exception {
+    serviceRegistry.addService(new TxEventServiceImplBase() {
+      @Override
+      public void onTxEvent(GrpcTxEvent request, StreamObserver<GrpcAck> responseObserver) {
+        unaryEvents.add(request.getType());
+        responseObserver.onNext(GrpcAck.newBuilder().setAborted(false).build());
+        responseObserver.onCompleted();
+      }
+    });
+    GrpcTxEventStream eventStream = new GrpcTxEventStream(asyncEventService, 256, 10, 100);
+
+    assertThat(eventStream.send(event(EventType.TxStartedEvent, "compensate")).get(5, SECONDS)
+        .aborted(), is(false));
+    assertThat(eventStream.send(event(EventType.TxEndedEvent, "compensate")).get(5, SECONDS)
+        .aborted(), is(false));
+    assertThat(unaryEvents, contains(EventType.TxStartedEvent.name(), EventType.TxEndedEvent.name()));
+  }
+
+  private GrpcTxEvent event(EventType type, String compensationMethod) {
+    return GrpcTxEvent.newBuilder()
+        .setGlobalTxId(globalTxId)
+        .setLocalTxId(uniquify("localTxId"))
+        .setType(type.name())
+        .setCompensationMethod(compensationMethod)
+        .build();
+  }
+
+  private class StreamingTxEventService extends TxEventServiceImplBase {
+    @Override
+    public StreamObserver<GrpcTxEventBatch> onTxEventStream(
+        final StreamObserver<GrpcAckBatch> responseObserver) {
+      return new StreamObserver<GrpcTxEventBatch>() {
+        @Override
+        public void onNext(GrpcTxEventBatch batch) {
+          batchSizes.add(batch.getEventsCount());
+          GrpcAckBatch.Builder acks = GrpcAckBatch.newBuilder();
+          for (GrpcTxEvent event : batch.getEventsList()) {
+            acks.addAcks(GrpcAck.newBuilder()
+                .setAborted("reject".equals(event.getCompensationMethod()))
+                .setCorrelationId(event.getCorrelationId()));
+          }
+          responseObserver.onNext(acks.build());
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+          responseObserver.onCompleted();
+        }
+      };
+    }
+  }
+}
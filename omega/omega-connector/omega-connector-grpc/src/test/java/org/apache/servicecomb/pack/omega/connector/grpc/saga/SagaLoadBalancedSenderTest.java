@@ -18,6 +18,7 @@
 package org.apache.servicecomb.pack.omega.connector.grpc.saga;
 
 import static com.seanyinx.github.unit.scaffolding.AssertUtils.expectFailing;
+import static com.seanyinx.github.unit.scaffolding.Randomness.uniquify;
 import static java.lang.Thread.State.TERMINATED;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.awaitility.Awaitility.await;
@@ -26,8 +27,11 @@ import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableList;
 import io.grpc.Server;
@@ -36,16 +40,20 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
 import org.apache.servicecomb.pack.omega.connector.grpc.AlphaClusterConfig;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.FastestSender;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.LoadBalanceContext;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.LoadBalanceContextBuilder;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.TransactionType;
 import org.apache.servicecomb.pack.omega.context.ServiceConfig;
+import org.apache.servicecomb.pack.omega.transaction.AlphaResponse;
+import org.apache.servicecomb.pack.omega.transaction.AlphaResponseFuture;
 import org.apache.servicecomb.pack.omega.transaction.MessageSender;
 import org.apache.servicecomb.pack.omega.transaction.OmegaException;
 import org.apache.servicecomb.pack.omega.transaction.SagaMessageSender;
 import org.apache.servicecomb.pack.omega.transaction.TxAbortedEvent;
+import org.apache.servicecomb.pack.omega.transaction.TxEndedEvent;
 import org.apache.servicecomb.pack.omega.transaction.TxEvent;
 import org.apache.servicecomb.pack.omega.transaction.TxStartedEvent;
 import org.junit.BeforeClass;
@@ -315,6 +323,100 @@ public class SagaLoadBalancedSenderTest extends SagaLoadBalancedSenderTestBase {
     assertThat(messageSender.send(rejectEvent).aborted(), is(true));
   }
 
+  @Test
+  public void forwardAsyncSendResult() throws Exception {
+    assertThat(messageSender.sendAsync(event).get().aborted(), is(false));
+
+    TxEvent rejectEvent = new TxStartedEvent(globalTxId, localTxId, parentTxId, "reject", 0, "", 0,
+        0, 0, 0, 0, "blah");
+    assertThat(messageSender.sendAsync(rejectEvent).get().aborted(), is(true));
+  }
+
+  @Test
+  public void sendTxEndedEventWithoutWaitingForAck() throws Exception {
+    final TxEvent endedEvent = new TxEndedEvent(globalTxId, localTxId, parentTxId, compensationMethod);
+    final TxEvent startedEvent = new TxStartedEvent(globalTxId, uniquify("localTxId"), parentTxId,
+        compensationMethod, 0, "", 0, 0, 0, 0, 0, "blah");
+    AlphaResponseFuture endedAck = new AlphaResponseFuture();
+    AlphaResponseFuture startedAck = new AlphaResponseFuture();
+    SagaMessageSender underlying = Mockito.mock(SagaMessageSender.class);
+    when(underlying.sendAsync(endedEvent)).thenReturn(endedAck);
+    when(underlying.sendAsync(startedEvent)).thenReturn(startedAck);
+    setSenders(underlying);
+
+    final SagaLoadBalanceSender asyncSender = new SagaLoadBalanceSender(
+        messageSender.getLoadContext(), new FastestSender(), true);
+    assertThat(asyncSender.send(endedEvent).aborted(), is(false));
+    verify(underlying).sendAsync(endedEvent);
+
+    final AtomicReference<AlphaResponse> response = new AtomicReference<>();
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        response.set(asyncSender.send(startedEvent));
+      }
+    });
+    thread.start();
+
+    // the next event of the global transaction waits for the ack of the previous one
+    Thread.sleep(300);
+    verify(underlying, never()).sendAsync(startedEvent);
+
+    endedAck.complete(new AlphaResponse(false));
+    verify(underlying, timeout(1000)).sendAsync(startedEvent);
+
+    startedAck.complete(new AlphaResponse(true));
+    thread.join();
+    assertThat(response.get().aborted(), is(true));
+  }
+
+  @Test
+  public void backOffResendingFailedAsyncEvent() throws Exception {
+    AlphaResponseFuture ack = new AlphaResponseFuture();
+    ack.complete(new AlphaResponse(false));
+    SagaMessageSender underlying = Mockito.mock(SagaMessageSender.class);
+    when(underlying.sendAsync(event)).thenThrow(new RuntimeException("unavailable"))
+        .thenThrow(new RuntimeException("unavailable"))
+        .thenThrow(new RuntimeException("unavailable"))
+        .thenReturn(ack);
+    setSenders(underlying);
+
+    long begin = System.currentTimeMillis();
+    assertThat(messageSender.sendAsync(event).get().aborted(), is(false));
+    // resent at once, then after 100 and 200 ms
+    assertThat(System.currentTimeMillis() - begin >= 300, is(true));
+    verify(underlying, times(4)).sendAsync(event);
+
+    assertThat(SagaLoadBalanceSender.retryDelayOf(1), is(0L));
+    assertThat(SagaLoadBalanceSender.retryDelayOf(4), is(400L));
+    assertThat(SagaLoadBalanceSender.retryDelayOf(100),
+        is(SagaLoadBalanceSender.MAX_RETRY_BACKOFF_MILLIS));
+  }
+
+  @Test
+  public void fallBackToCallPerEventWithoutEventStream() throws Exception {
+    AlphaClusterConfig clusterConfig = AlphaClusterConfig.builder()
+        .addresses(ImmutableList.of("localhost:8080"))
+        .messageSerializer(serializer)
+        .messageDeserializer(deserializer)
+        .messageHandler(handler)
+        .enableEventStream(true)
+        .build();
+    LoadBalanceContext loadContext = new LoadBalanceContextBuilder(
+        TransactionType.SAGA,
+        clusterConfig,
+        new ServiceConfig(serviceName), 100, 4).build();
+    SagaLoadBalanceSender streamSender = new SagaLoadBalanceSender(loadContext, new FastestSender());
+    try {
+      // the test alpha has no event stream, the events are resent one by one
+      assertThat(streamSender.send(event).aborted(), is(false));
+      assertThat(streamSender.sendAsync(event).get().aborted(), is(false));
+      assertThat(eventsMap.get(8080).size(), is(2));
+    } finally {
+      streamSender.close();
+    }
+  }
+
   @Test
   public void blowsUpWhenServerIsInterrupted() throws InterruptedException {
     Thread thread = new Thread(new Runnable() {
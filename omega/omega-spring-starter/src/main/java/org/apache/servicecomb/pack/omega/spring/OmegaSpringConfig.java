@@ -25,6 +25,8 @@ import org.apache.servicecomb.pack.omega.connector.grpc.AlphaClusterConfig;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.FastestSender;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.LoadBalanceContext;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.LoadBalanceContextBuilder;
+import org.apache.servicecomb.pack.omega.connector.grpc.core.MessageSenderPicker;
+import org.apache.servicecomb.pack.omega.connector.grpc.core.PowerOfTwoChoicesSender;
 import org.apache.servicecomb.pack.omega.connector.grpc.core.TransactionType;
 import org.apache.servicecomb.pack.omega.connector.grpc.saga.SagaLoadBalanceSender;
 import org.apache.servicecomb.pack.omega.connector.grpc.tcc.TccLoadBalanceSender;
@@ -105,6 +107,9 @@ class OmegaSpringConfig {
       @Value("${alpha.cluster.ssl.cert:client.crt}") String cert,
       @Value("${alpha.cluster.ssl.key:client.pem}") String key,
       @Value("${alpha.cluster.ssl.certChain:ca.crt}") String certChain,
+      @Value("${omega.connection.sending.stream:false}") boolean enableEventStream,
+      @Value("${omega.connection.sending.batchSize:128}") int eventBatchSize,
+      @Value("${omega.connection.sending.lingerMillis:0}") long eventBatchLingerMillis,
       @Lazy AlphaClusterDiscovery alphaClusterDiscovery,
       @Lazy MessageHandler handler,
       @Lazy TccMessageHandler tccMessageHandler) {
@@ -122,6 +127,9 @@ class OmegaSpringConfig {
         .messageSerializer(messageFormat)
         .messageHandler(handler)
         .tccMessageHandler(tccMessageHandler)
+        .enableEventStream(enableEventStream)
+        .eventBatchSize(eventBatchSize)
+        .eventBatchLingerMillis(eventBatchLingerMillis)
         .build();
     return clusterConfig;
   }
@@ -142,8 +150,11 @@ class OmegaSpringConfig {
   }
 
   @Bean
-  SagaMessageSender sagaLoadBalanceSender(@Qualifier("sagaLoadContext") LoadBalanceContext loadBalanceSenderContext) {
-    final SagaMessageSender sagaMessageSender = new SagaLoadBalanceSender(loadBalanceSenderContext, new FastestSender());
+  SagaMessageSender sagaLoadBalanceSender(@Qualifier("sagaLoadContext") LoadBalanceContext loadBalanceSenderContext,
+      @Value("${omega.connection.sending.asyncTxEnded:false}") boolean asyncTxEnded,
+      @Value("${omega.connection.sending.picker:fastest}") String picker) {
+    final SagaMessageSender sagaMessageSender = new SagaLoadBalanceSender(loadBalanceSenderContext,
+        senderPicker(picker), asyncTxEnded);
     sagaMessageSender.onConnected();
     Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
       @Override
@@ -171,8 +182,9 @@ class OmegaSpringConfig {
   }
 
   @Bean
-  TccMessageSender tccLoadBalanceSender(@Qualifier("tccLoadContext") LoadBalanceContext loadBalanceSenderContext) {
-    final TccMessageSender tccMessageSender = new TccLoadBalanceSender(loadBalanceSenderContext, new FastestSender());
+  TccMessageSender tccLoadBalanceSender(@Qualifier("tccLoadContext") LoadBalanceContext loadBalanceSenderContext,
+      @Value("${omega.connection.sending.picker:fastest}") String picker) {
+    final TccMessageSender tccMessageSender = new TccLoadBalanceSender(loadBalanceSenderContext, senderPicker(picker));
     tccMessageSender.onConnected();
     Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
       @Override
@@ -183,4 +195,17 @@ class OmegaSpringConfig {
     }));
     return tccMessageSender;
   }
+
+  // fastest sends every event to the alpha answering fastest, p2c spreads the events over the
+  // alphas by their latency and sends in flight
+  private static MessageSenderPicker senderPicker(String picker) {
+    if ("fastest".equals(picker)) {
+      return new FastestSender();
+    }
+    if ("p2c".equals(picker)) {
+      return new PowerOfTwoChoicesSender();
+    }
+    throw new IllegalArgumentException("Unknown omega.connection.sending.picker " + picker
+        + ", expecting fastest or p2c");
+  }
 }
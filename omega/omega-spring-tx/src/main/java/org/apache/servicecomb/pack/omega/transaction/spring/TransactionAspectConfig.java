@@ -17,6 +17,7 @@
 
 package org.apache.servicecomb.pack.omega.transaction.spring;
 
+import java.util.concurrent.TimeUnit;
 import org.apache.servicecomb.pack.omega.transaction.CallbackContext;
 import org.apache.servicecomb.pack.omega.context.OmegaContext;
 import org.apache.servicecomb.pack.omega.transaction.CompensationMessageHandler;
@@ -30,7 +31,9 @@ import org.apache.servicecomb.pack.omega.transaction.tcc.TccMessageHandler;
 import org.apache.servicecomb.pack.omega.transaction.tcc.TccMessageSender;
 import org.apache.servicecomb.pack.omega.transaction.tcc.TccParticipatorAspect;
 import org.apache.servicecomb.pack.omega.transaction.tcc.TccStartAspect;
+import org.apache.servicecomb.pack.omega.transaction.wrapper.TimeoutProbManager;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
@@ -45,6 +48,12 @@ public class TransactionAspectConfig {
     return new CompensationMessageHandler(sender, context);
   }
 
+  @Bean
+  TimeoutProbManager timeoutProbManager(
+      @Value("${omega.transaction.timeout.tickDuration:100}") long tickDuration) {
+    return TimeoutProbManager.configure(tickDuration, TimeUnit.MILLISECONDS);
+  }
+
   @Bean
   SagaStartAspect sagaStartAspect(SagaMessageSender sender, OmegaContext context) {
     return new SagaStartAspect(sender, context);
@@ -20,6 +20,7 @@ package org.apache.servicecomb.pack.omega.transaction.spring;
 import java.util.ArrayList;
 import java.util.List;
 import org.apache.servicecomb.pack.contract.grpc.ServerMeta;
+import org.apache.servicecomb.pack.omega.transaction.AlphaResponseFuture;
 import org.apache.servicecomb.pack.omega.transaction.CallbackContext;
 import org.apache.servicecomb.pack.omega.context.IdGenerator;
 import org.apache.servicecomb.pack.omega.context.OmegaContext;
@@ -101,6 +102,11 @@ public class MessageConfig {
         messages.add(event.toString());
         return new AlphaResponse(false);
       }
+
+      @Override
+      public AlphaResponseFuture sendAsync(TxEvent event) {
+        return AlphaResponseFuture.completed(send(event));
+      }
     };
   }
 
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.omega.transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The response of an event sent with {@link SagaMessageSender#sendAsync(TxEvent)}. Omega is
+ * kept Java 7 compatible, so this is a small settable future with listeners instead of a
+ * CompletableFuture.
+ */
+public class AlphaResponseFuture implements Future<AlphaResponse> {
+
+  private final CountDownLatch done = new CountDownLatch(1);
+  private final List<Runnable> listeners = new ArrayList<>();
+  private boolean completed;
+  private volatile AlphaResponse response;
+  private volatile Throwable failure;
+
+  public static AlphaResponseFuture completed(AlphaResponse response) {
+    AlphaResponseFuture future = new AlphaResponseFuture();
+    future.complete(response);
+    return future;
+  }
+
+  public boolean complete(AlphaResponse response) {
+    return finish(response, null);
+  }
+
+  public boolean fail(Throwable failure) {
+    return finish(null, failure);
+  }
+
+  /**
+   * Runs the listener once the future is done, in the thread which completes the future or right
+   * away if it is done already
+   */
+  public void addListener(Runnable listener) {
+    synchronized (listeners) {
+      if (!completed) {
+        listeners.add(listener);
+        return;
+      }
+    }
+    listener.run();
+  }
+
+  /**
+   * @return the response of a future done normally, otherwise null
+   */
+  public AlphaResponse response() {
+    return response;
+  }
+
+  /**
+   * @return the failure of a future done exceptionally, otherwise null
+   */
+  public Throwable failure() {
+    return failure;
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    return false;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return false;
+  }
+
+  @Override
+  public boolean isDone() {
+    return done.getCount() == 0;
+  }
+
+  @Override
+  public AlphaResponse get() throws InterruptedException, ExecutionException {
+    done.await();
+    return result();
+  }
+
+  @Override
+  public AlphaResponse get(long timeout, TimeUnit unit)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    if (!done.await(timeout, unit)) {
+      throw new TimeoutException();
+    }
+    return result();
+  }
+
+  private AlphaResponse result() throws ExecutionException {
+    if (failure != null) {
+      throw new ExecutionException(failure);
+    }
+    return response;
+  }
+
+  private boolean finish(AlphaResponse response, Throwable failure) {
+    List<Runnable> toRun;
+    synchronized (listeners) {
+      if (completed) {
+        return false;
+      }
+      completed = true;
+      this.response = response;
+      this.failure = failure;
+      toRun = new ArrayList<>(listeners);
+      listeners.clear();
+    }
+    done.countDown();
+    for (Runnable listener : toRun) {
+      listener.run();
+    }
+    return true;
+  }
+}
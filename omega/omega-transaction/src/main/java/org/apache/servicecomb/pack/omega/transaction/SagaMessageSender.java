@@ -20,4 +20,10 @@ package org.apache.servicecomb.pack.omega.transaction;
 public interface SagaMessageSender extends MessageSender {
 
   AlphaResponse send(TxEvent event);
+
+  /**
+   * Sends the event without blocking the caller, the events of a global transaction are
+   * delivered in the order they are sent
+   */
+  AlphaResponseFuture sendAsync(TxEvent event);
 }
@@ -19,6 +19,7 @@ package org.apache.servicecomb.pack.omega.transaction.wrapper;
 
 import java.lang.invoke.MethodHandles;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,8 +33,22 @@ public class TimeoutProb implements Comparable<TimeoutProb> {
   private final transient long expireTime;
   private Exception interruptFailureException = null;
   private boolean interruptSent = false;
+
+  static final int ACTIVE = 0;
+  static final int REMOVED = 1;
+  static final int DONE = 2;
+
+  final AtomicInteger state = new AtomicInteger(ACTIVE);
+  // the position in the timing wheel, only used by the thread of the TimeoutProbManager
+  final transient long deadline;
+  long remainingRounds;
+  TimeoutProb next;
+  TimeoutProb prev;
+  TimeoutProbManager.Bucket bucket;
+
   public TimeoutProb(int timeout) {
     this.expireTime = this.startTime + TimeUnit.SECONDS.toMillis(timeout);
+    this.deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout);
   }
 
   @Override
@@ -18,69 +18,219 @@
 package org.apache.servicecomb.pack.omega.transaction.wrapper;
 
 import java.lang.invoke.MethodHandles;
-import java.util.Set;
-import java.util.concurrent.ConcurrentSkipListSet;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Interrupts the threads of the timed out probes with a hashed timing wheel. Adding and removing a
+ * probe only queues it, the probe thread moves the queued probes to the wheel and on every tick
+ * only looks at the probes of one bucket. The probe thread parks while there is no probe.
+ */
 public class TimeoutProbManager {
 
-  private static TimeoutProbManager instance = new TimeoutProbManager(100);
+  public static final long DEFAULT_TICK_DURATION = 100;
+  public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
-  private final transient Set<TimeoutProb> timeoutProbs = new ConcurrentSkipListSet<TimeoutProb>();
-  private final transient ScheduledExecutorService interrupter =
-      Executors.newSingleThreadScheduledExecutor(
-          new TimeoutProbeThreadFactory()
-      );
+  private static volatile TimeoutProbManager instance;
+
+  private final long tickDuration;
+  private final Bucket[] wheel;
+  private final int mask;
+  private final Queue<TimeoutProb> addedProbes = new ConcurrentLinkedQueue<>();
+  private final Queue<TimeoutProb> removedProbes = new ConcurrentLinkedQueue<>();
+  // the probes neither removed nor done
+  private final AtomicInteger activeProbes = new AtomicInteger();
+  final Thread worker;
+  private volatile boolean running = true;
+  private long startTime;
+  private long tick;
 
   public static TimeoutProbManager getInstance() {
+    if (instance == null) {
+      configure(DEFAULT_TICK_DURATION, TimeUnit.MILLISECONDS);
+    }
     return instance;
   }
 
-  public TimeoutProbManager(int delay) {
-    this.interrupter.scheduleWithFixedDelay(
-        new Runnable() {
-          @Override
-          public void run() {
-            try {
-              TimeoutProbManager.this.interrupt();
-            } catch (Exception e) {
-              LOG.error("The overtime thread interrupt fail", e);
-            }
-          }
-        },
-        0, delay, TimeUnit.MICROSECONDS
-    );
+  /**
+   * Creates the shared instance with the tick duration, the instance is kept if it exists already
+   */
+  public static synchronized TimeoutProbManager configure(long tickDuration, TimeUnit unit) {
+    if (instance == null) {
+      instance = new TimeoutProbManager(tickDuration, unit, DEFAULT_TICKS_PER_WHEEL);
+    } else if (instance.tickDuration != unit.toNanos(tickDuration)) {
+      LOG.warn("The timeout probe manager is running with tick duration {}ms already",
+          TimeUnit.NANOSECONDS.toMillis(instance.tickDuration));
+    }
+    return instance;
+  }
+
+  public TimeoutProbManager(long tickDuration, TimeUnit unit, int ticksPerWheel) {
+    if (tickDuration <= 0) {
+      throw new IllegalArgumentException("tickDuration must be greater than 0");
+    }
+    if (ticksPerWheel <= 0 || Integer.bitCount(ticksPerWheel) != 1) {
+      throw new IllegalArgumentException("ticksPerWheel must be a power of 2");
+    }
+    this.tickDuration = unit.toNanos(tickDuration);
+    this.wheel = new Bucket[ticksPerWheel];
+    for (int i = 0; i < ticksPerWheel; i++) {
+      wheel[i] = new Bucket();
+    }
+    this.mask = ticksPerWheel - 1;
+    this.worker = new TimeoutProbeThreadFactory().newThread(new Runnable() {
+      @Override
+      public void run() {
+        TimeoutProbManager.this.run();
+      }
+    });
+    this.worker.start();
   }
 
   public TimeoutProb addTimeoutProb(int timeout) {
     final TimeoutProb timeoutProb = new TimeoutProb(timeout);
-    this.timeoutProbs.add(timeoutProb);
+    this.addedProbes.add(timeoutProb);
+    if (this.activeProbes.getAndIncrement() == 0) {
+      LockSupport.unpark(this.worker);
+    }
     return timeoutProb;
   }
 
   public void removeTimeoutProb(TimeoutProb timeoutProb) {
-    this.timeoutProbs.remove(timeoutProb);
+    if (timeoutProb.state.compareAndSet(TimeoutProb.ACTIVE, TimeoutProb.REMOVED)) {
+      this.removedProbes.add(timeoutProb);
+      this.activeProbes.decrementAndGet();
+    }
+  }
+
+  public void stop() {
+    this.running = false;
+    LockSupport.unpark(this.worker);
+  }
+
+  private void run() {
+    startTime = System.nanoTime();
+    while (running) {
+      if (activeProbes.get() == 0) {
+        // nothing can expire, wait for the next probe and restart the wheel
+        LockSupport.park(this);
+        processRemovedProbes();
+        startTime = System.nanoTime();
+        tick = 0;
+        processAddedProbes();
+        continue;
+      }
+      long sleepTime = startTime + (tick + 1) * tickDuration - System.nanoTime();
+      if (sleepTime > 0) {
+        LockSupport.parkNanos(this, sleepTime);
+        continue;
+      }
+      processRemovedProbes();
+      processAddedProbes();
+      interrupt(wheel[(int) (tick & mask)]);
+      tick++;
+    }
+  }
+
+  private void processAddedProbes() {
+    TimeoutProb timeoutProb;
+    while ((timeoutProb = addedProbes.poll()) != null) {
+      if (timeoutProb.state.get() == TimeoutProb.ACTIVE) {
+        schedule(timeoutProb, (timeoutProb.deadline - startTime) / tickDuration);
+      }
+    }
+  }
+
+  private void processRemovedProbes() {
+    TimeoutProb timeoutProb;
+    while ((timeoutProb = removedProbes.poll()) != null) {
+      if (timeoutProb.bucket != null) {
+        timeoutProb.bucket.remove(timeoutProb);
+      }
+    }
+  }
+
+  private void schedule(TimeoutProb timeoutProb, long expirationTick) {
+    // an expired probe goes to the current tick
+    long ticks = Math.max(expirationTick, tick);
+    timeoutProb.remainingRounds = (ticks - tick) / wheel.length;
+    wheel[(int) (ticks & mask)].add(timeoutProb);
   }
 
   /**
-   * Loop detection of all thread timeout probes, remove probe if the thread has terminated
+   * Interrupts the threads of the expired probes of the bucket, the thread of a probe is
+   * interrupted on every tick until the probe is removed or the thread has terminated
    */
-  private void interrupt() {
-    synchronized (this.interrupter) {
-      for (TimeoutProb timeoutProb : this.timeoutProbs) {
-        if (timeoutProb.getInterruptFailureException() == null) {
-          if (timeoutProb.expired()) {
-            if (timeoutProb.interrupted()) {
-              this.timeoutProbs.remove(timeoutProb);
-            }
+  private void interrupt(Bucket bucket) {
+    TimeoutProb timeoutProb = bucket.head;
+    while (timeoutProb != null) {
+      TimeoutProb next = timeoutProb.next;
+      if (timeoutProb.remainingRounds <= 0) {
+        bucket.remove(timeoutProb);
+        if (timeoutProb.state.get() == TimeoutProb.ACTIVE) {
+          boolean done;
+          try {
+            done = timeoutProb.interrupted();
+          } catch (Exception e) {
+            LOG.error("The overtime thread interrupt fail", e);
+            done = true;
+          }
+          if (!done) {
+            schedule(timeoutProb, tick + 1);
+          } else if (timeoutProb.state.compareAndSet(TimeoutProb.ACTIVE, TimeoutProb.DONE)) {
+            activeProbes.decrementAndGet();
           }
         }
+      } else {
+        timeoutProb.remainingRounds--;
+      }
+      timeoutProb = next;
+    }
+  }
+
+  /**
+   * The probes of a slot of the wheel in a doubly linked list
+   */
+  static final class Bucket {
+
+    private TimeoutProb head;
+    private TimeoutProb tail;
+
+    void add(TimeoutProb timeoutProb) {
+      timeoutProb.bucket = this;
+      if (head == null) {
+        head = tail = timeoutProb;
+      } else {
+        tail.next = timeoutProb;
+        timeoutProb.prev = tail;
+        tail = timeoutProb;
+      }
+    }
+
+    void remove(TimeoutProb timeoutProb) {
+      TimeoutProb next = timeoutProb.next;
+      if (timeoutProb.prev != null) {
+        timeoutProb.prev.next = next;
+      }
+      if (next != null) {
+        next.prev = timeoutProb.prev;
+      }
+      if (timeoutProb == head) {
+        head = next;
+      }
+      if (timeoutProb == tail) {
+        tail = timeoutProb.prev;
       }
+      timeoutProb.prev = null;
+      timeoutProb.next = null;
+      timeoutProb.bucket = null;
     }
   }
 
@@ -71,6 +71,11 @@ public class CompensableInterceptorTest {
       messages.add(event);
       return new AlphaResponse(false);
     }
+
+    @Override
+    public AlphaResponseFuture sendAsync(TxEvent event) {
+      return AlphaResponseFuture.completed(send(event));
+    }
   };
   
   private final String message = uniquify("message");
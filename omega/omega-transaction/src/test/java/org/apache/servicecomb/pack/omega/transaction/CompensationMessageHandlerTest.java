@@ -71,6 +71,11 @@ public class CompensationMessageHandlerTest {
       events.add(event);
       return new AlphaResponse(false);
     }
+
+    @Override
+    public AlphaResponseFuture sendAsync(TxEvent event) {
+      return AlphaResponseFuture.completed(send(event));
+    }
   };
 
   private final String globalTxId = uniquify("globalTxId");
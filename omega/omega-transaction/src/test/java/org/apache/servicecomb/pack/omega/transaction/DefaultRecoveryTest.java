@@ -99,6 +99,11 @@ public class DefaultRecoveryTest {
       messages.add(event);
       return new AlphaResponse(false);
     }
+
+    @Override
+    public AlphaResponseFuture sendAsync(TxEvent event) {
+      return AlphaResponseFuture.completed(send(event));
+    }
   };
 
   private final CompensableInterceptor interceptor = new CompensableInterceptor(omegaContext, sender);
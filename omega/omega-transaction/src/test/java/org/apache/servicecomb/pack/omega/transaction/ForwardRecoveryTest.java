@@ -101,6 +101,11 @@ public class ForwardRecoveryTest {
       messages.add(event);
       return new AlphaResponse(false);
     }
+
+    @Override
+    public AlphaResponseFuture sendAsync(TxEvent event) {
+      return AlphaResponseFuture.completed(send(event));
+    }
   };
 
   private final CompensableInterceptor interceptor = new CompensableInterceptor(omegaContext, sender);
@@ -71,6 +71,11 @@ public class SagaEndAspectTest {
       messages.add(event);
       return new AlphaResponse(false);
     }
+
+    @Override
+    public AlphaResponseFuture sendAsync(TxEvent event) {
+      return AlphaResponseFuture.completed(send(event));
+    }
   };
   private final ProceedingJoinPoint joinPoint = Mockito.mock(ProceedingJoinPoint.class);
   private final MethodSignature methodSignature = Mockito.mock(MethodSignature.class);
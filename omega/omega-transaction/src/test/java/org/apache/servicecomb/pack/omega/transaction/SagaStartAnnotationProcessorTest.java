@@ -72,6 +72,11 @@ public class SagaStartAnnotationProcessorTest {
       messages.add(event);
       return new AlphaResponse(false);
     }
+
+    @Override
+    public AlphaResponseFuture sendAsync(TxEvent event) {
+      return AlphaResponseFuture.completed(send(event));
+    }
   };
 
   private final String globalTxId = UUID.randomUUID().toString();
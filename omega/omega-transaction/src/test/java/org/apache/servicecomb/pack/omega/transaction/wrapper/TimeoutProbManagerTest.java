@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.omega.transaction.wrapper;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TimeoutProbManagerTest {
+
+  private TimeoutProbManager manager;
+
+  @Before
+  public void setUp() {
+    manager = new TimeoutProbManager(10, MILLISECONDS, 64);
+  }
+
+  @After
+  public void tearDown() {
+    manager.stop();
+  }
+
+  @Test
+  public void interruptTimedOutThread() throws InterruptedException {
+    final AtomicLong interruptedAfter = new AtomicLong(-1);
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        long begin = System.nanoTime();
+        TimeoutProb timeoutProb = manager.addTimeoutProb(1);
+        try {
+          Thread.sleep(10000);
+        } catch (InterruptedException e) {
+          interruptedAfter.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+        } finally {
+          manager.removeTimeoutProb(timeoutProb);
+        }
+      }
+    });
+    thread.start();
+    thread.join(5000);
+    assertThat(interruptedAfter.get(), greaterThanOrEqualTo(1000L));
+    assertThat(interruptedAfter.get(), lessThan(2000L));
+  }
+
+  @Test
+  public void keepThreadOfRemovedProb() throws InterruptedException {
+    final AtomicBoolean interrupted = new AtomicBoolean();
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        manager.removeTimeoutProb(manager.addTimeoutProb(1));
+        try {
+          Thread.sleep(1500);
+        } catch (InterruptedException e) {
+          interrupted.set(true);
+        }
+      }
+    });
+    thread.start();
+    thread.join(5000);
+    assertThat(interrupted.get(), is(false));
+  }
+
+  @Test
+  public void parkWorkerWithoutProbes() {
+    manager.removeTimeoutProb(manager.addTimeoutProb(1));
+    // parked without a deadline, the worker takes no cpu until the next probe is added
+    await().atMost(5, SECONDS).until(new Callable<Boolean>() {
+      @Override
+      public Boolean call() {
+        return manager.worker.getState() == Thread.State.WAITING
+            && LockSupport.getBlocker(manager.worker) == manager;
+      }
+    });
+  }
+}